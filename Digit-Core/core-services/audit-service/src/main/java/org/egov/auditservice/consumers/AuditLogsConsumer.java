@@ -9,11 +9,11 @@ import org.egov.auditservice.service.AuditLogProcessingService;
 import org.egov.auditservice.web.models.AuditLogRequest;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.kafka.annotation.KafkaListener;
-import org.springframework.kafka.support.KafkaHeaders;
-import org.springframework.messaging.handler.annotation.Header;
 import org.springframework.stereotype.Service;
 
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.List;
 
 @Service
 @Slf4j
@@ -28,18 +28,31 @@ public class AuditLogsConsumer {
     @Autowired
     private PersisterAuditClientService auditLogsProcessingService;
 
-    @KafkaListener(topics = { "${process.audit.logs.kafka.topic}"})
-    public void listen(final HashMap<String, Object> data, @Header(KafkaHeaders.RECEIVED_TOPIC) String topic) {
+    /**
+     * Consumes the messages of a poll together, so that their audit logs are
+     * signed and published as one batch.
+     */
+    @KafkaListener(topics = { "${process.audit.logs.kafka.topic}"}, batch = "true")
+    public void listen(final List<ConsumerRecord<String, HashMap<String, Object>>> records) {
+        List<PersisterClientInput> inputs = new ArrayList<>(records.size());
+        for (ConsumerRecord<String, HashMap<String, Object>> record : records) {
+            HashMap<String, Object> data = record.value();
+            try {
+                inputs.add(PersisterClientInput.builder()
+                        .topic((String) data.get("topic"))
+                        .json(mapper.writeValueAsString(data.get("value")))
+                        .build());
+            } catch (Exception ex) {
+                StringBuilder builder = new StringBuilder("Error while listening to value: ").append(data)
+                        .append("on topic: ").append(record.topic());
+                log.error(builder.toString(), ex);
+            }
+        }
         try {
-            PersisterClientInput input = PersisterClientInput.builder()
-                    .topic((String) data.get("topic"))
-                    .json(mapper.writeValueAsString(data.get("value")))
-                    .build();
-            auditLogsProcessingService.generateAuditLogs(input);
+            auditLogsProcessingService.generateAuditLogs(inputs);
         } catch (Exception ex) {
-            StringBuilder builder = new StringBuilder("Error while listening to value: ").append(data)
-                    .append("on topic: ").append(topic);
-            log.error(builder.toString(), ex);
+            log.error("Error while generating audit logs of " + inputs.size() + " messages on topic: "
+                    + records.get(0).topic(), ex);
         }
     }
 
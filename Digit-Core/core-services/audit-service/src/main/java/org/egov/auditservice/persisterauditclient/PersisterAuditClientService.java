@@ -14,7 +14,6 @@ import org.egov.auditservice.persisterauditclient.utils.AuditUtil;
 import org.egov.auditservice.service.ChooseSignerAndVerifier;
 import org.egov.auditservice.web.models.AuditLog;
 import org.egov.auditservice.web.models.AuditLogRequest;
-import org.egov.auditservice.web.models.AuditLogResponse;
 import org.egov.tracer.model.CustomException;
 import org.postgresql.util.PGobject;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -58,15 +57,72 @@ public class PersisterAuditClientService {
     @Autowired
     private KafkaTemplate kafkaTemplate;
 
+    @Value("${persister.audit.publish.batch.size:100}")
+    private int publishBatchSize;
+
+    // plans are built once for the json maps of each query map of the loaded configs
+    private final Map<List<JsonMap>, RowExtractionPlan> extractionPlans = Collections.synchronizedMap(new IdentityHashMap<>());
+
     public List<AuditLog> generateAuditLogs(PersisterClientInput input) {
+        List<AuditLog> auditLogs = extractAuditLogs(input);
+        sign(auditLogs);
+        publish(auditLogs);
+        return auditLogs;
+    }
+
+    /**
+     * Generates the audit logs of the messages of a poll. The audit logs of all
+     * messages are signed together and published in chunks, so that they are
+     * persisted with a batch insert per chunk. A message that fails is logged
+     * and does not hold back the others.
+     *
+     * When signing the whole poll fails, the audit logs of each message are
+     * signed on their own, so that only the messages which cannot be signed are
+     * lost, as when messages were consumed one at a time.
+     *
+     * @param inputs Messages of the poll
+     * @return Signed audit logs
+     */
+    public List<AuditLog> generateAuditLogs(List<PersisterClientInput> inputs) {
+        List<PersisterClientInput> extractedInputs = new ArrayList<>(inputs.size());
+        List<List<AuditLog>> auditLogsOfMessages = new ArrayList<>(inputs.size());
+        List<AuditLog> auditLogs = new ArrayList<>();
+        for (PersisterClientInput input : inputs) {
+            try {
+                List<AuditLog> auditLogsOfMessage = extractAuditLogs(input);
+                extractedInputs.add(input);
+                auditLogsOfMessages.add(auditLogsOfMessage);
+                auditLogs.addAll(auditLogsOfMessage);
+            } catch (Exception e) {
+                log.error("Error while generating audit logs of message on topic: " + input.getTopic(), e);
+            }
+        }
+        try {
+            sign(auditLogs);
+        } catch (Exception e) {
+            log.error("Error while signing the audit logs of " + auditLogsOfMessages.size()
+                    + " messages together, signing the audit logs of each message separately", e);
+            auditLogs = new ArrayList<>();
+            for (int i = 0; i < auditLogsOfMessages.size(); i++) {
+                try {
+                    sign(auditLogsOfMessages.get(i));
+                    auditLogs.addAll(auditLogsOfMessages.get(i));
+                } catch (Exception messageException) {
+                    log.error("Error while signing audit logs of message on topic: " + extractedInputs.get(i).getTopic(), messageException);
+                }
+            }
+        }
+        publish(auditLogs);
+        return auditLogs;
+    }
+
+    private List<AuditLog> extractAuditLogs(PersisterClientInput input) {
         Map<String, List<Mapping>> map = topicMap.getTopicMap();
         String topic = input.getTopic();
         String json = input.getJson();
         Object document = Configuration.defaultConfiguration().jsonProvider().parse(json);
         List<Mapping> applicableMappings = filterMappings(map.get(topic), document);
         log.info("{} applicable configs found!", applicableMappings.size());
-        List<Map<String, Object>> keyValuePairList;
-        Map<String, String> objectIdVsAuditIdMap = new HashMap<>();
         List<AuditLog> auditLogsResponse = new ArrayList<>();
         for (Mapping mapping : applicableMappings) {
             List<AuditLog> auditLogs = new LinkedList<>();
@@ -100,16 +156,24 @@ public class PersisterAuditClientService {
             auditLogs.forEach(auditLog -> {
                 auditLog.setAuditCorrelationId(objectIdVsAuditCorrelationIdMap.get(auditLog.getObjectId()));
             });
-            if(!CollectionUtils.isEmpty(auditLogs)) {
-                chooseSignerAndVerifier.selectImplementationAndSign(AuditLogRequest.builder().auditLogs(auditLogs).build());
-                AuditLogResponse response = AuditLogResponse.builder().auditLogs(auditLogs).build();
-                kafkaTemplate.send(auditTopic, AuditLogRequest.builder().auditLogs(auditLogs).build());
-                auditLogsResponse.addAll(auditLogs);
-            }
+            auditLogsResponse.addAll(auditLogs);
         }
         return auditLogsResponse;
     }
 
+    private void sign(List<AuditLog> auditLogs) {
+        if (CollectionUtils.isEmpty(auditLogs))
+            return;
+        chooseSignerAndVerifier.selectImplementationAndSign(AuditLogRequest.builder().auditLogs(auditLogs).build());
+    }
+
+    private void publish(List<AuditLog> auditLogs) {
+        for (int from = 0; from < auditLogs.size(); from += publishBatchSize) {
+            List<AuditLog> chunk = new ArrayList<>(auditLogs.subList(from, Math.min(from + publishBatchSize, auditLogs.size())));
+            kafkaTemplate.send(auditTopic, AuditLogRequest.builder().auditLogs(chunk).build());
+        }
+    }
+
     private void enrichObjectIdVsAuditCorrelationIdMap(List<RowData> rowDataList, Map<String, String> objectIdVsAuditCorrelationIdMap) {
         rowDataList.forEach(rowData -> {
             if(!objectIdVsAuditCorrelationIdMap.containsKey(rowData.getAuditAttributes().getObjectId())){
@@ -120,6 +184,9 @@ public class PersisterAuditClientService {
 
     public List<RowData> getRowData(List<JsonMap> jsonMaps, Object jsonObj, String baseJsonPath, Mapping mapping) {
         Map<AuditAttributes, List<LinkedHashMap<String, Object>>> data = extractData(baseJsonPath, mapping, jsonObj);
+        RowExtractionPlan extractionPlan = extractionPlans.computeIfAbsent(jsonMaps, RowExtractionPlan::new);
+        RowExtractionPlan.DocumentValues documentValues = extractionPlan.newDocumentValues(jsonObj);
+        List<RowExtractionPlan.Column> columns = extractionPlan.getColumns();
         List<RowData> rowDataList = new LinkedList<>();
         for (Map.Entry<AuditAttributes, List<LinkedHashMap<String, Object>>> entry : data.entrySet()) {
             AuditAttributes auditAttributes = entry.getKey();
@@ -130,47 +197,39 @@ public class PersisterAuditClientService {
                     continue;
                 if (isChildObjectEmpty(baseJsonPath, rawDataRecord))
                     continue;
-                //List<Object> row = new ArrayList<>();
                 Map<String, Object> keyValuePairs = new LinkedHashMap<>();
-                for (JsonMap jsonMap : jsonMaps) {
-                    String jsonPath = jsonMap.getJsonPath();
-                    TypeEnum type = jsonMap.getType();
-                    TypeEnum dbType = jsonMap.getDbType();
+                for (int c = 0; c < columns.size(); c++) {
+                    RowExtractionPlan.Column column = columns.get(c);
+                    String jsonPath = column.getJsonPath();
+                    TypeEnum type = column.getType();
+                    TypeEnum dbType = column.getDbType();
                     Object value = null;
-//                if(isNull(jsonPath))
-//                    throw new NullPointerException("JSON Path is null: "+jsonMap);
-                    if (type == null) {
-                        type = TypeEnum.STRING;
-                    }
-                    if (jsonPath.contains("{")) {
+                    if (column.getKind() == RowExtractionPlan.Kind.TEMPLATE) {
                         String attribute = jsonPath.substring(jsonPath.indexOf("{") + 1, jsonPath.indexOf("}"));
                         jsonPath = jsonPath.replace("{".concat(attribute).concat("}"), "\"" + rawDataRecord.get(attribute).toString() + "\"");
                         JSONArray jsonArray = JsonPath.read(jsonObj, jsonPath);
-                        // row.add(jsonArray.get(0));
                         keyValuePairs.put(extractSanitizedFieldNameFromJsonPath(jsonPath,keyValuePairs), jsonArray.get(0));
                         continue;
-                    } else if (type.equals(TypeEnum.CURRENTDATE)) {
+                    } else if (column.getKind() == RowExtractionPlan.Kind.CURRENT_DATE) {
                         if (dbType.equals(TypeEnum.DATE)) {
-                            //    row.add(new Date());
                             keyValuePairs.put(extractSanitizedFieldNameFromJsonPath(jsonPath,keyValuePairs), new Date());
                         } else if (dbType.equals(TypeEnum.LONG)) {
-                            //   row.add(new Date().getTime());
                             keyValuePairs.put(extractSanitizedFieldNameFromJsonPath(jsonPath,keyValuePairs), new Date().getTime());
                         }
                         continue;
-                    } else if ((type.equals(TypeEnum.ARRAY)) && dbType.equals(TypeEnum.STRING)) {
-                        List<Object> list1 = JsonPath.read(jsonObj, jsonPath);
+                    } else if (column.getKind() == RowExtractionPlan.Kind.ARRAY) {
+                        List<Object> list1 = (List<Object>) documentValues.get(c);
                         if (CollectionUtils.isEmpty(list1)) {
                             value = null;
                         } else {
                             value = StringUtils.join(list1.get(i), ",");
                             value = value.toString().substring(2, value.toString().lastIndexOf("]") - 1).replace("\"", "");
                         }
-                    } else if (jsonPath.contains("*.")) {
-                        jsonPath = jsonPath.substring(jsonPath.lastIndexOf("*.") + 2);
-                        value = extractValueFromTree(rawDataRecord, jsonPath);
-                    } else if (!(type.equals(TypeEnum.CURRENTDATE) || jsonPath.startsWith("default"))) {
-                        value = JsonPath.read(jsonObj, jsonPath);
+                    } else if (column.getKind() == RowExtractionPlan.Kind.RELATIVE) {
+                        jsonPath = column.getRelativePath();
+                        value = extractValueFromTree(rawDataRecord, column.getRelativePathSegments());
+                    } else if (column.getKind() == RowExtractionPlan.Kind.DOCUMENT) {
+                        value = documentValues.get(c);
                     }
                     if (jsonPath.startsWith("default")) {
                         //    row.add(null);
@@ -304,11 +363,10 @@ public class PersisterAuditClientService {
      * Fetch leaf node value recursively based on json path from java represented json tree
      *
      * @param jsonTree Java represented json tree
-     * @param jsonPath Path of leaf node
+     * @param objDepth Path of leaf node, split at the dots
      * @return Value of leaf node
      */
-    private Object extractValueFromTree(LinkedHashMap<String, Object> jsonTree, String jsonPath) {
-        String[] objDepth = jsonPath.split("\\.");
+    private Object extractValueFromTree(LinkedHashMap<String, Object> jsonTree, String[] objDepth) {
         Object value = null;
         LinkedHashMap<String, Object> jsonTree1 = null;
         for (int k = 0; k < objDepth.length; k++) {
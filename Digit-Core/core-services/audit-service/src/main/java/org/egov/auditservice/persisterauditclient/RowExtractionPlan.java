@@ -0,0 +1,134 @@
+package org.egov.auditservice.persisterauditclient;
+
+import com.jayway.jsonpath.JsonPath;
+import org.egov.auditservice.persisterauditclient.models.contract.JsonMap;
+import org.egov.auditservice.persisterauditclient.models.contract.TypeEnum;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Extraction of the columns of a query map, worked out once per config instead
+ * of once per cell. Columns read from the whole document hold the same value
+ * for every row of a message, they are read once per message.
+ */
+class RowExtractionPlan {
+
+    enum Kind {
+        // json path with a {attribute} placeholder filled from the row
+        TEMPLATE,
+        CURRENT_DATE,
+        ARRAY,
+        // path relative to the row, after the last *.
+        RELATIVE,
+        DEFAULT,
+        DOCUMENT
+    }
+
+    private final List<Column> columns;
+
+    RowExtractionPlan(List<JsonMap> jsonMaps) {
+        List<Column> columns = new ArrayList<>(jsonMaps.size());
+        for (JsonMap jsonMap : jsonMaps) {
+            columns.add(new Column(jsonMap));
+        }
+        this.columns = Collections.unmodifiableList(columns);
+    }
+
+    List<Column> getColumns() {
+        return columns;
+    }
+
+    DocumentValues newDocumentValues(Object document) {
+        return new DocumentValues(document);
+    }
+
+    static class Column {
+
+        private final String jsonPath;
+
+        private final TypeEnum type;
+
+        private final TypeEnum dbType;
+
+        private final Kind kind;
+
+        private final JsonPath compiledPath;
+
+        private final String relativePath;
+
+        private final String[] relativePathSegments;
+
+        private Column(JsonMap jsonMap) {
+            this.jsonPath = jsonMap.getJsonPath();
+            this.type = jsonMap.getType() == null ? TypeEnum.STRING : jsonMap.getType();
+            this.dbType = jsonMap.getDbType();
+            if (jsonPath.contains("{")) {
+                kind = Kind.TEMPLATE;
+            } else if (type.equals(TypeEnum.CURRENTDATE)) {
+                kind = Kind.CURRENT_DATE;
+            } else if (type.equals(TypeEnum.ARRAY) && TypeEnum.STRING.equals(dbType)) {
+                kind = Kind.ARRAY;
+            } else if (jsonPath.contains("*.")) {
+                kind = Kind.RELATIVE;
+            } else if (jsonPath.startsWith("default")) {
+                kind = Kind.DEFAULT;
+            } else {
+                kind = Kind.DOCUMENT;
+            }
+            this.compiledPath = kind == Kind.ARRAY || kind == Kind.DOCUMENT ? JsonPath.compile(jsonPath) : null;
+            this.relativePath = kind == Kind.RELATIVE ? jsonPath.substring(jsonPath.lastIndexOf("*.") + 2) : null;
+            this.relativePathSegments = kind == Kind.RELATIVE ? relativePath.split("\\.") : null;
+        }
+
+        String getJsonPath() {
+            return jsonPath;
+        }
+
+        TypeEnum getType() {
+            return type;
+        }
+
+        TypeEnum getDbType() {
+            return dbType;
+        }
+
+        Kind getKind() {
+            return kind;
+        }
+
+        String getRelativePath() {
+            return relativePath;
+        }
+
+        String[] getRelativePathSegments() {
+            return relativePathSegments;
+        }
+    }
+
+    /**
+     * Values of the document level columns of one message, read on first use.
+     */
+    class DocumentValues {
+
+        private final Object document;
+
+        private final Object[] values = new Object[columns.size()];
+
+        private final boolean[] read = new boolean[columns.size()];
+
+        private DocumentValues(Object document) {
+            this.document = document;
+        }
+
+        Object get(int column) {
+            if (!read[column]) {
+                values[column] = columns.get(column).compiledPath.read(document);
+                read[column] = true;
+            }
+            return values[column];
+        }
+    }
+
+}
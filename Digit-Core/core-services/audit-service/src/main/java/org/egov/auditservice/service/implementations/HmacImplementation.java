@@ -22,6 +22,7 @@ import org.springframework.context.annotation.Bean;
 import org.springframework.stereotype.Service;
 import org.springframework.util.CollectionUtils;
 
+import java.util.ArrayList;
 import java.util.List;
 
 @Slf4j
@@ -37,25 +38,41 @@ public class HmacImplementation implements ConfigurableSignAndVerify {
     @Autowired
     private HMac hMac;
 
+    /**
+     * Signs the audit logs of the request as a batch. The key value maps are
+     * serialized first, then all of them are hashed under a single hold of the
+     * mac, which is shared by the consumer threads.
+     */
     @Override
     public void sign(AuditLogRequest auditLogRequest) {
-        auditLogRequest.getAuditLogs().forEach(auditLog -> {
+        List<AuditLog> auditLogs = auditLogRequest.getAuditLogs();
+        List<String> dataToBeHashed = new ArrayList<>(auditLogs.size());
+        for (AuditLog auditLog : auditLogs) {
             try {
-                String dataToBeHashed = objectMapper.writeValueAsString(auditLog.getKeyValueMap());
-                auditLog.setIntegrityHash(hashData(dataToBeHashed));
+                dataToBeHashed.add(objectMapper.writeValueAsString(auditLog.getKeyValueMap()));
             } catch (JsonProcessingException e) {
                 throw new CustomException("EG_AUDIT_SIGNING_ERR", "Error while parsing key value pairs");
             } catch (Exception e){
                 throw new CustomException("EG_AUDIT_SIGNING_ERR", "Some unknown error occurred while signing: " + e.getMessage());
             }
-        });
+        }
+        synchronized (hMac) {
+            byte[] hmacOut = new byte[hMac.getMacSize()];
+            for (int i = 0; i < auditLogs.size(); i++) {
+                auditLogs.get(i).setIntegrityHash(hashData(dataToBeHashed.get(i), hmacOut));
+            }
+        }
     }
 
     public String hashData(String data) {
+        synchronized (hMac) {
+            return hashData(data, new byte[hMac.getMacSize()]);
+        }
+    }
+
+    private String hashData(String data, byte[] hmacOut) {
         byte[] inputDataBytesArray = data.getBytes();
         hMac.update(inputDataBytesArray, 0, inputDataBytesArray.length);
-        byte[] hmacOut = new byte[hMac.getMacSize()];
-
         hMac.doFinal(hmacOut, 0);
         return new String(Hex.encode(hmacOut));
     }
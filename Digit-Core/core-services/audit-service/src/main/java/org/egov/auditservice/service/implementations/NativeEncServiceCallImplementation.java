@@ -2,9 +2,12 @@ package org.egov.auditservice.service.implementations;
 
 import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
 import lombok.extern.slf4j.Slf4j;
 import org.egov.auditservice.repository.ServiceRequestRepository;
 import org.egov.auditservice.service.ConfigurableSignAndVerify;
+import org.egov.auditservice.web.models.AuditLog;
 import org.egov.auditservice.web.models.AuditLogRequest;
 import org.egov.auditservice.web.models.ObjectIdWrapper;
 import org.egov.auditservice.web.models.encryptionclient.SignRequest;
@@ -14,6 +17,18 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
 @Slf4j
 @Service
 public class NativeEncServiceCallImplementation implements ConfigurableSignAndVerify {
@@ -27,26 +42,84 @@ public class NativeEncServiceCallImplementation implements ConfigurableSignAndVe
     @Value("${egov.enc.sign.endpoint}")
     private String encSignEndpoint;
 
+    @Value("${egov.enc.sign.pool.size:4}")
+    private int signPoolSize;
+
     @Autowired
     private ServiceRequestRepository serviceRequestRepository;
 
+    private ThreadPoolExecutor executor;
+
+    @PostConstruct
+    public void init() {
+        AtomicInteger threadCount = new AtomicInteger();
+        // when the queue is full the consumer thread signs itself, which bounds the calls in flight
+        executor = new ThreadPoolExecutor(signPoolSize, signPoolSize, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(signPoolSize * 4), runnable -> {
+                    Thread thread = new Thread(runnable, "audit-sign-" + threadCount.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                }, new ThreadPoolExecutor.CallerRunsPolicy());
+    }
+
+    @PreDestroy
+    public void destroy() {
+        executor.shutdownNow();
+    }
+
+    /**
+     * Signs the audit logs of the request as a batch. The enc service signs one
+     * value per call, so each distinct value of the batch is signed once, and
+     * the calls are made concurrently on a bounded pool.
+     */
     @Override
     public void sign(AuditLogRequest auditLogRequest) {
-        auditLogRequest.getAuditLogs().forEach(auditLog -> {
+        Map<String, List<AuditLog>> auditLogsBySignRequest = new LinkedHashMap<>();
+        Map<String, SignRequest> signRequests = new HashMap<>();
+        for (AuditLog auditLog : auditLogRequest.getAuditLogs()) {
             try {
                 String dataToBeHashed = objectMapper.writeValueAsString(auditLog.getKeyValueMap());
-                SignRequest signRequest = SignRequest.builder().tenantId(auditLog.getTenantId()).value(dataToBeHashed).build();
-                String signUri = getSignUri();
-                Object response = serviceRequestRepository.fetchResult(signUri, signRequest);
-                SignResponse finalResponse = objectMapper.convertValue(response, SignResponse.class);
-                //log.info(finalResponse.getSignature());
-                auditLog.setIntegrityHash(finalResponse.getSignature());
+                String key = auditLog.getTenantId() + ":" + dataToBeHashed;
+                signRequests.computeIfAbsent(key, k -> SignRequest.builder().tenantId(auditLog.getTenantId()).value(dataToBeHashed).build());
+                auditLogsBySignRequest.computeIfAbsent(key, k -> new ArrayList<>()).add(auditLog);
             } catch (JsonProcessingException e) {
                 throw new CustomException("EG_AUDIT_LOG_CREATE_ERR", "Error occurred while parsing keyValueMap as string" + e.getMessage());
             }
+        }
+
+        String signUri = getSignUri();
+        Map<String, Future<String>> signatures = new LinkedHashMap<>();
+        try {
+            for (String key : auditLogsBySignRequest.keySet()) {
+                SignRequest signRequest = signRequests.get(key);
+                signatures.put(key, executor.submit(() -> fetchSignature(signUri, signRequest)));
+            }
+            for (Map.Entry<String, Future<String>> signature : signatures.entrySet()) {
+                String integrityHash = getSignature(signature.getValue());
+                auditLogsBySignRequest.get(signature.getKey()).forEach(auditLog -> auditLog.setIntegrityHash(integrityHash));
+            }
+        } finally {
+            signatures.values().forEach(signature -> signature.cancel(true));
+        }
+    }
 
-        });
+    private String fetchSignature(String signUri, SignRequest signRequest) {
+        Object response = serviceRequestRepository.fetchResult(signUri, signRequest);
+        SignResponse finalResponse = objectMapper.convertValue(response, SignResponse.class);
+        return finalResponse.getSignature();
+    }
 
+    private String getSignature(Future<String> signature) {
+        try {
+            return signature.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new CustomException("EG_AUDIT_LOG_CREATE_ERR", "Interrupted while signing audit logs");
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException)
+                throw (RuntimeException) e.getCause();
+            throw new CustomException("EG_AUDIT_LOG_CREATE_ERR", "Error occurred while signing audit logs: " + e.getCause().getMessage());
+        }
     }
 
     @Override
@@ -1,9 +1,14 @@
 package org.egov.auditservice.persisterauditclient;
 
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
 import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.any;
 import static org.mockito.Mockito.doNothing;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
@@ -12,29 +17,43 @@ import com.github.zafarkhaja.semver.Version;
 
 import java.util.ArrayList;
 
+import java.util.Arrays;
 import java.util.HashMap;
+import java.util.LinkedList;
 import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
 
 import org.egov.auditservice.persisterauditclient.models.contract.JsonMap;
 import org.egov.auditservice.persisterauditclient.models.contract.Mapping;
 
 import org.egov.auditservice.persisterauditclient.models.contract.PersisterClientInput;
 import org.egov.auditservice.persisterauditclient.models.contract.QueryMap;
+import org.egov.auditservice.persisterauditclient.models.contract.RowData;
 import org.egov.auditservice.persisterauditclient.models.contract.TopicMap;
 import org.egov.auditservice.persisterauditclient.utils.AuditUtil;
 import org.egov.auditservice.service.ChooseSignerAndVerifier;
+import org.egov.auditservice.web.models.AuditLog;
+import org.egov.auditservice.web.models.AuditLogRequest;
 import org.egov.tracer.model.CustomException;
+import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Disabled;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.mock.mockito.MockBean;
 import org.springframework.kafka.core.KafkaTemplate;
 import org.springframework.test.context.ContextConfiguration;
+import org.springframework.test.context.TestPropertySource;
 import org.springframework.test.context.junit.jupiter.SpringExtension;
+import org.springframework.test.util.ReflectionTestUtils;
 
 @ContextConfiguration(classes = {PersisterAuditClientService.class})
 @ExtendWith(SpringExtension.class)
+@TestPropertySource(properties = {"persister.audit.user.jsonpath=$.RequestInfo.userInfo.uuid",
+        "persister.audit.error.queue=audit-error-queue", "persister.audit.kafka.topic=audit-create",
+        "persister.audit.publish.batch.size=2"})
 class PersisterAuditClientServiceTest {
     @MockBean
     private AuditUtil auditUtil;
@@ -138,5 +157,115 @@ class PersisterAuditClientServiceTest {
         verify(mapping).setTransactionCodeJsonPath((String) any());
         verify(mapping).setVersion((String) any());
     }
-}
 
+    private static final String TOPIC = "save-pgr-request-audit";
+
+    private QueryMap queryMap;
+
+    @BeforeEach
+    void setUp() {
+        queryMap = new QueryMap();
+        queryMap.setQuery("INSERT INTO eg_pgr_service_v2(id, tenantid, servicecode) VALUES (?, ?, ?);");
+        queryMap.setBasePath("$.service");
+        queryMap.setJsonMaps(Arrays.asList(jsonMap("$.service.id"), jsonMap("$.service.tenantId"),
+                jsonMap("$.service.serviceCode")));
+
+        Mapping mapping = new Mapping();
+        mapping.setVersion("1.0.0");
+        mapping.setIsAuditEnabled(true);
+        mapping.setModule("PGR");
+        mapping.setObjecIdJsonPath("$.id");
+        mapping.setTenantIdJsonPath("$.tenantId");
+        mapping.setAuditAttributeBasePath("$.service");
+        mapping.setQueryMaps(Arrays.asList(queryMap));
+
+        Map<String, List<Mapping>> mappings = new HashMap<>();
+        mappings.put(TOPIC, Arrays.asList(mapping));
+        when(topicMap.getTopicMap()).thenReturn(mappings);
+        when(auditUtil.getSemVer(anyString())).thenReturn(Version.forIntegers(1));
+        when(auditUtil.getAuditRecord(any(), anyString())).thenAnswer(invocation -> {
+            List<RowData> rowDataList = invocation.getArgument(0);
+            List<AuditLog> auditLogs = new LinkedList<>();
+            for (RowData rowData : rowDataList) {
+                auditLogs.add(AuditLog.builder().objectId(rowData.getAuditAttributes().getObjectId())
+                        .tenantId(rowData.getAuditAttributes().getTenantId())
+                        .keyValueMap(rowData.getKeyValueMap()).build());
+            }
+            return auditLogs;
+        });
+    }
+
+    @Test
+    void testExtractionPlanIsBuiltOncePerQueryMap() {
+        when(chooseSignerAndVerifier.selectImplementationAndSign(any())).thenAnswer(invocation -> sign(invocation.getArgument(0)));
+        // the service is shared by the tests, it holds the plans of their query maps
+        Map<?, ?> extractionPlans = (Map<?, ?>) ReflectionTestUtils.getField(persisterAuditClientService, "extractionPlans");
+        extractionPlans.clear();
+
+        List<AuditLog> auditLogs = persisterAuditClientService.generateAuditLogs(
+                Arrays.asList(input("1", "pb.amritsar", "NoStreetlight"), input("2", "pb.jalandhar", "GarbageNeedsTobeCleared")));
+        Object plan = extractionPlans.get(queryMap.getJsonMaps());
+        persisterAuditClientService.generateAuditLogs(Arrays.asList(input("3", "pb.amritsar", "StreetLightNotWorking")));
+
+        assertEquals(1, extractionPlans.size());
+        assertSame(plan, extractionPlans.get(queryMap.getJsonMaps()));
+        assertEquals(2, auditLogs.size());
+        assertEquals("2", auditLogs.get(1).getObjectId());
+        assertEquals("pb.jalandhar", auditLogs.get(1).getKeyValueMap().get("tenantId"));
+        assertEquals("GarbageNeedsTobeCleared", auditLogs.get(1).getKeyValueMap().get("serviceCode"));
+    }
+
+    @Test
+    void testMessagesAreSignedSeparatelyWhenSigningThePollFails() {
+        // the signer fails on every request holding the audit log of object 2
+        when(chooseSignerAndVerifier.selectImplementationAndSign(any())).thenAnswer(invocation -> {
+            AuditLogRequest request = invocation.getArgument(0);
+            if (request.getAuditLogs().stream().anyMatch(auditLog -> "2".equals(auditLog.getObjectId())))
+                throw new CustomException("EG_ENC_SIGN_ERR", "Failed to sign");
+            return sign(request);
+        });
+
+        List<AuditLog> auditLogs = persisterAuditClientService.generateAuditLogs(Arrays.asList(
+                input("1", "pb.amritsar", "NoStreetlight"), input("2", "pb.amritsar", "NoStreetlight"),
+                input("3", "pb.amritsar", "NoStreetlight")));
+
+        assertEquals(Arrays.asList("1", "3"), auditLogs.stream().map(AuditLog::getObjectId).collect(Collectors.toList()));
+        assertEquals(Arrays.asList("signed-1", "signed-3"),
+                auditLogs.stream().map(AuditLog::getIntegrityHash).collect(Collectors.toList()));
+        verify(chooseSignerAndVerifier, times(4)).selectImplementationAndSign(any());
+        ArgumentCaptor<AuditLogRequest> published = ArgumentCaptor.forClass(AuditLogRequest.class);
+        verify(kafkaTemplate).send(eq("audit-create"), published.capture());
+        assertEquals(2, published.getValue().getAuditLogs().size());
+        assertEquals("signed-3", published.getValue().getAuditLogs().get(1).getIntegrityHash());
+    }
+
+    @Test
+    void testNothingIsPublishedWhenNoMessageCanBeSigned() {
+        when(chooseSignerAndVerifier.selectImplementationAndSign(any()))
+                .thenThrow(new CustomException("EG_ENC_SIGN_ERR", "Failed to sign"));
+
+        List<AuditLog> auditLogs = persisterAuditClientService.generateAuditLogs(Arrays.asList(
+                input("1", "pb.amritsar", "NoStreetlight"), input("2", "pb.amritsar", "NoStreetlight")));
+
+        assertEquals(0, auditLogs.size());
+        verify(chooseSignerAndVerifier, times(3)).selectImplementationAndSign(any());
+        verify(kafkaTemplate, times(0)).send(eq("audit-create"), any());
+    }
+
+    private static List<AuditLog> sign(AuditLogRequest request) {
+        request.getAuditLogs().forEach(auditLog -> auditLog.setIntegrityHash("signed-" + auditLog.getObjectId()));
+        return request.getAuditLogs();
+    }
+
+    private static PersisterClientInput input(String id, String tenantId, String serviceCode) {
+        String json = "{\"RequestInfo\":{\"userInfo\":{\"uuid\":\"user-1\"}},\"service\":{\"id\":\"" + id
+                + "\",\"tenantId\":\"" + tenantId + "\",\"serviceCode\":\"" + serviceCode + "\"}}";
+        return new PersisterClientInput(TOPIC, json);
+    }
+
+    private static JsonMap jsonMap(String jsonPath) {
+        JsonMap jsonMap = new JsonMap();
+        jsonMap.setJsonPath(jsonPath);
+        return jsonMap;
+    }
+}
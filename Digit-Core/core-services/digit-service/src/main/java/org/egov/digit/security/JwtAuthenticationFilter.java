@@ -7,14 +7,12 @@ import jakarta.servlet.http.HttpServletResponse;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
-import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.security.web.authentication.WebAuthenticationDetailsSource;
 import org.springframework.stereotype.Component;
 import org.springframework.web.filter.OncePerRequestFilter;
 
 import java.io.IOException;
-import java.util.Collections;
 
 @Component
 @RequiredArgsConstructor
@@ -33,29 +31,18 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
             String token = authorizationHeader.substring(7);
 
             try {
-                String email = jwtUtil.extractEmail(token);
-
-                if (email != null && SecurityContextHolder.getContext().getAuthentication() == null) {
-                    if (!jwtUtil.isTokenExpired(token)) {
-                        Long userId = jwtUtil.extractUserId(token);
-                        String role = jwtUtil.extractRole(token);
-
-                        UserPrincipal principal = UserPrincipal.builder()
-                                .id(userId)
-                                .email(email)
-                                .role(role)
-                                .accessLevel(jwtUtil.extractAccessLevel(token))
-                                .build();
-
-                        UsernamePasswordAuthenticationToken authToken = new UsernamePasswordAuthenticationToken(
-                                principal,
-                                null,
-                                Collections.singletonList(new SimpleGrantedAuthority("ROLE_" + role.toUpperCase()))
-                        );
-
-                        authToken.setDetails(new WebAuthenticationDetailsSource().buildDetails(request));
-                        SecurityContextHolder.getContext().setAuthentication(authToken);
-                    }
+                if (SecurityContextHolder.getContext().getAuthentication() == null) {
+                    // parsed and verified once, then served from the cache until the token expires
+                    VerifiedToken verified = jwtUtil.verify(token);
+
+                    UsernamePasswordAuthenticationToken authToken = new UsernamePasswordAuthenticationToken(
+                            verified.getPrincipal(),
+                            null,
+                            verified.getAuthorities()
+                    );
+
+                    authToken.setDetails(new WebAuthenticationDetailsSource().buildDetails(request));
+                    SecurityContextHolder.getContext().setAuthentication(authToken);
                 }
             } catch (Exception e) {
                 log.error("JWT authentication error: {}", e.getMessage());
@@ -1,8 +1,10 @@
 package org.egov.digit.security;
 
 import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtParser;
 import io.jsonwebtoken.Jwts;
 import io.jsonwebtoken.security.Keys;
+import jakarta.annotation.PostConstruct;
 import org.egov.digit.model.User;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
@@ -22,8 +24,26 @@ public class JwtUtil {
     @Value("${jwt.expiration:604800000}") // 7 days default
     private Long expiration;
 
+    @Value("${jwt.cache.max-size:10000}")
+    private int cacheMaxSize;
+
+    private SecretKey signingKey;
+
+    private JwtParser parser;
+
+    private VerifiedTokenCache tokenCache;
+
+    @PostConstruct
+    public void init() {
+        signingKey = Keys.hmacShaKeyFor(secret.getBytes(StandardCharsets.UTF_8));
+        parser = Jwts.parser()
+                .verifyWith(signingKey)
+                .build();
+        tokenCache = new VerifiedTokenCache(cacheMaxSize);
+    }
+
     private SecretKey getSigningKey() {
-        return Keys.hmacShaKeyFor(secret.getBytes(StandardCharsets.UTF_8));
+        return signingKey;
     }
 
     public String generateToken(User user) {
@@ -43,31 +63,43 @@ public class JwtUtil {
     }
 
     public Claims extractAllClaims(String token) {
-        return Jwts.parser()
-                .verifyWith(getSigningKey())
-                .build()
+        return parser
                 .parseSignedClaims(token)
                 .getPayload();
     }
 
+    /**
+     * Parses the token and verifies its signature and expiry once, the
+     * verified claims are then served from the cache until the token expires.
+     */
+    public VerifiedToken verify(String token) {
+        long now = System.currentTimeMillis();
+        VerifiedToken verified = tokenCache.get(token, now);
+        if (verified == null) {
+            verified = VerifiedToken.from(extractAllClaims(token));
+            tokenCache.put(token, verified, now);
+        }
+        return verified;
+    }
+
     public String extractEmail(String token) {
-        return extractAllClaims(token).getSubject();
+        return verify(token).getEmail();
     }
 
     public Long extractUserId(String token) {
-        return extractAllClaims(token).get("id", Long.class);
+        return verify(token).getUserId();
     }
 
     public String extractRole(String token) {
-        return extractAllClaims(token).get("role", String.class);
+        return verify(token).getRole();
     }
 
     public String extractAccessLevel(String token) {
-        return extractAllClaims(token).get("accessLevel", String.class);
+        return verify(token).getAccessLevel();
     }
 
     public boolean isTokenExpired(String token) {
-        return extractAllClaims(token).getExpiration().before(new Date());
+        return verify(token).isExpired(System.currentTimeMillis());
     }
 
     public boolean validateToken(String token, String email) {
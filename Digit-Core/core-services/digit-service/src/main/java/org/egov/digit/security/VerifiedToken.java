@@ -0,0 +1,83 @@
+package org.egov.digit.security;
+
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.MalformedJwtException;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+
+import java.util.Collections;
+import java.util.Date;
+import java.util.List;
+
+/**
+ * Claims of a JWT whose signature has been verified, read once from the
+ * token along with the authorities they resolve to.
+ */
+public final class VerifiedToken {
+
+    private final Long userId;
+    private final String email;
+    private final String role;
+    private final String accessLevel;
+    private final long expiresAt;
+    private final List<GrantedAuthority> authorities;
+
+    private VerifiedToken(Claims claims) {
+        this.userId = claims.get("id", Long.class);
+        this.email = claims.getSubject();
+        this.role = claims.get("role", String.class);
+        this.accessLevel = claims.get("accessLevel", String.class);
+        Date expiration = claims.getExpiration();
+        this.expiresAt = expiration == null ? Long.MAX_VALUE : expiration.getTime();
+
+        if (email == null || role == null) {
+            throw new MalformedJwtException("JWT has no subject or role");
+        }
+        this.authorities = Collections.singletonList(new SimpleGrantedAuthority("ROLE_" + role.toUpperCase()));
+    }
+
+    public static VerifiedToken from(Claims claims) {
+        return new VerifiedToken(claims);
+    }
+
+    public Long getUserId() {
+        return userId;
+    }
+
+    public String getEmail() {
+        return email;
+    }
+
+    public String getRole() {
+        return role;
+    }
+
+    public String getAccessLevel() {
+        return accessLevel;
+    }
+
+    public long getExpiresAt() {
+        return expiresAt;
+    }
+
+    public boolean isExpired(long now) {
+        return expiresAt <= now;
+    }
+
+    /**
+     * Builds a new principal on each call, the token is shared by all the
+     * requests carrying it while the principal can be modified by any of them.
+     */
+    public UserPrincipal getPrincipal() {
+        return UserPrincipal.builder()
+                .id(userId)
+                .email(email)
+                .role(role)
+                .accessLevel(accessLevel)
+                .build();
+    }
+
+    public List<GrantedAuthority> getAuthorities() {
+        return authorities;
+    }
+}
@@ -0,0 +1,74 @@
+package org.egov.digit.security;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Base64;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Bounded cache of verified tokens until they expire, keyed by the SHA-256
+ * hash of the token so the tokens themselves are not kept in memory.
+ *
+ * The tokens are kept in access order, when the cache is full the least
+ * recently used token is evicted, which only costs that token another
+ * verification. Expired tokens are dropped when they are looked up, or
+ * evicted in turn once they are no longer used.
+ */
+class VerifiedTokenCache {
+
+    private final int maxSize;
+
+    private final Map<String, VerifiedToken> tokens;
+
+    VerifiedTokenCache(int maxSize) {
+        this.maxSize = maxSize;
+        this.tokens = new LinkedHashMap<String, VerifiedToken>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, VerifiedToken> eldest) {
+                return size() > VerifiedTokenCache.this.maxSize;
+            }
+        };
+    }
+
+    VerifiedToken get(String token, long now) {
+        if (maxSize <= 0) {
+            return null;
+        }
+        String key = hash(token);
+        synchronized (tokens) {
+            VerifiedToken verified = tokens.get(key);
+            if (verified != null && verified.isExpired(now)) {
+                tokens.remove(key);
+                return null;
+            }
+            return verified;
+        }
+    }
+
+    void put(String token, VerifiedToken verified, long now) {
+        if (maxSize <= 0 || verified.isExpired(now)) {
+            return;
+        }
+        String key = hash(token);
+        synchronized (tokens) {
+            tokens.put(key, verified);
+        }
+    }
+
+    int size() {
+        synchronized (tokens) {
+            return tokens.size();
+        }
+    }
+
+    private static String hash(String token) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(token.getBytes(StandardCharsets.UTF_8));
+            return Base64.getEncoder().encodeToString(digest);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+}
@@ -0,0 +1,182 @@
+package org.egov.digit.security;
+
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.security.Keys;
+import org.egov.digit.model.User;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Date;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Throughput of authenticating a request with {@link JwtAuthenticationFilter}
+ * for a pool of users' tokens: with the verified token cache, without it (one
+ * parse per request), and the earlier filter that parsed the token once per
+ * claim it read.
+ *
+ * Run with {@code mvn test-compile} and then the main method of this class,
+ * with the test classpath.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class JwtAuthenticationFilterBenchmark {
+
+    private static final String SECRET = "benchmark_jwt_secret_key_minimum_256_bits_required_for_hs256_algorithm";
+
+    private static final int USERS = 1000;
+
+    @State(Scope.Benchmark)
+    public static class Tokens {
+
+        String[] tokens = new String[USERS];
+
+        @Setup
+        public void setUp() {
+            JwtUtil jwtUtil = newJwtUtil(0);
+            for (int i = 0; i < USERS; i++) {
+                tokens[i] = jwtUtil.generateToken(User.builder()
+                        .id((long) i)
+                        .email("user" + i + "@digit.org")
+                        .role(i % 10 == 0 ? "admin" : "user")
+                        .accessLevel("full")
+                        .build());
+            }
+        }
+    }
+
+    @State(Scope.Benchmark)
+    public static class CachedFilter {
+
+        JwtAuthenticationFilter filter;
+
+        @Setup
+        public void setUp(Tokens tokens) throws Exception {
+            filter = new JwtAuthenticationFilter(newJwtUtil(10000));
+            check(filter, tokens.tokens[1]);
+        }
+    }
+
+    @State(Scope.Benchmark)
+    public static class UncachedFilter {
+
+        JwtAuthenticationFilter filter;
+
+        @Setup
+        public void setUp(Tokens tokens) throws Exception {
+            filter = new JwtAuthenticationFilter(newJwtUtil(0));
+            check(filter, tokens.tokens[1]);
+        }
+    }
+
+    @State(Scope.Thread)
+    public static class Request {
+
+        int next;
+        MockHttpServletRequest request;
+        MockHttpServletResponse response;
+        MockFilterChain chain;
+
+        @Setup(Level.Invocation)
+        public void setUp(Tokens tokens) {
+            request = new MockHttpServletRequest("GET", "/api/users");
+            request.addHeader("Authorization", "Bearer " + tokens.tokens[next]);
+            response = new MockHttpServletResponse();
+            chain = new MockFilterChain();
+            next = (next + 1) % USERS;
+        }
+
+        @TearDown(Level.Invocation)
+        public void tearDown() {
+            SecurityContextHolder.clearContext();
+        }
+    }
+
+    @Benchmark
+    public Authentication cachedVerification(CachedFilter state, Request request) throws Exception {
+        state.filter.doFilter(request.request, request.response, request.chain);
+        return SecurityContextHolder.getContext().getAuthentication();
+    }
+
+    @Benchmark
+    public Authentication singleVerification(UncachedFilter state, Request request) throws Exception {
+        state.filter.doFilter(request.request, request.response, request.chain);
+        return SecurityContextHolder.getContext().getAuthentication();
+    }
+
+    /**
+     * The reads of the earlier filter: the email, the expiry, the id, the role
+     * and the access level, each building the key and parser and verifying
+     * the token again.
+     */
+    @Benchmark
+    public Object verificationPerClaim(Request request) {
+        String token = request.request.getHeader("Authorization").substring(7);
+        Object[] claims = new Object[5];
+        claims[0] = parse(token).getSubject();
+        claims[1] = parse(token).getExpiration().before(new Date());
+        claims[2] = parse(token).get("id", Long.class);
+        claims[3] = parse(token).get("role", String.class);
+        claims[4] = parse(token).get("accessLevel", String.class);
+        return claims;
+    }
+
+    private static Claims parse(String token) {
+        return Jwts.parser()
+                .verifyWith(Keys.hmacShaKeyFor(SECRET.getBytes(StandardCharsets.UTF_8)))
+                .build()
+                .parseSignedClaims(token)
+                .getPayload();
+    }
+
+    private static JwtUtil newJwtUtil(int cacheMaxSize) {
+        JwtUtil jwtUtil = new JwtUtil();
+        ReflectionTestUtils.setField(jwtUtil, "secret", SECRET);
+        ReflectionTestUtils.setField(jwtUtil, "expiration", 3600000L);
+        ReflectionTestUtils.setField(jwtUtil, "cacheMaxSize", cacheMaxSize);
+        jwtUtil.init();
+        return jwtUtil;
+    }
+
+    private static void check(JwtAuthenticationFilter filter, String token) throws Exception {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/users");
+        request.addHeader("Authorization", "Bearer " + token);
+        filter.doFilter(request, new MockHttpServletResponse(), new MockFilterChain());
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        SecurityContextHolder.clearContext();
+        if (authentication == null || !"user1@digit.org".equals(((UserPrincipal) authentication.getPrincipal()).getEmail())
+                || !authentication.getAuthorities().iterator().next().getAuthority().equals("ROLE_USER")) {
+            throw new IllegalStateException("The filter did not authenticate the request: " + authentication);
+        }
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(JwtAuthenticationFilterBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+}
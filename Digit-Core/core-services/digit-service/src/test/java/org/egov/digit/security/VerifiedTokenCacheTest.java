@@ -0,0 +1,127 @@
+package org.egov.digit.security;
+
+import io.jsonwebtoken.JwtException;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.security.Keys;
+import org.egov.digit.model.User;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Date;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class VerifiedTokenCacheTest {
+
+    private static final String SECRET = "test_secret_key_for_the_verified_token_cache_of_at_least_256_bits";
+
+    @Test
+    void expiredTokenIsNotServed() {
+        VerifiedTokenCache cache = new VerifiedTokenCache(10);
+        VerifiedToken verified = token(1L, 1000L);
+
+        cache.put("token-1", verified, 0L);
+
+        assertSame(verified, cache.get("token-1", 999L));
+        assertNull(cache.get("token-1", 1000L));
+        assertEquals(0, cache.size());
+    }
+
+    @Test
+    void expiredTokenIsNotCached() {
+        VerifiedTokenCache cache = new VerifiedTokenCache(10);
+
+        cache.put("token-1", token(1L, 1000L), 1000L);
+
+        assertEquals(0, cache.size());
+    }
+
+    @Test
+    void leastRecentlyUsedTokenIsEvictedWhenFull() {
+        VerifiedTokenCache cache = new VerifiedTokenCache(2);
+        VerifiedToken first = token(1L, Long.MAX_VALUE);
+        VerifiedToken second = token(2L, Long.MAX_VALUE);
+        VerifiedToken third = token(3L, Long.MAX_VALUE);
+
+        cache.put("token-1", first, 0L);
+        cache.put("token-2", second, 0L);
+        cache.get("token-1", 0L);
+        cache.put("token-3", third, 0L);
+
+        assertEquals(2, cache.size());
+        assertSame(first, cache.get("token-1", 0L));
+        assertNull(cache.get("token-2", 0L));
+        assertSame(third, cache.get("token-3", 0L));
+    }
+
+    @Test
+    void zeroSizeDisablesTheCache() {
+        VerifiedTokenCache cache = new VerifiedTokenCache(0);
+
+        cache.put("token-1", token(1L, Long.MAX_VALUE), 0L);
+
+        assertNull(cache.get("token-1", 0L));
+        assertEquals(0, cache.size());
+    }
+
+    @Test
+    void tokenWithBadSignatureIsNeverCached() {
+        JwtUtil jwtUtil = jwtUtil();
+        String forged = Jwts.builder()
+                .subject("user1@digit.org")
+                .claim("role", "admin")
+                .expiration(new Date(System.currentTimeMillis() + 60000))
+                .signWith(Keys.hmacShaKeyFor("another_secret_key_which_is_also_at_least_256_bits_long_xx"
+                        .getBytes(StandardCharsets.UTF_8)))
+                .compact();
+
+        assertThrows(JwtException.class, () -> jwtUtil.verify(forged));
+        assertThrows(JwtException.class, () -> jwtUtil.verify(forged));
+        assertEquals(0, cache(jwtUtil).size());
+    }
+
+    @Test
+    void verifiedTokenIsServedFromTheCacheWithItsOwnPrincipal() {
+        JwtUtil jwtUtil = jwtUtil();
+        User user = new User();
+        user.setId(7L);
+        user.setEmail("user1@digit.org");
+        String token = jwtUtil.generateToken(user);
+
+        VerifiedToken verified = jwtUtil.verify(token);
+        UserPrincipal principal = verified.getPrincipal();
+        principal.setRole("admin");
+
+        assertSame(verified, jwtUtil.verify(token));
+        assertEquals(1, cache(jwtUtil).size());
+        assertNotSame(principal, verified.getPrincipal());
+        assertEquals("user", jwtUtil.verify(token).getPrincipal().getRole());
+    }
+
+    private static VerifiedToken token(Long userId, long expiresAt) {
+        return VerifiedToken.from(Jwts.claims()
+                .subject("user" + userId + "@digit.org")
+                .add("id", userId)
+                .add("role", "user")
+                .expiration(new Date(expiresAt))
+                .build());
+    }
+
+    private static JwtUtil jwtUtil() {
+        JwtUtil jwtUtil = new JwtUtil();
+        ReflectionTestUtils.setField(jwtUtil, "secret", SECRET);
+        ReflectionTestUtils.setField(jwtUtil, "expiration", 60000L);
+        ReflectionTestUtils.setField(jwtUtil, "cacheMaxSize", 10);
+        jwtUtil.init();
+        return jwtUtil;
+    }
+
+    private static VerifiedTokenCache cache(JwtUtil jwtUtil) {
+        return (VerifiedTokenCache) ReflectionTestUtils.getField(jwtUtil, "tokenCache");
+    }
+}
@@ -32,4 +32,12 @@ public class Definition {
     @JsonProperty("requests")
     private List<Request> requests;
 
+    // rows of a flat upload sent to the module at the same time
+    @JsonProperty("parallelism")
+    private Integer parallelism;
+
+    // calls per second made to the module for all jobs of the definition
+    @JsonProperty("ratePerSecond")
+    private Double ratePerSecond;
+
 }
\ No newline at end of file
@@ -0,0 +1,34 @@
+package org.egov.dataupload.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+import lombok.ToString;
+
+/**
+ * Rows of an upload job which have been processed, in the order of the file,
+ * so that a job picked up again does not send them again.
+ */
+@Getter
+@Setter
+@ToString
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+public class UploadCheckpoint {
+
+    private String code;
+
+    private String tenantId;
+
+    private Integer processedRows;
+
+    private Integer successfulRows;
+
+    private Integer failedRows;
+
+    private Long lastModifiedTime;
+
+}
@@ -0,0 +1,59 @@
+package org.egov.dataupload.repository;
+
+import java.util.List;
+
+import org.egov.dataupload.model.UploadCheckpoint;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public class UploadCheckpointRepository {
+
+	public static final Logger logger = LoggerFactory.getLogger(UploadCheckpointRepository.class);
+
+	private static final String SEARCH_QUERY = "SELECT CODE, TENANTID, PROCESSED_ROWS, SUCCESS_ROWS, FAILED_ROWS, "
+			+ "LASTMODIFIEDDATE FROM EGDU_UPLOAD_CHECKPOINT WHERE CODE=? AND TENANTID=?";
+
+	private static final String UPSERT_QUERY = "INSERT INTO EGDU_UPLOAD_CHECKPOINT(CODE, TENANTID, PROCESSED_ROWS, "
+			+ "SUCCESS_ROWS, FAILED_ROWS, LASTMODIFIEDDATE) VALUES(?,?,?,?,?,?) ON CONFLICT (CODE, TENANTID) DO UPDATE "
+			+ "SET PROCESSED_ROWS=EXCLUDED.PROCESSED_ROWS, SUCCESS_ROWS=EXCLUDED.SUCCESS_ROWS, "
+			+ "FAILED_ROWS=EXCLUDED.FAILED_ROWS, LASTMODIFIEDDATE=EXCLUDED.LASTMODIFIEDDATE";
+
+	private static final String DELETE_QUERY = "DELETE FROM EGDU_UPLOAD_CHECKPOINT WHERE CODE=? AND TENANTID=?";
+
+	@Autowired
+	private JdbcTemplate jdbcTemplate;
+
+	public UploadCheckpoint getCheckpoint(String code, String tenantId) {
+		List<UploadCheckpoint> checkpoints = jdbcTemplate.query(SEARCH_QUERY, new Object[] { code, tenantId },
+				(rs, rowNum) -> UploadCheckpoint.builder().code(rs.getString("code")).tenantId(rs.getString("tenantid"))
+						.processedRows(rs.getInt("processed_rows")).successfulRows(rs.getInt("success_rows"))
+						.failedRows(rs.getInt("failed_rows")).lastModifiedTime(rs.getLong("lastmodifieddate")).build());
+		return checkpoints.isEmpty() ? null : checkpoints.get(0);
+	}
+
+	/**
+	 * Saves the checkpoint, a failure is logged and not thrown since the job can
+	 * go on without it.
+	 */
+	public void saveCheckpoint(UploadCheckpoint checkpoint) {
+		try {
+			jdbcTemplate.update(UPSERT_QUERY, checkpoint.getCode(), checkpoint.getTenantId(),
+					checkpoint.getProcessedRows(), checkpoint.getSuccessfulRows(), checkpoint.getFailedRows(),
+					checkpoint.getLastModifiedTime());
+		} catch (Exception e) {
+			logger.error("Exception while saving checkpoint of job code: " + checkpoint.getCode(), e);
+		}
+	}
+
+	public void deleteCheckpoint(String code, String tenantId) {
+		try {
+			jdbcTemplate.update(DELETE_QUERY, code, tenantId);
+		} catch (Exception e) {
+			logger.error("Exception while deleting checkpoint of job code: " + code, e);
+		}
+	}
+}
@@ -1,8 +1,8 @@
 package org.egov.dataupload.service;
 
+import java.io.File;
 import java.io.FileInputStream;
 import java.io.IOException;
-import java.io.InputStream;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.Date;
@@ -12,6 +12,7 @@ import java.util.Map;
 import java.util.Map.Entry;
 import java.util.Objects;
 import java.util.Optional;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import org.egov.DataUploadApplicationRunnerImpl;
 import org.egov.dataupload.model.Definition;
@@ -20,6 +21,7 @@ import org.egov.dataupload.model.Document;
 import org.egov.dataupload.model.JobSearchRequest;
 import org.egov.dataupload.model.ModuleDefs;
 import org.egov.dataupload.model.Request;
+import org.egov.dataupload.model.UploadCheckpoint;
 import org.egov.dataupload.model.UploadDefinition;
 import org.egov.dataupload.model.UploadJob;
 import org.egov.dataupload.model.UploadJob.StatusEnum;
@@ -27,8 +29,11 @@ import org.egov.dataupload.model.UploaderRequest;
 import org.egov.dataupload.producer.DataUploadProducer;
 import org.egov.dataupload.property.models.AuditDetails;
 import org.egov.dataupload.repository.DataUploadRepository;
+import org.egov.dataupload.repository.UploadCheckpointRepository;
 import org.egov.dataupload.repository.UploadRegistryRepository;
 import org.egov.dataupload.utils.DataUploadUtils;
+import org.egov.dataupload.utils.ExcelResultWriter;
+import org.egov.dataupload.utils.RateLimiter;
 import org.egov.tracer.model.CustomException;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -38,6 +43,8 @@ import org.springframework.dao.DataAccessException;
 import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Service;
 import org.springframework.web.client.HttpClientErrorException;
+import org.springframework.web.client.HttpServerErrorException;
+import org.springframework.web.client.ResourceAccessException;
 import org.springframework.web.client.RestClientException;
 
 import com.fasterxml.jackson.core.JsonProcessingException;
@@ -69,6 +76,12 @@ public class DataUploadService {
     @Autowired
     private FileIO excelIO;
 
+    @Autowired
+    private UploadExecutor uploadExecutor;
+
+    @Autowired
+    private UploadCheckpointRepository uploadCheckpointRepository;
+
     @Autowired
     private ObjectMapper objectMapper;
 
@@ -96,6 +109,21 @@ public class DataUploadService {
     @Value("${uploadjob.update.progress.size}")
     private int updateProgressSize;
 
+    @Value("${upload.default.parallelism}")
+    private int defaultParallelism;
+
+    @Value("${upload.default.rate.per.second}")
+    private double defaultRatePerSecond;
+
+    @Value("${upload.retry.max.attempts}")
+    private int retryMaxAttempts;
+
+    @Value("${upload.retry.backoff.ms}")
+    private long retryBackoffMs;
+
+    @Value("${upload.retry.max.backoff.ms}")
+    private long retryMaxBackoffMs;
+
     private static final Logger logger = LoggerFactory.getLogger(DataUploadService.class);
 
     public List<UploadJob> createUploadJob(UploaderRequest uploaderRequest) {
@@ -204,8 +232,11 @@ public class DataUploadService {
         AuditDetails auditDetails = uploadJob.getAuditDetails();
         auditDetails.setLastModifiedTime(new Date().getTime());
 
-        try (InputStream file = new FileInputStream(uploadJob.getLocalFilePath())) {
-            Document document = excelIO.read(file);
+        try {
+            File file = new File(uploadJob.getLocalFilePath());
+            boolean isParentChild = null != uploadDefinition.getIsParentChild() && uploadDefinition.getIsParentChild();
+            // rows of a parent are grouped from the whole sheet, flat rows are sent as they are read
+            Document document = isParentChild ? excelIO.read(file) : null;
 
             uploadJob.setEndTime(0L);
             uploadJob.setFailedRows(0);
@@ -213,15 +244,15 @@ public class DataUploadService {
             uploadJob.setSuccessfulRows(0);
             uploadJob.setStatus(StatusEnum.INPROGRESS);
             uploadJob.setResponseFilePath(null);
-            uploadJob.setTotalRows(document.getRows().size());
+            uploadJob.setTotalRows(isParentChild ? document.getRows().size() : countRows(file));
 
             updateJobsWithPersister(auditDetails,uploadJob,false);
 //            uploadRegistryRepository.updateJob(uploadJob);
 
-            if (null != uploadDefinition.getIsParentChild() && uploadDefinition.getIsParentChild()) {
+            if (isParentChild) {
                 uploadParentChildData(document, uploadDefinition, uploaderRequest);
             } else {
-                uploadFlatData(document, uploadDefinition, uploaderRequest);
+                uploadFlatData(file, uploadDefinition, uploaderRequest);
             }
 
         } catch (IOException e) {
@@ -244,80 +275,111 @@ public class DataUploadService {
     }
 
 
-    private void uploadFlatData(Document document, Definition uploadDefinition, UploaderRequest
-            uploaderRequest) {
-        List<Object> outputHeaders = new ArrayList<>(document.getHeaders());
+    /**
+     * Counts the rows of the file without keeping them.
+     */
+    private int countRows(File file) throws IOException {
+        AtomicInteger rows = new AtomicInteger();
+        excelIO.read(file, new RowHandler<RuntimeException>() {
+            @Override
+            public void headers(List<String> headers) {
+            }
+
+            @Override
+            public void row(List<Object> row) {
+                rows.incrementAndGet();
+            }
+        });
+        return rows.get();
+    }
+
+    /**
+     * Sends the rows of the file as they are read, only the rows in flight and
+     * the last rows of the result file are held in memory.
+     */
+    private void uploadFlatData(File file, Definition uploadDefinition, UploaderRequest uploaderRequest) {
+        List<Object> outputHeaders = new ArrayList<>();
+        List<String> columnHeaders = new ArrayList<>();
         UploadJob uploadJob = uploaderRequest.uploadJobs.get(0);
         List<Request> requests = uploadDefinition.getRequests();
         List<DocumentContext> documentContexts = new ArrayList<>();
         AuditDetails auditDetails = uploadJob.getAuditDetails();
-        List<List<Object>> responseJsonPathLists=initialiseUploadProcess(document, uploadDefinition, uploaderRequest,outputHeaders,uploadJob
+        List<List<Object>> responseJsonPathLists=initialiseUploadProcess(uploadDefinition, uploaderRequest,outputHeaders,uploadJob
                 ,requests,documentContexts,auditDetails);
 
-        try {
-            String resultFilePath = dataUploadUtils.createANewFile(resFilePrefix + uploadJob.getRequestFileName());
-            dataUploadUtils.writeToexcelSheet(outputHeaders, resultFilePath);
-            int successCount = 0;
-            int failureCount = 0;
-            int recordCount=1;
-            for (List<Object> row : document.getRows()) {
-                Object previousResponse = null;
-                String failureMessage = "";
-                List<Object> responseFields = new ArrayList<>();
+        String executionName = uploadJob.getModuleName() + "-" + uploadJob.getDefName();
+        int parallelism = null != uploadDefinition.getParallelism() ? uploadDefinition.getParallelism()
+                : defaultParallelism;
+        RateLimiter rateLimiter = uploadExecutor.getRateLimiter(executionName,
+                null != uploadDefinition.getRatePerSecond() ? uploadDefinition.getRatePerSecond() : defaultRatePerSecond);
 
-                for (int i = 0; i < uploadDefinition.getRequests().size(); i++) {
-                    logger.debug("row: " + row.toString());
-                    if (!row.isEmpty()) {
-                        String request = buildRequest(document.getHeaders(), requests.get(i), documentContexts.get(i),
-                                uploaderRequest, row, previousResponse);
-                        Object response = hitApi(request, dataUploadUtils.getURI(requests.get(i).getUrl
-                                ()));
+        UploadCheckpoint checkpoint = uploadCheckpointRepository.getCheckpoint(uploadJob.getCode(), uploadJob.getTenantId());
+        if (null == checkpoint) {
+            checkpoint = UploadCheckpoint.builder().code(uploadJob.getCode()).tenantId(uploadJob.getTenantId())
+                    .processedRows(0).successfulRows(0).failedRows(0).build();
+        } else {
+            logger.info("Resuming job " + uploadJob.getCode() + " after " + checkpoint.getProcessedRows() + " processed rows");
+        }
+        int resumeFrom = checkpoint.getProcessedRows();
 
-                        previousResponse = response;
+        try {
+            // each row fills its own copy of the requests, rows are sent concurrently
+            List<String> apiRequests = new ArrayList<>();
+            for (Request request : requests) {
+                apiRequests.add(objectMapper.writeValueAsString(request.getApiRequest()));
+            }
 
-                        if (response == null) {
-                            failureMessage = "Module API failed with empty body in response";
+            String resultFilePath;
+            UploadCheckpoint progress = checkpoint;
+            try (ExcelResultWriter resultWriter = dataUploadUtils.createResultWriter(resFilePrefix + uploadJob
+                    .getRequestFileName());
+                 UploadExecutor.Execution<List<Object>, RowResult> execution = uploadExecutor.start(executionName,
+                         parallelism,
+                         row -> uploadRow(row, columnHeaders, requests, apiRequests, responseJsonPathLists,
+                                 uploaderRequest, rateLimiter),
+                         (row, result) -> {
+                             writeResultToExcel(result.failureMessage, row, result.responseFields, resultWriter);
+                             updateProgress(progress, result, uploadJob, auditDetails);
+                         })) {
+                resultFilePath = resultWriter.getFilePath();
+
+                excelIO.read(file, new RowHandler<Exception>() {
+
+                    private int rowIndex = 0;
+
+                    @Override
+                    public void headers(List<String> headers) {
+                        columnHeaders.addAll(headers);
+                        outputHeaders.addAll(0, headers);
+                        resultWriter.writeRow(outputHeaders);
+                    }
+
+                    @Override
+                    public void row(List<Object> row) throws Exception {
+                        // rows sent before the job was resumed are not sent again
+                        if (rowIndex++ < resumeFrom) {
+                            row.add("PROCESSED");
+                            row.add("Sent before the job was resumed");
+                            resultWriter.writeRow(row);
                         } else {
-                            if (response instanceof String) {
-                                failureMessage = (String) response;
-                            }
+                            execution.submit(row);
                         }
-                        responseFields.addAll(dataUploadUtils.fetchValuesFromResponse(response, responseJsonPathLists
-                                .get(i)));
                     }
-                }
-
-                if(!failureMessage.isEmpty()){
-                    failureCount++;
-                    writeResultToExcel(failureMessage, row, responseFields, resultFilePath);
-                }
-                else{
-                    successCount++;
-                    writeResultToExcel(failureMessage, row, responseFields, resultFilePath);
-                }
-                if((recordCount%updateProgressSize)==0)
-                {   // update progress after every 'updateProgressSize' records
-                    uploadJob.setSuccessfulRows(successCount);
-                    uploadJob.setFailedRows(failureCount);
-                    uploadJob.setStatus(StatusEnum.INPROGRESS);
-
-                    auditDetails.setLastModifiedTime(new Date().getTime());
-
-                    updateJobsWithPersister(auditDetails,uploadJob,false);
-                }
-                recordCount++;
+                });
+                execution.finish();
             }
             auditDetails.setLastModifiedTime(new Date().getTime());
             String responseFilePath = getFileStoreId(uploadJob.getTenantId(), uploadJob.getModuleName(), resultFilePath);
 
-            uploadJob.setSuccessfulRows(successCount);
-            uploadJob.setFailedRows(failureCount);
+            uploadJob.setSuccessfulRows(checkpoint.getSuccessfulRows());
+            uploadJob.setFailedRows(checkpoint.getFailedRows());
             uploadJob.setEndTime(new Date().getTime());
             uploadJob.setResponseFilePath(responseFilePath);
             uploadJob.setStatus(StatusEnum.COMPLETED);
 
 
             updateJobsWithPersister(auditDetails,uploadJob,false);
+            uploadCheckpointRepository.deleteCheckpoint(uploadJob.getCode(), uploadJob.getTenantId());
 
 //            uploadRegistryRepository.updateJob(uploadJob);
 
@@ -332,6 +394,78 @@ public class DataUploadService {
 
 //            uploadRegistryRepository.updateJob(uploadJob);
             throw new CustomException("IO_EXCEPTION", "Unable to write to output file");
+        } catch (RuntimeException e) {
+            throw e;
+        } catch (Exception e) {
+            // only the waits of the executor remain, interrupted or failed on a row
+            logger.error("Upload of rows interrupted after " + checkpoint.getProcessedRows() + " rows.", e);
+            if (e instanceof InterruptedException)
+                Thread.currentThread().interrupt();
+            uploadCheckpointRepository.saveCheckpoint(checkpoint);
+            uploadJob.setEndTime(new Date().getTime());
+            uploadJob.setSuccessfulRows(checkpoint.getSuccessfulRows());
+            uploadJob.setFailedRows(checkpoint.getFailedRows());
+            uploadJob.setStatus(StatusEnum.FAILED);
+            uploadJob.setReasonForFailure("Upload interrupted after " + checkpoint.getProcessedRows() + " rows");
+
+            updateJobsWithPersister(auditDetails,uploadJob,false);
+            throw new CustomException("UPLOAD_INTERRUPTED", "Upload interrupted before all rows were sent");
+        }
+    }
+
+    /**
+     * Sends the requests of a row, each request can use the response of the
+     * previous one.
+     */
+    private RowResult uploadRow(List<Object> row, List<String> columnHeaders, List<Request> requests,
+                                List<String> apiRequests, List<List<Object>> responseJsonPathLists,
+                                UploaderRequest uploaderRequest, RateLimiter rateLimiter) {
+        RowResult result = new RowResult();
+        Object previousResponse = null;
+        logger.debug("row: " + row.toString());
+        if (row.isEmpty())
+            return result;
+
+        for (int i = 0; i < requests.size(); i++) {
+            String request = buildRequest(columnHeaders, requests.get(i), JsonPath.parse(apiRequests.get(i)),
+                    uploaderRequest, row, previousResponse);
+            Object response = hitApi(request, dataUploadUtils.getURI(requests.get(i).getUrl()), rateLimiter);
+
+            previousResponse = response;
+
+            if (response == null) {
+                result.failureMessage = "Module API failed with empty body in response";
+            } else {
+                if (response instanceof String) {
+                    result.failureMessage = (String) response;
+                }
+            }
+            result.responseFields.addAll(dataUploadUtils.fetchValuesFromResponse(response, responseJsonPathLists
+                    .get(i)));
+        }
+        return result;
+    }
+
+    private void updateProgress(UploadCheckpoint checkpoint, RowResult result, UploadJob uploadJob,
+                                AuditDetails auditDetails) {
+        checkpoint.setProcessedRows(checkpoint.getProcessedRows() + 1);
+        if (result.failureMessage.isEmpty())
+            checkpoint.setSuccessfulRows(checkpoint.getSuccessfulRows() + 1);
+        else
+            checkpoint.setFailedRows(checkpoint.getFailedRows() + 1);
+
+        if ((checkpoint.getProcessedRows() % updateProgressSize) == 0) {
+            // save the checkpoint and update progress after every 'updateProgressSize' records
+            checkpoint.setLastModifiedTime(new Date().getTime());
+            uploadCheckpointRepository.saveCheckpoint(checkpoint);
+
+            uploadJob.setSuccessfulRows(checkpoint.getSuccessfulRows());
+            uploadJob.setFailedRows(checkpoint.getFailedRows());
+            uploadJob.setStatus(StatusEnum.INPROGRESS);
+
+            auditDetails.setLastModifiedTime(new Date().getTime());
+
+            updateJobsWithPersister(auditDetails, uploadJob, false);
         }
     }
 
@@ -354,76 +488,80 @@ public class DataUploadService {
         List<Request> requests = uploadDefinition.getRequests();
         List<DocumentContext> documentContexts = new ArrayList<>();
         AuditDetails auditDetails = uploadJob.getAuditDetails();
-        List<List<Object>> responseJsonPathLists=initialiseUploadProcess(document, uploadDefinition, uploaderRequest,outputHeaders,uploadJob
+        List<List<Object>> responseJsonPathLists=initialiseUploadProcess(uploadDefinition, uploaderRequest,outputHeaders,uploadJob
                                                                          ,requests,documentContexts,auditDetails);
 
         try {
-            String resultFilePath = dataUploadUtils.createANewFile(resFilePrefix + uploadJob.getRequestFileName());
-            dataUploadUtils.writeToexcelSheet(outputHeaders, resultFilePath);
-            //Till now the columnHeaders have been written to result xls. Content processing begins now.
-
+            String resultFilePath;
             int successCount = 0;
             int failureCount = 0;
-            int recordCount  = 0;
-            List<Integer> indexes = dataUploadUtils.getIndexes(uploadDefinition, document.getHeaders());
-            List<List<Object>> excelData = document.getRows();
+            try (ExcelResultWriter resultWriter = dataUploadUtils.createResultWriter(resFilePrefix + uploadJob
+                    .getRequestFileName())) {
+                resultFilePath = resultWriter.getFilePath();
+                resultWriter.writeRow(outputHeaders);
+                //Till now the columnHeaders have been written to result xlsx. Content processing begins now.
 
-            Map<String, List<List<Object>>> groupedRows = DataUploadUtils.groupRowsByIndexes(excelData, indexes);
+                int recordCount  = 0;
+                List<Integer> indexes = dataUploadUtils.getIndexes(uploadDefinition, document.getHeaders());
+                List<List<Object>> excelData = document.getRows();
 
-            Object previousResponse = null;
-            List<List<Object>> filteredList = null;
+                Map<String, List<List<Object>>> groupedRows = DataUploadUtils.groupRowsByIndexes(excelData, indexes);
 
-            for (Map.Entry<String, List<List<Object>>> entry : groupedRows.entrySet()) {
-                List<Object> responseFields = new ArrayList<>();
-                String failureMessage = "";
+                Object previousResponse = null;
+                List<List<Object>> filteredList = null;
 
-                for (int i = 0; i < uploadDefinition.getRequests().size(); i++) {
-                    filteredList = entry.getValue();
-                    //fetching list of all the rows that will be combined to form ONE request.
-                    String request = buildRequestForParentChild(filteredList, document.getHeaders(), requests
-                                    .get(i), uploadDefinition,
-                            documentContexts.get(i), uploaderRequest, previousResponse);
+                for (Map.Entry<String, List<List<Object>>> entry : groupedRows.entrySet()) {
+                    List<Object> responseFields = new ArrayList<>();
+                    String failureMessage = "";
 
-                    logger.info("FINAL REQUEST to EXTERNAL MODULE: " + request);
+                    for (int i = 0; i < uploadDefinition.getRequests().size(); i++) {
+                        filteredList = entry.getValue();
+                        //fetching list of all the rows that will be combined to form ONE request.
+                        String request = buildRequestForParentChild(filteredList, document.getHeaders(), requests
+                                        .get(i), uploadDefinition,
+                                documentContexts.get(i), uploaderRequest, previousResponse);
 
-                    Object response= hitApi(request, dataUploadUtils.getURI(requests.get(i).getUrl()));
-                    previousResponse = response;
+                        logger.info("FINAL REQUEST to EXTERNAL MODULE: " + request);
 
-                    if (null == response) {
-                        failureMessage = "Module API failed with empty body in response";
-                    } else {
-                        if (response instanceof String) {
-                            failureMessage = response.toString();
-                        }
+                        Object response= hitApi(request, dataUploadUtils.getURI(requests.get(i).getUrl()));
+                        previousResponse = response;
 
-                    }
+                        if (null == response) {
+                            failureMessage = "Module API failed with empty body in response";
+                        } else {
+                            if (response instanceof String) {
+                                failureMessage = response.toString();
+                            }
 
-                    responseFields.addAll(dataUploadUtils.fetchValuesFromResponse(response, responseJsonPathLists
-                            .get(i)));
+                        }
 
-                }
+                        responseFields.addAll(dataUploadUtils.fetchValuesFromResponse(response, responseJsonPathLists
+                                .get(i)));
 
-                if(!failureMessage.isEmpty()){
-                    failureCount++;
-                    writeResultToExcelParentChild(failureMessage, entry.getValue(), responseFields, resultFilePath);
-                }
-                else{
-                    successCount++;
-                    writeResultToExcelParentChild(failureMessage, entry.getValue(), responseFields, resultFilePath);
-                }
+                    }
+
+                    if(!failureMessage.isEmpty()){
+                        failureCount++;
+                        writeResultToExcelParentChild(failureMessage, entry.getValue(), responseFields, resultWriter);
+                    }
+                    else{
+                        successCount++;
+                        writeResultToExcelParentChild(failureMessage, entry.getValue(), responseFields, resultWriter);
+                    }
 
-                if((recordCount%updateProgressSize)==0)
-                {   // update progress after every 'updateProgressSize' records
-                    uploadJob.setSuccessfulRows(successCount);
-                    uploadJob.setFailedRows(failureCount);
-                    uploadJob.setStatus(StatusEnum.INPROGRESS);
+                    if((recordCount%updateProgressSize)==0)
+                    {   // update progress after every 'updateProgressSize' records
+                        uploadJob.setSuccessfulRows(successCount);
+                        uploadJob.setFailedRows(failureCount);
+                        uploadJob.setStatus(StatusEnum.INPROGRESS);
 
-                    auditDetails.setLastModifiedTime(new Date().getTime());
+                        auditDetails.setLastModifiedTime(new Date().getTime());
 
-                    updateJobsWithPersister(auditDetails,uploadJob,false);
+                        updateJobsWithPersister(auditDetails,uploadJob,false);
 
+                    }
+                    recordCount++;
                 }
-                recordCount++;
             }
 
             auditDetails.setLastModifiedTime(new Date().getTime());
@@ -452,7 +590,7 @@ public class DataUploadService {
     }
 
 
-    private  List<List<Object>> initialiseUploadProcess(Document document, Definition uploadDefinition, UploaderRequest uploaderRequest,List<Object> outputHeaders,
+    private  List<List<Object>> initialiseUploadProcess(Definition uploadDefinition, UploaderRequest uploaderRequest,List<Object> outputHeaders,
                                        UploadJob uploadJob,List<Request> requests,List<DocumentContext> documentContexts,AuditDetails auditDetails){
 
         outputHeaders.add("status");
@@ -526,8 +664,8 @@ public class DataUploadService {
     }
 
 
-    private void writeResultToExcel(String failureMessage, List<Object> row, List<Object> responseFields, String
-            excelFilepath) throws IOException {
+    private void writeResultToExcel(String failureMessage, List<Object> row, List<Object> responseFields,
+            ExcelResultWriter resultWriter) {
 
         if (!Objects.isNull(failureMessage) && !failureMessage.isEmpty()) {
             row.add("FAILED");
@@ -539,16 +677,43 @@ public class DataUploadService {
             row.add("");
             row.addAll(responseFields);
         }
-        dataUploadUtils.writeToexcelSheet(row, excelFilepath);
+        resultWriter.writeRow(row);
     }
 
 
     public Object hitApi(String request, String url) throws RestClientException {
+        return hitApi(request, url, null);
+    }
+
+    /**
+     * Calls the API within the rate limit, if any. Calls which fail because the
+     * module is unavailable or overloaded are retried with an exponential
+     * backoff, the other failures are returned as the failure message of the
+     * row.
+     */
+    public Object hitApi(String request, String url, RateLimiter rateLimiter) throws RestClientException {
         logger.info("Request: " + request);
         logger.info("URI: " + url);
         try {
             Map<String, Object> data = objectMapper.readValue(request, Map.class);
-            return dataUploadRepository.doApiCall(data, url);
+            long backoff = retryBackoffMs;
+            for (int attempt = 1; ; attempt++) {
+                if (null != rateLimiter)
+                    rateLimiter.acquire();
+                try {
+                    return dataUploadRepository.doApiCall(data, url);
+                } catch (RestClientException e) {
+                    if (!isRetryable(e) || attempt >= retryMaxAttempts)
+                        throw e;
+                    logger.info("Attempt " + attempt + " to call " + url + " failed, retrying in " + backoff
+                            + " ms: " + e.getMessage());
+                    Thread.sleep(backoff);
+                    backoff = Math.min(backoff * 2, retryMaxBackoffMs);
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return "Interrupted while calling the module API";
         } catch (IOException e) {
             logger.error("Unable to deserialize the request to map.");
             return null;
@@ -601,6 +766,12 @@ public class DataUploadService {
 
     }
 
+    private boolean isRetryable(RestClientException e) {
+        return e instanceof ResourceAccessException || e instanceof HttpServerErrorException
+                || (e instanceof HttpClientErrorException
+                && HttpStatus.TOO_MANY_REQUESTS == ((HttpClientErrorException) e).getStatusCode());
+    }
+
     public String getFileStoreId(String tenantId, String module, String filePath) throws RestClientException, JsonProcessingException {
         logger.info("Uploading result excel to filestore....");
         Map<String, Object> result = dataUploadRepository.postFileContents(tenantId, module, filePath);
@@ -799,11 +970,18 @@ public class DataUploadService {
     }
 
     private void writeResultToExcelParentChild(String failureMessage, List<List<Object>> rows, List<Object>
-            responseFields, String outputExcelFilepath) throws IOException{
+            responseFields, ExcelResultWriter resultWriter) {
 
             for (List<Object> row : rows) {
-                writeResultToExcel(failureMessage, row, responseFields, outputExcelFilepath);
+                writeResultToExcel(failureMessage, row, responseFields, resultWriter);
             }
 
     }
+    private static class RowResult {
+
+        private String failureMessage = "";
+
+        private final List<Object> responseFields = new ArrayList<>();
+    }
+
 }
\ No newline at end of file
@@ -2,14 +2,32 @@ package org.egov.dataupload.service;
 
 import org.apache.poi.hssf.usermodel.HSSFDateUtil;
 import org.apache.poi.openxml4j.exceptions.InvalidFormatException;
+import org.apache.poi.openxml4j.exceptions.OpenXML4JException;
+import org.apache.poi.openxml4j.opc.OPCPackage;
+import org.apache.poi.openxml4j.opc.PackageAccess;
+import org.apache.poi.poifs.filesystem.FileMagic;
 import org.apache.poi.ss.usermodel.*;
-import org.apache.poi.xssf.usermodel.XSSFWorkbook;
+import org.apache.poi.ss.util.CellReference;
+import org.apache.poi.util.SAXHelper;
+import org.apache.poi.xssf.eventusermodel.ReadOnlySharedStringsTable;
+import org.apache.poi.xssf.eventusermodel.XSSFReader;
+import org.apache.poi.xssf.model.StylesTable;
+import org.apache.poi.xssf.streaming.SXSSFWorkbook;
+import org.apache.poi.xssf.usermodel.XSSFCellStyle;
 import org.egov.dataupload.model.Document;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.stereotype.Component;
 import org.thymeleaf.util.StringUtils;
+import org.xml.sax.Attributes;
+import org.xml.sax.InputSource;
+import org.xml.sax.SAXException;
+import org.xml.sax.XMLReader;
+import org.xml.sax.helpers.DefaultHandler;
 
+import javax.xml.parsers.ParserConfigurationException;
+import java.io.File;
+import java.io.FileInputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
@@ -17,6 +35,7 @@ import java.text.DateFormat;
 import java.text.SimpleDateFormat;
 import java.util.ArrayList;
 import java.util.Date;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Objects;
 
@@ -45,6 +64,95 @@ public class ExcelIO implements FileIO {
 
     @Override
     public Document read(InputStream stream) throws IOException {
+        InputStream in = FileMagic.prepareToCheckMagic(stream);
+        if (FileMagic.OOXML == FileMagic.valueOf(in)) {
+            try {
+                return readXlsx(OPCPackage.open(in));
+            } catch (InvalidFormatException e) {
+                logger.error("Invalid format found, not an excel file. ", e);
+                throw new IOException("Invalid file format provided, not an excel file");
+            }
+        }
+        return readWorkbook(in);
+    }
+
+    /**
+     * Reads the file, xlsx files are parsed from the file without loading their
+     * content into memory.
+     */
+    @Override
+    public Document read(File file) throws IOException {
+        DocumentCollector collector = new DocumentCollector();
+        read(file, collector);
+        return collector.toDocument();
+    }
+
+    /**
+     * Hands the rows of the file to the handler as they are read, the rows of
+     * xlsx files are not kept once handed over. Other files are read into a
+     * workbook first.
+     */
+    @Override
+    public <E extends Exception> void read(File file, RowHandler<E> handler) throws IOException, E {
+        try (InputStream in = FileMagic.prepareToCheckMagic(new FileInputStream(file))) {
+            if (FileMagic.OOXML != FileMagic.valueOf(in)) {
+                Document document = readWorkbook(in);
+                handler.headers(document.getHeaders());
+                for (List<Object> row : document.getRows()) {
+                    handler.row(row);
+                }
+                return;
+            }
+        }
+        OPCPackage opcPackage;
+        try {
+            opcPackage = OPCPackage.open(file, PackageAccess.READ);
+        } catch (InvalidFormatException e) {
+            logger.error("Invalid format found, not an excel file. ", e);
+            throw new IOException("Invalid file format provided, not an excel file");
+        }
+        readXlsx(opcPackage, handler);
+    }
+
+    private Document readXlsx(OPCPackage opcPackage) throws IOException {
+        DocumentCollector collector = new DocumentCollector();
+        readXlsx(opcPackage, collector);
+        return collector.toDocument();
+    }
+
+    /**
+     * Reads the first sheet of an xlsx file row by row with the SAX parser,
+     * instead of building the whole workbook in memory.
+     */
+    @SuppressWarnings("unchecked")
+    private <E extends Exception> void readXlsx(OPCPackage opcPackage, RowHandler<E> rowHandler) throws IOException, E {
+        try {
+            XSSFReader reader = new XSSFReader(opcPackage);
+            SheetHandler handler = new SheetHandler(new ReadOnlySharedStringsTable(opcPackage), reader.getStylesTable(),
+                    rowHandler);
+            Iterator<InputStream> sheets = reader.getSheetsData();
+            if (sheets.hasNext()) {
+                try (InputStream sheet = sheets.next()) {
+                    XMLReader parser = SAXHelper.newXMLReader();
+                    parser.setContentHandler(handler);
+                    parser.parse(new InputSource(sheet));
+                } catch (EndOfSheetException e) {
+                    logger.debug("Empty row found, ignoring the rows after it");
+                }
+            }
+            logger.info("Total number of rows:  " + handler.handledRows);
+        } catch (RowHandlerException e) {
+            // only the exception of the row handler is wrapped
+            throw (E) e.getException();
+        } catch (OpenXML4JException | SAXException | ParserConfigurationException e) {
+            logger.error("Unable to parse the excel file. ", e);
+            throw new IOException("Invalid file format provided, not an excel file");
+        } finally {
+            opcPackage.revert();
+        }
+    }
+
+    private Document readWorkbook(InputStream stream) throws IOException {
         try (Workbook wb = WorkbookFactory.create(stream)) {
             Sheet sheet = wb.getSheetAt(0);
 
@@ -92,23 +200,7 @@ public class ExcelIO implements FileIO {
                                 }
                                 break;
                             case STRING:
-                                if (cell.getStringCellValue().equals("NA") ||
-                                        cell.getStringCellValue().equals("N/A") || cell.getStringCellValue().equals("na")) {
-                                    dataList.add(null);
-                                } else if (validateDate(cell.getStringCellValue())) {
-                                    try {
-                                        Date date = format.parse(cell.getStringCellValue());
-                                        dataList.add(date.getTime());
-                                    } catch (Exception e) {
-                                        logger.info("Couldn't parse date", e);
-                                        dataList.add(cell.getStringCellValue());
-                                    }
-                                } else if (!cell.getStringCellValue().trim().isEmpty()) {
-                                    logger.trace("string: " + cell.getStringCellValue());
-                                    dataList.add(cell.getStringCellValue());
-                                } else {
-                                    dataList.add(null);
-                                }
+                                dataList.add(getStringValue(cell.getStringCellValue()));
                                 break;
                             case BOOLEAN:
                                 dataList.add(cell.getBooleanCellValue());
@@ -120,7 +212,7 @@ public class ExcelIO implements FileIO {
                         }
                     }
                 }
-                logger.info("dataList: " + dataList);
+                logger.debug("dataList: " + dataList);
 
                 if (!dataList.isEmpty()) {
                     excelData.add(dataList);
@@ -142,7 +234,8 @@ public class ExcelIO implements FileIO {
 
     @Override
     public void write(OutputStream stream, Document document) throws IOException {
-        try (Workbook workbook = new XSSFWorkbook()) {
+        SXSSFWorkbook workbook = new SXSSFWorkbook();
+        try {
             Sheet sheet = workbook.createSheet();
             int rowCount = 0;
             if(!document.getHeaders().isEmpty()){
@@ -159,11 +252,41 @@ public class ExcelIO implements FileIO {
         } catch (IOException e) {
             logger.error("Unable to write to output excel", e);
             throw e;
+        } finally {
+            workbook.dispose();
+            workbook.close();
         }
 
 
     }
 
+    private Object getStringValue(String value) {
+        if (value.equals("NA") || value.equals("N/A") || value.equals("na")) {
+            return null;
+        } else if (validateDate(value)) {
+            try {
+                Date date = format.parse(value);
+                return date.getTime();
+            } catch (Exception e) {
+                logger.info("Couldn't parse date", e);
+                return value;
+            }
+        } else if (!value.trim().isEmpty()) {
+            logger.trace("string: " + value);
+            return value;
+        } else {
+            return null;
+        }
+    }
+
+    private Object getNumericValue(String value, short formatIndex, String formatString) {
+        double number = Double.parseDouble(value);
+        if (DateUtil.isADateFormat(formatIndex, formatString) && DateUtil.isValidExcelDate(number)) {
+            return format.format(DateUtil.getJavaDate(number));
+        }
+        return dataFormatter.formatRawCellContents(number, formatIndex, formatString);
+    }
+
     private boolean validateDate(String date) {
         boolean isValid = false;
         String dateRegex = "([0-9]{2})\\\\([0-9]{2})\\\\([0-9]{4})";
@@ -202,4 +325,212 @@ public class ExcelIO implements FileIO {
         }
 
     }
+
+    /**
+     * Thrown by the sheet handler to stop parsing at the first empty row.
+     */
+    private static class EndOfSheetException extends SAXException {
+    }
+
+    /**
+     * Carries the exception of the row handler out of the SAX parser.
+     */
+    private static class RowHandlerException extends SAXException {
+
+        RowHandlerException(Exception cause) {
+            super(cause);
+        }
+    }
+
+    /**
+     * Keeps the rows handed over, for the callers reading the whole sheet.
+     */
+    private static class DocumentCollector implements RowHandler<RuntimeException> {
+
+        private List<String> headers = new ArrayList<>();
+        private final List<List<Object>> rows = new ArrayList<>();
+
+        @Override
+        public void headers(List<String> headers) {
+            this.headers = headers;
+        }
+
+        @Override
+        public void row(List<Object> row) {
+            rows.add(row);
+        }
+
+        private Document toDocument() {
+            return new Document(headers, rows);
+        }
+    }
+
+    /**
+     * Hands the rows of a sheet to the row handler from the SAX events of its
+     * xml. The first row is read as the headers, reading stops at the first
+     * missing or empty row.
+     */
+    private class SheetHandler extends DefaultHandler {
+
+        private final ReadOnlySharedStringsTable sharedStrings;
+        private final StylesTable styles;
+        private final RowHandler<?> rowHandler;
+
+        private final StringBuilder text = new StringBuilder();
+        private boolean readingText;
+        private boolean inlineString;
+
+        private int totalColumns = 0;
+        private int rowNum = -1;
+        private int handledRows = 0;
+        private List<Object> row;
+        private boolean emptyRow;
+
+        private int column;
+        private String cellType;
+        private String cellStyle;
+
+        SheetHandler(ReadOnlySharedStringsTable sharedStrings, StylesTable styles, RowHandler<?> rowHandler) {
+            this.sharedStrings = sharedStrings;
+            this.styles = styles;
+            this.rowHandler = rowHandler;
+        }
+
+        @Override
+        public void startElement(String uri, String localName, String qName, Attributes attributes) throws SAXException {
+            switch (localName) {
+                case "row":
+                    String rowRef = attributes.getValue("r");
+                    int currentRowNum = null == rowRef ? rowNum + 1 : Integer.parseInt(rowRef) - 1;
+                    // end when a row is missing
+                    if (rowNum >= 0 && currentRowNum != rowNum + 1) {
+                        throw new EndOfSheetException();
+                    }
+                    rowNum = currentRowNum;
+                    row = new ArrayList<>();
+                    emptyRow = true;
+                    column = -1;
+                    break;
+                case "c":
+                    String cellRef = attributes.getValue("r");
+                    column = null == cellRef ? column + 1 : new CellReference(cellRef).getCol();
+                    cellType = attributes.getValue("t");
+                    cellStyle = attributes.getValue("s");
+                    text.setLength(0);
+                    break;
+                case "is":
+                    inlineString = true;
+                    break;
+                case "v":
+                    readingText = true;
+                    break;
+                case "t":
+                    readingText = inlineString;
+                    break;
+                default:
+                    break;
+            }
+        }
+
+        @Override
+        public void endElement(String uri, String localName, String qName) throws SAXException {
+            switch (localName) {
+                case "v":
+                case "t":
+                    readingText = false;
+                    break;
+                case "is":
+                    inlineString = false;
+                    break;
+                case "c":
+                    endCell();
+                    break;
+                case "row":
+                    endRow();
+                    break;
+                default:
+                    break;
+            }
+        }
+
+        @Override
+        public void characters(char[] ch, int start, int length) {
+            if (readingText) {
+                text.append(ch, start, length);
+            }
+        }
+
+        private void endCell() {
+            String value = "s".equals(cellType) && text.length() > 0
+                    ? sharedStrings.getEntryAt(Integer.parseInt(text.toString()))
+                    : text.toString();
+            if (value.isEmpty()) {
+                return;
+            }
+            emptyRow = false;
+            while (row.size() <= column) {
+                row.add(null);
+            }
+            if (0 == rowNum) {
+                row.set(column, value);
+            } else {
+                row.set(column, getCellValue(value));
+            }
+        }
+
+        private Object getCellValue(String value) {
+            if (null == cellType || "n".equals(cellType)) {
+                short formatIndex = 0;
+                String formatString = null;
+                if (null != cellStyle) {
+                    XSSFCellStyle style = styles.getStyleAt(Integer.parseInt(cellStyle));
+                    formatIndex = style.getDataFormat();
+                    formatString = style.getDataFormatString();
+                }
+                if (null == formatString) {
+                    formatString = BuiltinFormats.getBuiltinFormat(formatIndex);
+                }
+                return getNumericValue(value, formatIndex, formatString);
+            }
+            switch (cellType) {
+                case "b":
+                    return "1".equals(value);
+                case "e":
+                    return null;
+                default:
+                    return getStringValue(value);
+            }
+        }
+
+        private void endRow() throws SAXException {
+            // end when empty row found
+            if (emptyRow) {
+                throw new EndOfSheetException();
+            }
+            try {
+                if (0 == rowNum) {
+                    totalColumns = row.size();
+                    List<String> headers = new ArrayList<>();
+                    for (Object header : row) {
+                        if (null != header) {
+                            headers.add(header.toString());
+                        }
+                    }
+                    rowHandler.headers(headers);
+                    handledRows++;
+                    return;
+                }
+                while (row.size() < totalColumns) {
+                    row.add(null);
+                }
+                logger.debug("dataList: " + row);
+                rowHandler.row(row);
+                handledRows++;
+            } catch (RuntimeException e) {
+                throw e;
+            } catch (Exception e) {
+                throw new RowHandlerException(e);
+            }
+        }
+    }
 }
@@ -2,6 +2,7 @@ package org.egov.dataupload.service;
 
 import org.egov.dataupload.model.Document;
 
+import java.io.File;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
@@ -9,6 +10,8 @@ import java.io.OutputStream;
 public interface FileIO {
 
     Document read(InputStream stream) throws IOException;
+    Document read(File file) throws IOException;
+    <E extends Exception> void read(File file, RowHandler<E> handler) throws IOException, E;
     void write(OutputStream stream, Document document) throws IOException;
 
 }
@@ -0,0 +1,18 @@
+package org.egov.dataupload.service;
+
+import java.util.List;
+
+/**
+ * Receives the rows of a sheet as they are read, the headers are handed over
+ * before the first row.
+ *
+ * @param <E> the exception the handler may stop the reading with, it is
+ *            thrown back to the caller of the read
+ */
+public interface RowHandler<E extends Exception> {
+
+    void headers(List<String> headers) throws E;
+
+    void row(List<Object> row) throws E;
+
+}
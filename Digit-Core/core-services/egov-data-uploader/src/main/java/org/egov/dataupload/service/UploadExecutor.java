@@ -0,0 +1,136 @@
+package org.egov.dataupload.service;
+
+import java.util.AbstractMap.SimpleImmutableEntry;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BiConsumer;
+import java.util.function.Function;
+
+import org.egov.dataupload.utils.RateLimiter;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+
+/**
+ * Runs the rows of an upload job on a pool of threads while handing their
+ * results back in the order of the rows, so that the result file is written
+ * in the same order as the uploaded file.
+ *
+ * Only a window of rows is in flight at a time, a row is submitted once the
+ * oldest one has been handed back, which bounds the results held in memory
+ * when a slow row holds back the ones after it.
+ */
+@Component
+public class UploadExecutor {
+
+    private static final Logger logger = LoggerFactory.getLogger(UploadExecutor.class);
+
+    private static final int ROWS_IN_FLIGHT_PER_THREAD = 4;
+
+    private final Map<String, RateLimiter> rateLimiters = new ConcurrentHashMap<>();
+
+    /**
+     * Runs the task for every item with the given parallelism and passes the
+     * results to the consumer, in the order of the items, on the calling thread.
+     */
+    public <T, R> void execute(String name, int parallelism, List<T> items, Function<T, R> task,
+                               BiConsumer<T, R> resultConsumer) throws InterruptedException, ExecutionException {
+        try (Execution<T, R> execution = start(name, parallelism, task, resultConsumer)) {
+            for (T item : items) {
+                execution.submit(item);
+            }
+            execution.finish();
+        }
+    }
+
+    /**
+     * Starts a run of the task with the given parallelism for items submitted
+     * one at a time, so that the items can be read while the earlier ones are
+     * being run.
+     */
+    public <T, R> Execution<T, R> start(String name, int parallelism, Function<T, R> task,
+                                        BiConsumer<T, R> resultConsumer) {
+        return new Execution<>(name, Math.max(1, parallelism), task, resultConsumer);
+    }
+
+    /**
+     * A run of a task, the results are passed to the consumer in the order the
+     * items were submitted, on the submitting thread.
+     */
+    public static class Execution<T, R> implements AutoCloseable {
+
+        private final String name;
+        private final int threads;
+        private final int window;
+        private final Function<T, R> task;
+        private final BiConsumer<T, R> resultConsumer;
+        private final ExecutorService executor;
+        private final Deque<Entry<T, Future<R>>> inFlight;
+        private final long startTime = System.currentTimeMillis();
+        private int processed = 0;
+
+        private Execution(String name, int threads, Function<T, R> task, BiConsumer<T, R> resultConsumer) {
+            this.name = name;
+            this.threads = threads;
+            this.window = threads * ROWS_IN_FLIGHT_PER_THREAD;
+            this.task = task;
+            this.resultConsumer = resultConsumer;
+            AtomicInteger threadCount = new AtomicInteger();
+            this.executor = Executors.newFixedThreadPool(threads,
+                    runnable -> new Thread(runnable, "data-upload-" + name + "-" + threadCount.incrementAndGet()));
+            this.inFlight = new ArrayDeque<>(window);
+        }
+
+        /**
+         * Submits the item, when the window is full the result of the oldest
+         * item is passed to the consumer first.
+         */
+        public void submit(T item) throws InterruptedException, ExecutionException {
+            if (inFlight.size() >= window) {
+                consumeOldest();
+            }
+            inFlight.addLast(new SimpleImmutableEntry<>(item, executor.submit(() -> task.apply(item))));
+        }
+
+        /**
+         * Waits for the items still in flight and passes their results to the consumer.
+         */
+        public void finish() throws InterruptedException, ExecutionException {
+            while (!inFlight.isEmpty()) {
+                consumeOldest();
+            }
+            logger.info("Processed " + processed + " rows of " + name + " with " + threads + " threads in "
+                    + (System.currentTimeMillis() - startTime) + " ms");
+        }
+
+        private void consumeOldest() throws InterruptedException, ExecutionException {
+            Entry<T, Future<R>> oldest = inFlight.removeFirst();
+            resultConsumer.accept(oldest.getKey(), oldest.getValue().get());
+            processed++;
+        }
+
+        @Override
+        public void close() {
+            executor.shutdownNow();
+        }
+    }
+
+    /**
+     * Returns the rate limiter of the calls made for a definition, shared by
+     * the jobs of the definition.
+     */
+    public RateLimiter getRateLimiter(String name, double permitsPerSecond) {
+        return rateLimiters.compute(name, (key, limiter) -> null == limiter
+                || limiter.getPermitsPerSecond() != permitsPerSecond ? new RateLimiter(permitsPerSecond) : limiter);
+    }
+
+}
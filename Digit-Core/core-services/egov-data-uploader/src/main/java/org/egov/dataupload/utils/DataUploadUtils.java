@@ -1,7 +1,6 @@
 package org.egov.dataupload.utils;
 
 import java.io.File;
-import java.io.FileInputStream;
 import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
@@ -12,14 +11,12 @@ import java.util.Map.Entry;
 import java.util.stream.Collectors;
 
 import org.apache.commons.io.FileUtils;
+import org.apache.commons.io.FilenameUtils;
 import org.apache.poi.hssf.usermodel.HSSFDateUtil;
-import org.apache.poi.hssf.usermodel.HSSFSheet;
 import org.apache.poi.hssf.usermodel.HSSFWorkbook;
 import org.apache.poi.openxml4j.exceptions.InvalidFormatException;
 import org.apache.poi.ss.usermodel.Cell;
-import org.apache.poi.ss.usermodel.CellStyle;
 import org.apache.poi.ss.usermodel.CellType;
-import org.apache.poi.ss.usermodel.CreationHelper;
 import org.apache.poi.ss.usermodel.DataFormatter;
 import org.apache.poi.ss.usermodel.Row;
 import org.apache.poi.ss.usermodel.Sheet;
@@ -54,6 +51,9 @@ public class DataUploadUtils {
 	@Value("${business.module.host}")
 	private String businessModuleHost;
 
+	@Value("${result.file.row.window.size}")
+	private int resultRowWindowSize;
+
 	@Autowired
 	private ObjectMapper objectMapper;
 
@@ -286,54 +286,15 @@ public class DataUploadUtils {
 	}
 	
 	
-	public void writeToexcelSheet(List<Object> rowData, String fileName) throws IOException {
-		logger.info("Writing to file: "+fileName);
-		try(InputStream stream = new FileInputStream(fileName);
-        HSSFWorkbook workbook = new HSSFWorkbook(stream)) {
-            HSSFSheet sheet = workbook.getSheetAt(0);
-            int rowCount = sheet.getLastRowNum();
-            Row row = sheet.createRow(++rowCount);
-            for (int i = 0; i < rowData.size(); i++) {
-                Cell cell = row.createCell(i);
-
-                if (rowData.get(i) instanceof String) {
-                    cell.setCellType(CellType.STRING);
-                    cell.setCellValue(rowData.get(i).toString());
-                } else if (rowData.get(i) instanceof Double) {
-                    cell.setCellType(CellType.NUMERIC);
-                    cell.setCellValue(Double.parseDouble(rowData.get(i).toString()));
-                } else if (rowData.get(i) instanceof Long) {
-                    if (13 == rowData.get(i).toString().length()) {
-                        CellStyle cellStyle = workbook.createCellStyle();
-                        CreationHelper createHelper = workbook.getCreationHelper();
-                        cellStyle.setDataFormat(
-                                createHelper.createDataFormat().getFormat("dd/mm/yyyy"));
-                        cell.setCellValue(new Date(Long.parseLong(rowData.get(i).toString())));
-                        cell.setCellStyle(cellStyle);
-                    } else {
-                        cell.setCellType(CellType.NUMERIC);
-                        cell.setCellValue(Long.parseLong(rowData.get(i).toString()));
-                    }
-                } else if (rowData.get(i) instanceof Boolean) {
-                    cell.setCellType(CellType.BOOLEAN);
-                    cell.setCellValue(Boolean.parseBoolean(rowData.get(i).toString()));
-                } else if(!Objects.isNull(rowData.get(i))){
-                    cell.setCellType(CellType.STRING);
-                    cell.setCellValue(rowData.get(i).toString());
-                }
-
-            }
-            sheet.shiftRows(row.getRowNum(), rowCount, -1);
-            try (FileOutputStream outputStream = new FileOutputStream(fileName)) {
-                workbook.write(outputStream);
-            }
-
-        } catch (IOException e) {
-            logger.error("Unable to write to output excel", e);
-            throw e;
-        }
-
-    }
+	/**
+	 * Creates the writer of a result sheet in the internal folder. Results are
+	 * always written as xlsx, whatever the format of the uploaded file.
+	 */
+	public ExcelResultWriter createResultWriter(String fileName) {
+		String outputFile = internalFolderPath + File.separator + FilenameUtils.removeExtension(fileName) + ".xlsx";
+		logger.info("Attempting to create a new result file: "+outputFile);
+		return new ExcelResultWriter(outputFile, resultRowWindowSize);
+	}
 
 	public void clearInternalDirectory(){
 		logger.info("Clearing the internal folder....: "+internalFolderPath);
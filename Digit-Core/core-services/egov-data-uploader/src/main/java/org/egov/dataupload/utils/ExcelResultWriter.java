@@ -0,0 +1,105 @@
+package org.egov.dataupload.utils;
+
+import java.io.Closeable;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Date;
+import java.util.List;
+import java.util.Objects;
+
+import org.apache.poi.ss.usermodel.Cell;
+import org.apache.poi.ss.usermodel.CellStyle;
+import org.apache.poi.ss.usermodel.CellType;
+import org.apache.poi.ss.usermodel.Row;
+import org.apache.poi.ss.usermodel.Sheet;
+import org.apache.poi.xssf.streaming.SXSSFWorkbook;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Writes the result sheet of an upload one row after the other. Only the last
+ * rows of the window are kept in memory, older rows are flushed to a temporary
+ * file, and the workbook is written to the result file once, when the writer
+ * is closed.
+ */
+public class ExcelResultWriter implements Closeable {
+
+	private static final Logger logger = LoggerFactory.getLogger(ExcelResultWriter.class);
+
+	private final String filePath;
+
+	private final SXSSFWorkbook workbook;
+
+	private final Sheet sheet;
+
+	private final CellStyle dateStyle;
+
+	private int rowCount = 0;
+
+	public ExcelResultWriter(String filePath, int rowAccessWindowSize) {
+		this.filePath = filePath;
+		this.workbook = new SXSSFWorkbook(rowAccessWindowSize);
+		this.workbook.setCompressTempFiles(true);
+		this.sheet = workbook.createSheet("Sheet 1");
+		this.dateStyle = workbook.createCellStyle();
+		this.dateStyle.setDataFormat(workbook.getCreationHelper().createDataFormat().getFormat("dd/mm/yyyy"));
+	}
+
+	public String getFilePath() {
+		return filePath;
+	}
+
+	public int getRowCount() {
+		return rowCount;
+	}
+
+	public void writeRow(List<Object> rowData) {
+		Row row = sheet.createRow(rowCount++);
+		for (int i = 0; i < rowData.size(); i++) {
+			Object value = rowData.get(i);
+			if (Objects.isNull(value))
+				continue;
+
+			Cell cell = row.createCell(i);
+			if (value instanceof String) {
+				cell.setCellType(CellType.STRING);
+				cell.setCellValue(value.toString());
+			} else if (value instanceof Double) {
+				cell.setCellType(CellType.NUMERIC);
+				cell.setCellValue((Double) value);
+			} else if (value instanceof Long) {
+				// epoch millis read from date cells are written back as dates
+				if (13 == value.toString().length()) {
+					cell.setCellValue(new Date((Long) value));
+					cell.setCellStyle(dateStyle);
+				} else {
+					cell.setCellType(CellType.NUMERIC);
+					cell.setCellValue((Long) value);
+				}
+			} else if (value instanceof Boolean) {
+				cell.setCellType(CellType.BOOLEAN);
+				cell.setCellValue((Boolean) value);
+			} else {
+				cell.setCellType(CellType.STRING);
+				cell.setCellValue(value.toString());
+			}
+		}
+	}
+
+	/**
+	 * Writes the rows to the result file and deletes the temporary files of the
+	 * workbook.
+	 */
+	@Override
+	public void close() throws IOException {
+		logger.info("Writing " + rowCount + " rows to file: " + filePath);
+		try (OutputStream outputStream = new FileOutputStream(filePath)) {
+			workbook.write(outputStream);
+		} finally {
+			workbook.dispose();
+			workbook.close();
+		}
+	}
+
+}
@@ -0,0 +1,56 @@
+package org.egov.dataupload.utils;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Token bucket limiting the rate of calls made to the API of a module. The
+ * bucket holds at most one second of calls, callers block until a call is
+ * allowed.
+ */
+public class RateLimiter {
+
+	private final double permitsPerSecond;
+
+	private final double maxPermits;
+
+	private double availablePermits;
+
+	private long lastRefillNanos;
+
+	public RateLimiter(double permitsPerSecond) {
+		if (permitsPerSecond <= 0)
+			throw new IllegalArgumentException("Rate limit should be greater than zero, found: " + permitsPerSecond);
+		this.permitsPerSecond = permitsPerSecond;
+		this.maxPermits = Math.max(1, permitsPerSecond);
+		this.availablePermits = maxPermits;
+		this.lastRefillNanos = System.nanoTime();
+	}
+
+	public double getPermitsPerSecond() {
+		return permitsPerSecond;
+	}
+
+	public void acquire() throws InterruptedException {
+		long waitNanos;
+		while ((waitNanos = tryAcquire()) > 0) {
+			TimeUnit.NANOSECONDS.sleep(waitNanos);
+		}
+	}
+
+	/**
+	 * Takes a permit if one is available, else returns the time to wait for the
+	 * next one.
+	 */
+	private synchronized long tryAcquire() {
+		long now = System.nanoTime();
+		availablePermits = Math.min(maxPermits,
+				availablePermits + (now - lastRefillNanos) * permitsPerSecond / TimeUnit.SECONDS.toNanos(1));
+		lastRefillNanos = now;
+		if (availablePermits >= 1) {
+			availablePermits -= 1;
+			return 0;
+		}
+		return (long) ((1 - availablePermits) * TimeUnit.SECONDS.toNanos(1) / permitsPerSecond);
+	}
+
+}
@@ -0,0 +1,11 @@
+CREATE TABLE IF NOT EXISTS EGDU_UPLOAD_CHECKPOINT
+(
+  CODE CHARACTER VARYING NOT NULL,
+  TENANTID CHARACTER VARYING NOT NULL,
+  PROCESSED_ROWS BIGINT NOT NULL,
+  SUCCESS_ROWS BIGINT NOT NULL,
+  FAILED_ROWS BIGINT NOT NULL,
+  LASTMODIFIEDDATE BIGINT NOT NULL,
+
+  CONSTRAINT PK_UPLOAD_CHECKPOINT PRIMARY KEY (CODE,TENANTID)
+);
@@ -0,0 +1,181 @@
+package org.egov.test;
+
+import org.apache.poi.ss.usermodel.Row;
+import org.apache.poi.ss.usermodel.Sheet;
+import org.apache.poi.xssf.usermodel.XSSFWorkbook;
+import org.egov.dataupload.model.Document;
+import org.egov.dataupload.service.ExcelIO;
+import org.egov.dataupload.service.RowHandler;
+import org.egov.dataupload.utils.ExcelResultWriter;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.text.SimpleDateFormat;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * Writes sheets the way upload results are written and reads them back with
+ * the streaming xlsx reader, comparing the rows with the ones read through the
+ * workbook reader used before.
+ */
+public class ExcelRoundTripTest {
+
+    private ExcelIO excelIO;
+
+    private File file;
+
+    @Before
+    public void setUp() throws IOException {
+        excelIO = new ExcelIO();
+        file = File.createTempFile("round-trip-", ".xlsx");
+    }
+
+    @After
+    public void tearDown() {
+        file.delete();
+    }
+
+    @Test
+    public void resultSheetReadsBackLikeTheWorkbookReader() throws IOException {
+        long date = 1760832000000L;
+        try (ExcelResultWriter writer = new ExcelResultWriter(file.getPath(), 2)) {
+            writer.writeRow(Arrays.asList("Code", "Name", "Date", "Amount", "Active"));
+            writer.writeRow(Arrays.asList("IN", "NA", date, 12.5, true));
+            writer.writeRow(Arrays.asList("LK", null, 42L, 7.0, false));
+            writer.writeRow(Arrays.asList("NP", "N/A", "  ", null, "Kathmandu"));
+            writer.writeRow(Collections.emptyList());
+            writer.writeRow(Arrays.asList("BT", "Bhutan", date, 1.0, true));
+        }
+
+        Document streamed = excelIO.read(file);
+
+        assertEquals(Arrays.asList("Code", "Name", "Date", "Amount", "Active"), streamed.getHeaders());
+        assertEquals(3, streamed.getRows().size());
+        String formattedDate = new SimpleDateFormat("dd/MM/YYYY").format(new Date(date));
+        assertEquals(Arrays.asList("IN", null, formattedDate, "12.5", true), streamed.getRows().get(0));
+        assertEquals(Arrays.asList("LK", null, "42", "7", false), streamed.getRows().get(1));
+        assertEquals(Arrays.asList("NP", null, null, null, "Kathmandu"), streamed.getRows().get(2));
+
+        Document workbook = readWorkbook();
+        assertEquals(workbook.getHeaders(), streamed.getHeaders());
+        assertEquals(workbook.getRows(), streamed.getRows());
+    }
+
+    /**
+     * The streaming reader takes the cached value of a formula cell, the
+     * workbook reader skipped formula cells altogether.
+     */
+    @Test
+    public void formulaCellsAreReadFromTheirCachedValue() throws IOException {
+        try (XSSFWorkbook workbook = new XSSFWorkbook()) {
+            Sheet sheet = workbook.createSheet();
+            Row header = sheet.createRow(0);
+            header.createCell(0).setCellValue("Code");
+            header.createCell(1).setCellValue("Amount");
+            header.createCell(2).setCellValue("Total");
+            header.createCell(3).setCellValue("Label");
+            Row row = sheet.createRow(1);
+            row.createCell(0).setCellValue("IN");
+            row.createCell(1).setCellValue(20);
+            row.createCell(2).setCellFormula("B2*2");
+            row.createCell(3).setCellFormula("CONCATENATE(A2,\"-\",B2)");
+            workbook.getCreationHelper().createFormulaEvaluator().evaluateAll();
+            try (OutputStream stream = new FileOutputStream(file)) {
+                workbook.write(stream);
+            }
+        }
+
+        Document streamed = excelIO.read(file);
+
+        assertEquals(Collections.singletonList(Arrays.asList("IN", "20", "40", "IN-20")), streamed.getRows());
+        assertEquals(Collections.singletonList(Arrays.asList("IN", "20")), readWorkbook().getRows());
+    }
+
+    @Test
+    public void rowsAreHandedOverInOrderAfterTheHeaders() throws IOException {
+        try (ExcelResultWriter writer = new ExcelResultWriter(file.getPath(), 100)) {
+            writer.writeRow(Arrays.asList("Code", "Amount"));
+            for (int i = 1; i <= 10000; i++) {
+                writer.writeRow(Arrays.asList("C" + i, (long) i));
+            }
+        }
+        List<Object> handed = new ArrayList<>();
+
+        excelIO.read(file, new RowHandler<RuntimeException>() {
+            @Override
+            public void headers(List<String> headers) {
+                assertTrue(handed.isEmpty());
+                handed.add(headers);
+            }
+
+            @Override
+            public void row(List<Object> row) {
+                assertEquals("C" + handed.size(), row.get(0));
+                handed.add(row);
+            }
+        });
+
+        assertEquals(10001, handed.size());
+        assertEquals(Arrays.asList("Code", "Amount"), handed.get(0));
+        assertEquals(Arrays.asList("C10000", "10000"), handed.get(10000));
+    }
+
+    /**
+     * The exception of the handler stops the read and reaches the caller as it
+     * was thrown, so that a failed row does not read the rest of the sheet.
+     */
+    @Test
+    public void handlerExceptionStopsTheRead() throws IOException {
+        try (ExcelResultWriter writer = new ExcelResultWriter(file.getPath(), 100)) {
+            writer.writeRow(Collections.singletonList("Code"));
+            for (int i = 1; i <= 1000; i++) {
+                writer.writeRow(Collections.singletonList("C" + i));
+            }
+        }
+        ExecutionException failure = new ExecutionException("row failed", null);
+        AtomicInteger rows = new AtomicInteger();
+
+        try {
+            excelIO.read(file, new RowHandler<ExecutionException>() {
+                @Override
+                public void headers(List<String> headers) {
+                }
+
+                @Override
+                public void row(List<Object> row) throws ExecutionException {
+                    if (rows.incrementAndGet() == 100)
+                        throw failure;
+                }
+            });
+            fail("The exception of the handler was not thrown");
+        } catch (ExecutionException e) {
+            assertSame(failure, e);
+        }
+        assertEquals(100, rows.get());
+    }
+
+    private Document readWorkbook() throws IOException {
+        try (InputStream stream = new FileInputStream(file)) {
+            return ReflectionTestUtils.invokeMethod(excelIO, "readWorkbook", stream);
+        }
+    }
+}
@@ -0,0 +1,424 @@
+package org.egov.test;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.sun.net.httpserver.HttpServer;
+import org.egov.DataUploadApplicationRunnerImpl;
+import org.egov.dataupload.model.Definition;
+import org.egov.dataupload.model.Document;
+import org.egov.dataupload.model.Request;
+import org.egov.dataupload.model.UploadCheckpoint;
+import org.egov.dataupload.model.UploadJob;
+import org.egov.dataupload.model.UploadJob.StatusEnum;
+import org.egov.dataupload.model.UploaderRequest;
+import org.egov.dataupload.producer.DataUploadProducer;
+import org.egov.dataupload.property.models.AuditDetails;
+import org.egov.dataupload.repository.DataUploadRepository;
+import org.egov.dataupload.repository.UploadCheckpointRepository;
+import org.egov.dataupload.service.DataUploadService;
+import org.egov.dataupload.service.ExcelIO;
+import org.egov.dataupload.service.UploadExecutor;
+import org.egov.dataupload.utils.DataUploadUtils;
+import org.egov.dataupload.utils.ExcelResultWriter;
+import org.egov.dataupload.utils.RateLimiter;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.client.RestTemplate;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Sends rows through the upload executor to a stub module API on localhost,
+ * which takes a few milliseconds per call and fails the first call of some
+ * rows with a 503.
+ */
+public class UploadExecutorLoadTest {
+
+    private static final int ROWS = 1000;
+    private static final int PARALLELISM = 8;
+    private static final long API_LATENCY_MS = 5;
+    private static final int FAIL_ONCE_EVERY = 50;
+
+    private HttpServer server;
+    private String url;
+    private final AtomicInteger calls = new AtomicInteger();
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final AtomicInteger maxInFlight = new AtomicInteger();
+    private final Set<Integer> failedOnce = ConcurrentHashMap.newKeySet();
+    private final List<Integer> uploadedRows = Collections.synchronizedList(new ArrayList<>());
+    private volatile int slowRowsAfter = Integer.MAX_VALUE;
+
+    private UploadExecutor uploadExecutor;
+    private DataUploadService dataUploadService;
+
+    @Before
+    public void setUp() throws IOException {
+        ObjectMapper objectMapper = new ObjectMapper();
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.setExecutor(Executors.newFixedThreadPool(PARALLELISM * 2));
+        server.createContext("/module/_create", exchange -> {
+            calls.incrementAndGet();
+            maxInFlight.accumulateAndGet(inFlight.incrementAndGet(), Math::max);
+            try (InputStream in = exchange.getRequestBody()) {
+                Map<?, ?> request = objectMapper.readValue(in, Map.class);
+                int row = (Integer) request.get("row");
+                Thread.sleep(API_LATENCY_MS);
+
+                int status = 200;
+                byte[] body = ("{\"id\":" + row + "}").getBytes(StandardCharsets.UTF_8);
+                if (row % FAIL_ONCE_EVERY == 0 && failedOnce.add(row)) {
+                    status = 503;
+                    body = "{}".getBytes(StandardCharsets.UTF_8);
+                }
+                exchange.getResponseHeaders().add("Content-Type", "application/json");
+                exchange.sendResponseHeaders(status, body.length);
+                try (OutputStream out = exchange.getResponseBody()) {
+                    out.write(body);
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } finally {
+                inFlight.decrementAndGet();
+            }
+        });
+        server.createContext("/module/_upload", exchange -> {
+            inFlight.incrementAndGet();
+            try (InputStream in = exchange.getRequestBody()) {
+                Map<?, ?> request = objectMapper.readValue(in, Map.class);
+                int row = Integer.parseInt(String.valueOf(request.get("row")));
+                uploadedRows.add(row);
+                if (row > slowRowsAfter)
+                    Thread.sleep(300);
+
+                byte[] body = ("{\"id\":" + row + "}").getBytes(StandardCharsets.UTF_8);
+                exchange.getResponseHeaders().add("Content-Type", "application/json");
+                exchange.sendResponseHeaders(200, body.length);
+                try (OutputStream out = exchange.getResponseBody()) {
+                    out.write(body);
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } finally {
+                inFlight.decrementAndGet();
+            }
+        });
+        server.start();
+        url = "http://127.0.0.1:" + server.getAddress().getPort() + "/module/_create";
+
+        DataUploadRepository dataUploadRepository = new DataUploadRepository();
+        ReflectionTestUtils.setField(dataUploadRepository, "restTemplate", new RestTemplate());
+
+        dataUploadService = new DataUploadService();
+        ReflectionTestUtils.setField(dataUploadService, "dataUploadRepository", dataUploadRepository);
+        ReflectionTestUtils.setField(dataUploadService, "objectMapper", objectMapper);
+        ReflectionTestUtils.setField(dataUploadService, "retryMaxAttempts", 3);
+        ReflectionTestUtils.setField(dataUploadService, "retryBackoffMs", 10L);
+        ReflectionTestUtils.setField(dataUploadService, "retryMaxBackoffMs", 100L);
+
+        uploadExecutor = new UploadExecutor();
+    }
+
+    @After
+    public void tearDown() {
+        server.stop(0);
+    }
+
+    @Test
+    public void rowsAreSentConcurrentlyAndResultsKeepTheOrderOfTheRows() throws Exception {
+        List<Integer> rows = new ArrayList<>();
+        for (int i = 1; i <= ROWS; i++) {
+            rows.add(i);
+        }
+        RateLimiter rateLimiter = uploadExecutor.getRateLimiter("load-test", 100000);
+        List<Object> results = new ArrayList<>();
+
+        uploadExecutor.execute("load-test", PARALLELISM, rows,
+                row -> dataUploadService.hitApi("{\"row\":" + row + "}", url, rateLimiter),
+                (row, response) -> {
+                    assertTrue("Row " + row + " failed: " + response, response instanceof Map);
+                    assertEquals(row, ((Map<?, ?>) response).get("id"));
+                    results.add(response);
+                });
+
+        assertEquals(ROWS, results.size());
+        assertEquals(ROWS + ROWS / FAIL_ONCE_EVERY, calls.get());
+        assertTrue("Rows were not sent concurrently", maxInFlight.get() > 1);
+        assertTrue("More rows in flight than the parallelism", maxInFlight.get() <= PARALLELISM);
+    }
+
+    @Test
+    public void concurrentRowsTakeLessTimeThanSequentialRows() throws Exception {
+        List<Integer> rows = new ArrayList<>();
+        for (int i = 1; i <= ROWS / 10; i++) {
+            rows.add(i * FAIL_ONCE_EVERY + 1);
+        }
+        RateLimiter rateLimiter = uploadExecutor.getRateLimiter("load-test", 100000);
+
+        long startTime = System.currentTimeMillis();
+        uploadExecutor.execute("load-test", 1, rows,
+                row -> dataUploadService.hitApi("{\"row\":" + row + "}", url, rateLimiter),
+                (row, response) -> assertTrue(response instanceof Map));
+        long sequential = System.currentTimeMillis() - startTime;
+
+        startTime = System.currentTimeMillis();
+        uploadExecutor.execute("load-test", PARALLELISM, rows,
+                row -> dataUploadService.hitApi("{\"row\":" + row + "}", url, rateLimiter),
+                (row, response) -> assertTrue(response instanceof Map));
+        long concurrent = System.currentTimeMillis() - startTime;
+
+        assertTrue("Sequential took " + sequential + " ms, concurrent took " + concurrent + " ms",
+                concurrent * 3 < sequential);
+    }
+
+    /**
+     * Rows submitted one at a time, as they are read from the sheet, are held
+     * back once the window of rows in flight is full.
+     */
+    @Test
+    public void submittedRowsStayWithinTheWindow() throws Exception {
+        RateLimiter rateLimiter = uploadExecutor.getRateLimiter("load-test", 100000);
+        AtomicInteger submitted = new AtomicInteger();
+        AtomicInteger consumed = new AtomicInteger();
+        AtomicInteger maxPending = new AtomicInteger();
+
+        try (UploadExecutor.Execution<Integer, Object> execution = uploadExecutor.start("load-test", PARALLELISM,
+                row -> dataUploadService.hitApi("{\"row\":" + row + "}", url, rateLimiter),
+                (row, response) -> {
+                    assertEquals(row, ((Map<?, ?>) response).get("id"));
+                    assertEquals(consumed.incrementAndGet() * FAIL_ONCE_EVERY + 1, row.intValue());
+                })) {
+            for (int i = 1; i <= ROWS / 2; i++) {
+                execution.submit(i * FAIL_ONCE_EVERY + 1);
+                maxPending.accumulateAndGet(submitted.incrementAndGet() - consumed.get(), Math::max);
+            }
+            execution.finish();
+        }
+
+        assertEquals(ROWS / 2, consumed.get());
+        assertTrue("Rows were not held back", maxPending.get() <= PARALLELISM * 4);
+        assertTrue("Rows were not sent concurrently", maxInFlight.get() > 1);
+    }
+
+    /**
+     * Interrupts a job after its third progress update and runs it again: the
+     * rows of the checkpoint are written as processed without being sent, the
+     * other rows are sent once, and the checkpoint is deleted at the end.
+     */
+    @Test
+    public void interruptedJobResumesFromItsCheckpoint() throws Exception {
+        int rows = 200;
+        int progressSize = 20;
+        File folder = Files.createTempDirectory("upload-internal-").toFile();
+        File uploadFile = File.createTempFile("upload-", ".xlsx");
+        File resultFile = File.createTempFile("upload-result-", ".xlsx");
+        try (ExcelResultWriter writer = new ExcelResultWriter(uploadFile.getPath(), 100)) {
+            writer.writeRow(Arrays.asList("row", "name"));
+            for (int i = 1; i <= rows; i++) {
+                writer.writeRow(Arrays.asList((long) i, "Name " + i));
+            }
+        }
+
+        Map<String, UploadCheckpoint> checkpoints = new ConcurrentHashMap<>();
+        AtomicInteger checkpointSaves = new AtomicInteger();
+        AtomicInteger checkpointDeletes = new AtomicInteger();
+        UploadCheckpointRepository checkpointRepository = new UploadCheckpointRepository() {
+            @Override
+            public UploadCheckpoint getCheckpoint(String code, String tenantId) {
+                UploadCheckpoint checkpoint = checkpoints.get(code + tenantId);
+                return null == checkpoint ? null : copy(checkpoint);
+            }
+
+            @Override
+            public void saveCheckpoint(UploadCheckpoint checkpoint) {
+                checkpointSaves.incrementAndGet();
+                checkpoints.put(checkpoint.getCode() + checkpoint.getTenantId(), copy(checkpoint));
+            }
+
+            @Override
+            public void deleteCheckpoint(String code, String tenantId) {
+                checkpointDeletes.incrementAndGet();
+                checkpoints.remove(code + tenantId);
+            }
+        };
+
+        AtomicInteger interruptAfter = new AtomicInteger(3 * progressSize);
+        List<Integer> progressUpdates = Collections.synchronizedList(new ArrayList<>());
+        DataUploadProducer producer = new DataUploadProducer() {
+            @Override
+            public void push(String topic, Object value) {
+                UploadJob job = (UploadJob) ((Map<?, ?>) value).get("UploadJob");
+                if (StatusEnum.INPROGRESS != job.getStatus() || null == job.getSuccessfulRows())
+                    return;
+                int processed = job.getSuccessfulRows() + job.getFailedRows();
+                if (0 == processed)
+                    return;
+                progressUpdates.add(processed);
+                if (processed == interruptAfter.get())
+                    Thread.currentThread().interrupt();
+            }
+        };
+
+        DataUploadRepository fileStore = new DataUploadRepository() {
+            @Override
+            public Map<String, Object> postFileContents(String tenantId, String moduleName, String filePath) {
+                try {
+                    Files.copy(Paths.get(filePath), resultFile.toPath(), StandardCopyOption.REPLACE_EXISTING);
+                } catch (IOException e) {
+                    throw new IllegalStateException(e);
+                }
+                return Collections.singletonMap("files",
+                        Collections.singletonList(Collections.singletonMap("fileStoreId", "result-file")));
+            }
+        };
+        ReflectionTestUtils.setField(fileStore, "restTemplate", new RestTemplate());
+
+        Definition definition = Definition.builder().name("create").parallelism(PARALLELISM).ratePerSecond(100000.0)
+                .requests(Collections.singletonList(Request.builder()
+                        .url("http://127.0.0.1:" + server.getAddress().getPort() + "/module/_upload")
+                        .apiRequest(Collections.singletonMap("row", null))
+                        .excelHeadersToRequestMap(Collections.singletonMap("row", Collections.singletonList("$.row")))
+                        .tenantIdPaths(Collections.emptyList())
+                        .build()))
+                .build();
+        DataUploadApplicationRunnerImpl runner = new DataUploadApplicationRunnerImpl() {
+            @Override
+            public Optional<Definition> getUploadDefinition(String moduleName, String defName) {
+                return Optional.of(definition);
+            }
+        };
+
+        DataUploadUtils dataUploadUtils = new DataUploadUtils();
+        ReflectionTestUtils.setField(dataUploadUtils, "internalFolderPath", folder.getPath());
+        ReflectionTestUtils.setField(dataUploadUtils, "resultRowWindowSize", 100);
+        ReflectionTestUtils.setField(dataUploadUtils, "objectMapper", new ObjectMapper());
+
+        ReflectionTestUtils.setField(dataUploadService, "dataUploadRepository", fileStore);
+        ReflectionTestUtils.setField(dataUploadService, "uploadCheckpointRepository", checkpointRepository);
+        ReflectionTestUtils.setField(dataUploadService, "dataUploadProducer", producer);
+        ReflectionTestUtils.setField(dataUploadService, "runner", runner);
+        ReflectionTestUtils.setField(dataUploadService, "dataUploadUtils", dataUploadUtils);
+        ReflectionTestUtils.setField(dataUploadService, "excelIO", new ExcelIO());
+        ReflectionTestUtils.setField(dataUploadService, "uploadExecutor", uploadExecutor);
+        ReflectionTestUtils.setField(dataUploadService, "resFilePrefix", "result_");
+        ReflectionTestUtils.setField(dataUploadService, "updateProgressSize", progressSize);
+
+        try {
+            // the rows after the interruption are held by the module API, so the job waits on them when interrupted
+            slowRowsAfter = 3 * progressSize;
+            UploadJob job = uploadJob(uploadFile);
+            dataUploadService.excelDataUpload(UploaderRequest.builder().uploadJobs(Collections.singletonList(job)).build());
+
+            assertTrue("The job was not interrupted", Thread.interrupted());
+            assertEquals(StatusEnum.FAILED, job.getStatus());
+            assertEquals(Integer.valueOf(rows), job.getTotalRows());
+            assertEquals(Arrays.asList(20, 40, 60), progressUpdates);
+            UploadCheckpoint checkpoint = checkpointRepository.getCheckpoint("job-1", "pb");
+            assertEquals(3 * progressSize, checkpoint.getProcessedRows().intValue());
+            assertEquals(3 * progressSize, checkpoint.getSuccessfulRows().intValue());
+            assertEquals(0, checkpointDeletes.get());
+
+            waitForTheModuleApi();
+            slowRowsAfter = Integer.MAX_VALUE;
+            interruptAfter.set(-1);
+            uploadedRows.clear();
+            progressUpdates.clear();
+            checkpointSaves.set(0);
+
+            job = uploadJob(uploadFile);
+            dataUploadService.excelDataUpload(UploaderRequest.builder().uploadJobs(Collections.singletonList(job)).build());
+
+            assertEquals(StatusEnum.COMPLETED, job.getStatus());
+            assertEquals(Integer.valueOf(rows), job.getSuccessfulRows());
+            assertEquals("result-file", job.getResponseFilePath());
+            List<Integer> sent = new ArrayList<>(uploadedRows);
+            Collections.sort(sent);
+            List<Integer> expected = new ArrayList<>();
+            for (int i = 3 * progressSize + 1; i <= rows; i++) {
+                expected.add(i);
+            }
+            assertEquals("Only the rows after the checkpoint are sent, once", expected, sent);
+            assertEquals(Arrays.asList(80, 100, 120, 140, 160, 180, 200), progressUpdates);
+            assertEquals((rows - 3 * progressSize) / progressSize, checkpointSaves.get());
+            assertEquals(1, checkpointDeletes.get());
+            assertTrue(checkpoints.isEmpty());
+
+            Document result = new ExcelIO().read(resultFile);
+            assertEquals(Arrays.asList("row", "name", "status", "message"), result.getHeaders());
+            assertEquals(rows, result.getRows().size());
+            for (int i = 0; i < rows; i++) {
+                List<Object> row = result.getRows().get(i);
+                assertEquals(String.valueOf(i + 1), row.get(0));
+                assertEquals(i < 3 * progressSize ? "PROCESSED" : "SUCCESS", row.get(2));
+            }
+        } finally {
+            Thread.interrupted();
+            uploadFile.delete();
+            resultFile.delete();
+            folder.delete();
+        }
+    }
+
+    private UploadJob uploadJob(File file) {
+        return UploadJob.builder().code("job-1").tenantId("pb").moduleName("module").defName("create")
+                .requestFileName("upload.xlsx").localFilePath(file.getPath())
+                .auditDetails(AuditDetails.builder().build()).build();
+    }
+
+    /**
+     * The service keeps counting on the checkpoint it saved, the repository
+     * keeps what was saved.
+     */
+    private static UploadCheckpoint copy(UploadCheckpoint checkpoint) {
+        return UploadCheckpoint.builder().code(checkpoint.getCode()).tenantId(checkpoint.getTenantId())
+                .processedRows(checkpoint.getProcessedRows()).successfulRows(checkpoint.getSuccessfulRows())
+                .failedRows(checkpoint.getFailedRows()).lastModifiedTime(checkpoint.getLastModifiedTime()).build();
+    }
+
+    private void waitForTheModuleApi() throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 10000;
+        while (inFlight.get() > 0 && System.currentTimeMillis() < deadline) {
+            Thread.sleep(20);
+        }
+    }
+
+    @Test
+    public void callsStayWithinTheRateLimit() throws Exception {
+        List<Integer> rows = new ArrayList<>();
+        for (int i = 1; i <= 300; i++) {
+            rows.add(i * FAIL_ONCE_EVERY + 1);
+        }
+        RateLimiter rateLimiter = uploadExecutor.getRateLimiter("rate-test", 100);
+
+        long startTime = System.currentTimeMillis();
+        uploadExecutor.execute("rate-test", PARALLELISM, rows,
+                row -> dataUploadService.hitApi("{\"row\":" + row + "}", url, rateLimiter),
+                (row, response) -> assertTrue(response instanceof Map));
+        long elapsed = System.currentTimeMillis() - startTime;
+
+        // a burst of 100 calls, then 100 calls per second
+        assertTrue("Took " + elapsed + " ms", elapsed >= 1900);
+        assertEquals(300, calls.get());
+    }
+}
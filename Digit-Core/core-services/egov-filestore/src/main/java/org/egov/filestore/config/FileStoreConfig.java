@@ -46,6 +46,15 @@ public class FileStoreConfig {
 	
 	@Value("#{'${image.formats}'.split(',')}") 
 	private List<String> imageFormats;
+
+	@Value("${content.validation.prefix.bytes:65536}")
+	private Integer contentValidationPrefixBytes;
+
+	@Value("${image.thumbnail.pool.size:2}")
+	private Integer thumbnailPoolSize;
+
+	@Value("${image.thumbnail.queue.size:50}")
+	private Integer thumbnailQueueSize;
 	
 	@PostConstruct
 	private void enrichKeysetForFormats() {
@@ -15,6 +15,7 @@ import org.springframework.web.multipart.MultipartFile;
 @Setter
 public class Artifact {
 	
+	// first bytes of the file, used to validate its content
 	private String fileContentInString;
 	
     private MultipartFile multipartFile;
@@ -1,6 +1,5 @@
 package org.egov.filestore.domain.service;
 
-import java.awt.image.BufferedImage;
 import java.io.IOException;
 import java.io.InputStream;
 import java.util.ArrayList;
@@ -20,10 +19,8 @@ import org.egov.filestore.domain.model.FileLocation;
 import org.egov.filestore.domain.model.Resource;
 import org.egov.filestore.persistence.repository.ArtifactRepository;
 import org.egov.filestore.repository.CloudFilesManager;
-import org.egov.filestore.repository.impl.CloudFileMgrUtils;
 import org.egov.filestore.repository.impl.minio.MinioConfig;
 import org.egov.filestore.validator.StorageValidator;
-import org.egov.tracer.model.CustomException;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
@@ -35,14 +32,14 @@ import lombok.extern.slf4j.Slf4j;
 @Slf4j
 public class StorageService {
 
-	@Autowired
-	private CloudFileMgrUtils util;
-	
 	private FileStoreConfig configs;
 
 	@Autowired
 	private CloudFilesManager cloudFilesManager;
 
+	@Autowired
+	private ThumbnailService thumbnailService;
+
 	private static final String UPLOAD_MESSAGE = "Received upload request for "
 			+ "jurisdiction: %s, module: %s, tag: %s with file count: %s";
 
@@ -83,13 +80,22 @@ public class StorageService {
 
 		log.info(UPLOAD_MESSAGE, module, tag, filesToStore.size());
 		List<Artifact> artifacts = mapFilesToArtifact(filesToStore, module, tag, tenantId);
-		return this.artifactRepository.save(artifacts, requestInfo);
+		List<String> fileStoreIds = this.artifactRepository.save(artifacts, requestInfo);
+		for (Artifact artifact : artifacts) {
+			if (isImage(artifact))
+				thumbnailService.generate(artifact);
+		}
+		return fileStoreIds;
 	}
 
+	/**
+	 * Only the first bytes of each file are read to validate its content, the
+	 * file itself is streamed to the storage when the artifacts are saved.
+	 */
 	private List<Artifact> mapFilesToArtifact(List<MultipartFile> files, String module, String tag, String tenantId) {
 
 		final String folderName = getFolderName(module, tenantId);
-		String inputStreamAsString = null;
+		String contentPrefix = null;
 		List<Artifact> artifacts = new ArrayList<>();
 		Artifact artifact = null;
 		for (MultipartFile file : files) {
@@ -100,8 +106,8 @@ public class StorageService {
 			String id = this.idGeneratorService.getId();
 			FileLocation fileLocation = new FileLocation(id, module, tag, tenantId, fileName, null);
 			try {
-				inputStreamAsString = IOUtils.toString(file.getInputStream(), fileStoreConfig.getImageCharsetType());
-				artifact = Artifact.builder().fileContentInString(inputStreamAsString).multipartFile(file)
+				contentPrefix = readContentPrefix(file);
+				artifact = Artifact.builder().fileContentInString(contentPrefix).multipartFile(file)
 						.fileLocation(fileLocation).build();
 				artifacts.add(artifact);
 
@@ -110,38 +116,22 @@ public class StorageService {
 				log.error("IO Exception while mapping files to artifact: " + e.getMessage());
 			}
 			storageValidator.validate(artifact);
-			
-			if (fileStoreConfig.getImageFormats().contains(FilenameUtils.getExtension(artifact.getMultipartFile().getOriginalFilename())))
-				setThumbnailImages(artifact);
 		}
 
 		return artifacts;
 	}
 
-	private void setThumbnailImages(Artifact artifact) {
-		
-		String completeName = artifact.getFileLocation().getFileName();
-		int index = completeName.indexOf('/');
-		String fileNameWithPath = completeName.substring(index + 1, completeName.length());
-
-		try {
-
-			String imagetype = FilenameUtils.getExtension(artifact.getMultipartFile().getOriginalFilename());
-			String inputStreamAsString = artifact.getFileContentInString();
-			if (fileStoreConfig.getImageFormats().contains(imagetype)) {
-
-				InputStream ipStreamForImg = IOUtils.toInputStream(inputStreamAsString, configs.getImageCharsetType());
-				Map<String, BufferedImage> mapOfImagesAndPaths = util.createVersionsOfImage(ipStreamForImg,
-						fileNameWithPath);
-				artifact.setThumbnailImages(mapOfImagesAndPaths);
-			}
-
-		} catch (Exception e) {
-			// TODO Auto-generated catch block
-			log.error("EG_FILESTORE_INPUT_ERROR", e);
-			throw new CustomException("EG_FILESTORE_INPUT_ERROR", "Failed to read input stream from multipart file");
+	private String readContentPrefix(MultipartFile file) throws IOException {
+		byte[] buffer = new byte[fileStoreConfig.getContentValidationPrefixBytes()];
+		try (InputStream inputStream = file.getInputStream()) {
+			int length = IOUtils.read(inputStream, buffer);
+			return new String(buffer, 0, length, fileStoreConfig.getImageCharsetType());
 		}
+	}
 
+	private boolean isImage(Artifact artifact) {
+		return fileStoreConfig.getImageFormats()
+				.contains(FilenameUtils.getExtension(artifact.getMultipartFile().getOriginalFilename()));
 	}
 
 	private String getFolderName(String module, String tenantId) {
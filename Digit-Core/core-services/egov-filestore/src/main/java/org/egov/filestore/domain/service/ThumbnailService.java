@@ -0,0 +1,119 @@
+package org.egov.filestore.domain.service;
+
+import java.awt.image.BufferedImage;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import jakarta.annotation.PreDestroy;
+
+import org.apache.commons.io.FilenameUtils;
+import org.egov.filestore.config.FileStoreConfig;
+import org.egov.filestore.domain.model.Artifact;
+import org.egov.filestore.repository.CloudFilesManager;
+import org.egov.filestore.repository.impl.CloudFileMgrUtils;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Generates the small, medium and large versions of uploaded images off the
+ * request thread. Uploads are copied to a temp file, since the multipart file
+ * is removed once the request completes, and resized on a bounded pool. When
+ * the pool and its queue are full the upload request generates the thumbnails
+ * itself, which slows down uploads instead of piling up decoded images.
+ */
+@Service
+@Slf4j
+public class ThumbnailService {
+
+	private CloudFileMgrUtils util;
+
+	private CloudFilesManager cloudFilesManager;
+
+	private ThreadPoolExecutor executor;
+
+	@Autowired
+	public ThumbnailService(CloudFileMgrUtils util, CloudFilesManager cloudFilesManager, FileStoreConfig fileStoreConfig) {
+		this.util = util;
+		this.cloudFilesManager = cloudFilesManager;
+		AtomicInteger threadCount = new AtomicInteger();
+		this.executor = new ThreadPoolExecutor(fileStoreConfig.getThumbnailPoolSize(),
+				fileStoreConfig.getThumbnailPoolSize(), 0L, TimeUnit.MILLISECONDS,
+				new ArrayBlockingQueue<>(fileStoreConfig.getThumbnailQueueSize()), runnable -> {
+					Thread thread = new Thread(runnable, "filestore-thumbnail-" + threadCount.incrementAndGet());
+					thread.setDaemon(true);
+					return thread;
+				}, new ThreadPoolExecutor.CallerRunsPolicy());
+	}
+
+	/**
+	 * Schedules the generation of the thumbnails of an image which has already
+	 * been stored. The upload has succeeded by then, so a failure to copy the
+	 * image is only logged and the image is left without thumbnails.
+	 *
+	 * @param artifact
+	 */
+	public void generate(Artifact artifact) {
+		String completeName = artifact.getFileLocation().getFileName();
+		File imageFile = null;
+		try {
+			imageFile = File.createTempFile("filestore-", "." + FilenameUtils.getExtension(completeName));
+			artifact.getMultipartFile().transferTo(imageFile);
+		} catch (IOException e) {
+			log.error("EG_FILESTORE_INPUT_ERROR: could not copy " + completeName + " to generate its thumbnails", e);
+			deleteTempFile(imageFile);
+			return;
+		}
+
+		File file = imageFile;
+		util.markThumbnailsPending(completeName);
+		try {
+			executor.execute(() -> createThumbnails(artifact, file));
+		} catch (RuntimeException e) {
+			log.error("Could not schedule the thumbnails of " + completeName, e);
+			util.markThumbnailsDone(completeName);
+			deleteTempFile(file);
+		}
+	}
+
+	private void createThumbnails(Artifact artifact, File imageFile) {
+		String completeName = artifact.getFileLocation().getFileName();
+		String fileNameWithPath = completeName.substring(completeName.indexOf('/') + 1);
+		try (InputStream inputStream = Files.newInputStream(imageFile.toPath())) {
+			Map<String, BufferedImage> mapOfImagesAndPaths = util.createVersionsOfImage(inputStream, fileNameWithPath);
+			artifact.setThumbnailImages(mapOfImagesAndPaths);
+			cloudFilesManager.saveThumbnails(artifact);
+			mapOfImagesAndPaths.values().forEach(BufferedImage::flush);
+		} catch (Exception e) {
+			log.error("Error while creating thumbnails of " + completeName, e);
+		} finally {
+			util.markThumbnailsDone(completeName);
+			artifact.setThumbnailImages(null);
+			deleteTempFile(imageFile);
+		}
+	}
+
+	private void deleteTempFile(File imageFile) {
+		if (null == imageFile)
+			return;
+		try {
+			Files.deleteIfExists(imageFile.toPath());
+		} catch (IOException e) {
+			log.warn("Could not delete temp file " + imageFile, e);
+		}
+	}
+
+	@PreDestroy
+	public void shutdown() {
+		executor.shutdown();
+	}
+
+}
@@ -81,31 +81,19 @@ public class AzureBlobStorageImpl implements CloudFilesManager {
 			azureBlobClient = azureFacade.getAzureClient();
 		
 		artifacts.forEach(artifact -> {
-			CloudBlobContainer container= null;
 			String completeName = artifact.getFileLocation().getFileName();
 			int index = completeName.indexOf('/');
-			String containerName = completeName.substring(0, index);
 			String fileNameWithPath = completeName.substring(index + 1, completeName.length());
 			try {
-				if(isContainerFixed)
-					container = azureBlobClient.getContainerReference(fixedContainerName);
-				else
-					container = azureBlobClient.getContainerReference(containerName);
-				container.createIfNotExists(BlobContainerPublicAccessType.CONTAINER, new BlobRequestOptions(), new OperationContext());
+				CloudBlobContainer container = getContainer(completeName);
 				
 				Long contentLength = artifact.getMultipartFile().getSize();
-				BufferedInputStream inputStream = new BufferedInputStream(artifact.getMultipartFile().getInputStream());
 				
-				if(artifact.getMultipartFile().getContentType().startsWith("image/")) {
-					String extension = FilenameUtils.getExtension(artifact.getMultipartFile().getOriginalFilename());
-					// Removed generating versions of image because it's already available in thumbnailImages, and it's causing the issue because using same input stream
-					Map<String, BufferedImage> mapOfImagesAndPaths = artifact.getThumbnailImages();
-					for(String key: mapOfImagesAndPaths.keySet()) {
-						upload(container, key, null, null, mapOfImagesAndPaths.get(key), extension);
-						mapOfImagesAndPaths.get(key).flush();
-					}
+				if(artifact.getMultipartFile().getContentType().startsWith("image/"))
+					uploadThumbnails(container, artifact);
+				try (BufferedInputStream inputStream = new BufferedInputStream(artifact.getMultipartFile().getInputStream())) {
+					upload(container, fileNameWithPath, inputStream, contentLength, null, null);
 				}
-				upload(container, fileNameWithPath, inputStream, contentLength, null, null);
 				
 				for (ListBlobItem blobItem : container.listBlobs())
 					log.info("URI of blob is: " + blobItem.getStorageUri().getPrimaryUri());
@@ -116,6 +104,40 @@ public class AzureBlobStorageImpl implements CloudFilesManager {
 		});			
 	}
 	
+	@Override
+	public void saveThumbnails(Artifact artifact) {
+		if(null == azureBlobClient)
+			azureBlobClient = azureFacade.getAzureClient();
+		
+		try {
+			uploadThumbnails(getContainer(artifact.getFileLocation().getFileName()), artifact);
+		} catch (Exception e) {
+			throw new CustomException("WG_WF_UPLOAD_ERROR", e.getMessage());
+		}
+	}
+	
+	private CloudBlobContainer getContainer(String completeName) throws Exception {
+		CloudBlobContainer container;
+		String containerName = completeName.substring(0, completeName.indexOf('/'));
+		if(isContainerFixed)
+			container = azureBlobClient.getContainerReference(fixedContainerName);
+		else
+			container = azureBlobClient.getContainerReference(containerName);
+		container.createIfNotExists(BlobContainerPublicAccessType.CONTAINER, new BlobRequestOptions(), new OperationContext());
+		return container;
+	}
+	
+	private void uploadThumbnails(CloudBlobContainer container, Artifact artifact) {
+		Map<String, BufferedImage> mapOfImagesAndPaths = artifact.getThumbnailImages();
+		if(null == mapOfImagesAndPaths)
+			return;
+		String extension = FilenameUtils.getExtension(artifact.getMultipartFile().getOriginalFilename());
+		for(String key: mapOfImagesAndPaths.keySet()) {
+			upload(container, key, null, null, mapOfImagesAndPaths.get(key), extension);
+			mapOfImagesAndPaths.get(key).flush();
+		}
+	}
+	
 	/**
 	 * There's a problem with this implementation: In case of images, we are trying to retrieve 4 different versions of the same file namely - 
 	 * small, medium, large and the original. The path stored in the db is the path of the original file only, we are making suitable changes
@@ -202,7 +224,10 @@ public class AzureBlobStorageImpl implements CloudFilesManager {
 			azureBlobClient = azureFacade.getAzureClient();
 		Map<String, String> mapOfIdAndSASUrls = new HashMap<>();
 		for(org.egov.filestore.persistence.entity.Artifact artifact : artifacts) {
-			if (util.isFileAnImage(artifact.getFileName())) {
+			if (util.isFileAnImage(artifact.getFileName()) && util.areThumbnailsPending(artifact.getFileName())) {
+				String url = getSASURL(artifact.getFileName(), util.generateSASToken(azureBlobClient, artifact.getFileName()));
+				mapOfIdAndSASUrls.put(artifact.getFileStoreId(), String.join(",", url, url, url, url));
+			} else if (util.isFileAnImage(artifact.getFileName())) {
 
 				StringBuilder url = new StringBuilder();
 				/* Don't change the order of images within this if, it is index-based and UI will break.*/
@@ -1,17 +1,24 @@
 package org.egov.filestore.repository.impl;
 
 import java.awt.image.BufferedImage;
+import java.io.IOException;
 import java.io.InputStream;
 import java.util.Arrays;
 import java.util.Base64;
 import java.util.Base64.Encoder;
 import java.util.Date;
 import java.util.HashMap;
+import java.util.Iterator;
 import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 
 import javax.crypto.Mac;
 import javax.crypto.spec.SecretKeySpec;
 import javax.imageio.ImageIO;
+import javax.imageio.ImageReadParam;
+import javax.imageio.ImageReader;
+import javax.imageio.stream.ImageInputStream;
 
 import org.egov.filestore.config.FileStoreConfig;
 import org.egov.tracer.model.CustomException;
@@ -39,11 +46,18 @@ public class CloudFileMgrUtils {
 	@Value("${azure.sas.expiry.time.in.secs}")
 	private Integer azureSASExpiryinSecs;
 
+	// files whose thumbnails are still being generated on this instance
+	private final Set<String> pendingThumbnails = ConcurrentHashMap.newKeySet();
+
 	/**
 	 * This method creates different versions of an image. A single image will be
 	 * stored in small, medium and large formats along with the original image. This
 	 * is to facililate fasters searches on the app
 	 * 
+	 * Large images are decoded with subsampling, so that the decoded image is not
+	 * much bigger than the large version, and each version is scaled from the next
+	 * bigger one instead of the original.
+	 * 
 	 * @param file
 	 * @param fileName
 	 * @return
@@ -51,12 +65,9 @@ public class CloudFileMgrUtils {
 	public Map<String, BufferedImage> createVersionsOfImage(InputStream inputStream, String fileName) {
 		
 		Map<String, BufferedImage> mapOfImagesAndPaths = new HashMap<>();
-		BufferedImage largeImage = null;
-		BufferedImage mediumImg = null;
-		BufferedImage smallImg = null;
 		try {
 			
-			BufferedImage originalImage = ImageIO.read(inputStream);
+			BufferedImage originalImage = readImage(inputStream, fileStoreConfig.getLargeWidth());
 			
 			if (null == originalImage) {
 				
@@ -65,11 +76,12 @@ public class CloudFileMgrUtils {
 				throw new CustomException(map);
 			}
 			
-			 largeImage = Scalr.resize(originalImage, Method.QUALITY, Mode.AUTOMATIC, fileStoreConfig.getLargeWidth(), null,
+			BufferedImage largeImage = Scalr.resize(originalImage, Method.QUALITY, Mode.AUTOMATIC, fileStoreConfig.getLargeWidth(), null,
 					Scalr.OP_ANTIALIAS);
-			 mediumImg = Scalr.resize(originalImage, Method.QUALITY, Mode.AUTOMATIC, fileStoreConfig.getMediumWidth(), null,
+			originalImage.flush();
+			BufferedImage mediumImg = Scalr.resize(largeImage, Method.QUALITY, Mode.AUTOMATIC, fileStoreConfig.getMediumWidth(), null,
 					Scalr.OP_ANTIALIAS);
-			 smallImg = Scalr.resize(originalImage, Method.QUALITY, Mode.AUTOMATIC, fileStoreConfig.getSmallWidth(), null,
+			BufferedImage smallImg = Scalr.resize(mediumImg, Method.QUALITY, Mode.AUTOMATIC, fileStoreConfig.getSmallWidth(), null,
 					Scalr.OP_ANTIALIAS);
 
 			int lastIndex = fileName.length();
@@ -80,17 +92,63 @@ public class CloudFileMgrUtils {
 			mapOfImagesAndPaths.put(fileName.replace(replaceString, fileStoreConfig.get_small() + replaceString), smallImg);
 
 			log.info("Different versions of the image created!");
+		} catch (CustomException e) {
+			throw e;
 		} catch (Exception e) {
 			log.error("Error while creating different versions of the image: ", e);
-		} finally {
-			largeImage.flush();
-			mediumImg.flush();
-			smallImg.flush();
 		}
 
 		return mapOfImagesAndPaths;
 	}
 
+	/**
+	 * Decodes an image, skipping pixels when it is more than twice as wide as the
+	 * given width, so that the memory needed does not grow with the resolution of
+	 * the upload.
+	 * 
+	 * @param inputStream
+	 * @param targetWidth
+	 * @return the image, null when no reader can decode it
+	 * @throws IOException
+	 */
+	private BufferedImage readImage(InputStream inputStream, int targetWidth) throws IOException {
+		try (ImageInputStream imageInputStream = ImageIO.createImageInputStream(inputStream)) {
+			if (null == imageInputStream)
+				return null;
+			Iterator<ImageReader> readers = ImageIO.getImageReaders(imageInputStream);
+			if (!readers.hasNext())
+				return null;
+			ImageReader reader = readers.next();
+			try {
+				reader.setInput(imageInputStream, true, true);
+				int subsampling = Math.max(1, reader.getWidth(0) / (2 * targetWidth));
+				ImageReadParam param = reader.getDefaultReadParam();
+				param.setSourceSubsampling(subsampling, subsampling, 0, 0);
+				return reader.read(0, param);
+			} finally {
+				reader.dispose();
+			}
+		}
+	}
+
+	/**
+	 * Marks the thumbnails of a file as being generated. Until they are done the
+	 * url of the original file is returned in place of the thumbnail urls.
+	 * 
+	 * @param fileName
+	 */
+	public void markThumbnailsPending(String fileName) {
+		pendingThumbnails.add(fileName);
+	}
+
+	public void markThumbnailsDone(String fileName) {
+		pendingThumbnails.remove(fileName);
+	}
+
+	public Boolean areThumbnailsPending(String fileName) {
+		return pendingThumbnails.contains(fileName);
+	}
+
 	/**
 	 * Generates SAS tokens for the given URI, this token is used to access files
 	 * from Azure:
@@ -79,19 +79,18 @@ public class MinioRepository implements CloudFilesManager {
 	
 
 	private void push(MultipartFile multipartFile, String fileNameWithPath) {
-		try {
-			InputStream is = multipartFile.getInputStream();
+		try (InputStream is = multipartFile.getInputStream()) {
 			long contentLength = multipartFile.getSize();
 
 			/*PutObjectOptions putObjectOptions = new PutObjectOptions(contentLength, PutObjectOptions.MAX_PART_SIZE);
 			putObjectOptions.setContentType(multipartFile.getContentType());
 			minioClient.putObject(minioConfig.getBucketName(), fileNameWithPath, is, putObjectOptions);*/
 
-			long fileSize = is.available();
+			// streamed in parts, the file is never held in memory as a whole
 			PutObjectArgs.Builder putObjectArgsBuilder = PutObjectArgs.builder()
 					.bucket(minioConfig.getBucketName())
 					.object(fileNameWithPath)
-					.stream(is, fileSize, -1) // Set part size to -1 for auto detection
+					.stream(is, contentLength, -1) // Set part size to -1 for auto detection
 					.contentType(multipartFile.getContentType()); // Change this as per your file's content type
 
 			// If the file is larger than 5 MB, set the part size explicitly (5 * 1024 * 1024 bytes)
@@ -135,6 +134,12 @@ public class MinioRepository implements CloudFilesManager {
 
 	}
 
+	@Override
+	public void saveThumbnails(org.egov.filestore.domain.model.Artifact artifact) {
+		if (artifact.getThumbnailImages() != null && !artifact.getThumbnailImages().isEmpty())
+			pushThumbnailImages(artifact);
+	}
+
 	private void pushThumbnailImages(org.egov.filestore.domain.model.Artifact artifact) {
 
 		try {
@@ -169,7 +174,9 @@ public class MinioRepository implements CloudFilesManager {
 			String fileName = fileLocation.
 					substring(fileLocation.indexOf('/') + 1, fileLocation.length());
 			String signedUrl = getSignedUrl(fileName);
-			if (util.isFileAnImage(artifact.getFileName())) {
+			if (util.isFileAnImage(artifact.getFileName()) && util.areThumbnailsPending(fileLocation)) {
+				signedUrl = String.join(",", signedUrl, signedUrl, signedUrl, signedUrl);
+			} else if (util.isFileAnImage(artifact.getFileName())) {
 				try {
 					signedUrl = setThumnailSignedURL(fileName, new StringBuilder(signedUrl));
 				} catch (InvalidKeyException | ErrorResponseException | IllegalArgumentException
@@ -0,0 +1,101 @@
+package org.egov.filestore.domain.service;
+
+import org.egov.filestore.config.FileStoreConfig;
+import org.egov.filestore.domain.model.Artifact;
+import org.egov.filestore.domain.model.FileLocation;
+import org.egov.filestore.repository.CloudFilesManager;
+import org.egov.filestore.repository.impl.CloudFileMgrUtils;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockMultipartFile;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class ThumbnailServiceTest {
+
+    @Test
+    void testGenerate() throws IOException, InterruptedException {
+        FileStoreConfig fileStoreConfig = mock(FileStoreConfig.class);
+        when(fileStoreConfig.getThumbnailPoolSize()).thenReturn(1);
+        when(fileStoreConfig.getThumbnailQueueSize()).thenReturn(1);
+        when(fileStoreConfig.getLargeWidth()).thenReturn(500);
+        when(fileStoreConfig.getMediumWidth()).thenReturn(200);
+        when(fileStoreConfig.getSmallWidth()).thenReturn(120);
+        when(fileStoreConfig.get_large()).thenReturn("_large");
+        when(fileStoreConfig.get_medium()).thenReturn("_medium");
+        when(fileStoreConfig.get_small()).thenReturn("_small");
+        CloudFileMgrUtils util = new CloudFileMgrUtils();
+        ReflectionTestUtils.setField(util, "fileStoreConfig", fileStoreConfig);
+
+        Map<String, Integer> widths = new TreeMap<>();
+        CountDownLatch saved = new CountDownLatch(1);
+        CloudFilesManager cloudFilesManager = mock(CloudFilesManager.class);
+        doAnswer(invocation -> {
+            Artifact artifact = invocation.getArgument(0);
+            artifact.getThumbnailImages().forEach((path, image) -> widths.put(path, image.getWidth()));
+            saved.countDown();
+            return null;
+        }).when(cloudFilesManager).saveThumbnails(any());
+
+        ByteArrayOutputStream os = new ByteArrayOutputStream();
+        ImageIO.write(new BufferedImage(2400, 1200, BufferedImage.TYPE_INT_RGB), "png", os);
+        MockMultipartFile multipartFile = new MockMultipartFile("file", "photo.png", "image/png", os.toByteArray());
+        FileLocation fileLocation = new FileLocation("42", "Module", "Tag", "42", "bucket/42/Module/photo.png", null);
+        Artifact artifact = Artifact.builder().multipartFile(multipartFile).fileLocation(fileLocation).build();
+
+        ThumbnailService thumbnailService = new ThumbnailService(util, cloudFilesManager, fileStoreConfig);
+        thumbnailService.generate(artifact);
+
+        assertTrue(saved.await(10, TimeUnit.SECONDS));
+        thumbnailService.shutdown();
+        assertEquals(3, widths.size());
+        assertEquals(500, widths.get("42/Module/photo_large.png"));
+        assertEquals(200, widths.get("42/Module/photo_medium.png"));
+        assertEquals(120, widths.get("42/Module/photo_small.png"));
+    }
+
+    @Test
+    void testGenerateFailureClearsPending() throws IOException, InterruptedException {
+        FileStoreConfig fileStoreConfig = mock(FileStoreConfig.class);
+        when(fileStoreConfig.getThumbnailPoolSize()).thenReturn(1);
+        when(fileStoreConfig.getThumbnailQueueSize()).thenReturn(1);
+        CloudFileMgrUtils util = spy(new CloudFileMgrUtils());
+        CountDownLatch done = new CountDownLatch(1);
+        doAnswer(invocation -> {
+            invocation.callRealMethod();
+            done.countDown();
+            return null;
+        }).when(util).markThumbnailsDone(anyString());
+        doThrow(new RuntimeException("unreadable image")).when(util).createVersionsOfImage(any(), anyString());
+
+        MockMultipartFile multipartFile = new MockMultipartFile("file", "photo.png", "image/png", new byte[] { 1, 2, 3 });
+        FileLocation fileLocation = new FileLocation("42", "Module", "Tag", "42", "bucket/42/Module/photo.png", null);
+        Artifact artifact = Artifact.builder().multipartFile(multipartFile).fileLocation(fileLocation).build();
+
+        ThumbnailService thumbnailService = new ThumbnailService(util, mock(CloudFilesManager.class), fileStoreConfig);
+        thumbnailService.generate(artifact);
+
+        assertTrue(done.await(10, TimeUnit.SECONDS));
+        thumbnailService.shutdown();
+        assertFalse(util.areThumbnailsPending("bucket/42/Module/photo.png"));
+    }
+
+    @Test
+    void testMarkThumbnailsPending() {
+        CloudFileMgrUtils util = new CloudFileMgrUtils();
+        util.markThumbnailsPending("bucket/photo.png");
+        assertTrue(util.areThumbnailsPending("bucket/photo.png"));
+        util.markThumbnailsDone("bucket/photo.png");
+        assertFalse(util.areThumbnailsPending("bucket/photo.png"));
+    }
+}
@@ -0,0 +1,118 @@
+package org.egov.id.service;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import org.egov.tracer.model.CustomException;
+
+import lombok.Getter;
+
+/**
+ * Description : Parsed form of an id format. The format is split once into
+ * literal text and attribute placeholders so that ids can be built by
+ * appending segments instead of repeatedly searching and replacing the format.
+ */
+@Getter
+public class IdFormatTemplate {
+
+    private static final Pattern ATTRIBUTE_PATTERN = Pattern.compile("\\[(.*?)\\]");
+
+    private static final Pattern RANDOM_LENGTH_PATTERN = Pattern.compile("\\{(.*?)\\}");
+
+    // default digits length of random text
+    private static final int DEFAULT_RANDOM_LENGTH = 2;
+
+    public enum SegmentType {
+        LITERAL, SEQUENCE, FINANCIAL_YEAR, CURRENT_YEAR, CITY, RANDOM
+    }
+
+    @Getter
+    public static class Segment {
+
+        private final SegmentType type;
+
+        // literal text, or the attribute name for placeholders
+        private final String value;
+
+        // length of random text
+        private final int length;
+
+        private Segment(SegmentType type, String value, int length) {
+            this.type = type;
+            this.value = value;
+            this.length = length;
+        }
+    }
+
+    private final List<Segment> segments;
+
+    private final Set<String> sequenceNames;
+
+    private IdFormatTemplate(List<Segment> segments, Set<String> sequenceNames) {
+        this.segments = Collections.unmodifiableList(segments);
+        this.sequenceNames = Collections.unmodifiableSet(sequenceNames);
+    }
+
+    /**
+     * Description : This method parses an id format whose tenant placeholders
+     * have already been resolved
+     *
+     * @param idFormat
+     * @return template
+     */
+    public static IdFormatTemplate compile(String idFormat) {
+        List<Segment> segments = new ArrayList<>();
+        Set<String> sequenceNames = new LinkedHashSet<>();
+
+        Matcher matcher = ATTRIBUTE_PATTERN.matcher(idFormat);
+        int literalStart = 0;
+        while (matcher.find()) {
+            if (matcher.start() > literalStart)
+                segments.add(new Segment(SegmentType.LITERAL, idFormat.substring(literalStart, matcher.start()), 0));
+            literalStart = matcher.end();
+
+            String attributeName = matcher.group(1);
+            SegmentType type = typeOf(attributeName);
+            int length = 0;
+            if (type == SegmentType.SEQUENCE)
+                sequenceNames.add(attributeName);
+            else if (type == SegmentType.RANDOM)
+                length = randomTextLength(attributeName);
+            segments.add(new Segment(type, attributeName, length));
+        }
+        if (literalStart < idFormat.length())
+            segments.add(new Segment(SegmentType.LITERAL, idFormat.substring(literalStart), 0));
+
+        return new IdFormatTemplate(segments, sequenceNames);
+    }
+
+    private static SegmentType typeOf(String attributeName) {
+        if (attributeName.regionMatches(true, 0, "seq", 0, 3))
+            return SegmentType.SEQUENCE;
+        if (attributeName.regionMatches(true, 0, "fy", 0, 2))
+            return SegmentType.FINANCIAL_YEAR;
+        if (attributeName.regionMatches(true, 0, "cy", 0, 2))
+            return SegmentType.CURRENT_YEAR;
+        if (attributeName.regionMatches(true, 0, "city", 0, 4))
+            return SegmentType.CITY;
+        return SegmentType.RANDOM;
+    }
+
+    private static int randomTextLength(String regex) {
+        try {
+            Pattern.compile(regex);
+        } catch (Exception e) {
+            throw new CustomException("INVALID_REGEX", "Random text could not be generated. Invalid regex provided.");
+        }
+        Matcher matcher = RANDOM_LENGTH_PATTERN.matcher(regex);
+        if (matcher.find())
+            return Integer.parseInt(matcher.group(1));
+        return DEFAULT_RANDOM_LENGTH;
+    }
+
+}
@@ -2,8 +2,8 @@ package org.egov.id.service;
 
 import java.text.SimpleDateFormat;
 import java.util.*;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
 
 import javax.sql.DataSource;
 
@@ -51,6 +51,9 @@ public class IdGenerationService {
     @Autowired
     private JdbcTemplate jdbcTemplate;
 
+    @Autowired
+    private SequenceBlockAllocator sequenceBlockAllocator;
+
     // by default 'idformat' will be taken from MDMS. Change value of 'ismdms.on' to 'false'
     // in application.properties to get data from DB instead.
     @Value("${idformat.from.mdms}")
@@ -61,9 +64,15 @@ public class IdGenerationService {
     public boolean autoCreateNewSeq;
 
 
+    //maximum number of compiled id formats kept in memory
+    @Value("${idformat.template.cache.size:1000}")
+    public int compiledFormatCacheSize = 1000;
+
     //default count value
     public Integer defaultCount = 1;
 
+    private final Map<String, IdFormatTemplate> compiledFormats = new ConcurrentHashMap<>();
+
 
     /**
      * Description : This method to generate idGenerationResponse
@@ -221,52 +230,79 @@ public class IdGenerationService {
             }
         }
 
-        List<String> matchList = new ArrayList<String>();
-
-        Pattern regExpPattern = Pattern.compile("\\[(.*?)\\]");
-        Matcher regExpMatcher = regExpPattern.matcher(idFormat);
-
+        IdFormatTemplate template = getTemplate(idFormat);
         Integer count = getCount(idRequest);
 
-        while (regExpMatcher.find()) {// Finds Matching Pattern in String
-            matchList.add(regExpMatcher.group(1));// Fetching Group from String
-        }
-
-        HashMap<String, List<String>> sequences = new HashMap<>();
-        String idFormatTemplate = idFormat;
-        String cityName = null;
-
-        for (int i = 0; i < count; i++) {
-            idFormat = idFormatTemplate;
-
-            for (String attributeName : matchList) {
-
-                if (attributeName.substring(0, 3).equalsIgnoreCase("seq")) {
+        // attributes that do not change between the ids of a request are resolved once
+        Map<String, List<String>> sequences = new HashMap<>();
+        Map<String, String> resolvedAttributes = new HashMap<>();
+        for (IdFormatTemplate.Segment segment : template.getSegments()) {
+            String attributeName = segment.getValue();
+            switch (segment.getType()) {
+                case SEQUENCE:
                     if (!sequences.containsKey(attributeName)) {
-                        sequences.put(attributeName, generateSequenceNumber(attributeName, requestInfo, idRequest,autoCreateNewSeqFlag));
+                        sequences.put(attributeName, generateSequenceNumber(attributeName, requestInfo, idRequest, autoCreateNewSeqFlag));
                     }
-					idFormat = idFormat.replace("[" + attributeName + "]", sequences.get(attributeName).get(i));
-                } else if (attributeName.substring(0, 2).equalsIgnoreCase("fy")) {
-                    idFormat = idFormat.replace("[" + attributeName + "]",
-                            generateFinancialYearDateFormat(attributeName, requestInfo));
-                } else if (attributeName.substring(0, 2).equalsIgnoreCase("cy")) {
-                    idFormat = idFormat.replace("[" + attributeName + "]",
-                            generateCurrentYearDateFormat(attributeName, requestInfo));
-                } else if (attributeName.substring(0, 4).equalsIgnoreCase("city")) {
-                    if (cityName == null) {
-                        cityName = mdmsService.getCity(requestInfo, idRequest);
+                    break;
+                case FINANCIAL_YEAR:
+                    resolvedAttributes.computeIfAbsent(attributeName, name -> generateFinancialYearDateFormat(name, requestInfo));
+                    break;
+                case CURRENT_YEAR:
+                    resolvedAttributes.computeIfAbsent(attributeName, name -> generateCurrentYearDateFormat(name, requestInfo));
+                    break;
+                case CITY:
+                    if (!resolvedAttributes.containsKey(attributeName)) {
+                        resolvedAttributes.put(attributeName, mdmsService.getCity(requestInfo, idRequest));
                     }
-                    idFormat = idFormat.replace("[" + attributeName + "]", cityName);
-                } else {
-                    idFormat = idFormat.replace("[" + attributeName + "]", generateRandomText(attributeName, requestInfo));
+                    break;
+                default:
+                    break;
+            }
+        }
+
+        for (int i = 0; i < count; i++) {
+            StringBuilder id = new StringBuilder();
+            for (IdFormatTemplate.Segment segment : template.getSegments()) {
+                switch (segment.getType()) {
+                    case LITERAL:
+                        id.append(segment.getValue());
+                        break;
+                    case SEQUENCE:
+                        id.append(sequences.get(segment.getValue()).get(i));
+                        break;
+                    case RANDOM:
+                        id.append(generateRandomText(segment.getLength()));
+                        break;
+                    default:
+                        id.append(resolvedAttributes.get(segment.getValue()));
+                        break;
                 }
             }
-            idFormatList.add(idFormat);
+            idFormatList.add(id.toString());
         }
 
         return idFormatList;
     }
 
+    /**
+     * Description : This method returns the compiled template of a format,
+     * compiling it on first use
+     *
+     * @param idFormat
+     * @return template
+     */
+    private IdFormatTemplate getTemplate(String idFormat) {
+        IdFormatTemplate template = compiledFormats.get(idFormat);
+        if (template == null) {
+            template = IdFormatTemplate.compile(idFormat);
+            // formats can also come from requests, so the cache is bounded
+            if (compiledFormats.size() >= compiledFormatCacheSize)
+                compiledFormats.clear();
+            compiledFormats.put(idFormat, template);
+        }
+        return template;
+    }
+
     /**
      * Description : This method to generate current financial year in given
      * format
@@ -348,27 +384,11 @@ public class IdGenerationService {
     /**
      * Description : This method to generate random text
      *
-     * @param regex
-     * @param requestInfo
+     * @param length
      * @return randomTxt
      */
-    private String generateRandomText(String regex, RequestInfo requestInfo) {
-        Random random = new Random();
-        List<String> matchList = new ArrayList<String>();
-        int length = 2;// default digits length
-        try {
-            Pattern.compile(regex);
-        } catch (Exception e) {
-            throw new CustomException("INVALID_REGEX", "Random text could not be generated. Invalid regex provided.");
-            //throw new InvalidIDFormatException(propertiesManager.getInvalidIdFormat(), requestInfo);
-        }
-        Matcher matcher = Pattern.compile("\\{(.*?)\\}").matcher(regex);
-        while (matcher.find()) {
-            matchList.add(matcher.group(1));
-        }
-        if (matchList.size() > 0) {
-            length = Integer.parseInt(matchList.get(0));
-        }
+    private String generateRandomText(int length) {
+        Random random = ThreadLocalRandom.current();
         StringBuilder stringBuilder = new StringBuilder();
         for (int i = 0; i < length; i++) {
             stringBuilder.append(random.nextInt(25));
@@ -420,8 +440,25 @@ public class IdGenerationService {
      */
     private List<String> generateSequenceNumber(String sequenceName, RequestInfo requestInfo, IdRequest idRequest,boolean autoCreateNewSeqFlag) throws Exception {
         Integer count = getCount(idRequest);
+        List<String> sequenceList = sequenceBlockAllocator.next(sequenceName, count,
+                blockSize -> fetchSequenceValues(sequenceName, blockSize, autoCreateNewSeqFlag));
+        List<String> sequenceLists = new ArrayList<>(sequenceList.size());
+        for (String seqId : sequenceList) {
+            String seqNumber = String.format("%06d", Integer.parseInt(seqId)).toString();
+            sequenceLists.add(seqNumber.toString());
+        }
+        return sequenceLists;
+    }
+
+    /**
+     * Description : This method to reserve a block of values of a sequence in DB
+     *
+     * @param sequenceName
+     * @param count
+     * @return sequence values
+     */
+    private List<String> fetchSequenceValues(String sequenceName, int count, boolean autoCreateNewSeqFlag) {
         List<String> sequenceList = new LinkedList<>();
-        List<String> sequenceLists = new LinkedList<>();
         // To generate a block of seq numbers
 
         String sequenceSql = "SELECT NEXTVAL ('" + sequenceName + "') FROM GENERATE_SERIES(1,?)";
@@ -446,11 +483,7 @@ public class IdGenerationService {
             log.error("Error retrieving seq number from DB",ex);
             throw new CustomException("SEQ_NUMBER_ERROR","Error retrieving seq number from existing seq in DB");
         }
-        for (String seqId : sequenceList) {
-            String seqNumber = String.format("%06d", Integer.parseInt(seqId)).toString();
-            sequenceLists.add(seqNumber.toString());
-        }
-        return sequenceLists;
+        return sequenceList;
     }
 
 }
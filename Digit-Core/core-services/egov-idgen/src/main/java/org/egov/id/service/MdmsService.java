@@ -2,6 +2,7 @@ package org.egov.id.service;
 
 import java.io.IOException;
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
 
 import lombok.extern.log4j.Log4j2;
 import org.egov.id.model.IdRequest;
@@ -14,6 +15,7 @@ import org.egov.mdms.model.ModuleDetail;
 import org.egov.mdms.service.MdmsClientService;
 import org.egov.tracer.model.CustomException;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
 import com.jayway.jsonpath.DocumentContext;
@@ -37,6 +39,18 @@ public class MdmsService {
     private static final String formatMaster = "IdFormat";
     private static final String formatModule = "common-masters";
 
+    // city codes and id formats rarely change, so they are kept for a while
+    // instead of being fetched from MDMS for every id request
+    @Value("${idformat.cache.ttl.ms:300000}")
+    private long cacheTtlMs;
+
+    @Value("${idformat.cache.max.size:5000}")
+    private int cacheMaxSize;
+
+    private final Map<String, CachedValue> cityCodes = new ConcurrentHashMap<>();
+
+    private final Map<String, CachedValue> idFormats = new ConcurrentHashMap<>();
+
 
     public MdmsResponse getMasterData(RequestInfo requestInfo, String tenantId,
                                       Map<String, List<MasterDetail>> masterDetails) {
@@ -62,6 +76,10 @@ public class MdmsService {
      */
 
     public String getCity(RequestInfo requestInfo, IdRequest idRequest) {
+        String cachedCityCode = getCached(cityCodes, idRequest.getTenantId());
+        if (cachedCityCode != null)
+            return cachedCityCode;
+
         Map<String, String> getCity = doMdmsServiceCall(requestInfo, idRequest);
         String cityCode = null;
         try {
@@ -89,6 +107,10 @@ public class MdmsService {
      */
 
     public String getIdFormat(RequestInfo requestInfo, IdRequest idRequest) {
+        String cachedIdFormat = getCached(idFormats, idFormatKey(idRequest));
+        if (cachedIdFormat != null)
+            return cachedIdFormat;
+
         Map<String, String> getIdFormat = doMdmsServiceCall(requestInfo, idRequest);
         String idFormat = null;
         try {
@@ -170,7 +192,44 @@ public class MdmsService {
         mdmsCallMap.put(formatMaster, idFormatFromMdms);
         mdmsCallMap.put(tenantMaster, cityCodeFromMdms);
 
+        putCached(cityCodes, tenantId, cityCodeFromMdms);
+        putCached(idFormats, idFormatKey(idRequest), idFormatFromMdms);
+
         return mdmsCallMap;
     }
 
+    private String idFormatKey(IdRequest idRequest) {
+        return idRequest.getTenantId() + ":" + idRequest.getIdName();
+    }
+
+    private String getCached(Map<String, CachedValue> cache, String key) {
+        if (key == null)
+            return null;
+        CachedValue cachedValue = cache.get(key);
+        if (cachedValue == null || cachedValue.expiresAt < System.currentTimeMillis())
+            return null;
+        return cachedValue.value;
+    }
+
+    private void putCached(Map<String, CachedValue> cache, String key, String value) {
+        // only values found in MDMS are cached so that newly added ones are picked up immediately
+        if (key == null || value == null)
+            return;
+        if (cache.size() >= cacheMaxSize)
+            cache.clear();
+        cache.put(key, new CachedValue(value, System.currentTimeMillis() + cacheTtlMs));
+    }
+
+    private static class CachedValue {
+
+        private final String value;
+
+        private final long expiresAt;
+
+        private CachedValue(String value, long expiresAt) {
+            this.value = value;
+            this.expiresAt = expiresAt;
+        }
+    }
+
 }
@@ -0,0 +1,61 @@
+package org.egov.id.service;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.IntFunction;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Description : Hands out sequence values from blocks reserved in advance, so
+ * that a replica goes to the database once per block instead of once per
+ * request. Values of a block are reserved through NEXTVAL and are therefore
+ * never handed out by another replica; the values left in memory when a
+ * replica stops are skipped, as with any rolled back NEXTVAL.
+ */
+@Service
+@Slf4j
+public class SequenceBlockAllocator {
+
+    // number of values reserved per database call, 1 reserves only what is requested
+    @Value("${id.sequence.block.size:1}")
+    private int blockSize = 1;
+
+    private final ConcurrentHashMap<String, Deque<String>> reservedValues = new ConcurrentHashMap<>();
+
+    /**
+     * Description : This method returns the next values of a sequence
+     *
+     * @param sequenceName
+     * @param count
+     * @param fetcher      reserves the given number of values in the database
+     * @return sequence values
+     */
+    public List<String> next(String sequenceName, int count, IntFunction<List<String>> fetcher) {
+        if (blockSize <= 1)
+            return fetcher.apply(count);
+
+        Deque<String> reserved = reservedValues.computeIfAbsent(sequenceName, name -> new ArrayDeque<>());
+        List<String> values = new ArrayList<>(count);
+        synchronized (reserved) {
+            while (values.size() < count && !reserved.isEmpty())
+                values.add(reserved.poll());
+
+            int needed = count - values.size();
+            if (needed > 0) {
+                List<String> fetched = fetcher.apply(Math.max(needed, blockSize));
+                values.addAll(fetched.subList(0, needed));
+                reserved.addAll(fetched.subList(needed, fetched.size()));
+                log.debug("Reserved {} values of sequence {}", fetched.size(), sequenceName);
+            }
+        }
+        return values;
+    }
+
+}
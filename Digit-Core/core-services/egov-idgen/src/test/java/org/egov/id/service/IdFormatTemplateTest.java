@@ -0,0 +1,41 @@
+package org.egov.id.service;
+
+import org.egov.tracer.model.CustomException;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class IdFormatTemplateTest {
+
+    @Test
+    void testCompile() {
+        IdFormatTemplate template = IdFormatTemplate.compile("PB-[cy:yyyy-MM-dd]-[city]-[SEQ_EG_PT_ID]-[fy:yyyy-yy]");
+
+        List<IdFormatTemplate.Segment> segments = template.getSegments();
+        assertEquals(8, segments.size());
+        assertEquals(IdFormatTemplate.SegmentType.LITERAL, segments.get(0).getType());
+        assertEquals("PB-", segments.get(0).getValue());
+        assertEquals(IdFormatTemplate.SegmentType.CURRENT_YEAR, segments.get(1).getType());
+        assertEquals(IdFormatTemplate.SegmentType.CITY, segments.get(3).getType());
+        assertEquals(IdFormatTemplate.SegmentType.SEQUENCE, segments.get(5).getType());
+        assertEquals(IdFormatTemplate.SegmentType.FINANCIAL_YEAR, segments.get(7).getType());
+        assertTrue(template.getSequenceNames().contains("SEQ_EG_PT_ID"));
+    }
+
+    @Test
+    void testCompileRandomText() {
+        IdFormatTemplate template = IdFormatTemplate.compile("[d{4}]X");
+
+        assertEquals(IdFormatTemplate.SegmentType.RANDOM, template.getSegments().get(0).getType());
+        assertEquals(4, template.getSegments().get(0).getLength());
+        assertEquals("X", template.getSegments().get(1).getValue());
+    }
+
+    @Test
+    void testCompileInvalidRandomText() {
+        assertThrows(CustomException.class, () -> IdFormatTemplate.compile("\\[(.*?)\\]"));
+    }
+
+}
@@ -0,0 +1,54 @@
+package org.egov.id.service;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.IntFunction;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SequenceBlockAllocatorTest {
+
+    @Test
+    void testNextWithoutBlocks() {
+        SequenceBlockAllocator allocator = new SequenceBlockAllocator();
+        List<Integer> fetchSizes = new ArrayList<>();
+
+        allocator.next("seq_test", 3, sequence(new AtomicInteger(), fetchSizes));
+        allocator.next("seq_test", 2, sequence(new AtomicInteger(), fetchSizes));
+
+        assertEquals(List.of(3, 2), fetchSizes);
+    }
+
+    @Test
+    void testNextFromReservedBlock() {
+        SequenceBlockAllocator allocator = new SequenceBlockAllocator();
+        ReflectionTestUtils.setField(allocator, "blockSize", 10);
+        AtomicInteger value = new AtomicInteger();
+        List<Integer> fetchSizes = new ArrayList<>();
+
+        assertEquals(List.of("1", "2", "3"), allocator.next("seq_test", 3, sequence(value, fetchSizes)));
+        assertEquals(List.of("4", "5", "6", "7"), allocator.next("seq_test", 4, sequence(value, fetchSizes)));
+        assertEquals(List.of(10), fetchSizes);
+
+        List<String> values = allocator.next("seq_test", 15, sequence(value, fetchSizes));
+        assertEquals(15, values.size());
+        assertEquals("8", values.get(0));
+        assertEquals("22", values.get(14));
+        assertEquals(List.of(10, 12), fetchSizes);
+    }
+
+    private IntFunction<List<String>> sequence(AtomicInteger value, List<Integer> fetchSizes) {
+        return count -> {
+            fetchSizes.add(count);
+            List<String> values = new ArrayList<>();
+            for (int i = 0; i < count; i++)
+                values.add(String.valueOf(value.incrementAndGet()));
+            return values;
+        };
+    }
+
+}
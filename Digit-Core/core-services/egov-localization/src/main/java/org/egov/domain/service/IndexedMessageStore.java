@@ -0,0 +1,167 @@
+package org.egov.domain.service;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+import org.egov.domain.model.Message;
+import org.egov.domain.model.MessageSearchCriteria;
+import org.egov.domain.model.Tenant;
+import org.springframework.util.CollectionUtils;
+
+/**
+ * In-process store of computed message lists, indexed by tenant, module and
+ * code so that searches are answered with map lookups instead of scanning and
+ * deserializing the whole list on every request.
+ *
+ * Entries are evicted on the cache bust events raised by create, update,
+ * upsert and delete requests on any instance. Each entry carries the cache
+ * version that was current when it was computed, which is used as the ETag of
+ * search responses.
+ */
+class IndexedMessageStore {
+
+	// tenant ids come from requests, so the number of entries is bounded
+	private static final int MAX_ENTRIES = 1000;
+
+	private final Map<String, IndexedMessages> entries = new ConcurrentHashMap<>();
+
+	// bumped on every eviction so that entries computed concurrently with a bust are not stored
+	private final AtomicLong generation = new AtomicLong();
+
+	IndexedMessages get(String locale, Tenant tenant, Supplier<Long> version, Supplier<List<Message>> loader) {
+		final String key = getKey(locale, tenant.getTenantId());
+		IndexedMessages indexedMessages = entries.get(key);
+		if (indexedMessages != null) {
+			return indexedMessages;
+		}
+		final long generationAtLoad = generation.get();
+		final IndexedMessages loaded = new IndexedMessages(version.get(), locale, loader.get());
+		if (entries.size() >= MAX_ENTRIES) {
+			entries.clear();
+		}
+		// an eviction bumps the generation before removing entries, checking it under the lock of
+		// the key means an entry is either not stored or stored before the eviction removes it
+		entries.compute(key, (entryKey, current) -> generation.get() == generationAtLoad ? loaded : current);
+		return loaded;
+	}
+
+	/**
+	 * Evicts the entries computed from messages of the given locale and tenant,
+	 * that is the entries of the tenant and of all its sub tenants. Messages of
+	 * the default tenant are part of every entry.
+	 */
+	void evict(String locale, Tenant tenant) {
+		generation.incrementAndGet();
+		if (tenant.isDefaultTenant()) {
+			entries.clear();
+			return;
+		}
+		final String key = getKey(locale, tenant.getTenantId());
+		entries.keySet().removeIf(entryKey -> entryKey.equals(key) || entryKey.startsWith(key + "."));
+	}
+
+	void evictAll() {
+		generation.incrementAndGet();
+		entries.clear();
+	}
+
+	private static String getKey(String locale, String tenantId) {
+		return String.format("%s:%s", locale, tenantId);
+	}
+
+	static class IndexedMessages {
+
+		private final long version;
+
+		private final Map<String, TenantMessages> tenantMessages = new HashMap<>();
+
+		private IndexedMessages(long version, String locale, List<Message> messages) {
+			this.version = version;
+			messages.stream()
+					.filter(message -> locale.equals(message.getLocale()))
+					.forEach(message -> tenantMessages
+							.computeIfAbsent(message.getTenant(), tenantId -> new TenantMessages())
+							.add(message));
+		}
+
+		long getVersion() {
+			return version;
+		}
+
+		/**
+		 * Returns the matching messages of the most specific tenant in the
+		 * hierarchy that has any, in the order of the computed list.
+		 */
+		List<Message> filter(MessageSearchCriteria searchCriteria) {
+			for (Tenant tenant : searchCriteria.getTenantId().getTenantHierarchy()) {
+				final TenantMessages messagesOfTenant = tenantMessages.get(tenant.getTenantId());
+				if (messagesOfTenant == null) {
+					continue;
+				}
+				final List<Message> filteredMessages = messagesOfTenant.filter(searchCriteria);
+				if (!filteredMessages.isEmpty()) {
+					return filteredMessages;
+				}
+			}
+			return Collections.emptyList();
+		}
+	}
+
+	private static class TenantMessages {
+
+		private final List<Message> all = new ArrayList<>();
+
+		private final Map<String, List<Message>> byModule = new HashMap<>();
+
+		private final Map<String, List<Message>> byCode = new HashMap<>();
+
+		private void add(Message message) {
+			all.add(message);
+			byModule.computeIfAbsent(message.getModule(), module -> new ArrayList<>()).add(message);
+			byCode.computeIfAbsent(message.getCode(), code -> new ArrayList<>()).add(message);
+		}
+
+		private List<Message> filter(MessageSearchCriteria searchCriteria) {
+			final Set<String> codes = searchCriteria.getCodes();
+			if (searchCriteria.isModuleAbsent()) {
+				if (CollectionUtils.isEmpty(codes)) {
+					return new ArrayList<>(all);
+				}
+				final List<Message> messages = new ArrayList<>();
+				codes.forEach(code -> messages.addAll(byCode.getOrDefault(code, Collections.emptyList())));
+				return sortByCode(messages, codes.size() > 1);
+			}
+
+			final Set<String> modules = new LinkedHashSet<>(List.of(searchCriteria.getModule().split("[,]")));
+			final List<Message> messages = new ArrayList<>();
+			for (String module : modules) {
+				final List<Message> messagesOfModule = byModule.getOrDefault(module, Collections.emptyList());
+				if (CollectionUtils.isEmpty(codes)) {
+					messages.addAll(messagesOfModule);
+				} else {
+					messagesOfModule.stream().filter(message -> codes.contains(message.getCode()))
+							.forEach(messages::add);
+				}
+			}
+			return sortByCode(messages, modules.size() > 1);
+		}
+
+		// the computed list is sorted by code, results merged from several index buckets are sorted back
+		private static List<Message> sortByCode(List<Message> messages, boolean merged) {
+			if (merged) {
+				messages.sort(Comparator.comparing(Message::getCode));
+			}
+			return messages;
+		}
+	}
+
+}
@@ -0,0 +1,41 @@
+package org.egov.domain.service;
+
+import java.nio.charset.StandardCharsets;
+
+import org.egov.domain.model.Tenant;
+import org.egov.persistence.repository.MessageCacheRepository;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.MessageListener;
+import org.springframework.stereotype.Component;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Evicts the in-process message entries of this instance when any instance
+ * busts the message cache. Events carry the locale:tenant key that was busted,
+ * or {@link MessageCacheRepository#ALL_ENTRIES}.
+ */
+@Component
+@Slf4j
+public class MessageCacheBustListener implements MessageListener {
+
+	private MessageService messageService;
+
+	public MessageCacheBustListener(MessageService messageService) {
+		this.messageService = messageService;
+	}
+
+	@Override
+	public void onMessage(Message message, byte[] pattern) {
+		final String cacheKey = new String(message.getBody(), StandardCharsets.UTF_8);
+		log.debug("Received cache bust for {}", cacheKey);
+		final int separatorIndex = cacheKey.indexOf(':');
+		if (MessageCacheRepository.ALL_ENTRIES.equals(cacheKey) || separatorIndex < 0) {
+			messageService.evictLocalCacheEntries(null, null);
+		} else {
+			messageService.evictLocalCacheEntries(cacheKey.substring(0, separatorIndex),
+					new Tenant(cacheKey.substring(separatorIndex + 1)));
+		}
+	}
+
+}
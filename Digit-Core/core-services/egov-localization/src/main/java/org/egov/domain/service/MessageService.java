@@ -1,5 +1,8 @@
 package org.egov.domain.service;
 
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
 import java.util.*;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
@@ -39,6 +42,12 @@ import org.springframework.util.CollectionUtils;
  * c) For a create/update request to locale: <locale> and tenant: default- 1) In
  * validate all computed messages entries. 2) In validate cache entry for raw
  * messages with key <locale>:default
+ *
+ * On top of Redis, every instance keeps the computed message lists it serves in
+ * an in-process store indexed by tenant, module and code. A cache bust bumps the
+ * cache version in Redis and is published to all instances, which evict the
+ * affected entries of their in-process store. The version an entry was computed
+ * at is returned as the ETag of search responses.
  */
 @Service
 //@Slf4j
@@ -46,6 +55,7 @@ public class MessageService {
 	private static final String ENGLISH_INDIA = "en_IN";
 	private MessageRepository messageRepository;
 	private MessageCacheRepository messageCacheRepository;
+	private final IndexedMessageStore indexedMessageStore = new IndexedMessageStore();
 
 	public MessageService(MessageRepository messageRepository, MessageCacheRepository messageCacheRepository) {
 		this.messageRepository = messageRepository;
@@ -75,69 +85,68 @@ public class MessageService {
 
 	public void bustCache() {
 		messageCacheRepository.bustCache();
+		indexedMessageStore.evictAll();
 	}
 
-	public List<Message> getFilteredMessages(MessageSearchCriteria searchCriteria) {
-		List<Message> messages = getMessages(searchCriteria);
-
-		Tenant tenant = searchCriteria.getTenantId();
-
-		List<Tenant> tenants = tenant.getTenantHierarchy();
-
-		List<Message> filteredMessages = new LinkedList<>();
-
-		for (Tenant t : tenants){
-		    filteredMessages = filterForGivenTenantId(t.getTenantId(), messages, searchCriteria);
-
-		    if(!CollectionUtils.isEmpty(filteredMessages))
-		        break;
-        }
-
-		return filteredMessages;
+	/**
+	 * Evicts in-process entries on a cache bust published by any instance.
+	 * A null locale and tenant evicts every entry.
+	 */
+	public void evictLocalCacheEntries(String locale, Tenant tenant) {
+		if (locale == null || tenant == null) {
+			indexedMessageStore.evictAll();
+		} else {
+			indexedMessageStore.evict(locale, tenant);
+		}
 	}
 
+	public List<Message> getFilteredMessages(MessageSearchCriteria searchCriteria) {
+		return getIndexedMessages(searchCriteria).filter(searchCriteria);
+	}
 
-	private List<Message> filterForGivenTenantId(String tenantId, List<Message> messages, MessageSearchCriteria searchCriteria){
-
-        if (searchCriteria.isModuleAbsent() && !CollectionUtils.isEmpty(searchCriteria.getCodes())) {
-
-            Set<String> codes = searchCriteria.getCodes();
-
-            return messages.stream()
-                .filter(e -> e.getLocale().equals(searchCriteria.getLocale())
-                    && e.getTenant().equals(tenantId)
-                    && codes.contains(e.getCode()))
-                .collect(Collectors.toList());
-        } else if(searchCriteria.isModuleAbsent() && CollectionUtils.isEmpty(searchCriteria.getCodes())){
-            return messages.parallelStream()
-                .filter(e -> e.getLocale().equals(searchCriteria.getLocale())
-                    && e.getTenant().equals(tenantId))
-                .collect(Collectors.toList());
-        } else {
-            List<String> modules = Arrays.asList(searchCriteria.getModule().split("[,]"));
-
-            if(CollectionUtils.isEmpty(searchCriteria.getCodes()))
-                messages = messages.stream()
-                    .filter(message -> modules.contains(message.getModule())
-                        && message.getLocale().equals(searchCriteria.getLocale())
-                        && message.getTenant().equals(tenantId))
-                    .collect(Collectors.toList());
-            else {
-                Set<String> codes = searchCriteria.getCodes();
-                messages = messages.stream()
-                    .filter(message -> modules.contains(message.getModule())
-                        && codes.contains(message.getCode())
-                        && message.getLocale().equals(searchCriteria.getLocale())
-                        && message.getTenant().equals(tenantId))
-                    .collect(Collectors.toList());
-            }
-
-        }
-        return messages;
+	/**
+	 * Returns a tag that changes whenever the result of the given search may
+	 * change, for use as the ETag of search responses. It is made of the cache
+	 * version and a SHA-256 digest of the normalized criteria, so that searches
+	 * which only differ in the order of their modules or codes share a tag.
+	 */
+	public String getMessagesTag(MessageSearchCriteria searchCriteria) {
+		return getIndexedMessages(searchCriteria).getVersion() + "-" + digest(searchCriteria);
+	}
 
-    }
+	private static String digest(MessageSearchCriteria searchCriteria) {
+		final List<String> modules = searchCriteria.isModuleAbsent() ? Collections.emptyList()
+				: Arrays.asList(searchCriteria.getModule().split("[,]"));
+		final Set<String> codes = searchCriteria.getCodes() == null ? Collections.emptySet()
+				: searchCriteria.getCodes();
+		final MessageDigest digest;
+		try {
+			digest = MessageDigest.getInstance("SHA-256");
+		} catch (NoSuchAlgorithmException e) {
+			throw new IllegalStateException("SHA-256 is not available", e);
+		}
+		updateDigest(digest, Collections.singletonList(searchCriteria.getLocale()));
+		updateDigest(digest, Collections.singletonList(searchCriteria.getTenantId().getTenantId()));
+		updateDigest(digest, new TreeSet<>(modules));
+		updateDigest(digest, new TreeSet<>(codes));
+		return HexFormat.of().formatHex(digest.digest());
+	}
 
+	// every value is prefixed with its length so that different criteria never feed the same bytes
+	private static void updateDigest(MessageDigest digest, Collection<String> values) {
+		digest.update(Integer.toString(values.size()).getBytes(StandardCharsets.UTF_8));
+		for (String value : values) {
+			final byte[] bytes = String.valueOf(value).getBytes(StandardCharsets.UTF_8);
+			digest.update((":" + bytes.length + ":").getBytes(StandardCharsets.UTF_8));
+			digest.update(bytes);
+		}
+		digest.update((byte) ';');
+	}
 
+	private IndexedMessageStore.IndexedMessages getIndexedMessages(MessageSearchCriteria searchCriteria) {
+		return indexedMessageStore.get(searchCriteria.getLocale(), searchCriteria.getTenantId(),
+				messageCacheRepository::getVersion, () -> getMessages(searchCriteria));
+	}
 
 	public void delete(List<MessageIdentity> messageIdentities) {
 		final Map<Tenant, List<MessageIdentity>> tenantToMessageIdentitiesMap = messageIdentities.stream()
@@ -159,6 +168,7 @@ public class MessageService {
 
 	private void bustCacheEntry(Tenant tenant, String locale) {
 		messageCacheRepository.bustCacheEntry(locale, tenant);
+		indexedMessageStore.evict(locale, tenant);
 	}
 
 	private List<Message> getMessages(MessageSearchCriteria searchCriteria) {
@@ -19,6 +19,10 @@ public class MessageCacheRepository {
 
 	private static final String MESSAGES_HASH_KEY = "messages";
 	private static final String COMPUTED_MESSAGES_HASH_KEY = "computedMessages";
+	private static final String MESSAGES_VERSION_HASH_KEY = "messagesVersion";
+	private static final String MESSAGES_VERSION_FIELD = "version";
+	public static final String CACHE_BUST_CHANNEL = "localization-cache-bust";
+	public static final String ALL_ENTRIES = "*";
 	private StringRedisTemplate stringRedisTemplate;
 	private ObjectMapper objectMapper;
     public static final Logger logger = LoggerFactory.getLogger(MessageCacheRepository.class);
@@ -47,11 +51,32 @@ public class MessageCacheRepository {
 	public void bustCache() {
 		stringRedisTemplate.delete(MESSAGES_HASH_KEY);
 		bustAllComputedMessagesCache();
+		publishCacheBust(ALL_ENTRIES);
 	}
 
 	public void bustCacheEntry(String locale, Tenant tenant) {
 		bustRawMessagesCacheEntry(locale, tenant);
 		bustComputedMessagesCache(locale, tenant);
+		publishCacheBust(getKey(locale, tenant.getTenantId()));
+	}
+
+	/**
+	 * Returns the cache version, which is incremented on every cache bust.
+	 */
+	public long getVersion() {
+		final Object version = stringRedisTemplate.opsForHash().get(MESSAGES_VERSION_HASH_KEY, MESSAGES_VERSION_FIELD);
+		return version == null ? 0L : Long.parseLong(version.toString());
+	}
+
+	/**
+	 * Bumps the cache version and notifies all instances so that they evict the
+	 * matching entries of their in-process store. The version is bumped only
+	 * after the Redis entries are gone, so that a version read before loading
+	 * messages never labels messages older than it.
+	 */
+	private void publishCacheBust(String cacheKey) {
+		stringRedisTemplate.opsForHash().increment(MESSAGES_VERSION_HASH_KEY, MESSAGES_VERSION_FIELD, 1);
+		stringRedisTemplate.convertAndSend(CACHE_BUST_CHANNEL, cacheKey);
 	}
 
 	private void bustRawMessagesCacheEntry(String locale, Tenant tenant) {
@@ -8,6 +8,9 @@ import org.egov.domain.model.Tenant;
 import org.egov.domain.service.MessageService;
 import org.egov.web.contract.*;
 import org.egov.web.exception.InvalidMessageRequest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
 import org.springframework.validation.BindingResult;
 import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.*;
@@ -28,27 +31,45 @@ public class MessageController {
 	}
 
 	@GetMapping()
-	public MessagesResponse getMessagesForLocale(@RequestParam("locale") String locale,
+	public ResponseEntity<MessagesResponse> getMessagesForLocale(@RequestParam("locale") String locale,
 			@RequestParam(value = "module", required = false) String module,
-			@RequestParam("tenantId") String tenantId,@RequestParam(value = "codes",required = false) Set<String> codes) {
-		return getMessages(locale, module, tenantId, codes);
+			@RequestParam("tenantId") String tenantId,@RequestParam(value = "codes",required = false) Set<String> codes,
+			@RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
+		return getMessages(locale, module, tenantId, codes, ifNoneMatch);
 	}
 
 	@PostMapping("/v1/_search")
-	public MessagesResponse getMessages(@RequestParam("locale") String locale,
+	public ResponseEntity<MessagesResponse> getMessages(@RequestParam("locale") String locale,
                                         @RequestParam(value = "module", required = false)  String module,
-                                        @RequestParam("tenantId") @Size(max = 256) String tenantId, @RequestParam(value = "codes",required = false) Set<String> codes) {
+                                        @RequestParam("tenantId") @Size(max = 256) String tenantId, @RequestParam(value = "codes",required = false) Set<String> codes,
+                                        @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
 		final MessageSearchCriteria searchCriteria = MessageSearchCriteria.builder().locale(locale)
 				.tenantId(new Tenant(tenantId)).codes(codes).module(module).build();
-		List<org.egov.domain.model.Message> domainMessages = messageService.getFilteredMessages(searchCriteria);
-		return createResponse(domainMessages);
+		return search(searchCriteria, ifNoneMatch);
 	}
 	
 	@PostMapping("/v2/_search")
-	public MessagesResponse getMessages(@RequestBody MessageRequest messageRequest) {
-		
-		List<org.egov.domain.model.Message> domainMessages = messageService.getFilteredMessages(messageRequest.getMessageSearchCriteria());
-		return createResponse(domainMessages);
+	public ResponseEntity<MessagesResponse> getMessages(@RequestBody MessageRequest messageRequest,
+			@RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
+		return search(messageRequest.getMessageSearchCriteria(), ifNoneMatch);
+	}
+
+	/**
+	 * Answers with 304 when the client already holds the messages of the
+	 * current cache version, identified by the ETag it received before.
+	 */
+	private ResponseEntity<MessagesResponse> search(MessageSearchCriteria searchCriteria, String ifNoneMatch) {
+		final String tag = messageService.getMessagesTag(searchCriteria);
+		final String eTag = tag == null ? null : "\"" + tag + "\"";
+		if (eTag != null && ifNoneMatch != null && ifNoneMatch.contains(eTag)) {
+			return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(eTag).build();
+		}
+		List<org.egov.domain.model.Message> domainMessages = messageService.getFilteredMessages(searchCriteria);
+		final ResponseEntity.BodyBuilder response = ResponseEntity.ok();
+		if (eTag != null) {
+			response.eTag(eTag);
+		}
+		return response.body(createResponse(domainMessages));
 	}
 
 	@PostMapping("/v1/_upsert")
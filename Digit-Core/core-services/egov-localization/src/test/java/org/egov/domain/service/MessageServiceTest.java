@@ -12,9 +12,12 @@ import org.mockito.junit.MockitoJUnitRunner;
 
 import java.util.Arrays;
 import java.util.Collections;
+import java.util.LinkedHashSet;
 import java.util.List;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertTrue;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyString;
 import static org.mockito.Mockito.times;
@@ -569,6 +572,78 @@ public class MessageServiceTest {
     }
 
 
+    @Test
+    public void test_should_return_same_tag_for_criteria_differing_only_in_order() {
+        when(messageCacheRepository.getVersion()).thenReturn(3L);
+        when(messageCacheRepository.getComputedMessages(MR_IN, new Tenant(TENANT_ID))).thenReturn(getMessages());
+        final MessageSearchCriteria searchCriteria = MessageSearchCriteria.builder()
+            .locale(MR_IN)
+            .tenantId(new Tenant(TENANT_ID))
+            .module("module,other")
+            .codes(new LinkedHashSet<>(Arrays.asList("code1", "code2")))
+            .build();
+        final MessageSearchCriteria reorderedSearchCriteria = MessageSearchCriteria.builder()
+            .locale(MR_IN)
+            .tenantId(new Tenant(TENANT_ID))
+            .module("other,module")
+            .codes(new LinkedHashSet<>(Arrays.asList("code2", "code1")))
+            .build();
+
+        final String tag = messageService.getMessagesTag(searchCriteria);
+
+        assertTrue(tag, tag.matches("3-[0-9a-f]{64}"));
+        assertEquals(tag, messageService.getMessagesTag(reorderedSearchCriteria));
+    }
+
+    @Test
+    public void test_should_return_different_tags_for_different_criteria() {
+        when(messageCacheRepository.getVersion()).thenReturn(3L);
+        when(messageCacheRepository.getComputedMessages(MR_IN, new Tenant(TENANT_ID))).thenReturn(getMessages());
+        final MessageSearchCriteria searchCriteria = MessageSearchCriteria.builder()
+            .locale(MR_IN)
+            .tenantId(new Tenant(TENANT_ID))
+            .module("module")
+            .codes(Collections.singleton("code1"))
+            .build();
+        final MessageSearchCriteria otherCodes = MessageSearchCriteria.builder()
+            .locale(MR_IN)
+            .tenantId(new Tenant(TENANT_ID))
+            .module("module")
+            .codes(Collections.singleton("code2"))
+            .build();
+        final MessageSearchCriteria codeAsModule = MessageSearchCriteria.builder()
+            .locale(MR_IN)
+            .tenantId(new Tenant(TENANT_ID))
+            .module("code1")
+            .codes(Collections.singleton("module"))
+            .build();
+
+        final String tag = messageService.getMessagesTag(searchCriteria);
+
+        assertNotEquals(tag, messageService.getMessagesTag(otherCodes));
+        assertNotEquals(tag, messageService.getMessagesTag(codeAsModule));
+    }
+
+    @Test
+    public void test_should_change_tag_when_messages_of_the_tenant_change() {
+        when(messageCacheRepository.getVersion()).thenReturn(3L, 4L);
+        when(messageCacheRepository.getComputedMessages(MR_IN, new Tenant(TENANT_ID))).thenReturn(getMessages());
+        final MessageSearchCriteria searchCriteria = MessageSearchCriteria.builder()
+            .locale(MR_IN)
+            .tenantId(new Tenant(TENANT_ID))
+            .module("module")
+            .build();
+
+        final String tag = messageService.getMessagesTag(searchCriteria);
+        assertEquals(tag, messageService.getMessagesTag(searchCriteria));
+        messageService.create(new Tenant(TENANT_ID), getMessages(), new AuthenticatedUser(1L));
+        final String tagAfterCreate = messageService.getMessagesTag(searchCriteria);
+
+        assertNotEquals(tag, tagAfterCreate);
+        assertTrue(tagAfterCreate, tagAfterCreate.startsWith("4-"));
+        verify(messageCacheRepository, times(2)).getComputedMessages(MR_IN, new Tenant(TENANT_ID));
+    }
+
     private List<Message> getMessages() {
         final MessageIdentity messageIdentity1 = MessageIdentity.builder()
             .code("core.msg.OTPvalidated")
@@ -0,0 +1,115 @@
+package org.egov.web.controller;
+
+import org.egov.domain.model.*;
+import org.egov.domain.service.MessageService;
+import org.egov.persistence.repository.MessageCacheRepository;
+import org.egov.persistence.repository.MessageRepository;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.junit.MockitoJUnitRunner;
+import org.springframework.http.HttpHeaders;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.ResultActions;
+import org.springframework.test.web.servlet.request.MockHttpServletRequestBuilder;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+
+import java.util.Collections;
+import java.util.List;
+
+import static org.hamcrest.Matchers.containsString;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Exercises the ETag of search responses end to end, through the real
+ * {@link MessageService} on top of mocked repositories.
+ */
+@RunWith(MockitoJUnitRunner.class)
+public class MessageControllerNotModifiedTest {
+
+    private static final String TENANT_ID = "pb.amritsar";
+    private static final String LOCALE = "en_IN";
+
+    @Mock
+    private MessageRepository messageRepository;
+
+    @Mock
+    private MessageCacheRepository messageCacheRepository;
+
+    private MessageService messageService;
+
+    private MockMvc mockMvc;
+
+    @Before
+    public void before() {
+        messageService = new MessageService(messageRepository, messageCacheRepository);
+        mockMvc = MockMvcBuilders.standaloneSetup(new MessageController(messageService)).build();
+        when(messageCacheRepository.getComputedMessages(LOCALE, new Tenant(TENANT_ID))).thenReturn(getMessages());
+    }
+
+    @Test
+    public void test_should_answer_not_modified_when_client_holds_current_etag() throws Exception {
+        when(messageCacheRepository.getVersion()).thenReturn(7L);
+        final String eTag = search(null)
+            .andExpect(status().isOk())
+            .andExpect(content().string(containsString("Amritsar")))
+            .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+        assertNotNull(eTag);
+
+        search(eTag)
+            .andExpect(status().isNotModified())
+            .andExpect(header().string(HttpHeaders.ETAG, eTag))
+            .andExpect(content().string(""));
+        verify(messageCacheRepository, times(1)).getComputedMessages(LOCALE, new Tenant(TENANT_ID));
+    }
+
+    @Test
+    public void test_should_answer_with_messages_and_new_etag_after_messages_change() throws Exception {
+        when(messageCacheRepository.getVersion()).thenReturn(7L, 8L);
+        final String eTag = search(null).andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+
+        messageService.create(new Tenant(TENANT_ID), getMessages(), new AuthenticatedUser(1L));
+
+        final String newETag = search(eTag)
+            .andExpect(status().isOk())
+            .andExpect(content().string(containsString("Amritsar")))
+            .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+        assertNotEquals(eTag, newETag);
+        search(newETag).andExpect(status().isNotModified());
+        verify(messageCacheRepository, times(2)).getComputedMessages(LOCALE, new Tenant(TENANT_ID));
+    }
+
+    private ResultActions search(String ifNoneMatch) throws Exception {
+        final MockHttpServletRequestBuilder request = post("/messages/v1/_search")
+            .param("tenantId", TENANT_ID)
+            .param("locale", LOCALE)
+            .param("module", "rainmaker-common");
+        if (ifNoneMatch != null) {
+            request.header(HttpHeaders.IF_NONE_MATCH, ifNoneMatch);
+        }
+        return mockMvc.perform(request);
+    }
+
+    private List<Message> getMessages() {
+        final MessageIdentity messageIdentity = MessageIdentity.builder()
+            .code("TENANT_TENANTS_PB_AMRITSAR")
+            .locale(LOCALE)
+            .module("rainmaker-common")
+            .tenant(new Tenant(TENANT_ID))
+            .build();
+        return Collections.singletonList(Message.builder()
+            .messageIdentity(messageIdentity)
+            .message("Amritsar")
+            .build());
+    }
+
+}
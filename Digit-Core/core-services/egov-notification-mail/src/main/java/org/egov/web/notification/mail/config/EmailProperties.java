@@ -78,4 +78,36 @@ public class EmailProperties {
     @Value("${mail.smtps.debug}")
     @Getter
     private String mailSmtpsDebug;
+
+    @Value("${mail.pool.max.connections:5}")
+    @Getter
+    private Integer mailPoolMaxConnections;
+
+    @Value("${mail.pool.max.messages.per.connection:100}")
+    @Getter
+    private Integer mailPoolMaxMessagesPerConnection;
+
+    @Value("${mail.pool.idle.timeout.ms:60000}")
+    @Getter
+    private Long mailPoolIdleTimeoutMs;
+
+    @Value("${mail.pool.borrow.timeout.ms:30000}")
+    @Getter
+    private Long mailPoolBorrowTimeoutMs;
+
+    @Value("${mail.attachment.cache.max.bytes:104857600}")
+    @Getter
+    private Long attachmentCacheMaxBytes;
+
+    @Value("${mail.attachment.cache.max.entry.bytes:10485760}")
+    @Getter
+    private Long attachmentCacheMaxEntryBytes;
+
+    @Value("${mail.attachment.fetch.threads:5}")
+    @Getter
+    private Integer attachmentFetchThreads;
+
+    @Value("${mail.attachment.fetch.timeout.ms:30000}")
+    @Getter
+    private Integer attachmentFetchTimeoutMs;
 }
\ No newline at end of file
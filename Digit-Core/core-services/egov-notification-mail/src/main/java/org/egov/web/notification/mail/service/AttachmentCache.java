@@ -0,0 +1,240 @@
+package org.egov.web.notification.mail.service;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.URL;
+import java.net.URLConnection;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.activation.DataSource;
+import javax.mail.util.ByteArrayDataSource;
+
+import jakarta.annotation.PreDestroy;
+
+import org.egov.web.notification.mail.config.EmailProperties;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Attachments downloaded from the filestore, kept in memory so that a file attached to many emails
+ * is downloaded once. Contents are stored by their digest, files with the same content are kept
+ * once, and the least recently used contents are evicted once the cache exceeds its size.
+ *
+ * Files larger than the maximum entry size are not cached, they are read from the filestore while
+ * the email is sent. Concurrent requests for a file which is being downloaded wait for that
+ * download.
+ */
+@Component
+@ConditionalOnProperty(value = "mail.enabled", havingValue = "true")
+@Slf4j
+public class AttachmentCache {
+
+	private static final String DEFAULT_CONTENT_TYPE = "application/octet-stream";
+
+	private static final int MAX_URLS = 100000;
+
+	private final EmailProperties emailProperties;
+
+	private final ExecutorService executor;
+
+	// url of a file -> digest of its content
+	private final Map<String, String> digests = new LinkedHashMap<String, String>(16, 0.75f, true) {
+		@Override
+		protected boolean removeEldestEntry(Map.Entry<String, String> eldest) {
+			return size() > MAX_URLS;
+		}
+	};
+
+	// digest -> content
+	private final LinkedHashMap<String, CachedContent> contents = new LinkedHashMap<>(16, 0.75f, true);
+
+	private long cachedBytes;
+
+	private final Map<String, CompletableFuture<DataSource>> downloads = new ConcurrentHashMap<>();
+
+	@Autowired
+	public AttachmentCache(EmailProperties emailProperties) {
+		this.emailProperties = emailProperties;
+		AtomicInteger threadCount = new AtomicInteger();
+		this.executor = Executors.newFixedThreadPool(emailProperties.getAttachmentFetchThreads(),
+				runnable -> new Thread(runnable, "mail-attachment-" + threadCount.incrementAndGet()));
+	}
+
+	/**
+	 * Returns the file at the url, from the cache or downloaded in the background.
+	 */
+	public CompletableFuture<DataSource> fetch(String url) {
+		DataSource cached = getCached(url);
+		if (cached != null)
+			return CompletableFuture.completedFuture(cached);
+
+		CompletableFuture<DataSource> download = new CompletableFuture<>();
+		CompletableFuture<DataSource> existing = downloads.putIfAbsent(url, download);
+		if (existing != null)
+			return existing;
+
+		executor.execute(() -> {
+			try {
+				download.complete(download(url));
+			} catch (Exception e) {
+				download.completeExceptionally(e);
+			} finally {
+				downloads.remove(url, download);
+			}
+		});
+		return download;
+	}
+
+	private DataSource download(String url) throws IOException {
+		long startTime = System.currentTimeMillis();
+		URLConnection connection = openConnection(url);
+		String contentType = connection.getContentType() == null ? DEFAULT_CONTENT_TYPE : connection.getContentType();
+		long maxEntryBytes = emailProperties.getAttachmentCacheMaxEntryBytes();
+
+		byte[] content = null;
+		if (connection.getContentLengthLong() <= maxEntryBytes) {
+			try (InputStream in = connection.getInputStream()) {
+				content = readAtMost(in, maxEntryBytes);
+			}
+		} else {
+			connection.getInputStream().close();
+		}
+
+		if (content == null) {
+			log.info("Attachment " + url + " is larger than " + maxEntryBytes + " bytes, it will be streamed from the filestore");
+			return new StreamedAttachment(url, contentType);
+		}
+
+		put(url, digest(content), content, contentType);
+		log.debug("Downloaded attachment of " + content.length + " bytes in " + (System.currentTimeMillis() - startTime) + " ms");
+		return new ByteArrayDataSource(content, contentType);
+	}
+
+	private synchronized DataSource getCached(String url) {
+		String digest = digests.get(url);
+		if (digest == null)
+			return null;
+		CachedContent content = contents.get(digest);
+		if (content == null) {
+			digests.remove(url);
+			return null;
+		}
+		return new ByteArrayDataSource(content.bytes, content.contentType);
+	}
+
+	private synchronized void put(String url, String digest, byte[] bytes, String contentType) {
+		if (bytes.length > emailProperties.getAttachmentCacheMaxBytes())
+			return;
+		digests.put(url, digest);
+		if (contents.containsKey(digest))
+			return;
+		contents.put(digest, new CachedContent(bytes, contentType));
+		cachedBytes += bytes.length;
+		while (cachedBytes > emailProperties.getAttachmentCacheMaxBytes()) {
+			Map.Entry<String, CachedContent> eldest = contents.entrySet().iterator().next();
+			cachedBytes -= eldest.getValue().bytes.length;
+			contents.remove(eldest.getKey());
+		}
+	}
+
+	private URLConnection openConnection(String url) throws IOException {
+		URLConnection connection = new URL(url).openConnection();
+		connection.setConnectTimeout(emailProperties.getAttachmentFetchTimeoutMs());
+		connection.setReadTimeout(emailProperties.getAttachmentFetchTimeoutMs());
+		return connection;
+	}
+
+	/**
+	 * Reads the stream, or returns null if it is longer than the limit.
+	 */
+	private static byte[] readAtMost(InputStream in, long limit) throws IOException {
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		byte[] buffer = new byte[8192];
+		int read;
+		while ((read = in.read(buffer)) != -1) {
+			if (out.size() + read > limit)
+				return null;
+			out.write(buffer, 0, read);
+		}
+		return out.toByteArray();
+	}
+
+	private static String digest(byte[] content) {
+		try {
+			byte[] hash = MessageDigest.getInstance("SHA-256").digest(content);
+			StringBuilder hex = new StringBuilder(hash.length * 2);
+			for (byte b : hash) {
+				hex.append(String.format("%02x", b));
+			}
+			return hex.toString();
+		} catch (NoSuchAlgorithmException e) {
+			throw new IllegalStateException(e);
+		}
+	}
+
+	@PreDestroy
+	public void shutdown() {
+		executor.shutdownNow();
+	}
+
+	private static class CachedContent {
+
+		private final byte[] bytes;
+
+		private final String contentType;
+
+		CachedContent(byte[] bytes, String contentType) {
+			this.bytes = bytes;
+			this.contentType = contentType;
+		}
+	}
+
+	/**
+	 * File read from the filestore each time the mail library reads it.
+	 */
+	private class StreamedAttachment implements DataSource {
+
+		private final String url;
+
+		private final String contentType;
+
+		StreamedAttachment(String url, String contentType) {
+			this.url = url;
+			this.contentType = contentType;
+		}
+
+		@Override
+		public InputStream getInputStream() throws IOException {
+			return openConnection(url).getInputStream();
+		}
+
+		@Override
+		public OutputStream getOutputStream() throws IOException {
+			throw new IOException("Attachment " + url + " is read only");
+		}
+
+		@Override
+		public String getContentType() {
+			return contentType;
+		}
+
+		@Override
+		public String getName() {
+			return url;
+		}
+	}
+
+}
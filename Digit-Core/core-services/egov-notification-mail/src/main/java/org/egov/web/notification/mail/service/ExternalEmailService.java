@@ -1,5 +1,7 @@
 package org.egov.web.notification.mail.service;
 
+import javax.activation.DataSource;
+import javax.mail.MessagingException;
 import javax.mail.internet.MimeMessage;
 
 import org.egov.tracer.model.CustomException;
@@ -7,7 +9,6 @@ import org.egov.web.notification.mail.config.ApplicationConfiguration;
 import org.egov.web.notification.mail.consumer.contract.Email;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
-import org.springframework.mail.SimpleMailMessage;
 import org.springframework.mail.javamail.JavaMailSenderImpl;
 import org.springframework.mail.javamail.MimeMessageHelper;
 import org.springframework.stereotype.Service;
@@ -15,16 +16,8 @@ import org.egov.common.utils.MultiStateInstanceUtil;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.util.CollectionUtils;
 
-import java.io.File;
-import java.io.FileOutputStream;
-import java.io.IOException;
-import java.net.URL;
-import java.net.URLConnection;
-import java.nio.channels.Channels;
-import java.nio.channels.ReadableByteChannel;
-import java.nio.file.Files;
-import java.nio.file.Paths;
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
 
 @Service
 @ConditionalOnProperty(value = "mail.enabled", havingValue = "true")
@@ -37,6 +30,12 @@ public class ExternalEmailService implements EmailService {
 	@Autowired
 	private MultiStateInstanceUtil centralInstanceUtil;
 
+	@Autowired
+	private SmtpTransportPool transportPool;
+
+	@Autowired
+	private AttachmentCache attachmentCache;
+
 	public static final String EXCEPTION_MESSAGE = "Exception creating HTML email";
 	private JavaMailSenderImpl mailSender;
 
@@ -54,18 +53,21 @@ public class ExternalEmailService implements EmailService {
     }
 
 	private void sendTextEmail(Email email) {
-		final SimpleMailMessage mailMessage = new SimpleMailMessage();
-		mailMessage.setTo(email.getEmailTo().toArray(new String[0]));
-		mailMessage.setSubject(email.getSubject());
-		mailMessage.setText(email.getBody());
-		mailSender.send(mailMessage);
+		MimeMessage message = mailSender.createMimeMessage();
+		try {
+			MimeMessageHelper helper = new MimeMessageHelper(message);
+			helper.setTo(email.getEmailTo().toArray(new String[0]));
+			helper.setSubject(email.getSubject());
+			helper.setText(email.getBody());
+		} catch (MessagingException e) {
+			throw new CustomException("EG_MAIL_CREATE_ERR", "Exception creating text email " + e);
+		}
+		transportPool.send(message);
 	}
 
 	private void sendHTMLEmail(Email email) {
 		MimeMessage message = mailSender.createMimeMessage();
 		MimeMessageHelper helper;
-		FileOutputStream fos = null;
-		List<String> filePaths = new ArrayList<>();
 
 		if (! CollectionUtils.isEmpty(email.getFileStoreId())){
 			if (email.getTenantId() == null){
@@ -82,39 +84,21 @@ public class ExternalEmailService implements EmailService {
 
 			if(email.getFileStoreId() != null) {
 				String tenantId = centralInstanceUtil.getStateLevelTenant(email.getTenantId());
-				for (Map.Entry<String, String> entry : email.getFileStoreId().entrySet()) {
-					String uri = getUri(tenantId, entry.getKey());
-					URL url = new URL(uri);
-					URLConnection con = url.openConnection();
-					UUID uuid = UUID.randomUUID();
-					String fieldValue = uuid.toString();
-					File download = new File(System.getProperty("java.io.tmpdir"), fieldValue);
-					filePaths.add(download.getAbsolutePath());
-					ReadableByteChannel rbc = Channels.newChannel(con.getInputStream());
-					fos = new FileOutputStream(download);
-					fos.getChannel().transferFrom(rbc, 0, Long.MAX_VALUE);
-					helper.addAttachment(entry.getValue(), download);
+				// all the attachments are fetched at once, then added in order
+				List<Map.Entry<String, String>> entries = new ArrayList<>(email.getFileStoreId().entrySet());
+				List<CompletableFuture<DataSource>> attachments = new ArrayList<>(entries.size());
+				for (Map.Entry<String, String> entry : entries) {
+					attachments.add(attachmentCache.fetch(getUri(tenantId, entry.getKey())));
+				}
+				for (int i = 0; i < entries.size(); i++) {
+					helper.addAttachment(entries.get(i).getValue(), attachments.get(i).get());
 				}
 			}
 
-			mailSender.send(message);
+			transportPool.send(message);
 
 		} catch (Exception e) {
 			log.error(EXCEPTION_MESSAGE, e);
-			if(fos != null) {
-				try {
-					fos.close();
-				} catch (IOException ex) {
-					log.error(EXCEPTION_MESSAGE, ex);
-				}
-			}
-			for(int i = 0; i < filePaths.size(); i++) {
-				try {
-					Files.deleteIfExists(Paths.get(filePaths.get(i)));
-				} catch (IOException ex) {
-					log.error(EXCEPTION_MESSAGE, ex);
-				}
-			}
 			throw new CustomException(EXCEPTION_MESSAGE, EXCEPTION_MESSAGE + e);
 		}
 	}
@@ -0,0 +1,174 @@
+package org.egov.web.notification.mail.service;
+
+import java.util.Date;
+import java.util.concurrent.BlockingDeque;
+import java.util.concurrent.LinkedBlockingDeque;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+import javax.mail.MessagingException;
+import javax.mail.SendFailedException;
+import javax.mail.Transport;
+import javax.mail.internet.MimeMessage;
+
+import jakarta.annotation.PreDestroy;
+
+import org.egov.tracer.model.CustomException;
+import org.egov.web.notification.mail.config.EmailProperties;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.mail.javamail.JavaMailSenderImpl;
+import org.springframework.stereotype.Component;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Pool of connected and authenticated SMTP transports, each of them sends several messages before
+ * it is closed, instead of connecting to the server for every message.
+ *
+ * Servers close connections which stay idle too long, so a transport which has been idle longer
+ * than the idle timeout is replaced, and a message which fails on a reused transport is sent again
+ * once on a new one.
+ */
+@Component
+@ConditionalOnProperty(value = "mail.enabled", havingValue = "true")
+@Slf4j
+public class SmtpTransportPool {
+
+	private final JavaMailSenderImpl mailSender;
+
+	private final EmailProperties emailProperties;
+
+	private final Semaphore permits;
+
+	private final BlockingDeque<PooledTransport> idleTransports = new LinkedBlockingDeque<>();
+
+	@Autowired
+	public SmtpTransportPool(JavaMailSenderImpl mailSender, EmailProperties emailProperties) {
+		this.mailSender = mailSender;
+		this.emailProperties = emailProperties;
+		this.permits = new Semaphore(emailProperties.getMailPoolMaxConnections(), true);
+	}
+
+	public void send(MimeMessage message) {
+		try {
+			if (!permits.tryAcquire(emailProperties.getMailPoolBorrowTimeoutMs(), TimeUnit.MILLISECONDS))
+				throw new CustomException("EG_MAIL_POOL_TIMEOUT", "Timed out waiting for a mail server connection");
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new CustomException("EG_MAIL_POOL_TIMEOUT", "Interrupted waiting for a mail server connection");
+		}
+
+		try {
+			if (message.getSentDate() == null)
+				message.setSentDate(new Date());
+			message.saveChanges();
+
+			PooledTransport transport = borrow();
+			try {
+				transport.send(message);
+			} catch (SendFailedException e) {
+				// the server rejected the addresses, the connection can still be used
+				release(transport);
+				throw e;
+			} catch (MessagingException e) {
+				transport.close();
+				if (!transport.isReused())
+					throw e;
+				log.info("Sending on a reused mail server connection failed, retrying on a new one", e);
+				transport = connect();
+				try {
+					transport.send(message);
+				} catch (SendFailedException retryException) {
+					release(transport);
+					throw retryException;
+				} catch (MessagingException | RuntimeException retryException) {
+					transport.close();
+					throw retryException;
+				}
+			}
+			release(transport);
+		} catch (MessagingException e) {
+			throw new CustomException("EG_MAIL_SEND_ERR", "Failed to send email: " + e.getMessage());
+		} finally {
+			permits.release();
+		}
+	}
+
+	private PooledTransport borrow() throws MessagingException {
+		PooledTransport transport;
+		while ((transport = idleTransports.pollFirst()) != null) {
+			if (transport.isUsable())
+				return transport;
+			transport.close();
+		}
+		return connect();
+	}
+
+	private void release(PooledTransport transport) {
+		if (transport.getMessageCount() >= emailProperties.getMailPoolMaxMessagesPerConnection())
+			transport.close();
+		else
+			idleTransports.offerFirst(transport);
+	}
+
+	private PooledTransport connect() throws MessagingException {
+		Transport transport = mailSender.getSession().getTransport(mailSender.getProtocol());
+		String username = mailSender.getUsername();
+		String password = mailSender.getPassword();
+		if ("".equals(username))
+			username = null;
+		if ("".equals(password))
+			password = null;
+		transport.connect(mailSender.getHost(), mailSender.getPort(), username, password);
+		return new PooledTransport(transport);
+	}
+
+	@PreDestroy
+	public void close() {
+		PooledTransport transport;
+		while ((transport = idleTransports.pollFirst()) != null) {
+			transport.close();
+		}
+	}
+
+	private class PooledTransport {
+
+		private final Transport transport;
+
+		private int messageCount;
+
+		private long lastUsed = System.currentTimeMillis();
+
+		PooledTransport(Transport transport) {
+			this.transport = transport;
+		}
+
+		void send(MimeMessage message) throws MessagingException {
+			transport.sendMessage(message, message.getAllRecipients());
+			messageCount++;
+			lastUsed = System.currentTimeMillis();
+		}
+
+		int getMessageCount() {
+			return messageCount;
+		}
+
+		boolean isReused() {
+			return messageCount > 0;
+		}
+
+		boolean isUsable() {
+			return System.currentTimeMillis() - lastUsed < emailProperties.getMailPoolIdleTimeoutMs();
+		}
+
+		void close() {
+			try {
+				transport.close();
+			} catch (MessagingException e) {
+				log.debug("Failed to close mail server connection", e);
+			}
+		}
+	}
+
+}
@@ -69,6 +69,48 @@ public class SMSProperties {
     @Value("${sms.whitelist.numbers}")
     private List<String> whitelistNumbers;
 
+    @Value("${sms.provider.rate.limit.per.second:0}")
+    private double rateLimitPerSecond;
+
+    @Value("${sms.provider.rate.limit.burst:1}")
+    private int rateLimitBurst;
+
+    @Value("${sms.provider.bulk.enabled:false}")
+    private boolean bulkEnabled;
+
+    @Value("${sms.provider.bulk.max.recipients:100}")
+    private int bulkMaxRecipients;
+
+    @Value("${sms.provider.bulk.separator:,}")
+    private String bulkSeparator;
+
+    @Value("${sms.http.pool.enabled:false}")
+    private boolean httpPoolEnabled;
+
+    @Value("${sms.http.max.connections:50}")
+    private int httpMaxConnections;
+
+    @Value("${sms.http.connect.timeout.ms:5000}")
+    private long httpConnectTimeoutMs;
+
+    @Value("${sms.http.read.timeout.ms:30000}")
+    private long httpReadTimeoutMs;
+
+    @Value("${sms.dispatch.pool.size:10}")
+    private int dispatchPoolSize;
+
+    @Value("${sms.dispatch.queue.capacity:1000}")
+    private int dispatchQueueCapacity;
+
+    @Value("${sms.retry.max.attempts:3}")
+    private int retryMaxAttempts;
+
+    @Value("${sms.retry.backoff.initial.ms:1000}")
+    private long retryInitialBackoffMs;
+
+    @Value("${sms.retry.backoff.max.ms:60000}")
+    private long retryMaxBackoffMs;
+
     @Setter(AccessLevel.PROTECTED) private List<Pattern> whitelistPatterns;
     @Setter(AccessLevel.PROTECTED) private List<Pattern> blacklistPatterns;
 
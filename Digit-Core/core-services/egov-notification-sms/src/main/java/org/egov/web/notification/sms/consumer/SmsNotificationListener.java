@@ -7,33 +7,40 @@ import org.egov.tracer.kafka.*;
 import org.egov.web.notification.sms.consumer.contract.SMSRequest;
 import org.egov.web.notification.sms.models.Category;
 import org.egov.web.notification.sms.models.RequestContext;
-import org.egov.web.notification.sms.service.SMSService;
+import org.egov.web.notification.sms.config.SMSProperties;
+import org.egov.web.notification.sms.service.SmsDispatcher;
 import org.springframework.beans.factory.annotation.*;
 import org.springframework.boot.autoconfigure.kafka.*;
 import org.springframework.context.ApplicationContext;
 import org.springframework.context.annotation.*;
+import org.springframework.http.HttpStatus;
 import org.springframework.kafka.annotation.*;
 import org.springframework.kafka.config.*;
 import org.springframework.kafka.core.*;
 import org.springframework.kafka.listener.*;
+import org.springframework.kafka.support.Acknowledgment;
 import org.springframework.stereotype.Service;
 import org.springframework.util.*;
+import org.springframework.web.client.HttpClientErrorException;
 import org.springframework.web.client.RestClientException;
 
-import java.util.HashMap;
-import java.util.UUID;
+import java.time.Duration;
+import java.util.*;
 
 @Slf4j
 @Service
 public class SmsNotificationListener {
 
     private final ApplicationContext context;
-    private SMSService smsService;
+    private SmsDispatcher smsDispatcher;
     private CustomKafkaTemplate<String, SMSRequest> kafkaTemplate;
 
     @Autowired
     private ObjectMapper objectMapper;
 
+    @Autowired
+    private SMSProperties smsProperties;
+
     @Value("${kafka.topics.expiry.sms}")
     String expiredSmsTopic;
 
@@ -43,6 +50,9 @@ public class SmsNotificationListener {
     @Value("${kafka.topics.error.sms}")
     String errorSmsTopic;
 
+    @Value("${kafka.topics.retry.sms}")
+    String retrySmsTopic;
+
     @Value("${sms.enabled}")
     Boolean smsEnable;
 
@@ -50,41 +60,135 @@ public class SmsNotificationListener {
     @Autowired
     public SmsNotificationListener(
             ApplicationContext context,
-            SMSService smsService,
+            SmsDispatcher smsDispatcher,
                                    CustomKafkaTemplate<String, SMSRequest> kafkaTemplate) {
-        this.smsService = smsService;
+        this.smsDispatcher = smsDispatcher;
         this.context = context;
         this.kafkaTemplate = kafkaTemplate;
     }
 
     @KafkaListener(
-            topics = "${kafka.topics.notification.sms.name}"
+            topics = "${kafka.topics.notification.sms.name}",
+            containerFactory = "smsBatchListenerContainerFactory"
+    )
+    public void process(List<HashMap<String, Object>> consumerRecords) {
+        RequestContext.setId(UUID.randomUUID().toString());
+        if(!smsEnable){
+            log.info("Sms service is disable to enable the notification service set the value of sms.enable flag as true");
+            return;
+        }
+        dispatch(getRequests(consumerRecords));
+    }
+
+    /**
+     * Sends the requests which failed earlier once their backoff has passed. Requests are
+     * published to the retry topic in the order they failed, the requests of the batch up to the
+     * first one which is not due yet are sent and the rest are redelivered after its backoff. The
+     * consumer is paused in the meantime instead of sleeping on the consumer thread.
+     */
+    @KafkaListener(
+            topics = "${kafka.topics.retry.sms}",
+            containerFactory = "smsRetryListenerContainerFactory"
     )
-    public void process(HashMap<String, Object> consumerRecord) {
+    public void processRetries(List<HashMap<String, Object>> consumerRecords, Acknowledgment acknowledgment) {
         RequestContext.setId(UUID.randomUUID().toString());
-        SMSRequest request = null;
+        if(!smsEnable){
+            log.info("Sms service is disable to enable the notification service set the value of sms.enable flag as true");
+            acknowledgment.acknowledge();
+            return;
+        }
+        long now = System.currentTimeMillis();
+        int due = 0;
+        long waitTime = 0;
+        for (; due < consumerRecords.size(); due++) {
+            long retryAfter = getRetryAfter(consumerRecords.get(due));
+            if (retryAfter > now) {
+                waitTime = Math.min(retryAfter - now, smsProperties.getRetryMaxBackoffMs());
+                break;
+            }
+        }
+        dispatch(getRequests(consumerRecords.subList(0, due)));
+        if (due < consumerRecords.size())
+            acknowledgment.nack(due, Duration.ofMillis(waitTime));
+        else
+            acknowledgment.acknowledge();
+    }
+
+    private long getRetryAfter(HashMap<String, Object> consumerRecord) {
+        if (consumerRecord == null)
+            return 0L;
         try {
-            if(!smsEnable){
-                log.info("Sms service is disable to enable the notification service set the value of sms.enable flag as true");
+            Long retryAfter = objectMapper.convertValue(consumerRecord, SMSRequest.class).getRetryAfter();
+            return retryAfter == null ? 0L : retryAfter;
+        } catch (IllegalArgumentException ex) {
+            return 0L;
+        }
+    }
+
+    /**
+     * Returns the requests of the records which are to be sent, mapped to the index of their
+     * record in the batch.
+     */
+    private Map<SMSRequest, Integer> getRequests(List<HashMap<String, Object>> consumerRecords) {
+        Map<SMSRequest, Integer> requests = new LinkedHashMap<>();
+        for (int index = 0; index < consumerRecords.size(); index++) {
+            HashMap<String, Object> consumerRecord = consumerRecords.get(index);
+            if (consumerRecord == null) {
+                log.error("Skipping sms record which could not be deserialized");
+                continue;
             }
-            else{
-                request = objectMapper.convertValue(consumerRecord, SMSRequest.class);
-                if (request.getExpiryTime() != null && request.getCategory() == Category.OTP) {
-                    Long expiryTime = request.getExpiryTime();
-                    Long currentTime = System.currentTimeMillis();
-                    if (expiryTime < currentTime) {
-                        log.info("OTP Expired");
-                        if (!StringUtils.isEmpty(expiredSmsTopic))
-                            kafkaTemplate.send(expiredSmsTopic, request);
-                    } else {
-                        smsService.sendSMS(request.toDomain());
-                    }
+            try {
+                SMSRequest request = objectMapper.convertValue(consumerRecord, SMSRequest.class);
+                if (request.getExpiryTime() != null && request.getCategory() == Category.OTP
+                        && request.getExpiryTime() < System.currentTimeMillis()) {
+                    log.info("OTP Expired");
+                    if (!StringUtils.isEmpty(expiredSmsTopic))
+                        kafkaTemplate.send(expiredSmsTopic, request);
                 } else {
-                    smsService.sendSMS(request.toDomain());
+                    requests.put(request, index);
                 }
+            } catch (IllegalArgumentException ex) {
+                log.error("Skipping invalid sms record", ex);
             }
+        }
+        return requests;
+    }
 
-        } catch (RestClientException rx) {
+    /**
+     * Sends the requests and routes the failed ones to the retry, backup or error topics. When a
+     * failed request cannot be routed, the listener fails with the index of its record, so that
+     * the records before it are committed and only the rest of the batch is redelivered.
+     */
+    private void dispatch(Map<SMSRequest, Integer> requests) {
+        RuntimeException unhandled = null;
+        int unhandledIndex = -1;
+        for (Map.Entry<SMSRequest, Exception> failure : smsDispatcher.dispatch(new ArrayList<>(requests.keySet())).entrySet()) {
+            try {
+                handleFailure(failure.getKey(), failure.getValue());
+            } catch (RuntimeException ex) {
+                int index = requests.get(failure.getKey());
+                if (unhandled == null || index < unhandledIndex) {
+                    unhandled = ex;
+                    unhandledIndex = index;
+                }
+            }
+        }
+        if (unhandled != null)
+            throw new BatchListenerFailedException("Sms could not be sent nor routed to another topic", unhandled,
+                    unhandledIndex);
+    }
+
+    private void handleFailure(SMSRequest request, Exception ex) {
+        if (ex instanceof RestClientException) {
+            RestClientException rx = (RestClientException) ex;
+            if (isRetryable(request, rx)) {
+                int attempt = request.getRetryCount() == null ? 0 : request.getRetryCount();
+                long backoff = Math.min(smsProperties.getRetryInitialBackoffMs() << Math.min(attempt, 20),
+                        smsProperties.getRetryMaxBackoffMs());
+                log.info("Sms failed, retrying in " + backoff + " ms", rx);
+                kafkaTemplate.send(retrySmsTopic, request.nextRetry(backoff));
+                return;
+            }
             log.info("Going to backup SMS Service", rx);
             if (!StringUtils.isEmpty(backupSmsTopic))
                 kafkaTemplate.send(backupSmsTopic, request);
@@ -93,13 +197,27 @@ public class SmsNotificationListener {
             } else {
                 throw rx;
             }
-        } catch (Exception ex) {
+        } else {
             log.error("Sms service failed", ex);
             if (!StringUtils.isEmpty(errorSmsTopic)) {
                 kafkaTemplate.send(errorSmsTopic, request);
             } else {
-                throw ex;
+                throw ex instanceof RuntimeException ? (RuntimeException) ex : new RuntimeException(ex);
             }
         }
     }
+
+    /**
+     * Errors of the provider and of the connection to it are retried, requests it rejected are
+     * not, unless it rejected them for exceeding its rate limit.
+     */
+    private boolean isRetryable(SMSRequest request, RestClientException rx) {
+        if (StringUtils.isEmpty(retrySmsTopic))
+            return false;
+        int attempt = request.getRetryCount() == null ? 0 : request.getRetryCount();
+        if (attempt >= smsProperties.getRetryMaxAttempts())
+            return false;
+        return !(rx instanceof HttpClientErrorException)
+                || ((HttpClientErrorException) rx).getStatusCode() == HttpStatus.TOO_MANY_REQUESTS;
+    }
 }
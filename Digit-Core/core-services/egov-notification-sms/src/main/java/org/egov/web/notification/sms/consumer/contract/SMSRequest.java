@@ -32,6 +32,10 @@ public class SMSRequest {
     private String email;
     private String[] users;
 
+    // set on requests published to the retry topic
+    private Integer retryCount;
+    private Long retryAfter;
+
     public Sms toDomain() {
         if (category == null) {
             return new Sms(mobileNumber, message, Category.OTHERS, expiryTime);
@@ -39,4 +43,14 @@ public class SMSRequest {
             return new Sms(mobileNumber, message, category, expiryTime);
         }
     }
+
+    /**
+     * Copy of this request to be published to the retry topic, to be sent again after the given
+     * backoff.
+     */
+    public SMSRequest nextRetry(long backoffMs) {
+        int attempt = retryCount == null ? 1 : retryCount + 1;
+        return new SMSRequest(mobileNumber, message, category, expiryTime, locale, tenantId, email, users,
+                attempt, System.currentTimeMillis() + backoffMs);
+    }
 }
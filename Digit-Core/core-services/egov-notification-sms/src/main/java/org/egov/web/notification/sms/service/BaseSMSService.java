@@ -4,14 +4,17 @@ import com.fasterxml.jackson.core.type.TypeReference;
 import com.jayway.jsonpath.*;
 import jakarta.annotation.PostConstruct;
 import lombok.extern.slf4j.*;
-import org.apache.hc.client5.http.classic.HttpClient;
+import org.apache.hc.client5.http.config.ConnectionConfig;
+import org.apache.hc.client5.http.config.RequestConfig;
 import org.apache.hc.client5.http.impl.classic.CloseableHttpClient;
+import org.apache.hc.client5.http.impl.classic.HttpClientBuilder;
 import org.apache.hc.client5.http.impl.classic.HttpClients;
 import org.apache.hc.client5.http.impl.io.PoolingHttpClientConnectionManager;
 import org.apache.hc.client5.http.impl.io.PoolingHttpClientConnectionManagerBuilder;
-import org.apache.hc.client5.http.io.HttpClientConnectionManager;
 import org.apache.hc.client5.http.ssl.NoopHostnameVerifier;
 import org.apache.hc.client5.http.ssl.SSLConnectionSocketFactory;
+import org.apache.hc.core5.util.TimeValue;
+import org.apache.hc.core5.util.Timeout;
 import org.egov.web.notification.sms.config.*;
 import org.egov.web.notification.sms.models.*;
 import org.springframework.asm.*;
@@ -64,26 +67,55 @@ abstract public class BaseSMSService implements SMSService, SMSBodyBuilder {
 
     @Override
     public void sendSMS(Sms sms) {
+        if (!isDeliverable(sms))
+            return;
+
+        submitToExternalSmsService(sms);
+    }
+
+    @Override
+    public void sendBulkSMS(List<Sms> smsList) {
+        List<Sms> deliverable = new ArrayList<>(smsList.size());
+        for (Sms sms : smsList) {
+            if (isDeliverable(sms))
+                deliverable.add(sms);
+        }
+
+        if (deliverable.size() == 1)
+            submitToExternalSmsService(deliverable.get(0));
+        else if (!deliverable.isEmpty())
+            submitBulkToExternalSmsService(deliverable);
+    }
+
+    private boolean isDeliverable(Sms sms) {
         if (!sms.isValid()) {
             log.error(String.format("Sms %s is not valid", sms));
-            return;
+            return false;
         }
 
         if (smsProperties.isNumberBlacklisted(sms.getMobileNumber())) {
             log.error(String.format("Sms to %s is blacklisted", sms.getMobileNumber()));
-            return;
+            return false;
         }
 
         if (!smsProperties.isNumberWhitelisted(sms.getMobileNumber())) {
             log.error(String.format("Sms to %s is not in whitelist", sms.getMobileNumber()));
-            return;
+            return false;
         }
 
-        submitToExternalSmsService(sms);
+        return true;
     }
 
     protected abstract void submitToExternalSmsService(Sms sms);
 
+    /**
+     * Sends the same message to all the numbers, providers which accept several numbers in a
+     * request override this to make a single request.
+     */
+    protected void submitBulkToExternalSmsService(List<Sms> smsList) {
+        smsList.forEach(this::submitToExternalSmsService);
+    }
+
     protected <T> ResponseEntity<T> executeAPI(URI uri, HttpMethod method, HttpEntity<?> requestEntity, Class<T> type) {
         ResponseEntity<T> res = (ResponseEntity<T>) restTemplate.exchange(uri, method, requestEntity, String.class);
         String responseString = res.getBody().toString();
@@ -173,6 +205,23 @@ abstract public class BaseSMSService implements SMSService, SMSBodyBuilder {
         return map;
     }
 
+    /**
+     * Request body of a message sent to several numbers, the numbers are joined with the
+     * configured separator in the field mapped to $mobileno.
+     */
+    public MultiValueMap<String, String> getBulkSmsRequestBody(List<Sms> smsList) {
+        MultiValueMap<String, String> map = getSmsRequestBody(smsList.get(0));
+        StringJoiner mobileNumbers = new StringJoiner(smsProperties.getBulkSeparator());
+        for (Sms sms : smsList) {
+            mobileNumbers.add(smsProperties.getMobileNumberPrefix() + sms.getMobileNumber());
+        }
+        for (Map.Entry<String, String> entry : smsProperties.getConfigMap().entrySet()) {
+            if ("$mobileno".equals(entry.getValue()))
+                map.set(entry.getKey(), mobileNumbers.toString());
+        }
+        return map;
+    }
+
     protected HttpEntity<MultiValueMap<String, String>> getRequest(Sms sms) {
         final MultiValueMap<String, String> requestBody = getSmsRequestBody(sms);
         return new HttpEntity<>(requestBody, getHttpHeaders());
@@ -184,8 +233,33 @@ abstract public class BaseSMSService implements SMSService, SMSBodyBuilder {
         return headers;
     }
 
+    /**
+     * With sms.http.pool.enabled the requests are sent through a pool of connections to the
+     * provider, so that dispatch threads reuse connections instead of opening one per message. The
+     * shared RestTemplate is otherwise left as it is, unless SSL verification is disabled.
+     */
     @PostConstruct
-    protected void setupSSL() {
+    protected void setupHttpClient() {
+        if (!smsProperties.isHttpPoolEnabled() && smsProperties.isVerifySSL())
+            return;
+
+        PoolingHttpClientConnectionManagerBuilder connectionManagerBuilder = PoolingHttpClientConnectionManagerBuilder.create();
+        HttpClientBuilder httpClientBuilder = HttpClients.custom();
+        if (smsProperties.isHttpPoolEnabled()) {
+            connectionManagerBuilder
+                .setMaxConnTotal(smsProperties.getHttpMaxConnections())
+                .setMaxConnPerRoute(smsProperties.getHttpMaxConnections())
+                .setDefaultConnectionConfig(ConnectionConfig.custom()
+                    .setConnectTimeout(Timeout.ofMilliseconds(smsProperties.getHttpConnectTimeoutMs()))
+                    .setSocketTimeout(Timeout.ofMilliseconds(smsProperties.getHttpReadTimeoutMs()))
+                    .build());
+            httpClientBuilder
+                .setDefaultRequestConfig(RequestConfig.custom()
+                    .setResponseTimeout(Timeout.ofMilliseconds(smsProperties.getHttpReadTimeoutMs()))
+                    .build())
+                .evictIdleConnections(TimeValue.ofSeconds(30));
+        }
+
         if (!smsProperties.isVerifySSL()) {
 
             SSLContext ctx = null;
@@ -202,21 +276,17 @@ abstract public class BaseSMSService implements SMSService, SMSBodyBuilder {
 
             // Create socket factory from SSLContext object
             SSLConnectionSocketFactory csf = new SSLConnectionSocketFactory(ctx, new NoopHostnameVerifier());
+            connectionManagerBuilder.setSSLSocketFactory(csf);
+        }
 
-            // Create a connection manager with custom configuration to enable SSL.
-            HttpClientConnectionManager ccm = PoolingHttpClientConnectionManagerBuilder.create()
-                .setSSLSocketFactory(csf)
-                .build();
-
-            // Create HttpClient that uses pool manager.
-            CloseableHttpClient httpClient = HttpClients.custom()
-                .setConnectionManager(ccm)
-                .build();
+        // Create HttpClient that uses pool manager.
+        CloseableHttpClient httpClient = httpClientBuilder
+            .setConnectionManager(connectionManagerBuilder.build())
+            .build();
 
-            HttpComponentsClientHttpRequestFactory requestFactory = new HttpComponentsClientHttpRequestFactory();
-            requestFactory.setHttpClient(httpClient);
-            restTemplate.setRequestFactory(requestFactory);
-        }
+        HttpComponentsClientHttpRequestFactory requestFactory = new HttpComponentsClientHttpRequestFactory();
+        requestFactory.setHttpClient(httpClient);
+        restTemplate.setRequestFactory(requestFactory);
     }
 
 }
@@ -2,7 +2,20 @@ package org.egov.web.notification.sms.service;
 
 import org.egov.web.notification.sms.models.Sms;
 
+import java.util.List;
+
 public interface SMSService {
     void sendSMS(Sms sms);
-}
 
+    /**
+     * Sends the same message to several numbers, in a single request where the provider
+     * supports it.
+     */
+    default void sendBulkSMS(List<Sms> smsList) {
+        smsList.forEach(this::sendSMS);
+    }
+
+    default boolean supportsBulk() {
+        return false;
+    }
+}
@@ -0,0 +1,130 @@
+package org.egov.web.notification.sms.service;
+
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.egov.web.notification.sms.config.SMSProperties;
+import org.egov.web.notification.sms.consumer.contract.SMSRequest;
+import org.egov.web.notification.sms.models.RequestContext;
+import org.egov.web.notification.sms.models.Sms;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Sends the SMS of a batch of requests in parallel, within the rate limit of the provider, and
+ * waits for all of them so that the batch is only committed once every SMS has been handed to the
+ * provider or failed.
+ *
+ * Tasks wait in a bounded queue, when it is full the calling consumer thread sends the SMS itself,
+ * which slows down consumption instead of queueing messages without limit.
+ */
+@Slf4j
+@Service
+public class SmsDispatcher {
+
+    private final SMSService smsService;
+
+    private final SMSProperties smsProperties;
+
+    private final ThreadPoolExecutor executor;
+
+    private final Map<String, TokenBucketRateLimiter> rateLimiters = new ConcurrentHashMap<>();
+
+    @Autowired
+    public SmsDispatcher(SMSService smsService, SMSProperties smsProperties) {
+        this.smsService = smsService;
+        this.smsProperties = smsProperties;
+        AtomicInteger threadCount = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(smsProperties.getDispatchPoolSize(), smsProperties.getDispatchPoolSize(),
+                0L, TimeUnit.MILLISECONDS, new ArrayBlockingQueue<>(smsProperties.getDispatchQueueCapacity()),
+                runnable -> new Thread(runnable, "sms-dispatch-" + threadCount.incrementAndGet()),
+                new ThreadPoolExecutor.CallerRunsPolicy());
+    }
+
+    /**
+     * Sends the SMS of the requests and returns the requests which could not be sent with the
+     * reason of their failure.
+     */
+    public Map<SMSRequest, Exception> dispatch(List<SMSRequest> requests) {
+        Map<SMSRequest, Exception> failures = new LinkedHashMap<>();
+        if (requests.isEmpty())
+            return failures;
+
+        long startTime = System.currentTimeMillis();
+        TokenBucketRateLimiter rateLimiter = rateLimiters.computeIfAbsent(smsProperties.getGatewayToUse(),
+                provider -> new TokenBucketRateLimiter(smsProperties.getRateLimitPerSecond(), smsProperties.getRateLimitBurst()));
+
+        List<List<SMSRequest>> units = getDispatchUnits(requests);
+        List<Future<?>> futures = new ArrayList<>(units.size());
+        for (List<SMSRequest> unit : units) {
+            futures.add(executor.submit(() -> {
+                send(unit, rateLimiter);
+                return null;
+            }));
+        }
+
+        for (int i = 0; i < units.size(); i++) {
+            try {
+                futures.get(i).get();
+            } catch (ExecutionException e) {
+                Exception cause = e.getCause() instanceof Exception ? (Exception) e.getCause() : e;
+                units.get(i).forEach(request -> failures.put(request, cause));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                units.get(i).forEach(request -> failures.put(request, e));
+            }
+        }
+
+        log.info("Dispatched " + requests.size() + " sms in " + units.size() + " requests to the provider in "
+                + (System.currentTimeMillis() - startTime) + " ms, " + failures.size() + " failed");
+        return failures;
+    }
+
+    private void send(List<SMSRequest> unit, TokenBucketRateLimiter rateLimiter) throws InterruptedException {
+        RequestContext.setId(UUID.randomUUID().toString());
+        rateLimiter.acquire();
+        if (unit.size() == 1) {
+            smsService.sendSMS(unit.get(0).toDomain());
+        } else {
+            List<Sms> smsList = new ArrayList<>(unit.size());
+            unit.forEach(request -> smsList.add(request.toDomain()));
+            smsService.sendBulkSMS(smsList);
+        }
+    }
+
+    /**
+     * Requests sent to the provider together, requests with the same message and category are
+     * combined when the provider accepts several numbers in a request.
+     */
+    private List<List<SMSRequest>> getDispatchUnits(List<SMSRequest> requests) {
+        List<List<SMSRequest>> units = new ArrayList<>();
+        if (!smsService.supportsBulk()) {
+            requests.forEach(request -> units.add(Collections.singletonList(request)));
+            return units;
+        }
+
+        Map<List<Object>, List<SMSRequest>> requestsByMessage = new LinkedHashMap<>();
+        for (SMSRequest request : requests) {
+            Sms sms = request.toDomain();
+            requestsByMessage.computeIfAbsent(Arrays.asList(sms.getMessage(), sms.getCategory()), key -> new ArrayList<>())
+                    .add(request);
+        }
+        int maxRecipients = Math.max(1, smsProperties.getBulkMaxRecipients());
+        for (List<SMSRequest> sameMessage : requestsByMessage.values()) {
+            for (int i = 0; i < sameMessage.size(); i += maxRecipients) {
+                units.add(sameMessage.subList(i, Math.min(i + maxRecipients, sameMessage.size())));
+            }
+        }
+        return units;
+    }
+
+    @PreDestroy
+    public void shutdown() throws InterruptedException {
+        executor.shutdown();
+        if (!executor.awaitTermination(smsProperties.getHttpReadTimeoutMs(), TimeUnit.MILLISECONDS))
+            executor.shutdownNow();
+    }
+}
@@ -0,0 +1,45 @@
+package org.egov.web.notification.sms.service;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Token bucket limiting the requests made to an SMS provider. Callers reserve a token and wait
+ * until it is due, so waiting callers are served in the order they arrived.
+ */
+public class TokenBucketRateLimiter {
+
+    private final double nanosPerToken;
+
+    private final double capacity;
+
+    private double tokens;
+
+    private long lastRefill;
+
+    /**
+     * @param permitsPerSecond requests allowed per second, zero or less disables the limit
+     * @param burst            requests which can be made at once after an idle period
+     */
+    public TokenBucketRateLimiter(double permitsPerSecond, int burst) {
+        this.nanosPerToken = permitsPerSecond > 0 ? TimeUnit.SECONDS.toNanos(1) / permitsPerSecond : 0;
+        this.capacity = Math.max(1, burst);
+        this.tokens = capacity;
+        this.lastRefill = System.nanoTime();
+    }
+
+    public void acquire() throws InterruptedException {
+        if (nanosPerToken == 0)
+            return;
+
+        long waitNanos;
+        synchronized (this) {
+            long now = System.nanoTime();
+            tokens = Math.min(capacity, tokens + (now - lastRefill) / nanosPerToken);
+            lastRefill = now;
+            tokens -= 1;
+            waitNanos = tokens >= 0 ? 0 : (long) (-tokens * nanosPerToken);
+        }
+        if (waitNanos > 0)
+            TimeUnit.NANOSECONDS.sleep(waitNanos);
+    }
+}
@@ -18,6 +18,7 @@ import org.springframework.beans.factory.annotation.Value;
 import org.springframework.web.util.UriComponentsBuilder;
 
 import java.net.*;
+import java.util.List;
 
 
 @Service
@@ -31,25 +32,40 @@ public class GenericSMSServiceImpl extends BaseSMSService {
 
     protected void submitToExternalSmsService(Sms sms) {
         try {
+            submit(getSmsRequestBody(sms));
+        } catch (RestClientException e) {
+            log.error("Error occurred while sending SMS to " + sms.getMobileNumber(), e);
+            throw e;
+        }
+    }
 
-            String url = smsProperties.getUrl();
+    @Override
+    public boolean supportsBulk() {
+        return smsProperties.isBulkEnabled();
+    }
 
-            if (smsProperties.requestType.equals("POST")) {
-                HttpEntity<MultiValueMap<String, String>> request = getRequest(sms);
+    @Override
+    protected void submitBulkToExternalSmsService(List<Sms> smsList) {
+        try {
+            submit(getBulkSmsRequestBody(smsList));
+        } catch (RestClientException e) {
+            log.error("Error occurred while sending SMS to " + smsList.size() + " numbers", e);
+            throw e;
+        }
+    }
 
-                executeAPI(URI.create(url), HttpMethod.POST, request, String.class);
+    private void submit(MultiValueMap<String, String> requestBody) {
+        String url = smsProperties.getUrl();
 
-            } else {
-                final MultiValueMap<String, String> requestBody = getSmsRequestBody(sms);
+        if (smsProperties.requestType.equals("POST")) {
+            HttpEntity<MultiValueMap<String, String>> request = new HttpEntity<>(requestBody, getHttpHeaders());
 
-                URI final_url = UriComponentsBuilder.fromHttpUrl(url).queryParams(requestBody).build().encode().toUri();
+            executeAPI(URI.create(url), HttpMethod.POST, request, String.class);
 
-                executeAPI(final_url, HttpMethod.GET, null, String.class);
-            }
+        } else {
+            URI final_url = UriComponentsBuilder.fromHttpUrl(url).queryParams(requestBody).build().encode().toUri();
 
-        } catch (RestClientException e) {
-            log.error("Error occurred while sending SMS to " + sms.getMobileNumber(), e);
-            throw e;
+            executeAPI(final_url, HttpMethod.GET, null, String.class);
         }
     }
 
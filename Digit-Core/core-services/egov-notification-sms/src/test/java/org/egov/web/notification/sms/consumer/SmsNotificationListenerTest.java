@@ -0,0 +1,100 @@
+package org.egov.web.notification.sms.consumer;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.egov.tracer.kafka.CustomKafkaTemplate;
+import org.egov.web.notification.sms.consumer.contract.SMSRequest;
+import org.egov.web.notification.sms.service.SmsDispatcher;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.kafka.listener.BatchListenerFailedException;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class SmsNotificationListenerTest {
+
+    private final SmsDispatcher smsDispatcher = mock(SmsDispatcher.class);
+
+    @SuppressWarnings("unchecked")
+    private final CustomKafkaTemplate<String, SMSRequest> kafkaTemplate = mock(CustomKafkaTemplate.class);
+
+    private SmsNotificationListener listener;
+
+    @BeforeEach
+    void setUp() {
+        listener = new SmsNotificationListener(null, smsDispatcher, kafkaTemplate);
+        ReflectionTestUtils.setField(listener, "objectMapper", new ObjectMapper());
+        ReflectionTestUtils.setField(listener, "smsEnable", true);
+        ReflectionTestUtils.setField(listener, "expiredSmsTopic", "");
+        ReflectionTestUtils.setField(listener, "backupSmsTopic", "");
+        ReflectionTestUtils.setField(listener, "retrySmsTopic", "");
+    }
+
+    @Test
+    void unroutedFailureFailsTheBatchAtItsRecord() {
+        ReflectionTestUtils.setField(listener, "errorSmsTopic", "");
+        failRequestsTo("9999999992", "9999999993");
+
+        BatchListenerFailedException ex = assertThrows(BatchListenerFailedException.class,
+                () -> listener.process(records()));
+
+        // the record which could not be deserialized is counted, the first failed request is the third record
+        assertEquals(2, ex.getIndex());
+        assertEquals("provider is down", ex.getCause().getMessage());
+    }
+
+    @Test
+    void routedFailuresDoNotFailTheBatch() {
+        ReflectionTestUtils.setField(listener, "errorSmsTopic", "egov.core.sms.error");
+        failRequestsTo("9999999992", "9999999993");
+
+        listener.process(records());
+
+        verify(kafkaTemplate, times(2)).send(eq("egov.core.sms.error"), any(SMSRequest.class));
+    }
+
+    private void failRequestsTo(String... mobileNumbers) {
+        List<String> failing = Arrays.asList(mobileNumbers);
+        when(smsDispatcher.dispatch(anyList())).thenAnswer(invocation -> {
+            List<SMSRequest> requests = invocation.getArgument(0);
+            Map<SMSRequest, Exception> failures = new LinkedHashMap<>();
+            requests.stream().filter(request -> failing.contains(request.getMobileNumber()))
+                    .forEach(request -> failures.put(request, new IllegalStateException("provider is down")));
+            return failures;
+        });
+    }
+
+    private static List<HashMap<String, Object>> records() {
+        List<HashMap<String, Object>> records = new ArrayList<>();
+        records.add(record("9999999991"));
+        records.add(null);
+        records.add(record("9999999992"));
+        records.add(record("9999999993"));
+        records.add(record("9999999994"));
+        return records;
+    }
+
+    private static HashMap<String, Object> record(String mobileNumber) {
+        HashMap<String, Object> record = new HashMap<>();
+        record.put("mobileNumber", mobileNumber);
+        record.put("message", "Your application has been submitted");
+        record.put("category", "NOTIFICATION");
+        return record;
+    }
+
+}
@@ -0,0 +1,184 @@
+package org.egov.web.notification.sms.service;
+
+import org.egov.web.notification.sms.config.SMSProperties;
+import org.egov.web.notification.sms.consumer.contract.SMSRequest;
+import org.egov.web.notification.sms.models.Category;
+import org.egov.web.notification.sms.service.impl.GenericSMSServiceImpl;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.env.MockEnvironment;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.client.RestTemplate;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Sends SMS through the dispatcher to a local stub provider which takes a fixed time per request,
+ * and compares the throughput of sending them one after the other on the consumer thread, in
+ * parallel, in parallel within a rate limit, and in bulk requests.
+ */
+class SmsDispatchBenchmarkTest {
+
+    private static final int SMS = 400;
+    private static final long LATENCY_MS = 10;
+    private static final int POOL_SIZE = 20;
+    private static final double RATE_LIMIT_PER_SECOND = 200;
+    private static final int RATE_LIMIT_BURST = 20;
+    private static final int BULK_MAX_RECIPIENTS = 100;
+
+    private static StubSmsProvider provider;
+
+    @BeforeAll
+    static void startProvider() throws Exception {
+        provider = new StubSmsProvider(LATENCY_MS);
+    }
+
+    @AfterAll
+    static void stopProvider() {
+        provider.close();
+    }
+
+    @BeforeEach
+    void resetProvider() {
+        provider.reset();
+    }
+
+    @Test
+    void parallelDispatchIsFasterThanSendingOnTheConsumerThread() throws Exception {
+        SMSProperties properties = newProperties(0, false);
+        GenericSMSServiceImpl smsService = newSmsService(properties);
+        List<SMSRequest> requests = newRequests(false);
+
+        long startTime = System.nanoTime();
+        for (SMSRequest request : requests) {
+            smsService.sendSMS(request.toDomain());
+        }
+        long sequential = elapsedMs(startTime);
+        assertEquals(SMS, provider.getRecipients());
+
+        provider.reset();
+        long parallel = dispatch(new SmsDispatcher(smsService, properties), requests);
+
+        String timings = String.format("%d sms with %d ms per request: sequential %d ms, %d threads %d ms",
+                SMS, LATENCY_MS, sequential, POOL_SIZE, parallel);
+        assertEquals(SMS, provider.getRequests(), timings);
+        assertEquals(SMS, provider.getRecipients(), timings);
+        assertTrue(parallel * 5 < sequential, timings);
+    }
+
+    @Test
+    void dispatchStaysWithinTheRateLimit() throws Exception {
+        SMSProperties properties = newProperties(RATE_LIMIT_PER_SECOND, false);
+        SmsDispatcher dispatcher = new SmsDispatcher(newSmsService(properties), properties);
+
+        long limited = dispatch(dispatcher, newRequests(false));
+
+        long minimum = (long) ((SMS - RATE_LIMIT_BURST) * 1000 / RATE_LIMIT_PER_SECOND);
+        String timings = String.format("%d sms limited to %.0f per second: %d ms, at least %d ms expected",
+                SMS, RATE_LIMIT_PER_SECOND, limited, minimum);
+        assertEquals(SMS, provider.getRecipients(), timings);
+        assertTrue(limited >= minimum * 9 / 10, timings);
+        assertTrue(SMS * 1000 / Math.max(limited, 1) <= RATE_LIMIT_PER_SECOND * 1.2, timings);
+    }
+
+    @Test
+    void bulkDispatchSendsAMessageToSeveralNumbersPerRequest() throws Exception {
+        SMSProperties properties = newProperties(0, true);
+        SmsDispatcher dispatcher = new SmsDispatcher(newSmsService(properties), properties);
+
+        long bulk = dispatch(dispatcher, newRequests(true));
+
+        String timings = String.format("%d sms in bulk requests of up to %d numbers: %d ms, %d requests",
+                SMS, BULK_MAX_RECIPIENTS, bulk, provider.getRequests());
+        assertEquals(SMS, provider.getRecipients(), timings);
+        assertEquals(SMS / BULK_MAX_RECIPIENTS, provider.getRequests(), timings);
+    }
+
+    private static long dispatch(SmsDispatcher dispatcher, List<SMSRequest> requests) throws InterruptedException {
+        try {
+            long startTime = System.nanoTime();
+            Map<SMSRequest, Exception> failures = dispatcher.dispatch(requests);
+            long elapsed = elapsedMs(startTime);
+            assertEquals(Collections.emptyMap(), failures);
+            return elapsed;
+        } finally {
+            dispatcher.shutdown();
+        }
+    }
+
+    /**
+     * Requests to distinct numbers, with the same message when they are to be sent in bulk.
+     */
+    private static List<SMSRequest> newRequests(boolean sameMessage) {
+        List<SMSRequest> requests = new ArrayList<>(SMS);
+        for (int i = 0; i < SMS; i++) {
+            String message = sameMessage ? "Water supply will be interrupted tomorrow" : "Your OTP is " + (100000 + i);
+            requests.add(new SMSRequest(String.valueOf(9000000000L + i), message, Category.NOTIFICATION, null,
+                    null, "pb", null, null, null, null));
+        }
+        return requests;
+    }
+
+    private static SMSProperties newProperties(double rateLimitPerSecond, boolean bulkEnabled) {
+        SMSProperties properties = new SMSProperties();
+        properties.setGatewayToUse("Generic");
+        properties.setRequestType("POST");
+        properties.setContentType("application/json");
+        properties.setUrl(provider.getUrl());
+        properties.setUsername("user");
+        properties.setPassword("password");
+        properties.setSenderid("EGOV");
+        properties.setMobileNumberPrefix("");
+        Map<String, String> configMap = new HashMap<>();
+        configMap.put("uname", "$username");
+        configMap.put("sid", "$senderid");
+        configMap.put("mobileno", "$mobileno");
+        configMap.put("content", "$message");
+        properties.setConfigMap(configMap);
+        properties.setExtraConfigMap(new HashMap<>());
+        properties.setCategoryMap(new HashMap<>());
+        properties.setSmsErrorCodes(new ArrayList<>());
+        properties.setSmsSuccessCodes(Collections.singletonList("200"));
+        properties.setVerifyResponse(true);
+        properties.setVerifyResponseContains("\"success\":true");
+        properties.setVerifySSL(true);
+        properties.setBlacklistNumbers(new ArrayList<>());
+        properties.setWhitelistNumbers(new ArrayList<>());
+        properties.setRateLimitPerSecond(rateLimitPerSecond);
+        properties.setRateLimitBurst(RATE_LIMIT_BURST);
+        properties.setBulkEnabled(bulkEnabled);
+        properties.setBulkMaxRecipients(BULK_MAX_RECIPIENTS);
+        properties.setBulkSeparator(",");
+        properties.setHttpPoolEnabled(true);
+        properties.setHttpMaxConnections(POOL_SIZE);
+        properties.setHttpConnectTimeoutMs(1000);
+        properties.setHttpReadTimeoutMs(5000);
+        properties.setDispatchPoolSize(POOL_SIZE);
+        properties.setDispatchQueueCapacity(SMS);
+        return properties;
+    }
+
+    private static GenericSMSServiceImpl newSmsService(SMSProperties properties) {
+        GenericSMSServiceImpl smsService = new GenericSMSServiceImpl();
+        ReflectionTestUtils.setField(smsService, "restTemplate", new RestTemplate());
+        ReflectionTestUtils.setField(smsService, "smsProperties", properties);
+        ReflectionTestUtils.setField(smsService, "env", new MockEnvironment());
+        smsService.init();
+        smsService.setupHttpClient();
+        return smsService;
+    }
+
+    private static long elapsedMs(long startTime) {
+        return TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startTime);
+    }
+}
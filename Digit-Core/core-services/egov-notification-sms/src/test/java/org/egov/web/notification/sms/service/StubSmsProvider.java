@@ -0,0 +1,90 @@
+package org.egov.web.notification.sms.service;
+
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Local stand-in for an SMS provider, which takes a fixed time to answer each request and counts
+ * the requests and the numbers they were sent to.
+ */
+class StubSmsProvider implements AutoCloseable {
+
+    private static final Pattern MOBILE_NUMBERS = Pattern.compile("\"mobileno\"\\s*:\\s*\"([^\"]*)\"");
+
+    private static final byte[] RESPONSE = "{\"success\":true}".getBytes(StandardCharsets.UTF_8);
+
+    static {
+        // the headers and the body of a response are written separately, without this the body
+        // waits for the acknowledgement of the headers and every request takes some 40 ms more
+        System.setProperty("sun.net.httpserver.nodelay", "true");
+    }
+
+    private final HttpServer server;
+
+    private final ExecutorService executor = Executors.newCachedThreadPool();
+
+    private final AtomicInteger requests = new AtomicInteger();
+
+    private final AtomicInteger recipients = new AtomicInteger();
+
+    StubSmsProvider(long latencyMs) throws IOException {
+        server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        server.createContext("/sms", exchange -> {
+            String body;
+            try (InputStream stream = exchange.getRequestBody()) {
+                body = new String(stream.readAllBytes(), StandardCharsets.UTF_8);
+            }
+            try {
+                TimeUnit.MILLISECONDS.sleep(latencyMs);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            Matcher matcher = MOBILE_NUMBERS.matcher(body);
+            if (matcher.find())
+                recipients.addAndGet(matcher.group(1).split(",").length);
+            requests.incrementAndGet();
+
+            exchange.getResponseHeaders().add("Content-Type", "application/json");
+            exchange.sendResponseHeaders(200, RESPONSE.length);
+            try (OutputStream stream = exchange.getResponseBody()) {
+                stream.write(RESPONSE);
+            }
+        });
+        server.setExecutor(executor);
+        server.start();
+    }
+
+    String getUrl() {
+        return "http://localhost:" + server.getAddress().getPort() + "/sms";
+    }
+
+    int getRequests() {
+        return requests.get();
+    }
+
+    int getRecipients() {
+        return recipients.get();
+    }
+
+    void reset() {
+        requests.set(0);
+        recipients.set(0);
+    }
+
+    @Override
+    public void close() {
+        server.stop(0);
+        executor.shutdownNow();
+    }
+}
@@ -2,8 +2,15 @@ package org.egov.domain.service;
 
 import static org.apache.commons.lang3.RandomStringUtils.randomNumeric;
 
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
 import java.util.UUID;
 
+import jakarta.annotation.PostConstruct;
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+
 import org.egov.domain.exception.TokenValidationFailureException;
 import org.egov.domain.model.Token;
 import org.egov.domain.model.TokenRequest;
@@ -12,6 +19,7 @@ import org.egov.domain.model.Tokens;
 import org.egov.domain.model.ValidateRequest;
 import org.egov.persistence.repository.TokenRepository;
 import org.egov.web.util.*;
+import org.apache.commons.lang3.StringUtils;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.security.crypto.bcrypt.*;
 import org.springframework.security.crypto.password.*;
@@ -22,7 +30,9 @@ import lombok.extern.slf4j.Slf4j;
 @Service
 @Slf4j
 public class TokenService {
-	
+
+    private static final String HMAC_ALGORITHM = "HmacSHA256";
+
     private TokenRepository tokenRepository;
 
     private OtpConfiguration otpConfiguration;
@@ -36,23 +46,34 @@ public class TokenService {
         this.otpConfiguration = otpConfiguration;
     }
 
+    /*
+     * Without a secret otps are stored as bcrypt hashes, which is only meant for local
+     * development, every other environment refuses to start.
+     */
+    @PostConstruct
+    public void validateConfiguration() {
+        if (!otpConfiguration.isEncryptOTP() || StringUtils.isNotBlank(otpConfiguration.getHmacSecret()))
+            return;
+        if (otpConfiguration.isHmacSecretRequired())
+            throw new IllegalStateException("egov.otp.hmac.secret is not set, provide it through the"
+                    + " EGOV_OTP_HMAC_SECRET environment variable");
+        log.warn("egov.otp.hmac.secret is not set, otps are stored as bcrypt hashes and validated by"
+                + " matching every live token of the identity");
+    }
+
     public Token create(TokenRequest tokenRequest) {
         tokenRequest.validate();
 
-        String tenantId = tokenRequest.getTenantId();
+        String tenantId = getStateLevelTenantId(tokenRequest.getTenantId());
         String originalOtp = randomNumeric(otpConfiguration.getOtpLength());
         String encryptedOtp = originalOtp;
 
-        if (otpConfiguration.isEncryptOTP()){
+        if (isHmacEnabled()) {
+            encryptedOtp = hash(tenantId, tokenRequest.getIdentity(), originalOtp);
+        } else if (otpConfiguration.isEncryptOTP()) {
             encryptedOtp = passwordEncoder.encode(originalOtp);
         }
 
-        /*
-         * using only IN in central instance since OTP is for only citizen
-         */
-        if(tenantId.contains("."))
-        	tenantId = tenantId.split("\\.")[0];
-        
         Token token = Token.builder().uuid(UUID.randomUUID().toString()).tenantId(tenantId)
                 .identity(tokenRequest.getIdentity()).number(encryptedOtp)
                 .timeToLiveInSeconds(otpConfiguration.getTtl()).build();
@@ -64,20 +85,79 @@ public class TokenService {
     public Token validate(ValidateRequest validateRequest) {
         validateRequest.validate();
 
-        Tokens tokens = tokenRepository.findByIdentityAndTenantId(validateRequest);
+        Token token;
+        if (otpConfiguration.isEncryptOTP() && !isHmacEnabled()) {
+            token = findLegacyToken(validateRequest);
+        } else {
+            String number = validateRequest.getOtp();
+            if (isHmacEnabled())
+                number = hash(getStateLevelTenantId(validateRequest.getTenantId()), validateRequest.getIdentity(), number);
+
+            token = tokenRepository.findByNumberAndIdentityAndTenantId(number, validateRequest);
+            if (token != null && !MessageDigest.isEqual(number.getBytes(StandardCharsets.UTF_8),
+                    token.getNumber().getBytes(StandardCharsets.UTF_8)))
+                token = null;
+
+            if (token == null && isHmacEnabled() && otpConfiguration.isLegacyBcryptValidationEnabled())
+                token = findLegacyToken(validateRequest);
+        }
 
-        if (tokens == null || tokens.getTokens().isEmpty())
+        if (token == null) {
+            tokenRepository.incrementFailedAttempts(validateRequest);
             throw new TokenValidationFailureException();
+        }
+        tokenRepository.markAsValidated(token);
+        return token;
+    }
 
-        for (Token t: tokens.getTokens()) {
+    /*
+     * The otp is stored as a HMAC only when a secret is configured, without one the
+     * service keeps storing bcrypt hashes.
+     */
+    private boolean isHmacEnabled() {
+        return otpConfiguration.isEncryptOTP() && StringUtils.isNotBlank(otpConfiguration.getHmacSecret());
+    }
 
-            if (!otpConfiguration.isEncryptOTP() && validateRequest.getOtp().equalsIgnoreCase(t.getNumber())
-             || (otpConfiguration.isEncryptOTP()  && passwordEncoder.matches(validateRequest.getOtp(), t.getNumber()))) {
-                tokenRepository.markAsValidated(t);
+    /*
+     * Tokens created before the otp was stored as a HMAC, or while no secret is configured,
+     * hold a bcrypt hash and are matched the old way.
+     */
+    private Token findLegacyToken(ValidateRequest validateRequest) {
+        Tokens tokens = tokenRepository.findLegacyTokensByIdentityAndTenantId(validateRequest);
+        if (tokens == null)
+            return null;
+        for (Token t : tokens.getTokens()) {
+            if (passwordEncoder.matches(validateRequest.getOtp(), t.getNumber()))
                 return t;
-            }
         }
-        throw new TokenValidationFailureException();
+        return null;
+    }
+
+    /*
+     * HMAC of the otp bound to the identity and tenant it was issued for, so that the token
+     * can be looked up by it and the otp cannot be recovered from the table without the secret.
+     */
+    private String hash(String tenantId, String identity, String otp) {
+        try {
+            Mac mac = Mac.getInstance(HMAC_ALGORITHM);
+            mac.init(new SecretKeySpec(otpConfiguration.getHmacSecret().getBytes(StandardCharsets.UTF_8), HMAC_ALGORITHM));
+            byte[] digest = mac.doFinal(String.join("|", tenantId, identity, otp).getBytes(StandardCharsets.UTF_8));
+            StringBuilder hex = new StringBuilder(digest.length * 2);
+            for (byte b : digest)
+                hex.append(String.format("%02x", b));
+            return hex.toString();
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("Unable to compute the HMAC of the otp", e);
+        }
+    }
+
+    /*
+     * using only IN in central instance since OTP is for only citizen
+     */
+    private String getStateLevelTenantId(String tenantId) {
+        if (tenantId.contains("."))
+            return tenantId.split("\\.")[0];
+        return tenantId;
     }
 
     public Token search(TokenSearchCriteria searchCriteria) {
@@ -23,6 +23,9 @@ public class TokenRepository {
     private static final String NO = "N";
     private static final String INSERT_TOKEN = "insert into eg_token(id,tenantid,tokennumber,tokenidentity,validated,ttlsecs,createddate,createdby,version,createddatenew) values (:id,:tenantId,:tokenNumber,:tokenIdentity,:validated,:ttlSecs,:createdDate,:createdBy,:version,:createddatenew);";
     private static final String GETTOKENS_BY_NUMBER_IDENTITY_TENANT = "select * from eg_token where tokenidentity=:tokenIdentity and tenantid=:tenantId and ((:timestamp - createddatenew)/1000)::int <= ttlsecs and validated = 'N'";
+    private static final String GETTOKEN_BY_NUMBER_IDENTITY_TENANT = "select * from eg_token where tokennumber=:tokenNumber and tokenidentity=:tokenIdentity and tenantid=:tenantId and ((:timestamp - createddatenew)/1000)::int <= ttlsecs and validated = 'N' and failedattempts < :maxAttempts limit 1";
+    private static final String GETLEGACYTOKENS_BY_IDENTITY_TENANT = "select * from eg_token where tokenidentity=:tokenIdentity and tenantid=:tenantId and ((:timestamp - createddatenew)/1000)::int <= ttlsecs and validated = 'N' and failedattempts < :maxAttempts and tokennumber like '$2%'";
+    private static final String INCREMENT_FAILED_ATTEMPTS = "update eg_token set failedattempts = failedattempts + 1 where tokenidentity=:tokenIdentity and tenantid=:tenantId and ((:timestamp - createddatenew)/1000)::int <= ttlsecs and validated = 'N'";
     private static final String UPDATE_TOKEN = "update eg_token set validated = 'Y' where id = :id";
     private static final String GETTOKEN_BYID = "select * from eg_token where id=:id";
     private static final String UPDATETOKEN_TLL_BYID = "update eg_token set ttlsecs = ((:timestamp - createddatenew) / 1000)::int + :ttl where id = :id";
@@ -91,6 +94,46 @@ public class TokenRepository {
     }
 
 
+    /**
+     * Returns the live token of the identity with the given number, which has not been locked
+     * by too many failed validation attempts
+     */
+    public Token findByNumberAndIdentityAndTenantId(String tokenNumber, ValidateRequest request) {
+        final Map<String, Object> tokenInputs = getIdentityInputs(request);
+        tokenInputs.put("tokenNumber", tokenNumber);
+        tokenInputs.put("maxAttempts", otpConfiguration.getMaxValidationAttempts());
+        List<Token> domainTokens = namedParameterJdbcTemplate.query(GETTOKEN_BY_NUMBER_IDENTITY_TENANT, tokenInputs,
+                new TokenRowMapper());
+        return domainTokens.isEmpty() ? null : domainTokens.get(0);
+    }
+
+    /**
+     * Returns the live tokens of the identity whose number is a bcrypt hash, created before
+     * the number was stored as a HMAC
+     */
+    public Tokens findLegacyTokensByIdentityAndTenantId(ValidateRequest request) {
+        final Map<String, Object> tokenInputs = getIdentityInputs(request);
+        tokenInputs.put("maxAttempts", otpConfiguration.getMaxValidationAttempts());
+        return new Tokens(namedParameterJdbcTemplate.query(GETLEGACYTOKENS_BY_IDENTITY_TENANT, tokenInputs,
+                new TokenRowMapper()));
+    }
+
+    public int incrementFailedAttempts(ValidateRequest request) {
+        return namedParameterJdbcTemplate.update(INCREMENT_FAILED_ATTEMPTS, getIdentityInputs(request));
+    }
+
+    private Map<String, Object> getIdentityInputs(ValidateRequest request) {
+        String tenantId = request.getTenantId();
+        if(tenantId.contains("."))
+        	tenantId = tenantId.split("\\.")[0];
+
+        final Map<String, Object> tokenInputs = new HashMap<String, Object>();
+        tokenInputs.put("tokenIdentity", request.getIdentity());
+        tokenInputs.put("tenantId", tenantId);
+        tokenInputs.put("timestamp", System.currentTimeMillis());
+        return tokenInputs;
+    }
+
     public Token findBy(TokenSearchCriteria searchCriteria) {
 
         Token token = null;
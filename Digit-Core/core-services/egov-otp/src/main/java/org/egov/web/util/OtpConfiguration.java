@@ -26,4 +26,16 @@ public class OtpConfiguration {
     @Value("${egov.otp.encrypt}")
     private boolean encryptOTP;
 
+    @Value("${egov.otp.hmac.secret:}")
+    private String hmacSecret;
+
+    @Value("${egov.otp.hmac.secret.required:true}")
+    private boolean hmacSecretRequired;
+
+    @Value("${egov.otp.max.validation.attempts:5}")
+    private int maxValidationAttempts;
+
+    @Value("${egov.otp.legacy.bcrypt.validation.enabled:true}")
+    private boolean legacyBcryptValidationEnabled;
+
 }
\ No newline at end of file
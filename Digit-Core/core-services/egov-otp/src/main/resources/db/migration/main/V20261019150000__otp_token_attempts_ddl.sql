@@ -0,0 +1,3 @@
+ALTER TABLE eg_token ADD COLUMN IF NOT EXISTS failedattempts integer NOT NULL DEFAULT 0;
+
+CREATE INDEX IF NOT EXISTS idx_token_identity_tenant_pending ON eg_token (tokenidentity, tenantid) WHERE validated = 'N';
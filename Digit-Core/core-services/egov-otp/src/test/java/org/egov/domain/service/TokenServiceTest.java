@@ -1,19 +1,21 @@
 package org.egov.domain.service;
 
-import static org.assertj.core.api.Assertions.assertThat;
-import static org.junit.Assert.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
-import static org.mockito.Mockito.lenient;
 
-import java.time.LocalDateTime;
-import java.time.ZoneId;
 import java.util.ArrayList;
 import java.util.Date;
 import java.util.List;
 
-import org.egov.domain.exception.TokenAlreadyUsedException;
 import org.egov.domain.exception.TokenValidationFailureException;
 import org.egov.domain.model.Token;
 import org.egov.domain.model.TokenRequest;
@@ -21,43 +23,34 @@ import org.egov.domain.model.TokenSearchCriteria;
 import org.egov.domain.model.Tokens;
 import org.egov.domain.model.ValidateRequest;
 import org.egov.persistence.repository.TokenRepository;
-import org.egov.web.util.*;
-import org.junit.*;
-import org.junit.runner.RunWith;
-import org.mockito.InjectMocks;
+import org.egov.web.util.OtpConfiguration;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Disabled;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.Mock;
-import org.mockito.junit.MockitoJUnitRunner;
-import org.springframework.beans.factory.annotation.*;
-import org.springframework.boot.test.context.*;
-import org.springframework.security.crypto.bcrypt.*;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
 
-@RunWith(MockitoJUnitRunner.class)
+@ExtendWith(MockitoExtension.class)
 public class TokenServiceTest {
 
     @Mock
     private TokenRepository tokenRepository;
 
-    @Mock
-    private LocalDateTimeFactory localDateTimeFactory;
-
-    @InjectMocks
     private TokenService tokenService;
 
-    private LocalDateTime now;
-
-    @Before
+    @BeforeEach
     public void before() {
-        now = LocalDateTime.now(ZoneId.of("UTC"));
-        lenient().when(localDateTimeFactory.now()).thenReturn(now);
         this.tokenService = new TokenService(
                 tokenRepository,
                 new BCryptPasswordEncoder(),
-                new OtpConfiguration(90,6, true)
+                new OtpConfiguration(90,6, true, "secret", true, 5, true)
         );
     }
 
     @Test
-    @Ignore
+    @Disabled
     public void test_should_validate_token_request() {
         final TokenRequest tokenRequest = mock(TokenRequest.class);
 
@@ -67,44 +60,122 @@ public class TokenServiceTest {
         verify(tokenRequest).validate();
     }
 
-    @Test(expected = TokenValidationFailureException.class)
+    @Test
     public void test_should_throw_exception_when_no_matching_non_expired_token_is_present() {
         final ValidateRequest validateRequest = new ValidateRequest("tenant", "otpNumber", "identity");
-        final Tokens tokens = mock(Tokens.class);
-        lenient().when(tokens.hasSingleNonExpiredToken(now)).thenReturn(false);
-        when(tokenRepository.findByIdentityAndTenantId(validateRequest)).thenReturn(tokens);
-        //when(tokenRepository.findByNumberAndIdentityAndTenantIdLike(validateRequest)).thenReturn(tokens);
+        when(tokenRepository.findByNumberAndIdentityAndTenantId(any(String.class), eq(validateRequest))).thenReturn(null);
+        when(tokenRepository.findLegacyTokensByIdentityAndTenantId(validateRequest))
+                .thenReturn(new Tokens(new ArrayList<Token>()));
 
-        tokenService.validate(validateRequest);
+        assertThrows(TokenValidationFailureException.class, () -> tokenService.validate(validateRequest));
+        verify(tokenRepository).incrementFailedAttempts(validateRequest);
     }
 
-    @Test(expected = TokenValidationFailureException.class)
+    @Test
     public void test_should_throw_exception_when_validatingtoken_already_validated() {
-        final ValidateRequest validateRequest = new ValidateRequest("tenant", "otpNumber", "identity");
-        Token token = Token.builder().uuid("").identity("test").validated(true)
-                .timeToLiveInSeconds(300l).number("12345")
-                .tenantId("default").createdTime(new Date().getTime()).build();
-        List<Token> tokenList = new ArrayList<Token>();
-        tokenList.add(token);
-        Tokens tokens = new Tokens(tokenList);
-        when(tokenRepository.findByIdentityAndTenantId(validateRequest)).thenReturn(tokens);
+        final List<Token> savedTokens = new ArrayList<Token>();
+        when(tokenRepository.save(any(Token.class))).thenAnswer(invocation -> {
+            savedTokens.add(copy(invocation.getArgument(0)));
+            return invocation.getArgument(0);
+        });
+        final Token created = tokenService.create(new TokenRequest("identity", "pb.amritsar"));
+        final Token saved = savedTokens.get(0);
+        final ValidateRequest validateRequest = new ValidateRequest("pb.amritsar", created.getNumber(), "identity");
+        // like the repository, only tokens which are not validated yet are found
+        when(tokenRepository.findByNumberAndIdentityAndTenantId(saved.getNumber(), validateRequest))
+                .thenAnswer(invocation -> saved.isValidated() ? null : copy(saved));
+        when(tokenRepository.markAsValidated(any(Token.class))).thenAnswer(invocation -> {
+            saved.setValidated(true);
+            return saved;
+        });
+        when(tokenRepository.findLegacyTokensByIdentityAndTenantId(validateRequest))
+                .thenReturn(new Tokens(new ArrayList<Token>()));
 
-        final Token token1 = tokenService.validate(validateRequest);
-        assertThat(token1.isValidated());
+        tokenService.validate(validateRequest);
+        assertThrows(TokenValidationFailureException.class, () -> tokenService.validate(validateRequest));
+        verify(tokenRepository, times(1)).markAsValidated(any(Token.class));
+        verify(tokenRepository).incrementFailedAttempts(validateRequest);
     }
 
     @Test
     public void test_should_return_token_when_token_is_successfully_updated_to_validated() {
+        final List<Token> savedTokens = new ArrayList<Token>();
+        when(tokenRepository.save(any(Token.class))).thenAnswer(invocation -> {
+            Token token = invocation.getArgument(0);
+            savedTokens.add(Token.builder().uuid(token.getUuid()).identity(token.getIdentity()).number(token.getNumber())
+                    .tenantId(token.getTenantId()).timeToLiveInSeconds(token.getTimeToLiveInSeconds()).build());
+            return token;
+        });
+        final Token created = tokenService.create(new TokenRequest("identity", "pb.amritsar"));
+        final Token saved = savedTokens.get(0);
+        assertNotEquals(created.getNumber(), saved.getNumber());
+
+        final ValidateRequest validateRequest = new ValidateRequest("pb.amritsar", created.getNumber(), "identity");
+        when(tokenRepository.findByNumberAndIdentityAndTenantId(saved.getNumber(), validateRequest)).thenReturn(saved);
+        when(tokenRepository.markAsValidated(saved)).thenAnswer(invocation -> {
+            saved.setValidated(true);
+            return saved;
+        });
+
+        final Token token1 = tokenService.validate(validateRequest);
+        assertTrue(token1.isValidated());
+        verify(tokenRepository, never()).findLegacyTokensByIdentityAndTenantId(validateRequest);
+    }
+
+    @Test
+    public void test_should_validate_bcrypt_token_created_before_hmac() {
         final ValidateRequest validateRequest = new ValidateRequest("tenant", "12345", "identity");
         Token token = Token.builder().uuid("").identity("test").validated(false)
                 .timeToLiveInSeconds(300l).number(new BCryptPasswordEncoder().encode("12345"))
                 .tenantId("default").createdTime(new Date().getTime()).build();
         List<Token> tokenList = new ArrayList<Token>();
         tokenList.add(token);
-        Tokens tokens = new Tokens(tokenList);
-        when(tokenRepository.findByIdentityAndTenantId(validateRequest)).thenReturn(tokens);
+        when(tokenRepository.findByNumberAndIdentityAndTenantId(any(String.class), eq(validateRequest))).thenReturn(null);
+        when(tokenRepository.findLegacyTokensByIdentityAndTenantId(validateRequest)).thenReturn(new Tokens(tokenList));
+
         final Token token1 = tokenService.validate(validateRequest);
-        assertThat(token1.isValidated());
+        assertEquals(token, token1);
+        verify(tokenRepository).markAsValidated(token);
+    }
+
+    @Test
+    public void test_should_store_bcrypt_hash_when_no_hmac_secret_is_set() {
+        tokenService = new TokenService(tokenRepository, new BCryptPasswordEncoder(),
+                new OtpConfiguration(90, 6, true, "", false, 5, true));
+        tokenService.validateConfiguration();
+        when(tokenRepository.save(any(Token.class))).thenAnswer(invocation -> {
+            Token token = invocation.getArgument(0);
+            assertTrue(token.getNumber().startsWith("$2"));
+            return copy(token);
+        });
+        final Token created = tokenService.create(new TokenRequest("identity", "pb"));
+
+        final ValidateRequest validateRequest = new ValidateRequest("pb", created.getNumber(), "identity");
+        Token stored = Token.builder().uuid("uuid").identity("identity").tenantId("pb")
+                .number(new BCryptPasswordEncoder().encode(created.getNumber())).build();
+        List<Token> tokenList = new ArrayList<Token>();
+        tokenList.add(stored);
+        when(tokenRepository.findLegacyTokensByIdentityAndTenantId(validateRequest)).thenReturn(new Tokens(tokenList));
+
+        assertEquals(stored, tokenService.validate(validateRequest));
+        verify(tokenRepository, never()).findByNumberAndIdentityAndTenantId(any(String.class), eq(validateRequest));
+        verify(tokenRepository).markAsValidated(stored);
+    }
+
+    @Test
+    public void test_should_not_start_without_hmac_secret_when_it_is_required() {
+        tokenService = new TokenService(tokenRepository, new BCryptPasswordEncoder(),
+                new OtpConfiguration(90, 6, true, " ", true, 5, true));
+
+        assertThrows(IllegalStateException.class, () -> tokenService.validateConfiguration());
+    }
+
+    @Test
+    public void test_should_start_without_hmac_secret_when_otps_are_not_encrypted() {
+        tokenService = new TokenService(tokenRepository, new BCryptPasswordEncoder(),
+                new OtpConfiguration(90, 6, false, "", true, 5, true));
+
+        tokenService.validateConfiguration();
     }
 
     @Test
@@ -118,5 +189,9 @@ public class TokenServiceTest {
         assertEquals(expectedToken, actualToken);
     }
 
-
-}
\ No newline at end of file
+    private static Token copy(Token token) {
+        return Token.builder().uuid(token.getUuid()).identity(token.getIdentity()).number(token.getNumber())
+                .tenantId(token.getTenantId()).timeToLiveInSeconds(token.getTimeToLiveInSeconds())
+                .validated(token.isValidated()).build();
+    }
+}
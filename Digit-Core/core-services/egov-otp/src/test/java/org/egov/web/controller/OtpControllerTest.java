@@ -1,36 +1,30 @@
 package org.egov.web.controller;
 
 import org.egov.Resources;
+import org.egov.TestConfiguration;
 import org.egov.domain.exception.*;
 import org.egov.domain.model.Token;
 import org.egov.domain.model.TokenRequest;
 import org.egov.domain.model.TokenSearchCriteria;
 import org.egov.domain.model.ValidateRequest;
 import org.egov.domain.service.TokenService;
-import org.egov.persistence.repository.*;
-import org.egov.web.util.*;
-import org.junit.*;
-import org.junit.runner.RunWith;
-import org.mockito.*;
-import org.mockito.junit.MockitoJUnitRunner;
+import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.client.AutoConfigureWebClient;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
 import org.springframework.http.MediaType;
-import org.springframework.security.crypto.bcrypt.*;
-import org.springframework.test.context.junit4.SpringRunner;
 import org.springframework.test.web.servlet.MockMvc;
 
-import java.time.*;
-
 import static org.mockito.Mockito.when;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
-@RunWith(MockitoJUnitRunner.class)
 @WebMvcTest(OtpController.class)
-@Ignore
+@Import(TestConfiguration.class)
+@AutoConfigureWebClient
 public class OtpControllerTest {
 
     private final static String IDENTITY = "identity";
@@ -43,21 +37,8 @@ public class OtpControllerTest {
     private Resources resources = new Resources();
 
     @MockBean
-    @InjectMocks
     private TokenService tokenService;
 
-    @Mock
-    private TokenRepository tokenRepository;
-
-    @Before
-    public void before() {
-        this.tokenService = new TokenService(
-                tokenRepository,
-                new BCryptPasswordEncoder(),
-                new OtpConfiguration(90,6, true)
-        );
-    }
-
     @Test
     public void test_should_return_token() throws Exception {
 
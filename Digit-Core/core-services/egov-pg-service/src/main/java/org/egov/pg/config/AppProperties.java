@@ -84,6 +84,12 @@ public class AppProperties {
 
     private final Boolean isEnvironmentCentralInstance;
 
+    private final Integer reconciliationDefaultConcurrency;
+
+    private final Double reconciliationDefaultRatePerSecond;
+
+    private final Integer reconciliationCheckpointInterval;
+
     @Autowired
     public AppProperties(Environment environment){
         this.earlyReconcileJobRunInterval = Integer.valueOf(environment.getRequiredProperty("pg.earlyReconcileJobRunInterval.mins"));
@@ -121,6 +127,9 @@ public class AppProperties {
         this.egovPgReconciliationSystemUserUuid = environment.getRequiredProperty("egov.pg.reconciliation.system.user.uuid");
         this.stateLevelTenantLength = Integer.parseInt(environment.getRequiredProperty("state.level.tenantid.length"));
         this.isEnvironmentCentralInstance = Boolean.parseBoolean(environment.getRequiredProperty("is.environment.central.instance"));
+        this.reconciliationDefaultConcurrency = environment.getProperty("pg.reconciliation.default.concurrency", Integer.class, 4);
+        this.reconciliationDefaultRatePerSecond = environment.getProperty("pg.reconciliation.default.rate.per.second", Double.class, 10.0);
+        this.reconciliationCheckpointInterval = environment.getProperty("pg.reconciliation.checkpoint.interval", Integer.class, 500);
     }
 
 }
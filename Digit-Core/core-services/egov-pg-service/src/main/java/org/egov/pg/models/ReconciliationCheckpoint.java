@@ -0,0 +1,39 @@
+package org.egov.pg.models;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Progress of a reconciliation job for a gateway, transactions up to and including
+ * the last created time and transaction id have been queried in the run. A resumed run
+ * queries every transaction which is still pending again.
+ */
+@Data
+@Builder(toBuilder = true)
+@NoArgsConstructor
+@AllArgsConstructor
+public class ReconciliationCheckpoint {
+
+    public static final String STATUS_IN_PROGRESS = "IN_PROGRESS";
+
+    public static final String STATUS_COMPLETED = "COMPLETED";
+
+    private String jobName;
+
+    private String gateway;
+
+    private String status;
+
+    private Long runStartTime;
+
+    private Long lastCreatedTime;
+
+    private String lastTxnId;
+
+    private Long processed;
+
+    private Long failed;
+
+}
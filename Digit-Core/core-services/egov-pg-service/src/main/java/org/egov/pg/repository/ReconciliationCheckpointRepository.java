@@ -0,0 +1,61 @@
+package org.egov.pg.repository;
+
+import lombok.extern.slf4j.Slf4j;
+import org.egov.pg.models.ReconciliationCheckpoint;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+@Repository
+@Slf4j
+public class ReconciliationCheckpointRepository {
+
+    private static final String SELECT_IN_PROGRESS_QUERY = "SELECT job_name, gateway, status, run_start_time, " +
+            "last_created_time, last_txn_id, processed, failed FROM eg_pg_reconciliation_checkpoint " +
+            "WHERE job_name = ? AND status = ?";
+
+    private static final String UPSERT_QUERY = "INSERT INTO eg_pg_reconciliation_checkpoint (job_name, gateway, status, " +
+            "run_start_time, last_created_time, last_txn_id, processed, failed, last_modified_time) " +
+            "VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?) ON CONFLICT (job_name, gateway) DO UPDATE SET status = EXCLUDED.status, " +
+            "run_start_time = EXCLUDED.run_start_time, last_created_time = EXCLUDED.last_created_time, " +
+            "last_txn_id = EXCLUDED.last_txn_id, processed = EXCLUDED.processed, failed = EXCLUDED.failed, " +
+            "last_modified_time = EXCLUDED.last_modified_time";
+
+    private static final RowMapper<ReconciliationCheckpoint> rowMapper = (resultSet, i) -> ReconciliationCheckpoint.builder()
+            .jobName(resultSet.getString("job_name"))
+            .gateway(resultSet.getString("gateway"))
+            .status(resultSet.getString("status"))
+            .runStartTime(resultSet.getLong("run_start_time"))
+            .lastCreatedTime((Long) resultSet.getObject("last_created_time"))
+            .lastTxnId(resultSet.getString("last_txn_id"))
+            .processed(resultSet.getLong("processed"))
+            .failed(resultSet.getLong("failed"))
+            .build();
+
+    private final JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    ReconciliationCheckpointRepository(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    /**
+     * Checkpoints of the runs of the job which did not complete
+     *
+     * @param jobName Name of the reconciliation job
+     * @return Checkpoints per gateway
+     */
+    public List<ReconciliationCheckpoint> fetchInProgressCheckpoints(String jobName) {
+        return jdbcTemplate.query(SELECT_IN_PROGRESS_QUERY, rowMapper, jobName, ReconciliationCheckpoint.STATUS_IN_PROGRESS);
+    }
+
+    public void saveCheckpoint(ReconciliationCheckpoint checkpoint) {
+        jdbcTemplate.update(UPSERT_QUERY, checkpoint.getJobName(), checkpoint.getGateway(), checkpoint.getStatus(),
+                checkpoint.getRunStartTime(), checkpoint.getLastCreatedTime(), checkpoint.getLastTxnId(),
+                checkpoint.getProcessed(), checkpoint.getFailed(), System.currentTimeMillis());
+    }
+
+}
@@ -0,0 +1,33 @@
+package org.egov.pg.service.jobs;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Spaces calls to a gateway evenly, callers reserve the next free slot and wait for it
+ */
+public class GatewayRateLimiter {
+
+    private final long intervalNanos;
+
+    private long nextFreeNanos;
+
+    public GatewayRateLimiter(double permitsPerSecond) {
+        if (permitsPerSecond <= 0)
+            throw new IllegalArgumentException("Rate must be positive, found " + permitsPerSecond);
+        this.intervalNanos = (long) (TimeUnit.SECONDS.toNanos(1) / permitsPerSecond);
+        this.nextFreeNanos = System.nanoTime();
+    }
+
+    public void acquire() throws InterruptedException {
+        long waitNanos;
+        synchronized (this) {
+            long now = System.nanoTime();
+            long slot = Math.max(now, nextFreeNanos);
+            nextFreeNanos = slot + intervalNanos;
+            waitNanos = slot - now;
+        }
+        if (waitNanos > 0)
+            TimeUnit.NANOSECONDS.sleep(waitNanos);
+    }
+
+}
@@ -0,0 +1,332 @@
+package org.egov.pg.service.jobs;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.egov.common.contract.request.RequestInfo;
+import org.egov.pg.config.AppProperties;
+import org.egov.pg.constants.PgConstants;
+import org.egov.pg.models.ReconciliationCheckpoint;
+import org.egov.pg.models.Transaction;
+import org.egov.pg.repository.ReconciliationCheckpointRepository;
+import org.egov.pg.service.TransactionService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.core.env.Environment;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Reconciles pending transactions by fetching their live status from the gateways.
+ * <p>
+ * Transactions are partitioned by gateway and the gateways are queried concurrently, each
+ * with its own number of workers and rate limit matching the quota of its status API,
+ * so that a backlog on one gateway does not hold up the others.
+ * <p>
+ * Progress is checkpointed per gateway, a run which is interrupted is resumed by the next
+ * run of the same job. The resumed run queries every transaction which is still pending,
+ * transactions which failed or stayed pending before the interruption are retried, the
+ * checkpoint carries the start time and counts of the run over.
+ */
+@Service
+@Slf4j
+public class ReconciliationService {
+
+    private static final String UNKNOWN_GATEWAY = "UNKNOWN";
+
+    private static final Comparator<Transaction> RECONCILIATION_ORDER = Comparator
+            .comparing(ReconciliationService::getCreatedTime)
+            .thenComparing(Transaction::getTxnId, Comparator.nullsFirst(Comparator.naturalOrder()));
+
+    private final TransactionService transactionService;
+
+    private final ReconciliationCheckpointRepository checkpointRepository;
+
+    private final AppProperties appProperties;
+
+    private final Environment environment;
+
+    private final MeterRegistry meterRegistry;
+
+    private final Map<String, GatewayRateLimiter> rateLimiters = new ConcurrentHashMap<>();
+
+    private final Map<String, AtomicLong> backlogs = new ConcurrentHashMap<>();
+
+    @Autowired
+    public ReconciliationService(TransactionService transactionService, ReconciliationCheckpointRepository checkpointRepository,
+                                 AppProperties appProperties, Environment environment, MeterRegistry meterRegistry) {
+        this.transactionService = transactionService;
+        this.checkpointRepository = checkpointRepository;
+        this.appProperties = appProperties;
+        this.environment = environment;
+        this.meterRegistry = meterRegistry;
+    }
+
+    /**
+     * Fetch the live status of the pending transactions and update them
+     *
+     * @param jobName     Name of the job, checkpoints are kept per job
+     * @param pendingTxns Transactions to be reconciled
+     * @param requestInfo Request info of the reconciliation system user
+     * @return Number of transactions reconciled and failed per gateway
+     */
+    public Map<String, ReconciliationCheckpoint> reconcile(String jobName, List<Transaction> pendingTxns, RequestInfo requestInfo) {
+        long startTime = System.currentTimeMillis();
+        Map<String, ReconciliationCheckpoint> previousRuns = new HashMap<>();
+        checkpointRepository.fetchInProgressCheckpoints(jobName)
+                .forEach(checkpoint -> previousRuns.put(checkpoint.getGateway(), checkpoint));
+
+        Map<String, List<Transaction>> txnsByGateway = new LinkedHashMap<>();
+        for (Transaction txn : pendingTxns) {
+            String gateway = Objects.isNull(txn.getGateway()) ? UNKNOWN_GATEWAY : txn.getGateway().toUpperCase();
+            txnsByGateway.computeIfAbsent(gateway, key -> new ArrayList<>()).add(txn);
+        }
+
+        List<GatewayRun> runs = new ArrayList<>();
+        int workerCount = 0;
+        for (Map.Entry<String, List<Transaction>> entry : txnsByGateway.entrySet()) {
+            GatewayRun run = new GatewayRun(jobName, entry.getKey(), entry.getValue(), previousRuns.get(entry.getKey()),
+                    startTime, requestInfo);
+            runs.add(run);
+            workerCount += run.concurrency;
+        }
+
+        // an interrupted run of a gateway which has no pending transactions left is complete
+        previousRuns.values().stream()
+                .filter(checkpoint -> !txnsByGateway.containsKey(checkpoint.getGateway()))
+                .forEach(checkpoint -> {
+                    checkpoint.setStatus(ReconciliationCheckpoint.STATUS_COMPLETED);
+                    checkpointRepository.saveCheckpoint(checkpoint);
+                });
+        if (runs.isEmpty())
+            return Collections.emptyMap();
+
+        AtomicInteger threadCount = new AtomicInteger();
+        ExecutorService executor = Executors.newFixedThreadPool(workerCount,
+                runnable -> new Thread(runnable, "pg-reconcile-" + jobName + "-" + threadCount.incrementAndGet()));
+        try {
+            List<Future<?>> workers = new ArrayList<>(workerCount);
+            for (GatewayRun run : runs) {
+                run.start();
+                for (int i = 0; i < run.concurrency; i++)
+                    workers.add(executor.submit(run::work));
+            }
+            for (Future<?> worker : workers)
+                worker.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            log.error("Reconciliation job {} interrupted, it will be resumed from the last checkpoint", jobName);
+        } catch (ExecutionException e) {
+            log.error("Reconciliation job {} failed, it will be resumed from the last checkpoint", jobName, e.getCause());
+        } finally {
+            executor.shutdownNow();
+            runs.forEach(run -> run.backlog.addAndGet(run.processed.get() - run.txns.size()));
+        }
+
+        Map<String, ReconciliationCheckpoint> result = new LinkedHashMap<>();
+        long elapsed = Math.max(1, System.currentTimeMillis() - startTime);
+        for (GatewayRun run : runs) {
+            result.put(run.gateway, run.checkpoint());
+            log.info("Reconciled {} transactions of gateway {} in {} ms ({} per second), {} failed", run.processed.get(),
+                    run.gateway, elapsed, run.processed.get() * 1000 / elapsed, run.failed.get());
+        }
+        return result;
+    }
+
+    private GatewayRateLimiter getRateLimiter(String gateway) {
+        return rateLimiters.computeIfAbsent(gateway, key -> new GatewayRateLimiter(getGatewayProperty(key,
+                "rate.per.second", Double.class, appProperties.getReconciliationDefaultRatePerSecond())));
+    }
+
+    private AtomicLong getBacklog(String gateway) {
+        return backlogs.computeIfAbsent(gateway, key -> {
+            AtomicLong backlog = new AtomicLong();
+            Gauge.builder("pg.reconciliation.backlog", backlog, AtomicLong::get)
+                    .description("Pending transactions waiting to be reconciled")
+                    .tag("gateway", key)
+                    .register(meterRegistry);
+            return backlog;
+        });
+    }
+
+    private <T> T getGatewayProperty(String gateway, String property, Class<T> type, T defaultValue) {
+        return environment.getProperty(gateway.toLowerCase() + ".reconciliation." + property, type, defaultValue);
+    }
+
+    private static Long getCreatedTime(Transaction txn) {
+        if (Objects.isNull(txn.getAuditDetails()) || Objects.isNull(txn.getAuditDetails().getCreatedTime()))
+            return 0L;
+        return txn.getAuditDetails().getCreatedTime();
+    }
+
+    /**
+     * Transactions of a gateway in a run, workers take the next transaction until none are left.
+     * The checkpoint is the last transaction up to which all transactions have completed.
+     */
+    private class GatewayRun {
+
+        private final String jobName;
+
+        private final String gateway;
+
+        private final List<Transaction> txns;
+
+        private final int concurrency;
+
+        private final long runStartTime;
+
+        private final RequestInfo requestInfo;
+
+        private final GatewayRateLimiter rateLimiter;
+
+        private final AtomicLong backlog;
+
+        private final Counter succeededCounter;
+
+        private final Counter failedCounter;
+
+        private final Timer statusTimer;
+
+        private final AtomicInteger next = new AtomicInteger();
+
+        private final AtomicLong processed = new AtomicLong();
+
+        private final AtomicLong failed = new AtomicLong();
+
+        private final boolean[] completed;
+
+        private int lastCompleted = -1;
+
+        private int completedSinceCheckpoint;
+
+        private final long previouslyProcessed;
+
+        private final long previouslyFailed;
+
+        private final ReconciliationCheckpoint previousCheckpoint;
+
+        GatewayRun(String jobName, String gateway, List<Transaction> txns, ReconciliationCheckpoint previousRun,
+                   long runStartTime, RequestInfo requestInfo) {
+            List<Transaction> sorted = new ArrayList<>(txns);
+            sorted.sort(RECONCILIATION_ORDER);
+
+            this.jobName = jobName;
+            this.gateway = gateway;
+            this.txns = sorted;
+            this.completed = new boolean[sorted.size()];
+            this.concurrency = Math.max(1, Math.min(sorted.size(), getGatewayProperty(gateway, "concurrency",
+                    Integer.class, appProperties.getReconciliationDefaultConcurrency())));
+            this.previousCheckpoint = previousRun;
+            this.runStartTime = Objects.isNull(previousRun) ? runStartTime : previousRun.getRunStartTime();
+            this.previouslyProcessed = Objects.isNull(previousRun) ? 0 : previousRun.getProcessed();
+            this.previouslyFailed = Objects.isNull(previousRun) ? 0 : previousRun.getFailed();
+            this.requestInfo = requestInfo;
+            this.rateLimiter = getRateLimiter(gateway);
+            this.backlog = getBacklog(gateway);
+            this.succeededCounter = meterRegistry.counter("pg.reconciliation.transactions", "gateway", gateway, "outcome", "success");
+            this.failedCounter = meterRegistry.counter("pg.reconciliation.transactions", "gateway", gateway, "outcome", "failure");
+            this.statusTimer = meterRegistry.timer("pg.reconciliation.status.query", "gateway", gateway);
+        }
+
+        void start() {
+            backlog.addAndGet(txns.size());
+            saveCheckpoint(ReconciliationCheckpoint.STATUS_IN_PROGRESS);
+        }
+
+        void work() {
+            int index;
+            while ((index = next.getAndIncrement()) < txns.size()) {
+                if (Thread.currentThread().isInterrupted())
+                    return;
+                Transaction txn = txns.get(index);
+                boolean succeeded = false;
+                try {
+                    rateLimiter.acquire();
+                    long start = System.nanoTime();
+                    transactionService.updateTransaction(requestInfo,
+                            Collections.singletonMap(PgConstants.PG_TXN_IN_LABEL, txn.getTxnId()));
+                    statusTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+                    succeeded = true;
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return;
+                } catch (Exception e) {
+                    log.error("Failed to reconcile transaction {} of gateway {}", txn.getTxnId(), gateway, e);
+                }
+                complete(index, succeeded);
+            }
+        }
+
+        private synchronized void complete(int index, boolean succeeded) {
+            backlog.decrementAndGet();
+            processed.incrementAndGet();
+            if (succeeded) {
+                succeededCounter.increment();
+            } else {
+                failed.incrementAndGet();
+                failedCounter.increment();
+            }
+
+            completed[index] = true;
+            while (lastCompleted + 1 < completed.length && completed[lastCompleted + 1])
+                lastCompleted++;
+
+            if (lastCompleted == completed.length - 1) {
+                saveCheckpoint(ReconciliationCheckpoint.STATUS_COMPLETED);
+            } else if (++completedSinceCheckpoint >= appProperties.getReconciliationCheckpointInterval()) {
+                saveCheckpoint(ReconciliationCheckpoint.STATUS_IN_PROGRESS);
+            }
+        }
+
+        private synchronized void saveCheckpoint(String status) {
+            completedSinceCheckpoint = 0;
+            ReconciliationCheckpoint checkpoint = checkpoint();
+            checkpoint.setStatus(txns.isEmpty() ? ReconciliationCheckpoint.STATUS_COMPLETED : status);
+            try {
+                checkpointRepository.saveCheckpoint(checkpoint);
+            } catch (Exception e) {
+                log.error("Failed to save the reconciliation checkpoint of job {} for gateway {}", jobName, gateway, e);
+            }
+        }
+
+        synchronized ReconciliationCheckpoint checkpoint() {
+            ReconciliationCheckpoint checkpoint = ReconciliationCheckpoint.builder()
+                    .jobName(jobName)
+                    .gateway(gateway)
+                    .status(lastCompleted == completed.length - 1 ? ReconciliationCheckpoint.STATUS_COMPLETED
+                            : ReconciliationCheckpoint.STATUS_IN_PROGRESS)
+                    .runStartTime(runStartTime)
+                    .processed(previouslyProcessed + processed.get())
+                    .failed(previouslyFailed + failed.get())
+                    .build();
+            if (lastCompleted >= 0) {
+                Transaction lastReconciled = txns.get(lastCompleted);
+                checkpoint.setLastCreatedTime(getCreatedTime(lastReconciled));
+                checkpoint.setLastTxnId(lastReconciled.getTxnId());
+            } else if (!Objects.isNull(previousCheckpoint)) {
+                checkpoint.setLastCreatedTime(previousCheckpoint.getLastCreatedTime());
+                checkpoint.setLastTxnId(previousCheckpoint.getLastTxnId());
+            }
+            return checkpoint;
+        }
+
+    }
+
+}
@@ -6,10 +6,9 @@ import org.egov.common.contract.request.PlainAccessRequest;
 import org.egov.common.contract.request.RequestInfo;
 import org.egov.common.contract.request.User;
 import org.egov.pg.config.AppProperties;
-import org.egov.pg.constants.PgConstants;
 import org.egov.pg.models.Transaction;
 import org.egov.pg.repository.TransactionRepository;
-import org.egov.pg.service.TransactionService;
+import org.egov.pg.service.jobs.ReconciliationService;
 import org.egov.pg.web.models.TransactionCriteria;
 import org.quartz.Job;
 import org.quartz.JobExecutionContext;
@@ -28,6 +27,8 @@ import java.util.concurrent.TimeUnit;
 @Slf4j
 public class EarlyReconciliationJob implements Job {
 
+    private static final String JOB_NAME = "early";
+
     private static RequestInfo requestInfo;
 
     @PostConstruct
@@ -42,7 +43,7 @@ public class EarlyReconciliationJob implements Job {
     @Autowired
     private AppProperties appProperties;
     @Autowired
-    private TransactionService transactionService;
+    private ReconciliationService reconciliationService;
     @Autowired
     private TransactionRepository transactionRepository;
 
@@ -67,11 +68,7 @@ public class EarlyReconciliationJob implements Job {
 
         log.info("Attempting to reconcile {} pending transactions", pendingTxns.size());
 
-        for (Transaction txn : pendingTxns) {
-            log.info(transactionService.updateTransaction(requestInfo, Collections.singletonMap(PgConstants.PG_TXN_IN_LABEL, txn
-                    .getTxnId
-                    ())).toString());
-        }
+        reconciliationService.reconcile(JOB_NAME, pendingTxns, requestInfo);
 
     }
 
@@ -0,0 +1,12 @@
+CREATE TABLE IF NOT EXISTS eg_pg_reconciliation_checkpoint (
+    job_name           VARCHAR(64)  NOT NULL,
+    gateway            VARCHAR(64)  NOT NULL,
+    status             VARCHAR(32)  NOT NULL,
+    run_start_time     BIGINT       NOT NULL,
+    last_created_time  BIGINT,
+    last_txn_id        VARCHAR(128),
+    processed          BIGINT       NOT NULL DEFAULT 0,
+    failed             BIGINT       NOT NULL DEFAULT 0,
+    last_modified_time BIGINT       NOT NULL,
+    CONSTRAINT pk_eg_pg_reconciliation_checkpoint PRIMARY KEY (job_name, gateway)
+);
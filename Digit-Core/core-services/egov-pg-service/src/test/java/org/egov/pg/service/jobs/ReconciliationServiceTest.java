@@ -0,0 +1,221 @@
+package org.egov.pg.service.jobs;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.egov.common.contract.request.RequestInfo;
+import org.egov.pg.config.AppProperties;
+import org.egov.pg.constants.PgConstants;
+import org.egov.pg.models.AuditDetails;
+import org.egov.pg.models.ReconciliationCheckpoint;
+import org.egov.pg.models.Transaction;
+import org.egov.pg.repository.ReconciliationCheckpointRepository;
+import org.egov.pg.service.TransactionService;
+import org.egov.tracer.model.CustomException;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.mockito.junit.jupiter.MockitoSettings;
+import org.mockito.quality.Strictness;
+import org.springframework.mock.env.MockEnvironment;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.when;
+
+/**
+ * Reconciles pending transactions against a stubbed gateway, which takes a fixed time to
+ * answer each status query and records how many queries of each gateway are in flight
+ */
+@ExtendWith(MockitoExtension.class)
+@MockitoSettings(strictness = Strictness.LENIENT)
+public class ReconciliationServiceTest {
+
+    private static final String[] GATEWAYS = {"AXIS", "PAYTM", "PAYU", "PHONEPE"};
+
+    private static final int CONCURRENCY = 8;
+
+    @Mock
+    private TransactionService transactionService;
+
+    @Mock
+    private ReconciliationCheckpointRepository checkpointRepository;
+
+    @Mock
+    private AppProperties appProperties;
+
+    private MockEnvironment environment;
+
+    private SimpleMeterRegistry meterRegistry;
+
+    private ReconciliationService reconciliationService;
+
+    private final Map<String, AtomicInteger> queriesPerTxn = new ConcurrentHashMap<>();
+
+    private final Map<String, AtomicInteger> inFlight = new ConcurrentHashMap<>();
+
+    private final Map<String, AtomicInteger> maxInFlight = new ConcurrentHashMap<>();
+
+    private final List<ReconciliationCheckpoint> savedCheckpoints = new CopyOnWriteArrayList<>();
+
+    private final RequestInfo requestInfo = new RequestInfo("", "", 0L, "", "", "", "", "", "", null, null);
+
+    @BeforeEach
+    public void setUp() {
+        when(appProperties.getReconciliationDefaultConcurrency()).thenReturn(2);
+        when(appProperties.getReconciliationDefaultRatePerSecond()).thenReturn(1_000_000.0);
+        when(appProperties.getReconciliationCheckpointInterval()).thenReturn(500);
+        when(checkpointRepository.fetchInProgressCheckpoints(any())).thenReturn(Collections.emptyList());
+        doAnswer(invocation -> {
+            ReconciliationCheckpoint checkpoint = invocation.getArgument(0);
+            savedCheckpoints.add(checkpoint.toBuilder().build());
+            return null;
+        }).when(checkpointRepository).saveCheckpoint(any());
+
+        environment = new MockEnvironment();
+        for (String gateway : GATEWAYS) {
+            environment.setProperty(gateway.toLowerCase() + ".reconciliation.concurrency", String.valueOf(CONCURRENCY));
+            environment.setProperty(gateway.toLowerCase() + ".reconciliation.rate.per.second", "1000000");
+        }
+        meterRegistry = new SimpleMeterRegistry();
+        reconciliationService = new ReconciliationService(transactionService, checkpointRepository, appProperties,
+                environment, meterRegistry);
+
+        when(transactionService.updateTransaction(any(), any())).thenAnswer(invocation -> {
+            Map<String, String> params = invocation.getArgument(1);
+            String txnId = params.get(PgConstants.PG_TXN_IN_LABEL);
+            String gateway = txnId.substring(0, txnId.indexOf('_'));
+            int current = inFlight.computeIfAbsent(gateway, key -> new AtomicInteger()).incrementAndGet();
+            maxInFlight.computeIfAbsent(gateway, key -> new AtomicInteger()).accumulateAndGet(current, Math::max);
+            try {
+                LockSupport.parkNanos(20_000);
+                queriesPerTxn.computeIfAbsent(txnId, key -> new AtomicInteger()).incrementAndGet();
+                if (txnId.endsWith("_FAIL"))
+                    throw new CustomException("TXN_STATUS_ERR", "Gateway unavailable");
+                return Collections.singletonList(Transaction.builder().txnId(txnId).build());
+            } finally {
+                inFlight.get(gateway).decrementAndGet();
+            }
+        });
+    }
+
+    @Test
+    public void reconcilesFiftyThousandPendingTransactionsConcurrentlyPerGateway() {
+        List<Transaction> pendingTxns = pendingTxns(50_000);
+
+        Map<String, ReconciliationCheckpoint> result = reconciliationService.reconcile("daily", pendingTxns, requestInfo);
+
+        assertEquals(50_000, queriesPerTxn.size());
+        assertTrue(queriesPerTxn.values().stream().allMatch(count -> count.get() == 1));
+        for (String gateway : GATEWAYS) {
+            assertTrue(maxInFlight.get(gateway).get() <= CONCURRENCY, gateway + " exceeded its concurrency");
+            assertEquals(ReconciliationCheckpoint.STATUS_COMPLETED, result.get(gateway).getStatus());
+            assertEquals(12_500L, result.get(gateway).getProcessed());
+            assertEquals(0.0, meterRegistry.get("pg.reconciliation.backlog").tag("gateway", gateway).gauge().value());
+            assertEquals(12_500.0, meterRegistry.get("pg.reconciliation.transactions").tag("gateway", gateway)
+                    .tag("outcome", "success").counter().count());
+        }
+        // every gateway is checkpointed when it starts, every 500 transactions and when it completes
+        assertEquals(4 * (1 + 12_500 / 500), savedCheckpoints.size());
+    }
+
+    @Test
+    public void queriesGatewayWithinItsRateLimit() {
+        environment.setProperty("payu.reconciliation.rate.per.second", "200");
+        reconciliationService = new ReconciliationService(transactionService, checkpointRepository, appProperties,
+                environment, meterRegistry);
+        List<Transaction> pendingTxns = new ArrayList<>();
+        for (int i = 0; i < 101; i++)
+            pendingTxns.add(txn("PAYU", i));
+
+        long start = System.nanoTime();
+        reconciliationService.reconcile("early", pendingTxns, requestInfo);
+        long elapsedMillis = (System.nanoTime() - start) / 1_000_000;
+
+        assertEquals(101, queriesPerTxn.size());
+        assertTrue(elapsedMillis >= 480, "100 intervals of 5 ms took only " + elapsedMillis + " ms");
+    }
+
+    @Test
+    public void resumesCountsOfInterruptedRun() {
+        List<Transaction> pendingTxns = pendingTxns(4_000);
+        when(checkpointRepository.fetchInProgressCheckpoints("daily")).thenReturn(Collections.singletonList(
+                checkpointAfter(pendingTxns, "PAYTM_000599", 600L, 0L)));
+
+        Map<String, ReconciliationCheckpoint> result = reconciliationService.reconcile("daily", pendingTxns, requestInfo);
+
+        assertEquals(4_000, queriesPerTxn.size());
+        assertEquals(1_600L, result.get("PAYTM").getProcessed());
+        assertEquals(1L, result.get("PAYTM").getRunStartTime());
+        assertEquals(ReconciliationCheckpoint.STATUS_COMPLETED, result.get("PAYTM").getStatus());
+    }
+
+    @Test
+    public void retriesTransactionsWhichFailedBeforeTheCheckpointOfInterruptedRun() {
+        List<Transaction> pendingTxns = pendingTxns(400);
+        Transaction failedTxn = Transaction.builder().txnId("PAYTM_000050_FAIL").gateway("PAYTM")
+                .auditDetails(new AuditDetails(null, 1_000_050L, null, null)).build();
+        pendingTxns.add(failedTxn);
+        when(checkpointRepository.fetchInProgressCheckpoints("daily")).thenReturn(Collections.singletonList(
+                checkpointAfter(pendingTxns, "PAYTM_000079", 81L, 1L)));
+
+        Map<String, ReconciliationCheckpoint> result = reconciliationService.reconcile("daily", pendingTxns, requestInfo);
+
+        assertEquals(1, queriesPerTxn.get(failedTxn.getTxnId()).get());
+        assertEquals(1, queriesPerTxn.get("PAYTM_000010").get());
+        assertEquals(81L + 101L, result.get("PAYTM").getProcessed());
+        assertEquals(2L, result.get("PAYTM").getFailed());
+    }
+
+    @Test
+    public void continuesPastFailedTransactions() {
+        List<Transaction> pendingTxns = pendingTxns(1_000);
+        pendingTxns.add(Transaction.builder().txnId("AXIS_FAIL").gateway("AXIS")
+                .auditDetails(new AuditDetails(null, 0L, null, null)).build());
+
+        Map<String, ReconciliationCheckpoint> result = reconciliationService.reconcile("early", pendingTxns, requestInfo);
+
+        assertEquals(1_001, queriesPerTxn.size());
+        assertEquals(251L, result.get("AXIS").getProcessed());
+        assertEquals(1L, result.get("AXIS").getFailed());
+        assertEquals(ReconciliationCheckpoint.STATUS_COMPLETED, result.get("AXIS").getStatus());
+    }
+
+    private ReconciliationCheckpoint checkpointAfter(List<Transaction> pendingTxns, String txnId, long processed,
+                                                     long failed) {
+        Transaction lastReconciled = pendingTxns.stream().filter(txn -> txn.getTxnId().equals(txnId)).findFirst().get();
+        return ReconciliationCheckpoint.builder().jobName("daily").gateway(lastReconciled.getGateway())
+                .status(ReconciliationCheckpoint.STATUS_IN_PROGRESS).runStartTime(1L)
+                .lastCreatedTime(lastReconciled.getAuditDetails().getCreatedTime())
+                .lastTxnId(lastReconciled.getTxnId()).processed(processed).failed(failed).build();
+    }
+
+    private List<Transaction> pendingTxns(int count) {
+        List<Transaction> pendingTxns = new ArrayList<>(count);
+        for (int i = 0; i < count; i++)
+            pendingTxns.add(txn(GATEWAYS[i % GATEWAYS.length], i / GATEWAYS.length));
+        // the repository returns transactions in no particular order
+        Collections.shuffle(pendingTxns);
+        return pendingTxns;
+    }
+
+    private Transaction txn(String gateway, int sequence) {
+        return Transaction.builder()
+                .txnId(String.format("%s_%06d", gateway, sequence))
+                .gateway(gateway)
+                .auditDetails(new AuditDetails(null, 1_000_000L + sequence, null, null))
+                .build();
+    }
+
+}
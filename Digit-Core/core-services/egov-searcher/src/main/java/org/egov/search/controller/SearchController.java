@@ -1,10 +1,14 @@
 package org.egov.search.controller;
 
+import java.io.IOException;
 import java.lang.reflect.Type;
 import java.util.Map;
 
+import javax.servlet.http.HttpServletResponse;
+
 import org.egov.search.model.SearchRequest;
 import org.egov.search.service.SearchService;
+import org.egov.search.utils.SearchResultWriter;
 import org.egov.tracer.model.CustomException;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.HttpStatus;
@@ -50,5 +54,28 @@ public class SearchController {
 
 	}
 
+	/**
+	 * Streams the search result as json, ndjson or csv, for searches that return
+	 * too many rows to be built in memory.
+	 */
+	@PostMapping("/{moduleName}/{searchName}/_stream")
+	public void streamData(@PathVariable("moduleName") String moduleName,
+			@PathVariable("searchName") String searchName,
+			@RequestBody SearchRequest searchRequest, @RequestParam Map<String, Object> queryParams,
+			@RequestParam(value = "format", defaultValue = "json") String format,
+			HttpServletResponse response) throws IOException {
+		if(null == searchRequest.getSearchCriteria()) {
+			searchRequest.setSearchCriteria(queryParams);
+		}
+		SearchResultWriter.Format resultFormat;
+		try {
+			resultFormat = SearchResultWriter.Format.valueOf(format.toUpperCase());
+		} catch (IllegalArgumentException e) {
+			throw new CustomException("INVALID_FORMAT", "Supported formats are json, ndjson and csv");
+		}
+		response.setContentType(resultFormat.getContentType());
+		response.setCharacterEncoding("UTF-8");
+		searchService.streamData(searchRequest, moduleName, searchName, resultFormat, response.getOutputStream());
+	}
 		
 }
\ No newline at end of file
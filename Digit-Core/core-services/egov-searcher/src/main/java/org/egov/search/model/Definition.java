@@ -37,4 +37,10 @@ public class Definition {
 	@JsonProperty("output")
 	private Output output;	
 	
+	@JsonProperty("maxRows")
+	private Long maxRows;
+	
+	@JsonProperty("maxBytes")
+	private Long maxBytes;
+	
 }
@@ -4,6 +4,10 @@ package org.egov.search.repository;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.function.Predicate;
+
+import javax.annotation.PostConstruct;
+import javax.sql.DataSource;
 
 import org.egov.custom.mapper.billing.impl.Bill;
 import org.egov.custom.mapper.billing.impl.BillRowMapper;
@@ -15,8 +19,12 @@ import org.postgresql.util.PGobject;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.core.io.ResourceLoader;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.ResultSetExtractor;
 import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import lombok.extern.slf4j.Slf4j;
 
@@ -40,6 +48,29 @@ public class SearchRepository {
 
 	@Autowired
 	private BillRowMapper rowMapper;
+
+	@Autowired
+	private DataSource dataSource;
+
+	@Autowired
+	private PlatformTransactionManager transactionManager;
+
+	@Value("${search.stream.fetch.size:1000}")
+	private Integer streamFetchSize;
+
+	private NamedParameterJdbcTemplate streamingJdbcTemplate;
+
+	private TransactionTemplate streamingTransactionTemplate;
+
+	@PostConstruct
+	public void initStreaming() {
+		JdbcTemplate jdbcTemplate = new JdbcTemplate(dataSource);
+		jdbcTemplate.setFetchSize(streamFetchSize);
+		streamingJdbcTemplate = new NamedParameterJdbcTemplate(jdbcTemplate);
+		// postgres only uses a cursor for the fetch size when auto commit is off
+		streamingTransactionTemplate = new TransactionTemplate(transactionManager);
+		streamingTransactionTemplate.setReadOnly(true);
+	}
 			
 	public List<String> fetchData(SearchRequest searchRequest, Definition definition) {
         Map<String, Object> preparedStatementValues = new HashMap<>();
@@ -51,6 +82,33 @@ public class SearchRepository {
 		return searchUtils.convertPGOBjects(maps);
 	}
 	
+	/**
+	 * Runs the search query with a forward only cursor and hands over the rows
+	 * one at a time, so that only a fetch size worth of rows is held in memory.
+	 * Like the _get api, reading stops at the first row without a value. The
+	 * default page size of _get is not applied, the rows are capped by the
+	 * row handler.
+	 * 
+	 * @param searchRequest
+	 * @param definition
+	 * @param rowHandler returns false to stop reading further rows
+	 */
+	public void streamData(SearchRequest searchRequest, Definition definition, Predicate<String> rowHandler) {
+        Map<String, Object> preparedStatementValues = new HashMap<>();
+        String query = searchUtils.buildQuery(searchRequest, definition.getSearchParams(), definition.getQuery(),
+				preparedStatementValues, false);
+		log.info("Final Query: " + query);
+		streamingTransactionTemplate.execute(status -> streamingJdbcTemplate.query(query, preparedStatementValues,
+				(ResultSetExtractor<Void>) resultSet -> {
+					while (resultSet.next()) {
+						String tuple = resultSet.getString(1);
+						if (null == tuple || !rowHandler.test(tuple))
+							break;
+					}
+					return null;
+				}));
+	}
+	
 	public Object fetchWithCustomMapper(SearchRequest searchRequest, Definition searchDefinition) {
         Map<String, Object> preparedStatementValues = new HashMap<>();
 		String query = searchUtils.buildQuery(searchRequest, searchDefinition.getSearchParams(), searchDefinition.getQuery(), preparedStatementValues);
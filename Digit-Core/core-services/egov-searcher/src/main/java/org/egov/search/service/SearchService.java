@@ -1,6 +1,7 @@
 package org.egov.search.service;
 
 import java.io.IOException;
+import java.io.OutputStream;
 import java.lang.reflect.Type;
 import java.util.ArrayList;
 import java.util.HashMap;
@@ -16,13 +17,16 @@ import org.egov.search.model.SearchRequest;
 import org.egov.search.repository.SearchRepository;
 import org.egov.search.utils.ResponseInfoFactory;
 import org.egov.search.utils.SearchReqValidator;
+import org.egov.search.utils.SearchResultWriter;
 import org.egov.search.utils.SearchUtils;
 import org.egov.tracer.model.CustomException;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
 import com.google.gson.Gson;
 import com.google.gson.reflect.TypeToken;
 import com.jayway.jsonpath.DocumentContext;
@@ -52,8 +56,20 @@ public class SearchService {
 	@Autowired
 	private EncryptionService encryptionService;
 	
+	@Autowired
+	private ObjectMapper mapper;
+
+	@Value("${search.stream.max.rows:100000}")
+	private Long defaultStreamMaxRows;
+
+	@Value("${search.stream.max.bytes:104857600}")
+	private Long defaultStreamMaxBytes;
+	
 	public static final Logger log = LoggerFactory.getLogger(SearchService.class);
 
+	// stands in for the records when the response envelope of a streamed search is built
+	private static final String RECORDS_PLACEHOLDER = "__searcher_stream_records__";
+
 
 	public Object searchData(SearchRequest searchRequest, String moduleName, String searchName) {
 		searchReqValidator.validate(searchRequest, moduleName, searchName);
@@ -106,6 +122,76 @@ public class SearchService {
 		return data;
 	}
 
+	/**
+	 * Streams the result of a search to the given output stream as rows are read
+	 * from the database, instead of building the whole response in memory.
+	 * Json responses have the same shape as the ones of the _get api. Searches
+	 * with a custom row mapper or decryption are not supported.
+	 * 
+	 * @param searchRequest
+	 * @param moduleName
+	 * @param searchName
+	 * @param format
+	 * @param outputStream
+	 */
+	public void streamData(SearchRequest searchRequest, String moduleName, String searchName,
+			SearchResultWriter.Format format, OutputStream outputStream) {
+		searchReqValidator.validate(searchRequest, moduleName, searchName);
+		Definition searchDefinition = searchUtils.getSearchDefinition(runner.getSearchDefinitionMap(), moduleName, searchName);
+		if (Boolean.TRUE.equals(searchDefinition.getIsCustomerRowMapEnabled()) || null != searchDefinition.getDecryptionPathId()) {
+			throw new CustomException("STREAMING_NOT_SUPPORTED",
+					"Streaming is not supported for searches with a custom row mapper or decryption, use the _get api");
+		}
+
+		long maxRows = null != searchDefinition.getMaxRows() ? searchDefinition.getMaxRows() : defaultStreamMaxRows;
+		long maxBytes = null != searchDefinition.getMaxBytes() ? searchDefinition.getMaxBytes() : defaultStreamMaxBytes;
+		String[] envelope = format == SearchResultWriter.Format.JSON ? splitOutput(searchDefinition, searchRequest)
+				: new String[2];
+
+		SearchResultWriter writer = null;
+		try {
+			writer = new SearchResultWriter(mapper, outputStream, format, maxRows, maxBytes);
+			writer.start(envelope[0], envelope[1]);
+			searchRepository.streamData(searchRequest, searchDefinition, writer::write);
+			writer.finish();
+			log.info("Streamed " + writer.getRows() + " records for " + moduleName + "/" + searchName);
+		} catch (Exception e) {
+			log.error("Exception: ", e);
+			// once part of the response is sent the error can no longer be returned in its place
+			if (null == writer || writer.getBytesSent() == 0)
+				throw new CustomException("DB_QUERY_EXECUTION_ERROR", "There was an error encountered at the Db");
+			try {
+				writer.abort("DB_QUERY_EXECUTION_ERROR");
+			} catch (IOException ioException) {
+				log.error("Failed to close the streamed response", ioException);
+			}
+			log.info("Streamed response of " + moduleName + "/" + searchName + " aborted after " + writer.getRows() + " records");
+		}
+	}
+
+	/**
+	 * Splits the response json of a search around its records, so that they can
+	 * be streamed in between.
+	 *
+	 * @return the json before and after the records
+	 */
+	private String[] splitOutput(Definition searchDefinition, SearchRequest searchRequest) {
+		String records = "\"" + RECORDS_PLACEHOLDER + "\"";
+		String output;
+		try {
+			output = formatOutput(RECORDS_PLACEHOLDER, searchDefinition, searchRequest);
+		} catch (Exception e) {
+			log.error("Exception: ", e);
+			output = "";
+		}
+		int at = output.indexOf(records);
+		if (at < 0) {
+			throw new CustomException("RESULT_FORMAT_ERROR",
+					"There was an error encountered while formatting the result, Verify output config from the yaml file.");
+		}
+		return new String[] { output.substring(0, at), output.substring(at + records.length()) };
+	}
+
 	private Map<String, Object> enrichedOuputData(List<String> maps, Definition searchDefinition, SearchRequest searchRequest ){
 		try {
 			Type type = new TypeToken<ArrayList<Map<String, Object>>>() {}.getType();
@@ -129,7 +215,14 @@ public class SearchService {
 	    Type type = new TypeToken<ArrayList<Map<String, Object>>>() {}.getType();
 		Gson gson = new Gson();
 		List<Map<String, Object>> data = gson.fromJson(maps.toString(), type);
-		
+		return formatOutput(data, searchDefinition, searchRequest);
+	}
+
+	/**
+	 * Builds the response json of a search, with the records at the output json
+	 * path and the response info at the response info path of the definition.
+	 */
+	private String formatOutput(Object data, Definition searchDefinition, SearchRequest searchRequest) {
     	DocumentContext documentContext = JsonPath.parse((null != searchDefinition.getOutput().getJsonFormat()) ? searchDefinition.getOutput().getJsonFormat() : "{}");
 		String[] expressionArray = (searchDefinition.getOutput().getOutJsonPath()).split("[.]");
 		StringBuilder expression = new StringBuilder();
@@ -0,0 +1,233 @@
+package org.egov.search.utils;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+
+import org.apache.commons.io.output.CountingOutputStream;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Writes search results to a stream as they are read from the database, one
+ * record at a time. Rows holding a json array are written element by element.
+ * Writing stops once the row or byte cap is reached, in which case json
+ * responses are marked as truncated.
+ *
+ * Json responses are written inside the envelope the _get api builds around
+ * the records, which is given as the json before and after the records array.
+ * Each record is read completely before it is written, so a failure never
+ * leaves a record half written and the response can still be closed.
+ */
+@Slf4j
+public class SearchResultWriter {
+
+	public enum Format {
+		JSON, NDJSON, CSV;
+
+		public String getContentType() {
+			switch (this) {
+			case NDJSON:
+				return "application/x-ndjson";
+			case CSV:
+				return "text/csv";
+			default:
+				return "application/json";
+			}
+		}
+	}
+
+	private final ObjectMapper mapper;
+
+	private final Format format;
+
+	private final CountingOutputStream outputStream;
+
+	private final JsonGenerator generator;
+
+	private final long maxRows;
+
+	private final long maxBytes;
+
+	private long rows;
+
+	private boolean truncated;
+
+	private String suffix;
+
+	private List<String> csvColumns;
+
+	public SearchResultWriter(ObjectMapper mapper, OutputStream outputStream, Format format, long maxRows,
+			long maxBytes) throws IOException {
+		this.mapper = mapper;
+		this.format = format;
+		this.outputStream = new CountingOutputStream(outputStream);
+		this.generator = mapper.getFactory().createGenerator(this.outputStream);
+		this.generator.setRootValueSeparator(null);
+		this.maxRows = maxRows;
+		this.maxBytes = maxBytes;
+	}
+
+	/**
+	 * Writes the start of the response, json responses wrap the records array
+	 * between the given prefix and suffix.
+	 *
+	 * @param prefix json of the response before the records
+	 * @param suffix json of the response after the records
+	 * @throws IOException
+	 */
+	public void start(String prefix, String suffix) throws IOException {
+		if (format == Format.JSON) {
+			this.suffix = suffix;
+			generator.writeRaw(prefix);
+			generator.writeStartArray();
+		}
+	}
+
+	/**
+	 * Writes the records of a row.
+	 *
+	 * @param tuple json of a record or of an array of records
+	 * @return false once the cap is reached and no more rows should be read
+	 */
+	public boolean write(String tuple) {
+		try (JsonParser parser = mapper.getFactory().createParser(tuple)) {
+			JsonToken token = parser.nextToken();
+			if (token == JsonToken.START_ARRAY) {
+				while (parser.nextToken() != JsonToken.END_ARRAY) {
+					if (!writeRecord(mapper.readTree(parser)))
+						return false;
+				}
+				return true;
+			}
+			return writeRecord(mapper.readTree(parser));
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+	}
+
+	private boolean writeRecord(JsonNode record) throws IOException {
+		if (rows >= maxRows || outputStream.getByteCount() + generator.getOutputBuffered() >= maxBytes) {
+			truncated = true;
+			return false;
+		}
+		rows++;
+		switch (format) {
+		case CSV:
+			writeCsvRecord(record);
+			break;
+		case NDJSON:
+			mapper.writeTree(generator, record);
+			generator.writeRaw('\n');
+			break;
+		default:
+			mapper.writeTree(generator, record);
+		}
+		return true;
+	}
+
+	/**
+	 * The columns are the fields of the first record, nested values are written
+	 * as json.
+	 */
+	private void writeCsvRecord(JsonNode record) throws IOException {
+		if (null == csvColumns) {
+			csvColumns = new ArrayList<>();
+			Iterator<String> fieldNames = record.fieldNames();
+			while (fieldNames.hasNext())
+				csvColumns.add(fieldNames.next());
+			writeCsvLine(csvColumns);
+		}
+		List<String> values = new ArrayList<>(csvColumns.size());
+		for (String column : csvColumns) {
+			JsonNode value = record.get(column);
+			if (null == value || value.isNull())
+				values.add("");
+			else if (value.isValueNode())
+				values.add(value.asText());
+			else
+				values.add(mapper.writeValueAsString(value));
+		}
+		writeCsvLine(values);
+	}
+
+	private void writeCsvLine(List<String> values) throws IOException {
+		StringBuilder line = new StringBuilder();
+		for (int i = 0; i < values.size(); i++) {
+			if (i > 0)
+				line.append(',');
+			String value = values.get(i);
+			if (value.indexOf(',') >= 0 || value.indexOf('"') >= 0 || value.indexOf('\n') >= 0
+					|| value.indexOf('\r') >= 0)
+				line.append('"').append(value.replace("\"", "\"\"")).append('"');
+			else
+				line.append(value);
+		}
+		line.append("\r\n");
+		generator.writeRaw(line.toString());
+	}
+
+	/**
+	 * Writes the end of the response and flushes it.
+	 *
+	 * @throws IOException
+	 */
+	public void finish() throws IOException {
+		end(truncated ? "\"truncated\":true" : null);
+		if (truncated)
+			log.info("Search result truncated after " + rows + " records and " + outputStream.getByteCount() + " bytes");
+	}
+
+	/**
+	 * Ends a response which failed after part of it was sent, json and ndjson
+	 * responses are closed and marked as truncated with the error code.
+	 *
+	 * @param errorCode
+	 * @throws IOException
+	 */
+	public void abort(String errorCode) throws IOException {
+		truncated = true;
+		end("\"truncated\":true,\"error\":" + mapper.writeValueAsString(errorCode));
+	}
+
+	private void end(String marker) throws IOException {
+		if (format == Format.JSON) {
+			generator.writeEndArray();
+			generator.flush();
+			String end = suffix;
+			int close = end.lastIndexOf('}');
+			if (null != marker && close >= 0)
+				end = end.substring(0, close) + "," + marker + end.substring(close);
+			generator.writeRaw(end);
+		} else if (format == Format.NDJSON && null != marker) {
+			generator.writeRaw("{" + marker + "}\n");
+		}
+		generator.flush();
+	}
+
+	/**
+	 * @return number of bytes which have been handed to the underlying stream,
+	 *         the ones still buffered by the writer are not counted
+	 */
+	public long getBytesSent() {
+		return outputStream.getByteCount();
+	}
+
+	public long getRows() {
+		return rows;
+	}
+
+	public boolean isTruncated() {
+		return truncated;
+	}
+
+}
@@ -55,13 +55,30 @@ public class SearchUtils {
 	 * @return
 	 */
 	public String buildQuery(SearchRequest searchRequest, SearchParams searchParam, Query query, Map<String, Object> preparedStatementValues) {
+		return buildQuery(searchRequest, searchParam, query, preparedStatementValues, true);
+	}
+
+	/**
+	 * Builds the query reqd for search, without the default page size when
+	 * defaultLimit is false. Streamed searches are capped by the maxRows and
+	 * maxBytes of the definition instead.
+	 * 
+	 * @param searchRequest
+	 * @param searchParam
+	 * @param query
+	 * @param preparedStatementValues
+	 * @param defaultLimit
+	 * @return
+	 */
+	public String buildQuery(SearchRequest searchRequest, SearchParams searchParam, Query query,
+			Map<String, Object> preparedStatementValues, boolean defaultLimit) {
 		StringBuilder queryString = new StringBuilder();
 		StringBuilder where = new StringBuilder();
 		String finalQuery = null;
 		queryString.append(query.getBaseQuery());
 		if(!CollectionUtils.isEmpty(searchParam.getParams())) {
 			String whereClause = buildWhereClause(searchRequest, searchParam, preparedStatementValues);
-			String paginationClause = getPaginationClause(searchRequest, searchParam.getPagination());
+			String paginationClause = getPaginationClause(searchRequest, searchParam.getPagination(), defaultLimit);
 			where.append(" WHERE ").append(whereClause + " ");
 			if (null != query.getGroupBy()) {
 				queryString.append(" GROUP BY ").append(query.getGroupBy() + " ");
@@ -194,6 +211,19 @@ public class SearchUtils {
 	 * @return
 	 */
 	public String getPaginationClause(SearchRequest searchRequest, Pagination pagination) {
+		return getPaginationClause(searchRequest, pagination, true);
+	}
+
+	/**
+	 * Pagination clause builder, the LIMIT is left out when the request has no
+	 * limit and defaultLimit is false
+	 * 
+	 * @param searchRequest
+	 * @param pagination
+	 * @param defaultLimit
+	 * @return
+	 */
+	public String getPaginationClause(SearchRequest searchRequest, Pagination pagination, boolean defaultLimit) {
 		StringBuilder paginationClause = new StringBuilder();
 		Object limit = null;
 		Object offset = null;
@@ -205,10 +235,11 @@ public class SearchUtils {
 				log.error("Error while fetching limit and offset, using default values.");
 			}
 		}
-		paginationClause.append(" LIMIT ")
-				.append((!StringUtils.isEmpty((null != limit) ? limit.toString() : null) ? limit.toString()
-						: defaultPageSize))
-				.append(" OFFSET ")
+		boolean hasLimit = !StringUtils.isEmpty((null != limit) ? limit.toString() : null);
+		if (hasLimit || defaultLimit) {
+			paginationClause.append(" LIMIT ").append(hasLimit ? limit.toString() : defaultPageSize);
+		}
+		paginationClause.append(" OFFSET ")
 				.append((!StringUtils.isEmpty((null != offset) ? offset.toString() : null) ? offset.toString()
 						: defaultOffset));
 
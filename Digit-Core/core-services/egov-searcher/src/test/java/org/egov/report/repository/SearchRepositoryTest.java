@@ -1,11 +1,36 @@
 /**
- * 
+ *
  */
 package org.egov.report.repository;
 
 import static org.junit.Assert.*;
 
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.egov.search.model.Definition;
+import org.egov.search.model.Pagination;
+import org.egov.search.model.Params;
+import org.egov.search.model.Query;
+import org.egov.search.model.SearchParams;
+import org.egov.search.model.SearchRequest;
+import org.egov.search.repository.SearchRepository;
+import org.egov.search.utils.SearchUtils;
+import org.junit.After;
+import org.junit.Before;
 import org.junit.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabase;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseBuilder;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseType;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
 
 /**
  * @author senthilkumar
@@ -13,6 +38,44 @@ import org.junit.Test;
  */
 public class SearchRepositoryTest {
 
+	private static final int ROWS = 5000;
+
+	private EmbeddedDatabase database;
+
+	private SearchUtils searchUtils;
+
+	private SearchRepository searchRepository;
+
+	@Before
+	public void setUp() {
+		database = new EmbeddedDatabaseBuilder().setType(EmbeddedDatabaseType.H2).generateUniqueName(true).build();
+		JdbcTemplate jdbcTemplate = new JdbcTemplate(database);
+		jdbcTemplate.execute("CREATE TABLE eg_search_record (id BIGINT, tenantid VARCHAR(64), record VARCHAR(256))");
+		List<Object[]> rows = new ArrayList<>();
+		for (int i = 1; i <= ROWS; i++) {
+			rows.add(new Object[] { i, "pb", "{\"id\":" + i + "}" });
+		}
+		jdbcTemplate.batchUpdate("INSERT INTO eg_search_record (id, tenantid, record) VALUES (?, ?, ?)", rows);
+
+		searchUtils = new SearchUtils();
+		ReflectionTestUtils.setField(searchUtils, "mapper", new ObjectMapper());
+		ReflectionTestUtils.setField(searchUtils, "defaultPageSize", "4000");
+		ReflectionTestUtils.setField(searchUtils, "defaultOffset", "0");
+		ReflectionTestUtils.setField(searchUtils, "operators", Arrays.asList("=", "GE", "LE", "NE", "LIKE", "ILIKE"));
+
+		searchRepository = new SearchRepository();
+		ReflectionTestUtils.setField(searchRepository, "searchUtils", searchUtils);
+		ReflectionTestUtils.setField(searchRepository, "dataSource", database);
+		ReflectionTestUtils.setField(searchRepository, "transactionManager", new DataSourceTransactionManager(database));
+		ReflectionTestUtils.setField(searchRepository, "streamFetchSize", 1000);
+		searchRepository.initStreaming();
+	}
+
+	@After
+	public void tearDown() {
+		database.shutdown();
+	}
+
 	/**
 	 * Test method for {@link org.egov.search.repository.SearchRepository#getData(org.egov.swagger.model.ReportRequest, org.egov.swagger.model.ReportDefinition)}.
 	 */
@@ -21,4 +84,67 @@ public class SearchRepositoryTest {
 		//fail("Not yet implemented");
 	}
 
+	/**
+	 * Streamed searches are not cut at the default page size of _get.
+	 */
+	@Test
+	public void testStreamDataReadsPastTheDefaultPageSize() {
+		Definition definition = definition(null);
+		List<String> streamed = new ArrayList<>();
+
+		searchRepository.streamData(searchRequest(null), definition, streamed::add);
+
+		assertEquals(ROWS, streamed.size());
+		assertEquals("{\"id\":1}", streamed.get(0));
+		assertEquals("{\"id\":" + ROWS + "}", streamed.get(ROWS - 1));
+
+		String query = searchUtils.buildQuery(searchRequest(null), definition.getSearchParams(), definition.getQuery(),
+				new HashMap<>());
+		assertTrue(query, query.contains(" LIMIT 4000 OFFSET 0"));
+	}
+
+	@Test
+	public void testStreamDataKeepsTheLimitOfTheRequest() {
+		List<String> streamed = new ArrayList<>();
+
+		Pagination pagination = new Pagination("$.searchCriteria.limit", "$.searchCriteria.offset");
+
+		searchRepository.streamData(searchRequest(4500), definition(pagination), streamed::add);
+
+		assertEquals(4500, streamed.size());
+	}
+
+	@Test
+	public void testStreamDataStopsWhenTheRowHandlerDoes() {
+		List<String> streamed = new ArrayList<>();
+
+		searchRepository.streamData(searchRequest(null), definition(null), row -> {
+			streamed.add(row);
+			return streamed.size() < 4200;
+		});
+
+		assertEquals(4200, streamed.size());
+	}
+
+	private static Definition definition(Pagination pagination) {
+		Params tenantId = Params.builder().name("tenantid").jsonPath("$.searchCriteria.tenantId").build();
+		SearchParams searchParams = new SearchParams("AND", Collections.singletonList(tenantId), pagination);
+		Query query = new Query("SELECT record FROM eg_search_record $where $pagination", null, "id,ASC", null);
+		Definition definition = new Definition();
+		definition.setName("records");
+		definition.setQuery(query);
+		definition.setSearchParams(searchParams);
+		return definition;
+	}
+
+	private static SearchRequest searchRequest(Integer limit) {
+		Map<String, Object> criteria = new HashMap<>();
+		criteria.put("tenantId", "pb");
+		criteria.put("limit", limit);
+		criteria.put("offset", null);
+		SearchRequest searchRequest = new SearchRequest();
+		searchRequest.setSearchCriteria(criteria);
+		return searchRequest;
+	}
+
 }
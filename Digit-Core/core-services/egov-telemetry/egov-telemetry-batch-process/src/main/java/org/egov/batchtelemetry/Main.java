@@ -1,6 +1,9 @@
 package org.egov.batchtelemetry;
 
 import org.egov.batchtelemetry.application.BatchApplication;
+import org.egov.batchtelemetry.application.StreamingApplication;
+import org.egov.batchtelemetry.config.AppProperties;
+import org.egov.batchtelemetry.constants.TelemetryConstants;
 import org.joda.time.DateTime;
 import org.joda.time.LocalDate;
 import org.joda.time.format.DateTimeFormat;
@@ -12,6 +15,12 @@ public class Main {
 
     public static void main(String args[]) throws Exception {
 
+        AppProperties appProperties = new AppProperties();
+        if(TelemetryConstants.streamingProcessingMode.equalsIgnoreCase(appProperties.getProcessingMode())) {
+            new StreamingApplication().start();
+            return;
+        }
+
         BatchApplication batchApplication = new BatchApplication();
 
         Long startTime = null, endTime = null;
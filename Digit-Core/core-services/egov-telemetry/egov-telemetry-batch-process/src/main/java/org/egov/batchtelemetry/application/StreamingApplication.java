@@ -0,0 +1,283 @@
+package org.egov.batchtelemetry.application;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.kafka.clients.consumer.ConsumerConfig;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.common.serialization.Deserializer;
+import org.apache.kafka.common.serialization.Serde;
+import org.apache.kafka.common.serialization.Serdes;
+import org.apache.kafka.common.serialization.Serializer;
+import org.apache.kafka.common.utils.Bytes;
+import org.apache.kafka.connect.json.JsonDeserializer;
+import org.apache.kafka.connect.json.JsonSerializer;
+import org.apache.kafka.streams.KafkaStreams;
+import org.apache.kafka.streams.KeyValue;
+import org.apache.kafka.streams.StreamsBuilder;
+import org.apache.kafka.streams.StreamsConfig;
+import org.apache.kafka.streams.Topology;
+import org.apache.kafka.streams.kstream.Consumed;
+import org.apache.kafka.streams.kstream.Grouped;
+import org.apache.kafka.streams.kstream.KStream;
+import org.apache.kafka.streams.kstream.Materialized;
+import org.apache.kafka.streams.kstream.Produced;
+import org.apache.kafka.streams.kstream.SessionWindows;
+import org.apache.kafka.streams.kstream.Suppressed;
+import org.apache.kafka.streams.processor.TimestampExtractor;
+import org.apache.kafka.streams.state.KeyValueStore;
+import org.apache.kafka.streams.state.SessionStore;
+import org.egov.batchtelemetry.config.AppProperties;
+import org.egov.batchtelemetry.connector.ElasticsearchConnector;
+import org.egov.batchtelemetry.constants.TelemetryConstants;
+import org.egov.batchtelemetry.models.Edata;
+import org.egov.batchtelemetry.models.Node;
+import org.egov.batchtelemetry.models.PathCount;
+import org.egov.batchtelemetry.models.Session;
+import org.egov.batchtelemetry.models.SessionAggregate;
+import org.egov.batchtelemetry.models.SessionDetails;
+import org.egov.batchtelemetry.processor.PathProcessor;
+
+import java.nio.charset.StandardCharsets;
+import java.text.SimpleDateFormat;
+import java.time.Duration;
+import java.util.*;
+
+/**
+ * Maintains sessions and path counts as telemetry arrives, instead of rebuilding them from a
+ * day of events. Events of a device are gathered in session windows, which are emitted once
+ * the session timeout and grace period have passed. The sessions and path nodes emitted are
+ * the same documents the batch pushes; path counts are kept in a state store and every
+ * closed session emits the visits it added along with the new count.
+ */
+@Slf4j
+public class StreamingApplication {
+
+    private static final String sessionStoreName = "telemetry-sessions";
+
+    private static final String userSessionStoreName = "telemetry-user-sessions";
+
+    private static final String pathCountStoreName = "telemetry-path-counts";
+
+    private final AppProperties appProperties;
+
+    private final ObjectMapper mapper;
+
+    private final PathProcessor pathProcessor;
+
+    private final Set<String> existingUserIds;
+
+    public StreamingApplication() {
+        appProperties = new AppProperties();
+        mapper = new ObjectMapper();
+        pathProcessor = new PathProcessor(appProperties);
+        // users with sessions pushed by the batch, later ones are tracked in the user session store
+        existingUserIds = new HashSet<>(new ElasticsearchConnector().getExistingUserIds());
+    }
+
+    public void start() {
+        Properties streamsConfiguration = new Properties();
+        streamsConfiguration.put(StreamsConfig.APPLICATION_ID_CONFIG, appProperties.getStreamName());
+        streamsConfiguration.put(StreamsConfig.BOOTSTRAP_SERVERS_CONFIG, appProperties.getKafkaBootstrapServer());
+        streamsConfiguration.put(ConsumerConfig.AUTO_OFFSET_RESET_CONFIG, "earliest");
+
+        KafkaStreams streams = new KafkaStreams(buildTopology(), streamsConfiguration);
+        streams.start();
+        Runtime.getRuntime().addShutdownHook(new Thread(streams::close));
+
+        log.info("Stream : " + appProperties.getStreamName() + " started. From : " + appProperties.getInputKafkaTopic()
+                + ", To : " + appProperties.getOutputKafkaTopic() + ", " + appProperties.getPathCountsKafkaTopic());
+    }
+
+    private Topology buildTopology() {
+        Serde<JsonNode> eventSerde = Serdes.serdeFrom(new JsonSerializer(), new JsonDeserializer());
+        Serde<SessionAggregate> aggregateSerde = jsonSerde(SessionAggregate.class);
+        Serde<Session> sessionSerde = jsonSerde(Session.class);
+        Serde<PathCount> pathCountSerde = jsonSerde(PathCount.class);
+
+        StreamsBuilder builder = new StreamsBuilder();
+
+        KStream<String, JsonNode> events = builder.stream(appProperties.getInputKafkaTopic(),
+                Consumed.with(Serdes.String(), eventSerde).withTimestampExtractor(new EventTimestampExtractor()));
+
+        KStream<String, SessionAggregate> closedSessions = events
+                .filter((key, event) -> event != null && "page".equals(event.path("edata").path("type").asText())
+                        && event.path("context").hasNonNull("did"))
+                .selectKey((key, event) -> event.path("context").path("did").asText())
+                .groupByKey(Grouped.with(Serdes.String(), eventSerde))
+                .windowedBy(SessionWindows.with(Duration.ofMillis(appProperties.getSessionTimeout()))
+                        .grace(Duration.ofMillis(appProperties.getSessionGracePeriod())))
+                .aggregate(SessionAggregate::new,
+                        (deviceId, event, aggregate) -> aggregate.add(event),
+                        (deviceId, aggregate1, aggregate2) -> aggregate1.merge(aggregate2),
+                        Materialized.<String, SessionAggregate, SessionStore<Bytes, byte[]>>as(sessionStoreName)
+                                .withKeySerde(Serdes.String()).withValueSerde(aggregateSerde))
+                .suppress(Suppressed.untilWindowCloses(Suppressed.BufferConfig.unbounded()))
+                .toStream()
+                // sessions merged into a later one are removed with a null value
+                .filter((windowedDeviceId, aggregate) -> aggregate != null)
+                .map((windowedDeviceId, aggregate) -> KeyValue.pair(getSessionId(windowedDeviceId.key(), aggregate), aggregate));
+
+        // A user is new on their first session, which needs the sessions of a user on the same task
+        closedSessions
+                .map((sessionId, aggregate) -> {
+                    Session session = buildSession(sessionId, aggregate);
+                    return KeyValue.pair(session.getUserId(), session);
+                })
+                .groupByKey(Grouped.with(Serdes.String(), sessionSerde))
+                .reduce((previousSession, session) -> {
+                    session.setNewUser(false);
+                    return session;
+                }, Materialized.<String, Session, KeyValueStore<Bytes, byte[]>>as(userSessionStoreName)
+                        .withKeySerde(Serdes.String()).withValueSerde(sessionSerde).withCachingDisabled())
+                .toStream()
+                .map((userId, session) -> KeyValue.pair(session.getSessionId(), toJson(session)))
+                .to(appProperties.getOutputKafkaTopic(), Produced.with(Serdes.String(), eventSerde));
+
+        KStream<String, List<Node>> sessionNodes = closedSessions
+                .mapValues((sessionId, aggregate) -> pathProcessor.findPaths(getSummaryEvents(aggregate), sessionId));
+
+        sessionNodes
+                .flatMap((sessionId, nodes) -> {
+                    List<KeyValue<String, JsonNode>> records = new ArrayList<>();
+                    nodes.forEach(node -> records.add(KeyValue.pair(node.getNodeId(), toJson(node))));
+                    return records;
+                })
+                .to(appProperties.getOutputKafkaTopic(), Produced.with(Serdes.String(), eventSerde));
+
+        sessionNodes
+                .flatMap((sessionId, nodes) -> getPathDeltas(nodes))
+                .groupByKey(Grouped.with(Serdes.String(), pathCountSerde))
+                .reduce((pathCount, delta) -> {
+                    delta.setCount(pathCount.getCount() + delta.getDelta());
+                    return delta;
+                }, Materialized.<String, PathCount, KeyValueStore<Bytes, byte[]>>as(pathCountStoreName)
+                        .withKeySerde(Serdes.String()).withValueSerde(pathCountSerde).withCachingDisabled())
+                .toStream()
+                .mapValues(pathCount -> toJson(pathCount))
+                .to(appProperties.getPathCountsKafkaTopic(), Produced.with(Serdes.String(), eventSerde));
+
+        return builder.build();
+    }
+
+    private static String getSessionId(String deviceId, SessionAggregate aggregate) {
+        // derived from the session, so that a session emitted again after a failure keeps its id
+        return UUID.nameUUIDFromBytes((deviceId + ":" + aggregate.getStartTime()).getBytes(StandardCharsets.UTF_8))
+                .toString();
+    }
+
+    private Session buildSession(String sessionId, SessionAggregate aggregate) {
+        String userId = aggregate.getUserId() == null ? TelemetryConstants.userNotFoundIdentifier : aggregate.getUserId();
+        String userType = aggregate.getUserType() == null ? TelemetryConstants.commonUserType : aggregate.getUserType();
+
+        SessionDetails sessionDetails = SessionDetails.builder().pageCount(aggregate.getPageCount())
+                .duration(aggregate.getEndTime() - aggregate.getStartTime()).exitPage(aggregate.getExitPage())
+                .userType(userType).build();
+        Edata edata = Edata.builder().webBrowser(aggregate.getWebBrowser()).platform(aggregate.getPlatform())
+                .cityId(aggregate.getCityId()).build();
+
+        return Session.builder().sessionId(sessionId).timestamp(getTimestamp(aggregate.getStartTime()))
+                .deviceId(aggregate.getDeviceId()).userId(userId).isNewUser(!existingUserIds.contains(userId))
+                .startTime(aggregate.getStartTime()).endTime(aggregate.getEndTime()).sessionDetails(sessionDetails)
+                .edata(edata).type(TelemetryConstants.sessionTypeName).build();
+    }
+
+    private static List<Map<String, Object>> getSummaryEvents(SessionAggregate aggregate) {
+        List<Map<String, Object>> summaryEvents = new ArrayList<>();
+        aggregate.getSummaryEvents().stream()
+                .sorted(Comparator.comparing(SessionAggregate.SummaryEvent::getEts))
+                .forEach(summaryEvent -> {
+                    Map<String, Object> edata = new HashMap<>();
+                    edata.put("url", summaryEvent.getUrl());
+                    edata.put("timeSpent", summaryEvent.getTimeSpent());
+                    Map<String, Object> event = new HashMap<>();
+                    event.put("ets", summaryEvent.getEts());
+                    event.put("edata", edata);
+                    summaryEvents.add(event);
+                });
+        return summaryEvents;
+    }
+
+    private static List<KeyValue<String, PathCount>> getPathDeltas(List<Node> nodes) {
+        Map<String, PathCount> deltas = new LinkedHashMap<>();
+        for (Node node : nodes) {
+            String key = node.getPathId() + ":" + node.getNodeName();
+            PathCount delta = deltas.get(key);
+            if (delta == null) {
+                delta = PathCount.builder().type(TelemetryConstants.pathCountTypeName).pathId(node.getPathId())
+                        .nodeName(node.getNodeName()).delta(0L).count(0L).build();
+                deltas.put(key, delta);
+            }
+            delta.setDelta(delta.getDelta() + 1);
+            delta.setCount(delta.getDelta());
+        }
+        List<KeyValue<String, PathCount>> records = new ArrayList<>();
+        deltas.forEach((key, delta) -> records.add(KeyValue.pair(key, delta)));
+        return records;
+    }
+
+    private String getTimestamp(Long startTime) {
+        Date date = new Date(Long.valueOf(startTime));
+        SimpleDateFormat formatter = new SimpleDateFormat("yyyy-MM-dd'T'HH:mm:ss.SSS'Z'", Locale.US);
+        formatter.setTimeZone(TimeZone.getTimeZone(appProperties.getTimezone()));
+        return formatter.format(date);
+    }
+
+    private JsonNode toJson(Object value) {
+        return mapper.valueToTree(value);
+    }
+
+    private <T> Serde<T> jsonSerde(Class<T> type) {
+        Serializer<T> serializer = new Serializer<T>() {
+            @Override
+            public void configure(Map<String, ?> configs, boolean isKey) {
+            }
+
+            @Override
+            public byte[] serialize(String topic, T data) {
+                try {
+                    return data == null ? null : mapper.writeValueAsBytes(data);
+                } catch (Exception e) {
+                    throw new IllegalStateException("Error serializing " + type.getSimpleName(), e);
+                }
+            }
+
+            @Override
+            public void close() {
+            }
+        };
+        Deserializer<T> deserializer = new Deserializer<T>() {
+            @Override
+            public void configure(Map<String, ?> configs, boolean isKey) {
+            }
+
+            @Override
+            public T deserialize(String topic, byte[] data) {
+                try {
+                    return data == null ? null : mapper.readValue(data, type);
+                } catch (Exception e) {
+                    throw new IllegalStateException("Error deserializing " + type.getSimpleName(), e);
+                }
+            }
+
+            @Override
+            public void close() {
+            }
+        };
+        return Serdes.serdeFrom(serializer, deserializer);
+    }
+
+    /**
+     * Sessions are built on the time of the events, not the time they reached kafka.
+     */
+    public static class EventTimestampExtractor implements TimestampExtractor {
+
+        @Override
+        public long extract(ConsumerRecord<Object, Object> record, long previousTimestamp) {
+            if (record.value() instanceof JsonNode && ((JsonNode) record.value()).hasNonNull("ets"))
+                return ((JsonNode) record.value()).get("ets").asLong();
+            return record.timestamp();
+        }
+    }
+
+}
@@ -16,6 +16,12 @@ import java.util.concurrent.TimeUnit;
 public class AppProperties {
 
     private Long sessionTimeout;
+    private Long sessionGracePeriod;
+
+    private String processingMode;
+    private String streamName;
+    private String inputKafkaTopic;
+    private String pathCountsKafkaTopic;
 
     private String kafkaBootstrapServer;
     private String outputKafkaTopic;
@@ -36,8 +42,16 @@ public class AppProperties {
         if(System.getenv("SESSION_TIMEOUT") != null)
             sessionTimeout = TimeUnit.MINUTES.toMillis(Long.valueOf(System.getenv("SESSION_TIMEOUT")));
 
+        if(System.getenv("SESSION_GRACE_PERIOD") != null)
+            sessionGracePeriod = TimeUnit.MINUTES.toMillis(Long.valueOf(System.getenv("SESSION_GRACE_PERIOD")));
+
+        processingMode = System.getenv("PROCESSING_MODE");
+        streamName = System.getenv("STREAM_NAME_TELEMETRY_SESSIONS");
+
         kafkaBootstrapServer = System.getenv("KAFKA_BOOTSTRAP_SERVER_CONFIG");
         outputKafkaTopic = System.getenv("KAFKA_OUTPUT_TOPIC");
+        inputKafkaTopic = System.getenv("KAFKA_INPUT_TOPIC");
+        pathCountsKafkaTopic = System.getenv("KAFKA_PATH_COUNTS_TOPIC");
 
         esURL = System.getenv("ES_URL");
         esHost = System.getenv("ES_HOST");
@@ -62,10 +76,22 @@ public class AppProperties {
         if(sessionTimeout == null)
             sessionTimeout = TimeUnit.MINUTES.toMillis(Long.valueOf(properties.getProperty("SESSION_TIMEOUT")));
 
+        if(sessionGracePeriod == null)
+            sessionGracePeriod = TimeUnit.MINUTES.toMillis(Long.valueOf(properties.getProperty("SESSION_GRACE_PERIOD")));
+
+        if(processingMode == null)
+            processingMode = properties.getProperty("PROCESSING_MODE");
+        if(streamName == null)
+            streamName = properties.getProperty("STREAM_NAME_TELEMETRY_SESSIONS");
+
         if(kafkaBootstrapServer == null)
             kafkaBootstrapServer = properties.getProperty("KAFKA_BOOTSTRAP_SERVER_CONFIG");
         if(outputKafkaTopic == null)
             outputKafkaTopic = properties.getProperty("KAFKA_OUTPUT_TOPIC");
+        if(inputKafkaTopic == null)
+            inputKafkaTopic = properties.getProperty("KAFKA_INPUT_TOPIC");
+        if(pathCountsKafkaTopic == null)
+            pathCountsKafkaTopic = properties.getProperty("KAFKA_PATH_COUNTS_TOPIC");
 
         if(esURL == null)
             esURL = properties.getProperty("ES_URL");
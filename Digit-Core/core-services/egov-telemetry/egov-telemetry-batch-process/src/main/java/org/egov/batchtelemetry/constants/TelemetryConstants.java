@@ -14,4 +14,8 @@ public class TelemetryConstants {
 
     public final static String pathTypeName = "path";
 
+    public final static String pathCountTypeName = "pathCount";
+
+    public final static String streamingProcessingMode = "streaming";
+
 }
@@ -0,0 +1,29 @@
+package org.egov.batchtelemetry.models;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+/**
+ * Number of visits of a node of a path, with the visits added by the last closed session.
+ */
+@Getter
+@Setter
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+public class PathCount {
+
+    private String type;
+
+    private String pathId;
+
+    private String nodeName;
+
+    private Long delta;
+
+    private Long count;
+
+}
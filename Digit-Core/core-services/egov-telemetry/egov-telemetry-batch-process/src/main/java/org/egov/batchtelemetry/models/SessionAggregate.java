@@ -0,0 +1,176 @@
+package org.egov.batchtelemetry.models;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+import org.egov.batchtelemetry.constants.TelemetryConstants;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Running summary of the events of a session, from which the session and its paths are built
+ * once the session closes. Events may arrive out of order, so every field taken from the first
+ * or last event of the session keeps the time of the event it was taken from.
+ */
+@Getter
+@Setter
+@NoArgsConstructor
+public class SessionAggregate {
+
+    private String deviceId;
+
+    private Long startTime;
+
+    private Long endTime;
+
+    private String exitPage;
+
+    private String userId;
+
+    private Long userIdTime;
+
+    private String userType;
+
+    private Long userTypeTime;
+
+    private String webBrowser;
+
+    private Long webBrowserTime;
+
+    private String platform;
+
+    private Long platformTime;
+
+    private String cityId;
+
+    private Long cityIdTime;
+
+    private Integer pageCount = 0;
+
+    private List<SummaryEvent> summaryEvents = new ArrayList<>();
+
+    public SessionAggregate add(JsonNode event) {
+        long ets = event.path("ets").asLong();
+        JsonNode edata = event.path("edata");
+        String url = text(edata.path("url"));
+
+        if(startTime == null || ets < startTime) {
+            startTime = ets;
+            deviceId = text(event.path("context").path("did"));
+        }
+        if(endTime == null || ets >= endTime) {
+            endTime = ets;
+            exitPage = url;
+        }
+
+        String actorId = text(event.path("actor").path("id"));
+        if(actorId != null && !actorId.equalsIgnoreCase(TelemetryConstants.userNotFoundIdentifier)
+                && (userIdTime == null || ets < userIdTime)) {
+            userId = actorId;
+            userIdTime = ets;
+        }
+
+        String eventUserType = getUserType(url);
+        if(eventUserType != null && (userTypeTime == null || ets < userTypeTime)) {
+            userType = eventUserType;
+            userTypeTime = ets;
+        }
+
+        String eventWebBrowser = text(edata.path("web-browser"));
+        if(eventWebBrowser != null && (webBrowserTime == null || ets < webBrowserTime)) {
+            webBrowser = eventWebBrowser;
+            webBrowserTime = ets;
+        }
+        String eventPlatform = text(edata.path("platform"));
+        if(eventPlatform != null && (platformTime == null || ets < platformTime)) {
+            platform = eventPlatform;
+            platformTime = ets;
+        }
+        String eventCityId = text(edata.path("cityId"));
+        if(eventCityId != null && (cityIdTime == null || ets < cityIdTime)) {
+            cityId = eventCityId;
+            cityIdTime = ets;
+        }
+
+        if("SUMMARY".equalsIgnoreCase(text(event.path("eid")))) {
+            pageCount++;
+            JsonNode timeSpent = edata.path("timeSpent");
+            summaryEvents.add(new SummaryEvent(ets, url, timeSpent.isMissingNode() || timeSpent.isNull() ? null : timeSpent.asLong()));
+        }
+        return this;
+    }
+
+    /**
+     * Merges the summary of a session which has been joined to this one by an event falling
+     * between them.
+     */
+    public SessionAggregate merge(SessionAggregate other) {
+        if(other.startTime != null && (startTime == null || other.startTime < startTime)) {
+            startTime = other.startTime;
+            deviceId = other.deviceId;
+        }
+        if(other.endTime != null && (endTime == null || other.endTime >= endTime)) {
+            endTime = other.endTime;
+            exitPage = other.exitPage;
+        }
+        if(other.userIdTime != null && (userIdTime == null || other.userIdTime < userIdTime)) {
+            userId = other.userId;
+            userIdTime = other.userIdTime;
+        }
+        if(other.userTypeTime != null && (userTypeTime == null || other.userTypeTime < userTypeTime)) {
+            userType = other.userType;
+            userTypeTime = other.userTypeTime;
+        }
+        if(other.webBrowserTime != null && (webBrowserTime == null || other.webBrowserTime < webBrowserTime)) {
+            webBrowser = other.webBrowser;
+            webBrowserTime = other.webBrowserTime;
+        }
+        if(other.platformTime != null && (platformTime == null || other.platformTime < platformTime)) {
+            platform = other.platform;
+            platformTime = other.platformTime;
+        }
+        if(other.cityIdTime != null && (cityIdTime == null || other.cityIdTime < cityIdTime)) {
+            cityId = other.cityId;
+            cityIdTime = other.cityIdTime;
+        }
+        pageCount += other.pageCount;
+        summaryEvents.addAll(other.summaryEvents);
+        return this;
+    }
+
+    private static String getUserType(String url) {
+        if(url == null)
+            return null;
+        String userType = null;
+        if(url.contains("citizen"))
+            userType = TelemetryConstants.citizenUserType;
+        if(url.contains("employee"))
+            userType = TelemetryConstants.employeeUserType;
+        return userType;
+    }
+
+    private static String text(JsonNode node) {
+        return node.isMissingNode() || node.isNull() ? null : node.asText();
+    }
+
+    @Getter
+    @Setter
+    @NoArgsConstructor
+    public static class SummaryEvent {
+
+        private Long ets;
+
+        private String url;
+
+        private Long timeSpent;
+
+        public SummaryEvent(Long ets, String url, Long timeSpent) {
+            this.ets = ets;
+            this.url = url;
+            this.timeSpent = timeSpent;
+        }
+    }
+
+}
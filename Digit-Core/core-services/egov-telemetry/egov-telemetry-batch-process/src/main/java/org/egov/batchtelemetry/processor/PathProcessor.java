@@ -15,6 +15,7 @@ import org.egov.batchtelemetry.producer.Producer;
 import org.egov.batchtelemetry.util.URLComparator;
 import org.json.JSONObject;
 
+import java.nio.charset.StandardCharsets;
 import java.text.SimpleDateFormat;
 import java.util.*;
 
@@ -33,7 +34,6 @@ public class PathProcessor {
     public PathProcessor(AppProperties appProperties) {
 
         mapper = new ObjectMapper();
-        producer = new Producer();
         kafkaTopic = appProperties.getOutputKafkaTopic();
         configuration = Configuration.defaultConfiguration().addOptions(Option.DEFAULT_PATH_LEAF_TO_NULL, Option.SUPPRESS_EXCEPTIONS);
         timezone = appProperties.getTimezone();
@@ -71,12 +71,26 @@ public class PathProcessor {
             }
         }
 
+        for(Node node : findPaths(summaryEvents, sessionId)) {
+            pushNodeDetails(node);
+        }
+    }
+
+    /**
+     * Finds the nodes of the configured paths visited in a session.
+     *
+     * @param summaryEvents summary events of the session, ordered by time
+     */
+    public List<Node> findPaths(List<Map<String, Object>> summaryEvents, String sessionId) {
+        List<Node> nodes = new ArrayList<>();
         for(InputPath inputPath : inputPaths) {
-            checkForPath(summaryEvents, inputPath, sessionId);
+            checkForPath(summaryEvents, inputPath, sessionId, nodes);
         }
+        return nodes;
     }
 
-    public void checkForPath(List<Map<String, Object>> summaryEvents, InputPath inputPath, String sessionId) {
+    public void checkForPath(List<Map<String, Object>> summaryEvents, InputPath inputPath, String sessionId,
+                             List<Node> nodes) {
         int nodePointer = 0;
         for(int eventPointer = 0; eventPointer < summaryEvents.size(); eventPointer++) {
 
@@ -90,14 +104,16 @@ public class PathProcessor {
 
             if(URLComparator.compareURLs(eventURL, nodeURL)) {
 
-                String nodeId = UUID.randomUUID().toString();
+                // derived from the session, so that a session processed again yields the same nodes
+                String nodeId = UUID.nameUUIDFromBytes((sessionId + ":" + inputPath.getPathId() + ":" + eventPointer)
+                        .getBytes(StandardCharsets.UTF_8)).toString();
                 Long timestamp = JsonPath.using(configuration).parse(event).read("$.ets");
                 Long timeSpent = Long.valueOf(JsonPath.using(configuration).parse(event).read("$.edata.timeSpent").toString());
 
                 Node node = Node.builder().type(TelemetryConstants.pathTypeName).nodeId(nodeId).pathId(inputPath.getPathId())
                         .sessionId(sessionId).nodeName(inputNode.getNodeName()).url(inputNode.getUrl()).nodeTime(timestamp)
                         .timeSpent(timeSpent).timestamp(getTimestamp(timestamp)).build();
-                pushNodeDetails(node);
+                nodes.add(node);
 
                 nodePointer++;
                 if(nodePointer == inputPath.getInputNodes().size())
@@ -120,6 +136,8 @@ public class PathProcessor {
     }
 
     private void pushNodeDetails(Node node) {
+        if(producer == null)
+            producer = new Producer();
         JsonNode jsonNode = mapper.valueToTree(node);
         producer.push(kafkaTopic, node.getNodeId(), node.getNodeTime(), jsonNode);
     }
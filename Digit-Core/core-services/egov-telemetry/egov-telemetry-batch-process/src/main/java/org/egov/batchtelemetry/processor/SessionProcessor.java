@@ -33,7 +33,7 @@ public class SessionProcessor {
 
     public static Integer totalSessionCounter;
 
-    private static List<String> existingUserIds;
+    private static Set<String> existingUserIds;
 
     private static ElasticsearchConnector elasticsearchConnector;
 
@@ -53,7 +53,7 @@ public class SessionProcessor {
         configuration = Configuration.defaultConfiguration().addOptions(Option.DEFAULT_PATH_LEAF_TO_NULL, Option.SUPPRESS_EXCEPTIONS);
 
         elasticsearchConnector = new ElasticsearchConnector();
-        existingUserIds = elasticsearchConnector.getExistingUserIds();
+        existingUserIds = new HashSet<>(elasticsearchConnector.getExistingUserIds());
 
         pathProcessor = new PathProcessor(appProperties);
 
@@ -88,9 +88,8 @@ public class SessionProcessor {
 
         boolean isNewUser = false;
 
-        if(existingUserIds.indexOf(userId) == -1) {
+        if(existingUserIds.add(userId)) {
             isNewUser = true;
-            existingUserIds.add(userId);
         }
 
         SessionDetails sessionDetails = buildSessionDetails(sessionContent);
@@ -42,7 +42,7 @@ public class Main {
         TelemetryDeduplicator telemetryDeduplicator = new TelemetryDeduplicator();
         telemetryDeduplicator.shouldRemoveDuplicatesFromTheInput(streamsConfiguration,
                 appProperties.getTelemetryValidatedMessages(), appProperties.getTelemetryDedupedMessages(),
-                appProperties.getDeDupStorageTime(), appProperties.getStreamNameTelemetryDeduplicator());
+                appProperties.getStreamNameTelemetryDeduplicator(), appProperties);
 
         TelemetryFinalStream telemetryFinalStream = new TelemetryFinalStream();
         telemetryFinalStream.pushFinalMessages(streamsConfiguration, appProperties.getTelemetryDedupedMessages(),
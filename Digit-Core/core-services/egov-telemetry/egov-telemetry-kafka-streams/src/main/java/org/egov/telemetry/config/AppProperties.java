@@ -33,6 +33,15 @@ public class AppProperties {
     private String streamNameTelemetryElasticsearchFinalPush;
 
     private Integer deDupStorageTime; //In Minutes
+    private String deDupStrategy;
+    private Integer deDupFilterSegments;
+    private Long deDupFilterExpectedEvents; //Per segment
+    private Double deDupFilterFalsePositiveRate;
+    private Integer deDupChangelogAdditionalRetention; //In Minutes
+
+    private Long rocksDBBlockCacheSize;
+    private Long rocksDBWriteBufferSize;
+    private Integer rocksDBMaxWriteBuffers;
 
     public AppProperties() {
         kafkaBootstrapServerConfig = System.getenv("BOOTSTRAP_SERVER_CONFIG");
@@ -59,6 +68,22 @@ public class AppProperties {
 
         if(System.getenv("DEDUP_STORAGE_TIME") != null)
             deDupStorageTime = Integer.parseInt(System.getenv("DEDUP_STORAGE_TIME"));
+        deDupStrategy = System.getenv("DEDUP_STRATEGY");
+        if(System.getenv("DEDUP_FILTER_SEGMENTS") != null)
+            deDupFilterSegments = Integer.parseInt(System.getenv("DEDUP_FILTER_SEGMENTS"));
+        if(System.getenv("DEDUP_FILTER_EXPECTED_EVENTS") != null)
+            deDupFilterExpectedEvents = Long.parseLong(System.getenv("DEDUP_FILTER_EXPECTED_EVENTS"));
+        if(System.getenv("DEDUP_FILTER_FALSE_POSITIVE_RATE") != null)
+            deDupFilterFalsePositiveRate = Double.parseDouble(System.getenv("DEDUP_FILTER_FALSE_POSITIVE_RATE"));
+        if(System.getenv("DEDUP_CHANGELOG_ADDITIONAL_RETENTION") != null)
+            deDupChangelogAdditionalRetention = Integer.parseInt(System.getenv("DEDUP_CHANGELOG_ADDITIONAL_RETENTION"));
+
+        if(System.getenv("ROCKSDB_BLOCK_CACHE_SIZE") != null)
+            rocksDBBlockCacheSize = Long.parseLong(System.getenv("ROCKSDB_BLOCK_CACHE_SIZE"));
+        if(System.getenv("ROCKSDB_WRITE_BUFFER_SIZE") != null)
+            rocksDBWriteBufferSize = Long.parseLong(System.getenv("ROCKSDB_WRITE_BUFFER_SIZE"));
+        if(System.getenv("ROCKSDB_MAX_WRITE_BUFFERS") != null)
+            rocksDBMaxWriteBuffers = Integer.parseInt(System.getenv("ROCKSDB_MAX_WRITE_BUFFERS"));
 
         Properties properties = new Properties();
         InputStream inputStream = null;
@@ -127,6 +152,38 @@ public class AppProperties {
             if(properties.getProperty("DEDUP_STORAGE_TIME") != null)
                 deDupStorageTime = Integer.parseInt(properties.getProperty("DEDUP_STORAGE_TIME"));
 
+        if(deDupStrategy == null)
+            deDupStrategy = properties.getProperty("DEDUP_STRATEGY");
+
+        if(deDupFilterSegments == null)
+            if(properties.getProperty("DEDUP_FILTER_SEGMENTS") != null)
+                deDupFilterSegments = Integer.parseInt(properties.getProperty("DEDUP_FILTER_SEGMENTS"));
+
+        if(deDupFilterExpectedEvents == null)
+            if(properties.getProperty("DEDUP_FILTER_EXPECTED_EVENTS") != null)
+                deDupFilterExpectedEvents = Long.parseLong(properties.getProperty("DEDUP_FILTER_EXPECTED_EVENTS"));
+
+        if(deDupFilterFalsePositiveRate == null)
+            if(properties.getProperty("DEDUP_FILTER_FALSE_POSITIVE_RATE") != null)
+                deDupFilterFalsePositiveRate = Double.parseDouble(properties.getProperty("DEDUP_FILTER_FALSE_POSITIVE_RATE"));
+
+        if(deDupChangelogAdditionalRetention == null)
+            if(properties.getProperty("DEDUP_CHANGELOG_ADDITIONAL_RETENTION") != null)
+                deDupChangelogAdditionalRetention = Integer.parseInt(properties.getProperty("DEDUP_CHANGELOG_ADDITIONAL_RETENTION"));
+
+
+        if(rocksDBBlockCacheSize == null)
+            if(properties.getProperty("ROCKSDB_BLOCK_CACHE_SIZE") != null)
+                rocksDBBlockCacheSize = Long.parseLong(properties.getProperty("ROCKSDB_BLOCK_CACHE_SIZE"));
+
+        if(rocksDBWriteBufferSize == null)
+            if(properties.getProperty("ROCKSDB_WRITE_BUFFER_SIZE") != null)
+                rocksDBWriteBufferSize = Long.parseLong(properties.getProperty("ROCKSDB_WRITE_BUFFER_SIZE"));
+
+        if(rocksDBMaxWriteBuffers == null)
+            if(properties.getProperty("ROCKSDB_MAX_WRITE_BUFFERS") != null)
+                rocksDBMaxWriteBuffers = Integer.parseInt(properties.getProperty("ROCKSDB_MAX_WRITE_BUFFERS"));
+
     }
 
 }
\ No newline at end of file
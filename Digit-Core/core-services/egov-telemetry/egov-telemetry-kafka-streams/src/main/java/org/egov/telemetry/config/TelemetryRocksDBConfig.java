@@ -0,0 +1,40 @@
+package org.egov.telemetry.config;
+
+import org.apache.kafka.streams.state.RocksDBConfigSetter;
+import org.rocksdb.BlockBasedTableConfig;
+import org.rocksdb.BloomFilter;
+import org.rocksdb.Options;
+
+import java.util.Map;
+
+/**
+ * RocksDB settings of the state stores. Every segment of a window store is a RocksDB instance,
+ * so the defaults, sized for a single large store, are scaled down. The sizes are read from the
+ * streams configuration.
+ */
+public class TelemetryRocksDBConfig implements RocksDBConfigSetter {
+
+    public static final String BLOCK_CACHE_SIZE_CONFIG = "telemetry.rocksdb.block.cache.size";
+    public static final String WRITE_BUFFER_SIZE_CONFIG = "telemetry.rocksdb.write.buffer.size";
+    public static final String MAX_WRITE_BUFFERS_CONFIG = "telemetry.rocksdb.max.write.buffers";
+
+    @Override
+    public void setConfig(String storeName, Options options, Map<String, Object> configs) {
+        BlockBasedTableConfig tableConfig = new BlockBasedTableConfig();
+        tableConfig.setBlockCacheSize(getLong(configs, BLOCK_CACHE_SIZE_CONFIG, 8 * 1024 * 1024L));
+        tableConfig.setBlockSize(16 * 1024L);
+        // lookups of new event ids, the common case, are answered without reading blocks
+        tableConfig.setFilter(new BloomFilter(10, false));
+        tableConfig.setCacheIndexAndFilterBlocks(true);
+        options.setTableFormatConfig(tableConfig);
+
+        options.setWriteBufferSize(getLong(configs, WRITE_BUFFER_SIZE_CONFIG, 4 * 1024 * 1024L));
+        options.setMaxWriteBufferNumber((int) getLong(configs, MAX_WRITE_BUFFERS_CONFIG, 2));
+    }
+
+    private static long getLong(Map<String, Object> configs, String name, long defaultValue) {
+        Object value = configs.get(name);
+        return value == null ? defaultValue : Long.parseLong(String.valueOf(value));
+    }
+
+}
@@ -0,0 +1,183 @@
+package org.egov.telemetry.deduplicator;
+
+import lombok.extern.slf4j.Slf4j;
+import org.apache.kafka.streams.KeyValue;
+import org.apache.kafka.streams.kstream.KeyValueMapper;
+import org.apache.kafka.streams.kstream.Transformer;
+import org.apache.kafka.streams.kstream.Windowed;
+import org.apache.kafka.streams.processor.ProcessorContext;
+import org.apache.kafka.streams.processor.PunctuationType;
+import org.apache.kafka.streams.state.KeyValueIterator;
+import org.apache.kafka.streams.state.WindowStore;
+import org.apache.kafka.streams.state.WindowStoreIterator;
+
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Discards duplicate records, checking the window store only for the records which a bloom
+ * filter reports as possibly seen. Most records are new, so most of them are forwarded
+ * without reading the store.
+ *
+ * The store is the one of the window strategy, keyed by the hex digest of the record, so the
+ * events seen before switching between the strategies are still found. The filter is not
+ * logged, it is rebuilt from the store when the task is initialized, after the store has been
+ * restored.
+ */
+@Slf4j
+class FilteredDeduplicationTransformer<K, V> implements Transformer<K, V, KeyValue<K, V>> {
+
+    private static final int DIGEST_LENGTH = 64;
+
+    private static final String MIN_EVENT_ID = repeat('0', DIGEST_LENGTH);
+
+    private static final String MAX_EVENT_ID = repeat('F', DIGEST_LENGTH);
+
+    private final String storeName;
+
+    private final long maintainDurationPerEventInMs;
+
+    private final long leftDurationMs;
+
+    private final long rightDurationMs;
+
+    private final int numSegments;
+
+    private final long expectedEventsPerSegment;
+
+    private final double falsePositiveRate;
+
+    private final KeyValueMapper<K, V, String> idExtractor;
+
+    private ProcessorContext context;
+
+    private WindowStore<String, Long> eventIdStore;
+
+    private TimePartitionedBloomFilter filter;
+
+    private long checkedEvents;
+
+    private long suspectedDuplicates;
+
+    private long duplicates;
+
+    /**
+     * @param idExtractor extracts the upper case hex digest of a record; if it returns null, the
+     *                    record is forwarded as-is.
+     */
+    FilteredDeduplicationTransformer(String storeName, long maintainDurationPerEventInMs, int numSegments,
+                                     long expectedEventsPerSegment, double falsePositiveRate,
+                                     KeyValueMapper<K, V, String> idExtractor) {
+        if (maintainDurationPerEventInMs < 1) {
+            throw new IllegalArgumentException("maintain duration per event must be >= 1");
+        }
+        this.storeName = storeName;
+        this.maintainDurationPerEventInMs = maintainDurationPerEventInMs;
+        this.leftDurationMs = maintainDurationPerEventInMs / 2;
+        this.rightDurationMs = maintainDurationPerEventInMs - leftDurationMs;
+        this.numSegments = numSegments;
+        this.expectedEventsPerSegment = expectedEventsPerSegment;
+        this.falsePositiveRate = falsePositiveRate;
+        this.idExtractor = idExtractor;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public void init(final ProcessorContext context) {
+        this.context = context;
+        eventIdStore = (WindowStore<String, Long>) context.getStateStore(storeName);
+        filter = new TimePartitionedBloomFilter(maintainDurationPerEventInMs, numSegments, expectedEventsPerSegment,
+                falsePositiveRate);
+        rebuildFilter();
+        context.schedule(TimeUnit.MINUTES.toMillis(1), PunctuationType.WALL_CLOCK_TIME, timestamp -> logStats());
+    }
+
+    private void rebuildFilter() {
+        long startTime = System.currentTimeMillis();
+        long events = 0;
+        // the store keeps events up to its retention period before the latest event it has seen,
+        // which can be later than the current time
+        try (KeyValueIterator<Windowed<String>, Long> iterator = eventIdStore.fetch(MIN_EVENT_ID, MAX_EVENT_ID,
+                0, Long.MAX_VALUE)) {
+            while (iterator.hasNext()) {
+                KeyValue<Windowed<String>, Long> entry = iterator.next();
+                filter.put(toFingerprint(entry.key.key()), entry.value);
+                events++;
+            }
+        }
+        log.info("Rebuilt dedup filter of task " + context.taskId() + " from " + events + " events in "
+                + (System.currentTimeMillis() - startTime) + " ms, " + filter.sizeInBytes() + " bytes");
+    }
+
+    @Override
+    public KeyValue<K, V> transform(final K key, final V value) {
+        String eventId = idExtractor.apply(key, value);
+        if (eventId == null) {
+            return KeyValue.pair(key, value);
+        }
+        checkedEvents++;
+        byte[] fingerprint = toFingerprint(eventId);
+        long timestamp = context.timestamp();
+        KeyValue<K, V> output = KeyValue.pair(key, value);
+        if (filter.mightContain(fingerprint)) {
+            suspectedDuplicates++;
+            if (isDuplicate(eventId, timestamp)) {
+                duplicates++;
+                output = null;
+            }
+        }
+        // for duplicates, this updates the timestamp of the existing event to prevent its expiry
+        eventIdStore.put(eventId, timestamp, timestamp);
+        filter.put(fingerprint, timestamp);
+        return output;
+    }
+
+    private boolean isDuplicate(final String eventId, long eventTime) {
+        try (WindowStoreIterator<Long> timeIterator = eventIdStore.fetch(eventId, eventTime - leftDurationMs,
+                eventTime + rightDurationMs)) {
+            return timeIterator.hasNext();
+        }
+    }
+
+    private void logStats() {
+        if (checkedEvents == 0)
+            return;
+        long falsePositives = suspectedDuplicates - duplicates;
+        log.info("Dedup filter of task " + context.taskId() + ": " + checkedEvents + " events, " + suspectedDuplicates
+                + " checked against the store, " + duplicates + " duplicates, false positive rate "
+                + String.format("%.4f", (double) falsePositives / Math.max(1, checkedEvents - duplicates))
+                + ", " + filter.sizeInBytes() + " bytes");
+        checkedEvents = 0;
+        suspectedDuplicates = 0;
+        duplicates = 0;
+    }
+
+    @Override
+    public KeyValue<K, V> punctuate(final long timestamp) {
+        return null;
+    }
+
+    @Override
+    public void close() {
+        // The store is closed by the Kafka Streams API.
+    }
+
+    /**
+     * The first 16 bytes of the hex digest of a record, which the filter hashes.
+     */
+    static byte[] toFingerprint(String eventId) {
+        byte[] fingerprint = new byte[16];
+        for (int i = 0; i < fingerprint.length && 2 * i + 1 < eventId.length(); i++) {
+            fingerprint[i] = (byte) ((Character.digit(eventId.charAt(2 * i), 16) << 4)
+                    | Character.digit(eventId.charAt(2 * i + 1), 16));
+        }
+        return fingerprint;
+    }
+
+    private static String repeat(char c, int count) {
+        char[] chars = new char[count];
+        Arrays.fill(chars, c);
+        return new String(chars);
+    }
+
+}
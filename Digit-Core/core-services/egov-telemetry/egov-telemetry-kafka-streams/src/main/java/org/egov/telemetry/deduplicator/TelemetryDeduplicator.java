@@ -15,6 +15,8 @@ import org.apache.kafka.streams.state.StoreBuilder;
 import org.apache.kafka.streams.state.Stores;
 import org.apache.kafka.streams.state.WindowStore;
 import org.apache.kafka.streams.state.WindowStoreIterator;
+import org.egov.telemetry.config.AppProperties;
+import org.egov.telemetry.config.TelemetryRocksDBConfig;
 import org.json.JSONObject;
 
 import java.util.Properties;
@@ -24,6 +26,9 @@ import java.util.concurrent.TimeUnit;
 public class TelemetryDeduplicator {
 
     private static String storeName = "eventId-store";
+
+    private static final String FILTER_STRATEGY = "filter";
+
     /**
      * Discards duplicate records from the input stream.
      *
@@ -126,15 +131,16 @@ public class TelemetryDeduplicator {
     }
 
     public void shouldRemoveDuplicatesFromTheInput(Properties streamsConfiguration, String inputTopic,
-                                                   String outputTopic, Integer deDupStorageTime, String streamName) {
+                                                   String outputTopic, String streamName, AppProperties appProperties) {
 
         StreamsBuilder builder = new StreamsBuilder();
 
         streamsConfiguration.put(StreamsConfig.APPLICATION_ID_CONFIG, streamName);
         streamsConfiguration.put(StreamsConfig.DEFAULT_KEY_SERDE_CLASS_CONFIG, Serdes.ByteArray().getClass().getName());
         streamsConfiguration.put(StreamsConfig.DEFAULT_VALUE_SERDE_CLASS_CONFIG, Serdes.String().getClass().getName());
+        setStoreConfigs(streamsConfiguration, appProperties);
 
-        long maintainDurationPerEventInMs = TimeUnit.MINUTES.toMillis(deDupStorageTime);
+        long maintainDurationPerEventInMs = TimeUnit.MINUTES.toMillis(appProperties.getDeDupStorageTime());
 
         // The number of segments has no impact on "correctness".
         // Using more segments implies larger overhead but allows for more fined grained record expiration
@@ -145,6 +151,10 @@ public class TelemetryDeduplicator {
         // and thus just use the window size as retention time
         long retentionPeriod = maintainDurationPerEventInMs;
 
+        KStream<byte[], String> input = builder.stream(inputTopic);
+        KStream<byte[], String> deduplicated;
+
+        // Both strategies use the same store, so that switching between them keeps the events seen.
         StoreBuilder<WindowStore<String, Long>> dedupStoreBuilder = Stores.windowStoreBuilder(
                 Stores.persistentWindowStore(storeName,
                         retentionPeriod,
@@ -154,19 +164,29 @@ public class TelemetryDeduplicator {
                 ),
                 Serdes.String(),
                 Serdes.Long());
-
-
         builder.addStateStore(dedupStoreBuilder);
 
-
-        KStream<byte[], String> input = builder.stream(inputTopic);
-        KStream<byte[], String> deduplicated = input.transform(
-                () -> new DeduplicationTransformer<>(maintainDurationPerEventInMs, (key, value) -> RemoveMetaData.getDigest(String.valueOf(value))),
-                storeName);
+        if (FILTER_STRATEGY.equalsIgnoreCase(appProperties.getDeDupStrategy())) {
+            int filterSegments = appProperties.getDeDupFilterSegments();
+            long expectedEvents = appProperties.getDeDupFilterExpectedEvents();
+            double falsePositiveRate = appProperties.getDeDupFilterFalsePositiveRate();
+            deduplicated = input.transform(
+                    () -> new FilteredDeduplicationTransformer<>(storeName, maintainDurationPerEventInMs,
+                            filterSegments, expectedEvents, falsePositiveRate,
+                            (key, value) -> RemoveMetaData.getDigest(String.valueOf(value))),
+                    storeName);
+        } else {
+            deduplicated = input.transform(
+                    () -> new DeduplicationTransformer<>(maintainDurationPerEventInMs, (key, value) -> RemoveMetaData.getDigest(String.valueOf(value))),
+                    storeName);
+        }
         deduplicated.to(outputTopic);
 
+        // The local state is not cleaned up before starting, streams.cleanUp() would delete it and
+        // every restart would restore the whole changelog of the dedup store. Kafka Streams restores
+        // a store from the offset in its checkpoint, or from the start of the changelog when the
+        // local state is missing, as on a new instance.
         KafkaStreams streams = new KafkaStreams(builder.build(), streamsConfiguration);
-        streams.cleanUp();
         streams.start();
         Runtime.getRuntime().addShutdownHook(new Thread(streams::close));
 
@@ -174,6 +194,22 @@ public class TelemetryDeduplicator {
 
     }
 
+    private void setStoreConfigs(Properties streamsConfiguration, AppProperties appProperties) {
+        // The changelog of a window store is kept for a day beyond the store retention by default,
+        // all of which is read back on restore.
+        if (appProperties.getDeDupChangelogAdditionalRetention() != null)
+            streamsConfiguration.put(StreamsConfig.WINDOW_STORE_CHANGE_LOG_ADDITIONAL_RETENTION_MS_CONFIG,
+                    TimeUnit.MINUTES.toMillis(appProperties.getDeDupChangelogAdditionalRetention()));
+
+        streamsConfiguration.put(StreamsConfig.ROCKSDB_CONFIG_SETTER_CLASS_CONFIG, TelemetryRocksDBConfig.class);
+        if (appProperties.getRocksDBBlockCacheSize() != null)
+            streamsConfiguration.put(TelemetryRocksDBConfig.BLOCK_CACHE_SIZE_CONFIG, appProperties.getRocksDBBlockCacheSize());
+        if (appProperties.getRocksDBWriteBufferSize() != null)
+            streamsConfiguration.put(TelemetryRocksDBConfig.WRITE_BUFFER_SIZE_CONFIG, appProperties.getRocksDBWriteBufferSize());
+        if (appProperties.getRocksDBMaxWriteBuffers() != null)
+            streamsConfiguration.put(TelemetryRocksDBConfig.MAX_WRITE_BUFFERS_CONFIG, appProperties.getRocksDBMaxWriteBuffers());
+    }
+
 
     private static class RemoveMetaData {
         public static String getDigest(String value) {
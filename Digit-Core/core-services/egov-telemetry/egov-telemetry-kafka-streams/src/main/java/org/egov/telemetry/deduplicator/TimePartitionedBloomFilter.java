@@ -0,0 +1,103 @@
+package org.egov.telemetry.deduplicator;
+
+import java.util.Iterator;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Bloom filter of event fingerprints, split into segments of event time so that old events
+ * expire segment by segment, the same way they do from a window store.
+ *
+ * The filter never misses an event which has been put in one of its live segments, it can
+ * only report events it has not seen as possibly seen. Segments are kept for at least the
+ * retention period, events older than the oldest live segment are put in that segment.
+ */
+class TimePartitionedBloomFilter {
+
+    private final long segmentIntervalMs;
+
+    private final int numSegments;
+
+    private final int numBits;
+
+    private final int numHashes;
+
+    // segment id (event time / segment interval) -> bits
+    private final TreeMap<Long, long[]> segments = new TreeMap<>();
+
+    /**
+     * @param retentionMs how long events have to be remembered
+     * @param numSegments number of segments the retention period is split into
+     * @param expectedEventsPerSegment number of events expected in a segment, more events raise
+     *                                 the false positive rate
+     * @param falsePositiveRate expected false positive rate of the filter, lookups go through all
+     *                          the segments so each of them is sized for a share of it
+     */
+    TimePartitionedBloomFilter(long retentionMs, int numSegments, long expectedEventsPerSegment,
+                               double falsePositiveRate) {
+        if (numSegments < 1 || expectedEventsPerSegment < 1 || falsePositiveRate <= 0 || falsePositiveRate >= 1) {
+            throw new IllegalArgumentException("Invalid bloom filter configuration");
+        }
+        this.segmentIntervalMs = Math.max(1, retentionMs / numSegments);
+        // one more segment than the retention needs, the newest one is only partly filled
+        this.numSegments = numSegments + 1;
+        double segmentFalsePositiveRate = falsePositiveRate / this.numSegments;
+        long bits = (long) Math.ceil(-expectedEventsPerSegment * Math.log(segmentFalsePositiveRate) / (Math.log(2) * Math.log(2)));
+        this.numBits = (int) Math.min(Integer.MAX_VALUE - 63, Math.max(64, bits));
+        this.numHashes = Math.max(1, (int) Math.round((double) numBits / expectedEventsPerSegment * Math.log(2)));
+    }
+
+    /**
+     * @param fingerprint at least 16 bytes of a digest of the event
+     * @param timestamp   event time
+     */
+    void put(byte[] fingerprint, long timestamp) {
+        long segmentId = timestamp / segmentIntervalMs;
+        if (segments.isEmpty() || segmentId > segments.lastKey()) {
+            segments.put(segmentId, new long[(numBits + 63) / 64]);
+            segments.headMap(segmentId - numSegments, true).clear();
+        }
+        Map.Entry<Long, long[]> segment = segments.floorEntry(segmentId);
+        long[] bits = segment == null ? segments.firstEntry().getValue() : segment.getValue();
+        long hash1 = readLong(fingerprint, 0);
+        long hash2 = readLong(fingerprint, 8);
+        for (int i = 0; i < numHashes; i++) {
+            int bit = bitIndex(hash1, hash2, i);
+            bits[bit >>> 6] |= 1L << bit;
+        }
+    }
+
+    boolean mightContain(byte[] fingerprint) {
+        long hash1 = readLong(fingerprint, 0);
+        long hash2 = readLong(fingerprint, 8);
+        Iterator<long[]> iterator = segments.descendingMap().values().iterator();
+        while (iterator.hasNext()) {
+            long[] bits = iterator.next();
+            boolean found = true;
+            for (int i = 0; i < numHashes && found; i++) {
+                int bit = bitIndex(hash1, hash2, i);
+                found = (bits[bit >>> 6] & (1L << bit)) != 0;
+            }
+            if (found)
+                return true;
+        }
+        return false;
+    }
+
+    long sizeInBytes() {
+        return (long) segments.size() * ((numBits + 63) / 64) * 8;
+    }
+
+    private int bitIndex(long hash1, long hash2, int i) {
+        return (int) (((hash1 + i * hash2) & Long.MAX_VALUE) % numBits);
+    }
+
+    private static long readLong(byte[] bytes, int offset) {
+        long value = 0;
+        for (int i = offset; i < offset + 8; i++) {
+            value = (value << 8) | (bytes[i] & 0xFF);
+        }
+        return value;
+    }
+
+}
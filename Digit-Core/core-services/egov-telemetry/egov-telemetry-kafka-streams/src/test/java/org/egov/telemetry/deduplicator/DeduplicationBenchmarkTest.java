@@ -0,0 +1,187 @@
+package org.egov.telemetry.deduplicator;
+
+import org.apache.commons.codec.digest.DigestUtils;
+import org.egov.telemetry.config.TelemetryRocksDBConfig;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.rocksdb.BlockBasedTableConfig;
+import org.rocksdb.CompactionStyle;
+import org.rocksdb.CompressionType;
+import org.rocksdb.Options;
+import org.rocksdb.RocksDB;
+import org.rocksdb.RocksDBException;
+import org.rocksdb.RocksIterator;
+import org.rocksdb.WriteBatch;
+import org.rocksdb.WriteOptions;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Compares the filter strategy with the window store alone: the false positive rate and the
+ * memory of the filter against the size of the store entries it saves reading, and the time to
+ * restore the changelog of the store, with the default retention and RocksDB settings of Kafka
+ * Streams and with the bounded retention and tuned settings, followed by the rebuild of the
+ * filter.
+ *
+ * The changelog is restored in batches into a single RocksDB instance, the way Kafka Streams
+ * restores a segment of the store, without a broker.
+ */
+public class DeduplicationBenchmarkTest {
+
+    private static final long STORAGE_MINUTES = 60;
+    private static final long ADDITIONAL_RETENTION_MINUTES = 10;
+    private static final long DEFAULT_ADDITIONAL_RETENTION_MINUTES = TimeUnit.DAYS.toMinutes(1);
+    private static final int EVENTS_PER_MINUTE = 1000;
+    private static final int FILTER_SEGMENTS = 4;
+    private static final double FALSE_POSITIVE_RATE = 0.01;
+    private static final int RESTORE_BATCH_SIZE = 1000;
+
+    // hex digest, timestamp and sequence number of the window store key, and the timestamp value
+    private static final int STORE_ENTRY_BYTES = 64 + 8 + 4 + 8;
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void filterFalsePositiveRateAndMemory() {
+        long retentionMs = TimeUnit.MINUTES.toMillis(STORAGE_MINUTES);
+        int events = (int) (STORAGE_MINUTES * EVENTS_PER_MINUTE);
+        TimePartitionedBloomFilter filter = new TimePartitionedBloomFilter(retentionMs, FILTER_SEGMENTS,
+                events / FILTER_SEGMENTS, FALSE_POSITIVE_RATE);
+        long interval = retentionMs / events;
+        for (int i = 0; i < events; i++) {
+            filter.put(fingerprint(i), i * interval);
+        }
+
+        int missed = 0;
+        for (int i = 0; i < events; i++) {
+            if (!filter.mightContain(fingerprint(i)))
+                missed++;
+        }
+        int falsePositives = 0;
+        int probes = 100000;
+        for (int i = events; i < events + probes; i++) {
+            if (filter.mightContain(fingerprint(i)))
+                falsePositives++;
+        }
+
+        double rate = (double) falsePositives / probes;
+        long storeBytes = (long) events * STORE_ENTRY_BYTES;
+        String report = String.format("%d events: false positive rate %.4f (target %.2f), filter %d bytes,"
+                + " store entries %d bytes", events, rate, FALSE_POSITIVE_RATE, filter.sizeInBytes(), storeBytes);
+        assertEquals(report, 0, missed);
+        assertTrue(report, rate <= 2 * FALSE_POSITIVE_RATE);
+        assertTrue(report, filter.sizeInBytes() * 10 < storeBytes);
+    }
+
+    @Test
+    public void restoreOfTheBoundedChangelog() throws Exception {
+        RocksDB.loadLibrary();
+        int defaultRecords = (int) ((STORAGE_MINUTES + DEFAULT_ADDITIONAL_RETENTION_MINUTES) * EVENTS_PER_MINUTE);
+        int boundedRecords = (int) ((STORAGE_MINUTES + ADDITIONAL_RETENTION_MINUTES) * EVENTS_PER_MINUTE);
+
+        long defaultRestore;
+        try (Options options = streamsOptions()) {
+            defaultRestore = restore(options, defaultRecords);
+        }
+
+        long boundedRestore;
+        long rebuild;
+        TimePartitionedBloomFilter filter = new TimePartitionedBloomFilter(
+                TimeUnit.MINUTES.toMillis(STORAGE_MINUTES), FILTER_SEGMENTS,
+                STORAGE_MINUTES * EVENTS_PER_MINUTE / FILTER_SEGMENTS, FALSE_POSITIVE_RATE);
+        try (Options options = streamsOptions()) {
+            Map<String, Object> configs = new HashMap<>();
+            configs.put(TelemetryRocksDBConfig.BLOCK_CACHE_SIZE_CONFIG, 8388608L);
+            configs.put(TelemetryRocksDBConfig.WRITE_BUFFER_SIZE_CONFIG, 4194304L);
+            configs.put(TelemetryRocksDBConfig.MAX_WRITE_BUFFERS_CONFIG, 2);
+            new TelemetryRocksDBConfig().setConfig("eventId-store", options, configs);
+            String path = folder.newFolder().getPath();
+            boundedRestore = restore(options, path, boundedRecords);
+
+            long startTime = System.nanoTime();
+            try (RocksDB db = RocksDB.open(options, path); RocksIterator iterator = db.newIterator()) {
+                for (iterator.seekToFirst(); iterator.isValid(); iterator.next()) {
+                    ByteBuffer key = ByteBuffer.wrap(iterator.key());
+                    String eventId = new String(iterator.key(), 0, 64, StandardCharsets.UTF_8);
+                    filter.put(FilteredDeduplicationTransformer.toFingerprint(eventId), key.getLong(64));
+                }
+            }
+            rebuild = elapsedMs(startTime);
+        }
+
+        String report = String.format("restore of %d records (default retention and settings) %d ms,"
+                        + " %d records (bounded retention, tuned settings) %d ms, filter rebuild %d ms",
+                defaultRecords, defaultRestore, boundedRecords, boundedRestore, rebuild);
+        for (int i = boundedRecords - EVENTS_PER_MINUTE; i < boundedRecords; i++) {
+            assertTrue(report, filter.mightContain(fingerprint(i)));
+        }
+        assertTrue(report, (boundedRestore + rebuild) * 5 < defaultRestore);
+    }
+
+    private long restore(Options options, int records) throws Exception {
+        return restore(options, folder.newFolder().getPath(), records);
+    }
+
+    /**
+     * Writes the changelog records of the store, events a minute apart in batches, and returns
+     * the time it took.
+     */
+    private static long restore(Options options, String path, int records) throws RocksDBException {
+        long interval = TimeUnit.MINUTES.toMillis(1) / EVENTS_PER_MINUTE;
+        byte[] value = new byte[8];
+        long startTime = System.nanoTime();
+        try (RocksDB db = RocksDB.open(options, path);
+             WriteOptions writeOptions = new WriteOptions().setDisableWAL(true);
+             WriteBatch batch = new WriteBatch()) {
+            for (int i = 0; i < records; i++) {
+                long timestamp = i * interval;
+                byte[] eventId = eventId(i).getBytes(StandardCharsets.UTF_8);
+                batch.put(ByteBuffer.allocate(eventId.length + 12).put(eventId).putLong(timestamp).putInt(0).array(),
+                        ByteBuffer.wrap(value).putLong(0, timestamp).array());
+                if (batch.count() == RESTORE_BATCH_SIZE || i == records - 1) {
+                    db.write(writeOptions, batch);
+                    batch.clear();
+                }
+            }
+        }
+        return elapsedMs(startTime);
+    }
+
+    /**
+     * Settings Kafka Streams gives the RocksDB instances of its stores before applying the
+     * configured RocksDBConfigSetter.
+     */
+    private static Options streamsOptions() {
+        BlockBasedTableConfig tableConfig = new BlockBasedTableConfig();
+        tableConfig.setBlockCacheSize(50 * 1024 * 1024L);
+        tableConfig.setBlockSize(4096L);
+        return new Options()
+                .setTableFormatConfig(tableConfig)
+                .setWriteBufferSize(16 * 1024 * 1024L)
+                .setCompressionType(CompressionType.NO_COMPRESSION)
+                .setCompactionStyle(CompactionStyle.UNIVERSAL)
+                .setMaxWriteBufferNumber(3)
+                .setCreateIfMissing(true);
+    }
+
+    private static String eventId(int event) {
+        return DigestUtils.sha256Hex("event-" + event).toUpperCase();
+    }
+
+    private static byte[] fingerprint(int event) {
+        return FilteredDeduplicationTransformer.toFingerprint(eventId(event));
+    }
+
+    private static long elapsedMs(long startTime) {
+        return TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startTime);
+    }
+}
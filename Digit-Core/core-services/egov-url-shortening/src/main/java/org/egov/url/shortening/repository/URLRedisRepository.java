@@ -1,6 +1,7 @@
 package org.egov.url.shortening.repository;
 
 import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
 import org.egov.url.shortening.model.ShortenRequest;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -12,15 +13,18 @@ import org.springframework.stereotype.Repository;
 import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.ObjectMapper;
 
+import redis.clients.jedis.ConnectionPoolConfig;
 import redis.clients.jedis.HostAndPort;
-import redis.clients.jedis.Jedis;
+import redis.clients.jedis.JedisPooled;
+import redis.clients.jedis.UnifiedJedis;
 
 @Repository
 @Order(2)
 public class URLRedisRepository implements URLRepository {
-    private Jedis jedis;
+    private UnifiedJedis jedis;
     private String idKey;
     private String urlKey;
+    private String urlIndexKey;
     private static final Logger LOGGER = LoggerFactory.getLogger(URLRedisRepository.class);
 
     @Value("${spring.redis.host}")
@@ -28,26 +32,46 @@ public class URLRedisRepository implements URLRepository {
 
     @Value("${spring.redis.port}")
     private String redisPort;
+
+    @Value("${redis.pool.max.total:50}")
+    private Integer poolMaxTotal;
+
+    @Value("${redis.pool.max.idle:10}")
+    private Integer poolMaxIdle;
     
     @Autowired
     private ObjectMapper objectMapper;
 
     public URLRedisRepository() {
-        this.jedis = new Jedis();
         this.idKey = "id";
         this.urlKey = "url:";
+        this.urlIndexKey = "urlindex:";
     }
 
-    public URLRedisRepository(Jedis jedis, String idKey, String urlKey) {
+    public URLRedisRepository(UnifiedJedis jedis, String idKey, String urlKey) {
         this.jedis = jedis;
         this.idKey = idKey;
         this.urlKey = urlKey;
+        this.urlIndexKey = "urlindex:";
     }
 
+    /**
+     * Requests are served concurrently, so commands go through a connection
+     * pool instead of a single connection shared by all threads.
+     */
     @PostConstruct
     private void init() {
         HostAndPort hostAndPort = new HostAndPort(redisHost, Integer.valueOf(redisPort));
-        this.jedis = new Jedis(hostAndPort);
+        ConnectionPoolConfig poolConfig = new ConnectionPoolConfig();
+        poolConfig.setMaxTotal(poolMaxTotal);
+        poolConfig.setMaxIdle(poolMaxIdle);
+        this.jedis = new JedisPooled(poolConfig, hostAndPort.getHost(), hostAndPort.getPort());
+    }
+
+    @PreDestroy
+    private void destroy() {
+        if (jedis != null)
+            jedis.close();
     }
 
     @Override
@@ -61,6 +85,8 @@ public class URLRedisRepository implements URLRepository {
     public void saveUrl(String key, ShortenRequest shortenRequest) throws JsonProcessingException {
         LOGGER.info("Saving: {} at {}", shortenRequest.getUrl(), key);
         jedis.hset(urlKey, key, objectMapper.writeValueAsString(shortenRequest));
+        // the first key saved for a url stays the one returned for it
+        jedis.hsetnx(urlIndexKey, URLRepository.getIndexKey(shortenRequest), key);
     }
 
     @Override
@@ -75,4 +101,12 @@ public class URLRedisRepository implements URLRepository {
         }
         return url;
     }
+
+    @Override
+    public Long findIdByUrl(ShortenRequest shortenRequest) {
+        String key = jedis.hget(urlIndexKey, URLRepository.getIndexKey(shortenRequest));
+        if (key == null)
+            return null;
+        return Long.valueOf(key.substring(key.indexOf(':') + 1));
+    }
 }
@@ -10,4 +10,14 @@ public interface URLRepository {
 	 public void saveUrl(String key, ShortenRequest shortenRequest)throws JsonProcessingException ;
 	 public String getUrl(Long id) throws Exception ;
 
+	 /**
+	  * Returns the id under which the same url with the same validity was
+	  * shortened before, or null if it was not.
+	  */
+	 public Long findIdByUrl(ShortenRequest shortenRequest);
+
+	 public static String getIndexKey(ShortenRequest shortenRequest) {
+		 return shortenRequest.getUrl() + "|" + shortenRequest.getValidFrom() + "|" + shortenRequest.getValidTill();
+	 }
+
 }
@@ -2,6 +2,8 @@ package org.egov.url.shortening.repository;
 
 import java.sql.PreparedStatement;
 import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
 
 import org.egov.url.shortening.model.ShortenRequest;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -73,4 +75,30 @@ public class UrlDBRepository implements URLRepository{
         return url;
     }
 
+	@Override
+	public Long findIdByUrl(ShortenRequest shortenRequest) {
+		StringBuilder query = new StringBuilder("SELECT id FROM eg_url_shortener WHERE url=?");
+		List<Object> preparedStmtList = new ArrayList<>();
+		preparedStmtList.add(shortenRequest.getUrl());
+		if (shortenRequest.getValidFrom() == null)
+			query.append(" AND validform IS NULL");
+		else {
+			query.append(" AND validform=?");
+			preparedStmtList.add(shortenRequest.getValidFrom());
+		}
+		if (shortenRequest.getValidTill() == null)
+			query.append(" AND validto IS NULL");
+		else {
+			query.append(" AND validto=?");
+			preparedStmtList.add(shortenRequest.getValidTill());
+		}
+		query.append(" LIMIT 1");
+
+		List<String> keys = jdbcTemplate.queryForList(query.toString(), String.class, preparedStmtList.toArray());
+		if (keys.isEmpty())
+			return null;
+		String key = keys.get(0);
+		return Long.valueOf(key.substring(key.indexOf(':') + 1));
+	}
+
 }
@@ -1,6 +1,8 @@
 package org.egov.url.shortening.service;
 
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 
@@ -62,6 +64,15 @@ public class URLConverterService {
 
     @Value("${url.shorten.indexer.topic}")
     private String kafkaTopic;
+
+    @Value("${url.shortening.dedup.enabled:true}")
+    private Boolean isDedupEnabled;
+
+    @Value("${url.shortening.cache.max.size:10000}")
+    private Integer cacheMaxSize;
+
+    // shortened urls never change, so the most recently redirected ones are kept in memory
+    private Map<Long, String> hotUrls;
     
     @Autowired
     private HashIdConverter hashIdConverter;
@@ -88,19 +99,30 @@ public class URLConverterService {
     		urlRepository =  urlRepositories.get(0);
     	else
     		urlRepository = urlRepositories.get(1);
+
+    	hotUrls = Collections.synchronizedMap(new LinkedHashMap<Long, String>(16, 0.75f, true) {
+    		@Override
+    		protected boolean removeEldestEntry(Map.Entry<Long, String> eldest) {
+    			return size() > cacheMaxSize;
+    		}
+    	});
     }
     
 
     public String shortenURL(ShortenRequest shortenRequest, String tenantId, Boolean multiInstance) {
         LOGGER.info("Shortening {}", shortenRequest.getUrl());
-        Long id = urlRepository.incrementID();
+        // the same url is often shortened many times, e.g. payment links in notification campaigns
+        Long id = isDedupEnabled ? urlRepository.findIdByUrl(shortenRequest) : null;
+        if (id == null) {
+            id = urlRepository.incrementID();
+            try {
+                urlRepository.saveUrl("url:" + id, shortenRequest);
+            } catch (JsonProcessingException e) {
+                log.error("Failed to save url at id {}", id, e);
+                throw new CustomException("URL_SHORTENING_SAVE_ERROR", "Failed to save the url to be shortened");
+            }
+        }
         String uniqueID = hashIdConverter.createHashStringForId(id);
-        try {
-			urlRepository.saveUrl("url:"+id, shortenRequest);
-		} catch (JsonProcessingException e) {
-			// TODO Auto-generated catch block
-			e.printStackTrace();
-		}
         StringBuilder shortenedUrl = new StringBuilder();
 
         String stateSpecificHostName;
@@ -132,7 +154,12 @@ public class URLConverterService {
         // To support previously generated dictionary keys
         if(dictionaryKey == null)
             dictionaryKey = IDConvertor.getDictionaryKeyFromUniqueID(uniqueID);
-        String longUrl = urlRepository.getUrl(dictionaryKey);
+        String longUrl = hotUrls.get(dictionaryKey);
+        if (longUrl == null) {
+            longUrl = urlRepository.getUrl(dictionaryKey);
+            if (!longUrl.isEmpty())
+                hotUrls.put(dictionaryKey, longUrl);
+        }
         LOGGER.info("Converting shortened URL back to {}", longUrl);
         if(longUrl.isEmpty())
         	throw new CustomException("INVALID_REQUEST","Invalid Key");
@@ -0,0 +1 @@
+CREATE INDEX IF NOT EXISTS idx_eg_url_shortener_url ON eg_url_shortener (url);
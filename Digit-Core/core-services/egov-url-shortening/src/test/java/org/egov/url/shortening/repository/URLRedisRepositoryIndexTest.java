@@ -0,0 +1,77 @@
+package org.egov.url.shortening.repository;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.egov.url.shortening.model.ShortenRequest;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+import redis.clients.jedis.UnifiedJedis;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class URLRedisRepositoryIndexTest {
+
+    private static final String URL = "https://egov.org.in/citizen/payment?consumerCode=PT-107-001&tenantId=pb.amritsar";
+
+    private final Map<String, Map<String, String>> hashes = new HashMap<>();
+
+    private URLRedisRepository urlRedisRepository;
+
+    @BeforeEach
+    public void setUp() {
+        UnifiedJedis jedis = mock(UnifiedJedis.class);
+        when(jedis.hget(anyString(), anyString())).thenAnswer(invocation -> hashes
+                .getOrDefault(invocation.<String>getArgument(0), new HashMap<>()).get(invocation.<String>getArgument(1)));
+        when(jedis.hset(anyString(), anyString(), anyString())).thenAnswer(invocation -> {
+            hashes.computeIfAbsent(invocation.getArgument(0), key -> new HashMap<>())
+                    .put(invocation.getArgument(1), invocation.getArgument(2));
+            return 1L;
+        });
+        when(jedis.hsetnx(anyString(), anyString(), anyString())).thenAnswer(invocation -> hashes
+                .computeIfAbsent(invocation.getArgument(0), key -> new HashMap<>())
+                .putIfAbsent(invocation.getArgument(1), invocation.getArgument(2)) == null ? 1L : 0L);
+
+        urlRedisRepository = new URLRedisRepository(jedis, "id", "url:");
+        ReflectionTestUtils.setField(urlRedisRepository, "objectMapper", new ObjectMapper());
+    }
+
+    @Test
+    @DisplayName("Should return the id under which the url was saved")
+    public void testFindIdByUrlWhenUrlWasSavedThenReturnId() throws Exception {
+        urlRedisRepository.saveUrl("url:42", request(URL, null, 1893456000000L));
+
+        assertEquals(42L, urlRedisRepository.findIdByUrl(request(URL, null, 1893456000000L)));
+        assertEquals(URL, urlRedisRepository.getUrl(42L));
+    }
+
+    @Test
+    @DisplayName("Should return null when the url was saved with another validity")
+    public void testFindIdByUrlWhenValidityDiffersThenReturnNull() throws Exception {
+        urlRedisRepository.saveUrl("url:42", request(URL, null, 1893456000000L));
+
+        assertNull(urlRedisRepository.findIdByUrl(request(URL, null, null)));
+        assertNull(urlRedisRepository.findIdByUrl(request(URL, 1L, 1893456000000L)));
+    }
+
+    @Test
+    @DisplayName("Should keep returning the first id when the url is saved again")
+    public void testFindIdByUrlWhenUrlIsSavedTwiceThenReturnFirstId() throws Exception {
+        urlRedisRepository.saveUrl("url:42", request(URL, null, null));
+        urlRedisRepository.saveUrl("url:43", request(URL, null, null));
+
+        assertEquals(42L, urlRedisRepository.findIdByUrl(request(URL, null, null)));
+    }
+
+    private static ShortenRequest request(String url, Long validFrom, Long validTill) {
+        return ShortenRequest.builder().url(url).validFrom(validFrom).validTill(validTill).build();
+    }
+
+}
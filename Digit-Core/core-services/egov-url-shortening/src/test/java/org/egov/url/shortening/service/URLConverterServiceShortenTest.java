@@ -0,0 +1,110 @@
+package org.egov.url.shortening.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.egov.tracer.model.CustomException;
+import org.egov.url.shortening.model.ShortenRequest;
+import org.egov.url.shortening.producer.Producer;
+import org.egov.url.shortening.repository.URLRepository;
+import org.egov.url.shortening.utils.HashIdConverter;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.client.RestTemplate;
+
+import java.util.Arrays;
+import java.util.Collections;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class URLConverterServiceShortenTest {
+
+    private final URLRepository dbRepository = mock(URLRepository.class);
+
+    private final URLRepository redisRepository = mock(URLRepository.class);
+
+    private final HashIdConverter hashIdConverter = mock(HashIdConverter.class);
+
+    private URLConverterService urlConverterService;
+
+    private final ShortenRequest shortenRequest = ShortenRequest.builder()
+            .url("https://egov.org.in/citizen/payment?consumerCode=PT-107-001&tenantId=pb.amritsar")
+            .validTill(1893456000000L)
+            .build();
+
+    @BeforeEach
+    public void setUp() {
+        urlConverterService = new URLConverterService(Arrays.asList(dbRepository, redisRepository), new ObjectMapper(),
+                mock(RestTemplate.class), mock(Producer.class));
+        ReflectionTestUtils.setField(urlConverterService, "hashIdConverter", hashIdConverter);
+        ReflectionTestUtils.setField(urlConverterService, "isDbPersitanceEnabled", false);
+        ReflectionTestUtils.setField(urlConverterService, "isDedupEnabled", true);
+        ReflectionTestUtils.setField(urlConverterService, "cacheMaxSize", 100);
+        ReflectionTestUtils.setField(urlConverterService, "hostNameMap", Collections.emptyMap());
+        ReflectionTestUtils.setField(urlConverterService, "hostName", "https://egov.org.in/");
+        ReflectionTestUtils.setField(urlConverterService, "serverContextPath", "/egov-url-shortening/");
+        urlConverterService.initialize();
+        when(hashIdConverter.createHashStringForId(any())).thenAnswer(invocation -> "h" + invocation.getArgument(0));
+    }
+
+    @Test
+    @DisplayName("Should return the existing key when the url was shortened before with the same validity")
+    public void testShortenURLWhenUrlWasShortenedBeforeThenReturnExistingKey() throws Exception {
+        when(redisRepository.findIdByUrl(shortenRequest)).thenReturn(7L);
+
+        String shortenedUrl = urlConverterService.shortenURL(shortenRequest, "pb", false);
+
+        assertEquals("https://egov.org.in/egov-url-shortening/h7", shortenedUrl);
+        verify(redisRepository, never()).incrementID();
+        verify(redisRepository, never()).saveUrl(anyString(), any());
+    }
+
+    @Test
+    @DisplayName("Should save the url under a new key when it was not shortened before")
+    public void testShortenURLWhenUrlWasNotShortenedBeforeThenSaveNewKey() throws Exception {
+        when(redisRepository.findIdByUrl(shortenRequest)).thenReturn(null);
+        when(redisRepository.incrementID()).thenReturn(8L);
+
+        String shortenedUrl = urlConverterService.shortenURL(shortenRequest, "pb", false);
+
+        assertEquals("https://egov.org.in/egov-url-shortening/h8", shortenedUrl);
+        verify(redisRepository).saveUrl("url:8", shortenRequest);
+    }
+
+    @Test
+    @DisplayName("Should not look up the url when dedup is disabled")
+    public void testShortenURLWhenDedupIsDisabledThenSaveNewKey() throws Exception {
+        ReflectionTestUtils.setField(urlConverterService, "isDedupEnabled", false);
+        when(redisRepository.incrementID()).thenReturn(9L);
+
+        urlConverterService.shortenURL(shortenRequest, "pb", false);
+
+        verify(redisRepository, never()).findIdByUrl(any());
+        verify(redisRepository).saveUrl("url:9", shortenRequest);
+    }
+
+    @Test
+    @DisplayName("Should throw an exception when the url cannot be saved")
+    public void testShortenURLWhenSaveFailsThenThrowException() throws Exception {
+        when(redisRepository.findIdByUrl(shortenRequest)).thenReturn(null);
+        when(redisRepository.incrementID()).thenReturn(10L);
+        doThrow(new JsonProcessingException("Unable to serialize") {}).when(redisRepository)
+                .saveUrl("url:10", shortenRequest);
+
+        CustomException exception = assertThrows(CustomException.class,
+                () -> urlConverterService.shortenURL(shortenRequest, "pb", false));
+
+        assertEquals("URL_SHORTENING_SAVE_ERROR", exception.getCode());
+        verify(hashIdConverter, never()).createHashStringForId(any());
+    }
+
+}
@@ -94,4 +94,16 @@ public class PropertiesManager {
 	
 	@Value("${egov.localisation.is.statelevel}")
 	public Boolean isLocalizationStateLevel;
+	
+	@Value("${egov.user.event.status.transition.batch.size:1000}")
+	public Integer statusTransitionBatchSize;
+	
+	@Value("${egov.user.event.count.cache.enabled:true}")
+	public Boolean isCountCacheEnabled;
+	
+	@Value("${egov.user.event.count.cache.ttl.seconds:3600}")
+	public Long countCacheTtlSeconds;
+	
+	@Value("${egov.user.event.count.cache.persist.lag.ms:10000}")
+	public Long countCachePersistLagMs;
 }
\ No newline at end of file
@@ -0,0 +1,183 @@
+package org.egov.userevent.repository;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
+import java.util.concurrent.TimeUnit;
+
+import org.egov.userevent.config.PropertiesManager;
+import org.egov.userevent.web.contract.NotificationCountResponse;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.redis.connection.StringRedisConnection;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.stereotype.Repository;
+import org.springframework.util.CollectionUtils;
+
+/**
+ * Counts of events of users as counted in the database, kept in redis so that
+ * polling the unread count doesn't run the count query on every poll.
+ *
+ * The database stays the source of truth. Every recepient has a change stamp,
+ * the time its events were last created or updated, and the status job stamps
+ * all recepients at once when it moves statuses. A cached count is used only
+ * if it was counted after the latest stamp of its recepients, plus the time
+ * the persister may take to write the events, so a poll costs a couple of key
+ * lookups and the time to live only bounds how long unused counts are kept.
+ * Accessing the events marks the cached count of the user as read, as the
+ * database does once the last access time is persisted.
+ */
+@Repository
+public class NotificationCountCacheRepository {
+
+	private static final String KEY_PREFIX = "userevent:count:";
+
+	private static final String STAMP_KEY_PREFIX = "userevent:stamp:";
+
+	private static final String STATUS_STAMP_KEY = "userevent:statusstamp";
+
+	private static final String VALUE_SEPARATOR = ",";
+
+	@Autowired
+	private StringRedisTemplate redisTemplate;
+
+	@Autowired
+	private PropertiesManager properties;
+
+	/**
+	 * Returns the cached count of events of the user for these recepients, or null
+	 * if there is none, it has expired or events of the recepients have changed
+	 * since it was counted.
+	 *
+	 * @param userId
+	 * @param recepients
+	 * @return
+	 */
+	public NotificationCountResponse get(String userId, List<String> recepients) {
+		Object value = redisTemplate.opsForHash().get(KEY_PREFIX + userId, getRecepientSetId(recepients));
+		if (null == value)
+			return null;
+		String[] counts = value.toString().split(VALUE_SEPARATOR);
+		long countedTime = Long.parseLong(counts[2]);
+		if (System.currentTimeMillis() - countedTime >= TimeUnit.SECONDS.toMillis(properties.getCountCacheTtlSeconds()))
+			return null;
+		if (countedTime < getLastChangeTime(recepients) + properties.getCountCachePersistLagMs())
+			return null;
+		return NotificationCountResponse.builder().totalCount(Long.parseLong(counts[0]))
+				.unreadCount(Long.parseLong(counts[1])).build();
+	}
+
+	/**
+	 * Caches the count of events of the user counted in the database.
+	 *
+	 * @param userId
+	 * @param recepients
+	 * @param count
+	 * @param countedTime the time the count query was started at
+	 */
+	public void put(String userId, List<String> recepients, NotificationCountResponse count, long countedTime) {
+		Map<String, String> values = new HashMap<>();
+		values.put(getRecepientSetId(recepients),
+				toValue(count.getTotalCount(), count.getUnreadCount(), countedTime));
+		putValues(userId, values);
+	}
+
+	/**
+	 * Stamps the recepients of events which have been created or updated, which
+	 * invalidates the cached counts of their users.
+	 *
+	 * @param recepients
+	 */
+	public void touch(Collection<String> recepients) {
+		if (CollectionUtils.isEmpty(recepients))
+			return;
+		List<String> keys = new ArrayList<>();
+		new TreeSet<>(recepients).forEach(recepient -> keys.add(STAMP_KEY_PREFIX + recepient));
+		putStamps(keys);
+	}
+
+	/**
+	 * Stamps every recepient, after the statuses of events have been moved.
+	 */
+	public void touchStatuses() {
+		List<String> keys = new ArrayList<>();
+		keys.add(STATUS_STAMP_KEY);
+		putStamps(keys);
+	}
+
+	/**
+	 * Sets the unread count of the cached counts of the user to zero, keeping the
+	 * time they were counted at.
+	 *
+	 * @param userId
+	 */
+	public void markAsRead(String userId) {
+		Map<Object, Object> entries = redisTemplate.opsForHash().entries(KEY_PREFIX + userId);
+		if (CollectionUtils.isEmpty(entries))
+			return;
+
+		Map<String, String> values = new HashMap<>();
+		entries.forEach((setId, value) -> {
+			String[] counts = value.toString().split(VALUE_SEPARATOR);
+			values.put(setId.toString(), toValue(Long.parseLong(counts[0]), 0L, Long.parseLong(counts[2])));
+		});
+		putValues(userId, values);
+	}
+
+	private void putValues(String userId, Map<String, String> values) {
+		String key = KEY_PREFIX + userId;
+		redisTemplate.executePipelined((RedisCallback<Object>) connection -> {
+			StringRedisConnection stringConnection = (StringRedisConnection) connection;
+			stringConnection.hMSet(key, values);
+			stringConnection.expire(key, properties.getCountCacheTtlSeconds());
+			return null;
+		});
+	}
+
+	/**
+	 * Stamps are kept a little longer than counts, a count cached before a stamp
+	 * expired has expired as well.
+	 */
+	private void putStamps(List<String> keys) {
+		String stamp = String.valueOf(System.currentTimeMillis());
+		long expiry = properties.getCountCacheTtlSeconds()
+				+ TimeUnit.MILLISECONDS.toSeconds(properties.getCountCachePersistLagMs()) + 1;
+		redisTemplate.executePipelined((RedisCallback<Object>) connection -> {
+			StringRedisConnection stringConnection = (StringRedisConnection) connection;
+			keys.forEach(key -> stringConnection.setEx(key, expiry, stamp));
+			return null;
+		});
+	}
+
+	private long getLastChangeTime(List<String> recepients) {
+		List<String> keys = new ArrayList<>();
+		keys.add(STATUS_STAMP_KEY);
+		if (!CollectionUtils.isEmpty(recepients))
+			recepients.forEach(recepient -> keys.add(STAMP_KEY_PREFIX + recepient));
+		long lastChangeTime = 0L;
+		List<String> stamps = redisTemplate.opsForValue().multiGet(keys);
+		if (null != stamps) {
+			for (String stamp : stamps) {
+				if (null != stamp)
+					lastChangeTime = Math.max(lastChangeTime, Long.parseLong(stamp));
+			}
+		}
+		return lastChangeTime;
+	}
+
+	/**
+	 * The recepients searched for depend on the tenant of the search, the counts of
+	 * each set of recepients are cached separately.
+	 */
+	private String getRecepientSetId(List<String> recepients) {
+		return Integer.toHexString(String.join(",", new TreeSet<>(recepients)).hashCode());
+	}
+
+	private static String toValue(Long total, Long unread, long countedTime) {
+		return String.join(VALUE_SEPARATOR, String.valueOf(total), String.valueOf(unread), String.valueOf(countedTime));
+	}
+
+}
@@ -2,16 +2,16 @@ package org.egov.userevent.repository;
 
 import java.util.ArrayList;
 import java.util.HashMap;
-import java.util.List;
 import java.util.Map;
 
 import org.egov.userevent.repository.querybuilder.UserEventsQueryBuilder;
 import org.egov.userevent.repository.rowmappers.UserEventRowMapper;
 import org.egov.userevent.repository.rowmappers.NotificationCountRowMapper;
-import org.egov.userevent.web.contract.Event;
+import org.egov.userevent.web.contract.EventResponse;
 import org.egov.userevent.web.contract.EventSearchCriteria;
 import org.egov.userevent.web.contract.NotificationCountResponse;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.ResultSetExtractor;
 import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
 import org.springframework.stereotype.Repository;
 
@@ -34,26 +34,58 @@ public class UserEventRepository {
     private NamedParameterJdbcTemplate namedParameterJdbcTemplate;
 	
 	/**
-	 * Repository method to fetch events
+	 * Repository method to fetch a page of events along with the total count of
+	 * events matching the criteria, in a single query.
 	 * 
 	 * @param criteria
 	 * @return
 	 */
-	public List<Event> fetchEvents(EventSearchCriteria criteria){
+	public EventResponse fetchEventsWithTotalCount(EventSearchCriteria criteria){
 		Map<String, Object> preparedStatementValues = new HashMap<>();
 		String query = queryBuilder.getSearchQuery(criteria, preparedStatementValues);
 		log.info("Query: "+query);
 		log.info("Search preparedStatementValues: "+preparedStatementValues.toString());
-		List<Event> events = new ArrayList<>();
+		EventResponse response = EventResponse.builder().events(new ArrayList<>()).build();
 		try {
-			events = namedParameterJdbcTemplate.query(query, preparedStatementValues, rowMapper);
+			response = namedParameterJdbcTemplate.query(query, preparedStatementValues,
+					(ResultSetExtractor<EventResponse>) rowMapper::extractPage);
 		}catch(Exception e) {
 			log.error("Error while fetching results from db: ", e);
 		}
-		
-		return events;
+
+		// a page past the last event has no rows to carry the total count
+		if(null == response.getTotalCount()) {
+			boolean isPastLastPage = null != criteria.getOffset() && criteria.getOffset() > 0;
+			response.setTotalCount(isPastLastPage ? fetchTotalEventCount(criteria) : 0);
+		}
+		return response;
 	}
-	
+
+	/**
+	 * Repository method to move events to a new status in batches, so that rows are
+	 * locked only for the duration of a batch. Rows locked by another instance
+	 * running the same transition are skipped.
+	 * 
+	 * @param query
+	 * @param currentTime
+	 * @param tomorrowsTime
+	 * @param batchSize
+	 * @return number of events updated
+	 */
+	public int updateEventStatuses(String query, Long currentTime, Long tomorrowsTime, Integer batchSize) {
+		Map<String, Object> preparedStatementValues = new HashMap<>();
+		preparedStatementValues.put("currenttime", currentTime);
+		preparedStatementValues.put("tomorrowstime", tomorrowsTime);
+		preparedStatementValues.put("limit", batchSize);
+		int totalUpdated = 0;
+		int updated;
+		do {
+			updated = namedParameterJdbcTemplate.update(query, preparedStatementValues);
+			totalUpdated += updated;
+		} while (updated >= batchSize);
+		return totalUpdated;
+	}
+
 	/**
 	 * Repository method to fetch count of events
 	 * 
@@ -11,7 +11,6 @@ import org.egov.userevent.web.contract.EventSearchCriteria;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
 import org.springframework.util.CollectionUtils;
-import org.egov.userevent.model.enums.Status;
 
 @Component
 public class UserEventsQueryBuilder {
@@ -24,6 +23,9 @@ public class UserEventsQueryBuilder {
 	public static final String EVENT_SEARCH_QUERY = "SELECT id, tenantid, source, eventtype, category, description, status, referenceid, name, postedby,"
 			+ " eventdetails, actions, recepient, createdby, createdtime, lastmodifiedby, lastmodifiedtime FROM eg_usrevents_events ";
 	
+	// total count of the events matching the search, computed before the page is cut by offset and limit
+	public static final String EVENT_SEARCH_TOTAL_COUNT_FIELD = ", COUNT(*) OVER () AS totalcount";
+
 	public static final String EVENT_INNER_SEARCH_QUERY = "id IN (SELECT eventid FROM eg_usrevents_recepnt_event_registry WHERE ";
 	
 	public static final String INSERT_USERLAT_IFNOT_EXISTS = "INSERT INTO eg_usrevents_user_lat VALUES (:userid, 0) ON CONFLICT DO NOTHING";
@@ -33,6 +35,35 @@ public class UserEventsQueryBuilder {
 			+ "AND id NOT IN (SELECT referenceid FROM eg_usrevents_events WHERE referenceid NOTNULL) AND "
 			+ "lastmodifiedtime > (SELECT lastaccesstime FROM eg_usrevents_user_lat WHERE userid IN (:userid))";
 	
+	private static final String FROM_DATE = "(eventdetails->>'fromDate')::bigint";
+
+	private static final String TO_DATE = "(eventdetails->>'toDate')::bigint";
+
+	private static final String STATUS_TRANSITION_QUERY = "UPDATE eg_usrevents_events SET status = '{TO_STATUS}' WHERE id IN "
+			+ "(SELECT id FROM eg_usrevents_events WHERE status = '{FROM_STATUS}' AND {CONDITION} LIMIT :limit FOR UPDATE SKIP LOCKED)";
+
+	/*
+	 * BROADCASTs are ACTIVE from a day before their fromDate until a day before their toDate. A one day event has the same
+	 * fromDate and toDate, as the UI sends the end of the day, so it is ACTIVE during the day before its toDate.
+	 */
+	public static final String ACTIVATE_BROADCASTS_QUERY = STATUS_TRANSITION_QUERY.replace("{FROM_STATUS}", Status.INACTIVE.toString())
+			.replace("{TO_STATUS}", Status.ACTIVE.toString())
+			.replace("{CONDITION}", "eventtype = 'BROADCAST' AND (" + TO_DATE + " IS NULL OR " + TO_DATE + " > :currenttime) AND (("
+					+ FROM_DATE + " IS DISTINCT FROM " + TO_DATE + " AND " + FROM_DATE + " <= :tomorrowstime AND (" + TO_DATE
+					+ " IS NULL OR " + TO_DATE + " >= :tomorrowstime)) OR (" + FROM_DATE + " = " + TO_DATE + " AND " + TO_DATE
+					+ " < :tomorrowstime))");
+
+	public static final String DEACTIVATE_BROADCASTS_QUERY = STATUS_TRANSITION_QUERY.replace("{FROM_STATUS}", Status.ACTIVE.toString())
+			.replace("{TO_STATUS}", Status.INACTIVE.toString())
+			.replace("{CONDITION}", "eventtype = 'BROADCAST' AND ((" + FROM_DATE + " IS DISTINCT FROM " + TO_DATE + " AND " + TO_DATE
+					+ " < :tomorrowstime) OR (" + FROM_DATE + " = " + TO_DATE + " AND (" + TO_DATE + " <= :currenttime OR "
+					+ TO_DATE + " >= :tomorrowstime)))");
+
+	// Events other than BROADCASTs are ACTIVE until their toDate.
+	public static final String DEACTIVATE_PAST_EVENTS_QUERY = STATUS_TRANSITION_QUERY.replace("{FROM_STATUS}", Status.ACTIVE.toString())
+			.replace("{TO_STATUS}", Status.INACTIVE.toString())
+			.replace("{CONDITION}", "eventtype <> 'BROADCAST' AND " + TO_DATE + " < :currenttime");
+
 	/**
 	 * Returns query for search events
 	 * 
@@ -42,6 +73,8 @@ public class UserEventsQueryBuilder {
 	 */
 	public String getSearchQuery(EventSearchCriteria criteria, Map<String, Object> preparedStatementValues) {
 		String query = EVENT_SEARCH_QUERY;
+		if(!Boolean.TRUE.equals(criteria.getIsEventsCountCall()))
+			query = query.replace(" FROM eg_usrevents_events ", EVENT_SEARCH_TOTAL_COUNT_FIELD + " FROM eg_usrevents_events ");
 		return addWhereClause(query, criteria, preparedStatementValues);
 	}
 	
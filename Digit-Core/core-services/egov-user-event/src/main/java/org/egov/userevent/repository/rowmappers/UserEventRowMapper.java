@@ -12,6 +12,7 @@ import org.egov.userevent.model.enums.Status;
 import org.egov.userevent.web.contract.Action;
 import org.egov.userevent.web.contract.Event;
 import org.egov.userevent.web.contract.EventDetails;
+import org.egov.userevent.web.contract.EventResponse;
 import org.egov.userevent.web.contract.Recepient;
 import org.postgresql.util.PGobject;
 import org.springframework.dao.DataAccessException;
@@ -29,8 +30,23 @@ public class UserEventRowMapper implements ResultSetExtractor <List<Event>> {
 
 	@Override
 	public List<Event> extractData(ResultSet resultSet) throws SQLException, DataAccessException {
+		return extractPage(resultSet).getEvents();
+	}
+
+	/**
+	 * Extracts a page of events along with the total count of events matching the search,
+	 * which the search query selects in every row.
+	 *
+	 * @param resultSet
+	 * @return
+	 * @throws SQLException
+	 */
+	public EventResponse extractPage(ResultSet resultSet) throws SQLException {
 		List<Event> events = new ArrayList<>();
+		Integer totalCount = null;
 		while(resultSet.next()) {
+			if(null == totalCount)
+				totalCount = resultSet.getInt("totalcount");
 			Event event = Event.builder()
 					.id(resultSet.getString("id"))
 					.tenantId(resultSet.getString("tenantid"))
@@ -88,7 +104,7 @@ public class UserEventRowMapper implements ResultSetExtractor <List<Event>> {
 			events.add(event);		
 		}
 		
-		return events;
+		return EventResponse.builder().events(events).totalCount(totalCount).build();
 	}
 
 }
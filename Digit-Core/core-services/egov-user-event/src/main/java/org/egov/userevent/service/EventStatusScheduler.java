@@ -0,0 +1,69 @@
+package org.egov.userevent.service;
+
+import org.egov.userevent.config.PropertiesManager;
+import org.egov.userevent.repository.NotificationCountCacheRepository;
+import org.egov.userevent.repository.UserEventRepository;
+import org.egov.userevent.repository.querybuilder.UserEventsQueryBuilder;
+import org.egov.userevent.utils.UserEventsUtils;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Moves events between ACTIVE and INACTIVE as their dates pass. Statuses are
+ * updated in the database in batches, so searches return the stored status and
+ * don't update the events they return.
+ */
+@Service
+@Slf4j
+@ConditionalOnProperty(value = "egov.user.event.status.transition.enabled", havingValue = "true", matchIfMissing = true)
+public class EventStatusScheduler {
+
+	@Autowired
+	private UserEventRepository repository;
+
+	@Autowired
+	private NotificationCountCacheRepository countCacheRepository;
+
+	@Autowired
+	private UserEventsUtils utils;
+
+	@Autowired
+	private PropertiesManager properties;
+
+	@Scheduled(fixedDelayString = "${egov.user.event.status.transition.interval.ms:60000}")
+	public void transitionEventStatuses() {
+		long startTime = System.currentTimeMillis();
+		Long tomorrowsTime = utils.getTomorrowsEpoch();
+		Integer batchSize = properties.getStatusTransitionBatchSize();
+		try {
+			int activated = repository.updateEventStatuses(UserEventsQueryBuilder.ACTIVATE_BROADCASTS_QUERY, startTime,
+					tomorrowsTime, batchSize);
+			int deactivated = repository.updateEventStatuses(UserEventsQueryBuilder.DEACTIVATE_BROADCASTS_QUERY, startTime,
+					tomorrowsTime, batchSize);
+			deactivated += repository.updateEventStatuses(UserEventsQueryBuilder.DEACTIVATE_PAST_EVENTS_QUERY, startTime,
+					tomorrowsTime, batchSize);
+			if (activated > 0 || deactivated > 0) {
+				log.info("Activated " + activated + " and deactivated " + deactivated + " events in "
+						+ (System.currentTimeMillis() - startTime) + " ms");
+				touchCachedCounts();
+			}
+		} catch (Exception e) {
+			log.error("There was an error while updating the status of events: ", e);
+		}
+	}
+
+	private void touchCachedCounts() {
+		if (!properties.getIsCountCacheEnabled())
+			return;
+		try {
+			countCacheRepository.touchStatuses();
+		} catch (Exception e) {
+			log.error("There was an error while invalidating the cached counts: ", e);
+		}
+	}
+
+}
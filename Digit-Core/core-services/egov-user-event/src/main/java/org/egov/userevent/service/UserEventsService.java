@@ -56,6 +56,7 @@ import org.egov.userevent.model.LastAccesDetails;
 import org.egov.userevent.model.RecepientEvent;
 import org.egov.userevent.model.enums.Status;
 import org.egov.userevent.producer.UserEventsProducer;
+import org.egov.userevent.repository.NotificationCountCacheRepository;
 import org.egov.userevent.repository.UserEventRepository;
 import org.egov.userevent.utils.ErrorConstants;
 import org.egov.userevent.utils.ResponseInfoFactory;
@@ -94,6 +95,9 @@ public class UserEventsService {
 	@Autowired
 	private UserEventRepository repository;
 
+	@Autowired
+	private NotificationCountCacheRepository countCacheRepository;
+
 	@Autowired
 	private UserEventsUtils utils;
 
@@ -113,6 +117,7 @@ public class UserEventsService {
 		log.info("enriching and storing the event......");
 		enrichCreateEvent(request);
 		producer.push(properties.getSaveEventsPersisterTopic(), request);
+		touchCachedCounts(request.getEvents());
 		request.getEvents().forEach(event -> event.setRecepientEventMap(null));
 		return EventResponse.builder()
 				.responseInfo(responseInfo.createResponseInfoFromRequestInfo(request.getRequestInfo(), true))
@@ -151,6 +156,7 @@ public class UserEventsService {
 			createEvents(req, true);
 		}
 		producer.push(properties.getUpdateEventsPersisterTopic(), request);
+		touchCachedCounts(request.getEvents());
 		request.getEvents().forEach(event -> {
 			event.setRecepientEventMap(null);
 			event.setGenerateCounterEvent(null);
@@ -282,20 +288,14 @@ public class UserEventsService {
 	public EventResponse searchEvents(RequestInfo requestInfo, EventSearchCriteria criteria, Boolean isUpdate) {
 		validator.validateSearch(requestInfo, criteria);
 		log.info("Searching events......");
-		List<Event> events = new ArrayList<>();
-		Integer totalCount = 0;
-		if (!isUpdate) {
+		if (!isUpdate)
 			enrichSearchCriteria(requestInfo, criteria);
-			events = repository.fetchEvents(criteria);
-			totalCount = repository.fetchTotalEventCount(criteria);
-			searchPostProcessor(requestInfo, events);
-			if (null != criteria.getIsCitizenSearch()) {
-				if (criteria.getIsCitizenSearch())
-					events = citizenSearchPostProcessor(events, criteria);
-			}
-		} else {
-			events = repository.fetchEvents(criteria);
-			totalCount = repository.fetchTotalEventCount(criteria);
+		EventResponse page = repository.fetchEventsWithTotalCount(criteria);
+		List<Event> events = page.getEvents();
+		Integer totalCount = page.getTotalCount();
+		if (!isUpdate && null != criteria.getIsCitizenSearch()) {
+			if (criteria.getIsCitizenSearch())
+				events = citizenSearchPostProcessor(events, criteria);
 		}
 
 
@@ -352,7 +352,7 @@ public class UserEventsService {
 		} else {
 			List<Event> counterEvents = events.stream().filter(obj -> !StringUtils.isEmpty(obj.getReferenceId()))
 					.collect(Collectors.toList());
-			List<String> refIds = counterEvents.stream().map(Event::getReferenceId).collect(Collectors.toList());
+			Set<String> refIds = counterEvents.stream().map(Event::getReferenceId).collect(Collectors.toSet());
 			events.forEach(event -> {
 				if (!refIds.contains(event.getId()))
 					counterEvents.add(event);
@@ -366,92 +366,80 @@ public class UserEventsService {
 	}
 
 	/**
-	 * This method performs certain post processing activities on the searc result:
-	 * 1. Finds all the events in the search result that have toDate prior to currentDate and marks them inactive
-	 * 2. The inactive marking is done through an update call just before returning the search result.
-	 * 3. Uses lazy update logic instead of a cron job to set events to inactive when they have already occured.
+	 * Service method to fetch count of events as per criteria.
 	 * 
 	 * @param requestInfo
-	 * @param events
+	 * @param criteria
 	 * @return
 	 */
-	public void searchPostProcessor(RequestInfo requestInfo, List<Event> events){
-		List<Event> eventsTobeUpdated = new ArrayList<>();
-		events.forEach(event -> {
-			Boolean tobeAdded = false;
-			if(null != event.getEventDetails() && !event.getStatus().equals(Status.CANCELLED)) {
-				if(event.getEventType().equals(UserEventsConstants.MEN_MDMS_BROADCAST_CODE)) {				
-					if(null != event.getEventDetails().getFromDate()) {
-						if((event.getEventDetails().getFromDate() <= utils.getTomorrowsEpoch()) && event.getStatus().equals(Status.INACTIVE)) {
-							event.setStatus(Status.ACTIVE);
-							tobeAdded = true;
-						}
-					}
-					if(null != event.getEventDetails().getToDate() ) {
-						if((event.getEventDetails().getToDate() < utils.getTomorrowsEpoch() && event.getStatus().equals(Status.ACTIVE))) {
-							event.setStatus(Status.INACTIVE);
-							tobeAdded = true;
-						}
-					}
-					
-					if((null != event.getEventDetails().getFromDate()) && (null != event.getEventDetails().getToDate())) {
-						if(event.getEventDetails().getFromDate().equals(event.getEventDetails().getToDate())) {
-							Long dateInSecs = event.getEventDetails().getFromDate() / 1000;
-							Long currDateInSecs = new Date().getTime() / 1000;
-							if((((dateInSecs - 86400) < currDateInSecs) && (currDateInSecs < dateInSecs)) && event.getStatus().equals(Status.INACTIVE)) {
-								event.setStatus(Status.ACTIVE);
-								tobeAdded = true;
-							}else {
-								if(event.getStatus().equals(Status.ACTIVE)) {
-									event.setStatus(Status.INACTIVE);
-									tobeAdded = true;
-								}
-							}
-						}// UI sends EOD epoch, which makes fromDate and toDate same incase of 1 day event, which is why the range is manually calculated. Fix at UI needed.
-					}
-				}// BROADCASTs are ACTIVE only between the given from and to date, they're INACTIVE beyond that.
-				
-				else {
-					if(null != event.getEventDetails().getToDate()) {
-						if((event.getEventDetails().getToDate() < new Date().getTime())) {
-							event.setStatus(Status.INACTIVE);
-							tobeAdded = true;
-						}
-					}
-				}
-				
-				if(tobeAdded) {
-					event.setInternallyUpdted(true);
-					eventsTobeUpdated.add(event);
-				}
-			}
-		});
-		if(!CollectionUtils.isEmpty(eventsTobeUpdated)) {
-			EventRequest request = EventRequest.builder().requestInfo(requestInfo).events(eventsTobeUpdated).build();
-			try {
-				log.info("Updating events...");
-				updateEvents(request);
-			}catch(Exception e) {
-				log.error("There was an error while lazy-updating the events: ", e);
-			}
-		}
+	public NotificationCountResponse fetchCount(RequestInfo requestInfo, EventSearchCriteria criteria) {
+		validator.validateSearch(requestInfo, criteria);
+		Boolean isDefaultCount = CollectionUtils.isEmpty(criteria.getStatus()) && null == criteria.getFromDate()
+				&& null == criteria.getToDate();
+		enrichSearchCriteria(requestInfo, criteria);
+		NotificationCountResponse response = null;
+		if (isDefaultCount && criteria.getIsCitizenSearch())
+			response = fetchCachedCount(criteria);
+		if (null == response)
+			response = repository.fetchCount(criteria);
+		response.setResponseInfo(responseInfo.createResponseInfoFromRequestInfo(requestInfo, true));
+		return response;
 	}
 
 	/**
-	 * Service method to fetch count of events as per criteria.
+	 * Returns the count of events of the citizen cached from an earlier count in
+	 * the database, counting and caching it when there is none. Returns null when
+	 * the cache is disabled or unavailable.
 	 * 
-	 * @param requestInfo
 	 * @param criteria
 	 * @return
 	 */
-	public NotificationCountResponse fetchCount(RequestInfo requestInfo, EventSearchCriteria criteria) {
-		validator.validateSearch(requestInfo, criteria);
-		enrichSearchCriteria(requestInfo, criteria);
-		NotificationCountResponse response = repository.fetchCount(criteria);
-		response.setResponseInfo(responseInfo.createResponseInfoFromRequestInfo(requestInfo, true));
+	private NotificationCountResponse fetchCachedCount(EventSearchCriteria criteria) {
+		if (!properties.getIsCountCacheEnabled())
+			return null;
+		String userId = criteria.getUserids().get(0);
+		NotificationCountResponse response;
+		try {
+			response = countCacheRepository.get(userId, criteria.getRecepients());
+		} catch (Exception e) {
+			log.error("There was an error while reading the cached count, counting in the database: ", e);
+			return null;
+		}
+		if (null == response) {
+			long countedTime = System.currentTimeMillis();
+			response = repository.fetchCount(criteria);
+			if (null != response) {
+				try {
+					countCacheRepository.put(userId, criteria.getRecepients(), response, countedTime);
+				} catch (Exception e) {
+					log.error("There was an error while caching the count: ", e);
+				}
+			}
+		}
 		return response;
 	}
 
+	/**
+	 * Stamps the recepients of the created or updated events so that the cached
+	 * counts of their users are counted again.
+	 * 
+	 * @param events
+	 */
+	private void touchCachedCounts(List<Event> events) {
+		if (!properties.getIsCountCacheEnabled())
+			return;
+		Set<String> recepients = new HashSet<>();
+		events.forEach(event -> {
+			if (null != event.getRecepientEventMap())
+				event.getRecepientEventMap().forEach(recepientEvent -> recepients.add(recepientEvent.getRecepient()));
+		});
+		try {
+			countCacheRepository.touch(recepients);
+		} catch (Exception e) {
+			log.error("There was an error while invalidating the cached counts: ", e);
+		}
+	}
+
 	/**
 	 * Service method used to persist the lastaccesstime of the user.
 	 * 
@@ -463,6 +451,13 @@ public class UserEventsService {
 				.lastAccessTime(new Date().getTime()).build();
 		LATWrapper wrapper = LATWrapper.builder().lastAccessDetails(loginDetails).build();
 		producer.push(properties.getLatDetailsTopic(), wrapper);
+		if (properties.getIsCountCacheEnabled()) {
+			try {
+				countCacheRepository.markAsRead(loginDetails.getUserId());
+			} catch (Exception e) {
+				log.error("There was an error while marking the cached count as read: ", e);
+			}
+		}
 
 		return responseInfo.createResponseInfoFromRequestInfo(requestInfo, true);
 
@@ -0,0 +1,3 @@
+CREATE INDEX IF NOT EXISTS index_eg_usrevents_events_active_todate ON eg_usrevents_events (((eventdetails->>'toDate')::bigint)) WHERE status = 'ACTIVE';
+
+CREATE INDEX IF NOT EXISTS index_eg_usrevents_events_inactive_broadcast_todate ON eg_usrevents_events (((eventdetails->>'toDate')::bigint)) WHERE status = 'INACTIVE' AND eventtype = 'BROADCAST';
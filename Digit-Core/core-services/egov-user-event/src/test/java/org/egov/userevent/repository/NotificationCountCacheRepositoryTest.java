@@ -0,0 +1,162 @@
+package org.egov.userevent.repository;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyMap;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.egov.userevent.config.PropertiesManager;
+import org.egov.userevent.web.contract.NotificationCountResponse;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.redis.connection.StringRedisConnection;
+import org.springframework.data.redis.core.HashOperations;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.ValueOperations;
+import org.springframework.test.util.ReflectionTestUtils;
+
+public class NotificationCountCacheRepositoryTest {
+
+	private static final String USER_ID = "8b4e3a6d-3c59-4f7c-9d1f-6a2f1b0c7e21";
+
+	private static final List<String> RECEPIENTS = Arrays.asList(USER_ID, "CITIZEN|*|*", "*|*|pb.amritsar", "ALL");
+
+	private static final long PERSIST_LAG_MS = 10000L;
+
+	private final Map<String, Map<Object, Object>> hashes = new HashMap<>();
+
+	private final Map<String, String> values = new HashMap<>();
+
+	private NotificationCountCacheRepository repository;
+
+	@BeforeEach
+	@SuppressWarnings("unchecked")
+	public void setUp() {
+		StringRedisTemplate redisTemplate = mock(StringRedisTemplate.class);
+		HashOperations<String, Object, Object> hashOperations = mock(HashOperations.class);
+		ValueOperations<String, String> valueOperations = mock(ValueOperations.class);
+		StringRedisConnection connection = mock(StringRedisConnection.class);
+
+		when(redisTemplate.opsForHash()).thenReturn((HashOperations) hashOperations);
+		when(redisTemplate.opsForValue()).thenReturn(valueOperations);
+		when(hashOperations.get(anyString(), any())).thenAnswer(invocation -> hashes
+				.getOrDefault(invocation.<String>getArgument(0), Collections.emptyMap()).get(invocation.getArgument(1)));
+		when(hashOperations.entries(anyString())).thenAnswer(
+				invocation -> hashes.getOrDefault(invocation.<String>getArgument(0), Collections.emptyMap()));
+		when(valueOperations.multiGet(any())).thenAnswer(invocation -> {
+			List<String> stamps = new ArrayList<>();
+			invocation.<List<String>>getArgument(0).forEach(key -> stamps.add(values.get(key)));
+			return stamps;
+		});
+		doAnswer(invocation -> {
+			hashes.computeIfAbsent(invocation.getArgument(0), key -> new HashMap<>())
+					.putAll(invocation.<Map<String, String>>getArgument(1));
+			return null;
+		}).when(connection).hMSet(anyString(), anyMap());
+		when(connection.setEx(anyString(), anyLong(), anyString())).thenAnswer(invocation -> {
+			values.put(invocation.getArgument(0), invocation.getArgument(2));
+			return null;
+		});
+		when(redisTemplate.executePipelined(any(RedisCallback.class))).thenAnswer(invocation -> {
+			invocation.<RedisCallback<Object>>getArgument(0).doInRedis(connection);
+			return Collections.emptyList();
+		});
+
+		PropertiesManager properties = new PropertiesManager();
+		properties.countCacheTtlSeconds = 3600L;
+		properties.countCachePersistLagMs = PERSIST_LAG_MS;
+
+		repository = new NotificationCountCacheRepository();
+		ReflectionTestUtils.setField(repository, "redisTemplate", redisTemplate);
+		ReflectionTestUtils.setField(repository, "properties", properties);
+	}
+
+	@Test
+	public void testCountIsServedUntilEventsOfItsRecepientsChange() {
+		repository.put(USER_ID, RECEPIENTS, count(5L, 2L), System.currentTimeMillis());
+
+		assertCount(5L, 2L, repository.get(USER_ID, RECEPIENTS));
+
+		repository.touch(Collections.singletonList("*|*|pb.amritsar"));
+
+		assertNull(repository.get(USER_ID, RECEPIENTS));
+	}
+
+	@Test
+	public void testCountIsKeptWhenEventsOfOtherRecepientsChange() {
+		repository.put(USER_ID, RECEPIENTS, count(5L, 2L), System.currentTimeMillis());
+
+		repository.touch(Arrays.asList("*|*|pb.jalandhar", "0c6e3d4a-91f2-4a55-8c8e-2f7b5d9a1e44"));
+
+		assertCount(5L, 2L, repository.get(USER_ID, RECEPIENTS));
+	}
+
+	@Test
+	public void testCountMadeWithinThePersistLagOfAChangeIsNotServed() {
+		repository.touch(Collections.singletonList(USER_ID));
+		long changeTime = System.currentTimeMillis();
+
+		repository.put(USER_ID, RECEPIENTS, count(5L, 2L), changeTime);
+		assertNull(repository.get(USER_ID, RECEPIENTS));
+
+		repository.put(USER_ID, RECEPIENTS, count(6L, 3L), changeTime + PERSIST_LAG_MS + 1000L);
+		assertCount(6L, 3L, repository.get(USER_ID, RECEPIENTS));
+	}
+
+	@Test
+	public void testStatusTransitionInvalidatesEveryCount() {
+		repository.put(USER_ID, RECEPIENTS, count(5L, 2L), System.currentTimeMillis());
+
+		repository.touchStatuses();
+
+		assertNull(repository.get(USER_ID, RECEPIENTS));
+	}
+
+	@Test
+	public void testExpiredCountIsNotServed() {
+		repository.put(USER_ID, RECEPIENTS, count(5L, 2L), System.currentTimeMillis() - 3600L * 1000L);
+
+		assertNull(repository.get(USER_ID, RECEPIENTS));
+	}
+
+	@Test
+	public void testCountsAreCachedPerRecepientSet() {
+		List<String> otherTenant = Arrays.asList(USER_ID, "CITIZEN|*|*", "*|*|pb.jalandhar", "ALL");
+		repository.put(USER_ID, RECEPIENTS, count(5L, 2L), System.currentTimeMillis());
+
+		assertNull(repository.get(USER_ID, otherTenant));
+		assertCount(5L, 2L, repository.get(USER_ID, Arrays.asList("ALL", "*|*|pb.amritsar", "CITIZEN|*|*", USER_ID)));
+	}
+
+	@Test
+	public void testMarkAsReadClearsTheUnreadCount() {
+		repository.put(USER_ID, RECEPIENTS, count(5L, 2L), System.currentTimeMillis());
+
+		repository.markAsRead(USER_ID);
+
+		assertCount(5L, 0L, repository.get(USER_ID, RECEPIENTS));
+	}
+
+	private static NotificationCountResponse count(Long total, Long unread) {
+		return NotificationCountResponse.builder().totalCount(total).unreadCount(unread).build();
+	}
+
+	private static void assertCount(Long total, Long unread, NotificationCountResponse count) {
+		assertEquals(total, count.getTotalCount());
+		assertEquals(unread, count.getUnreadCount());
+	}
+
+}
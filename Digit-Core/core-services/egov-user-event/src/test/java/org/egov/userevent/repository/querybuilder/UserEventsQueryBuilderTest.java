@@ -0,0 +1,188 @@
+package org.egov.userevent.repository.querybuilder;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.egov.userevent.model.enums.Status;
+import org.egov.userevent.repository.UserEventRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.test.util.ReflectionTestUtils;
+
+/**
+ * Runs the status transition queries of the scheduled job over every combination of
+ * event type, status and dates, and checks that they leave each event in the status the
+ * search used to give it before the job replaced the update on search.
+ * <p>
+ * The events are stored in H2, so the dates are plain columns instead of fields of the
+ * eventdetails jsonb column and the queries are adapted accordingly.
+ */
+public class UserEventsQueryBuilderTest {
+
+	private static final long HOUR = 3600_000L;
+
+	private static final long DAY = 24 * HOUR;
+
+	private static final List<String> EVENT_TYPES = Arrays.asList("BROADCAST", "EVENTSONGROUND", "SYSTEMGENERATED");
+
+	// offsets from now which stay clear of now and tomorrow, the bounds of the rules
+	private static final List<Long> DATE_OFFSETS = Arrays.asList(null, -3 * DAY, -12 * HOUR, 12 * HOUR, 36 * HOUR,
+			3 * DAY);
+
+	private NamedParameterJdbcTemplate jdbcTemplate;
+
+	private UserEventRepository repository;
+
+	@BeforeEach
+	public void setUp() {
+		DriverManagerDataSource dataSource = new DriverManagerDataSource(
+				"jdbc:h2:mem:userevents;MODE=PostgreSQL;DB_CLOSE_DELAY=-1", "sa", "");
+		jdbcTemplate = new NamedParameterJdbcTemplate(dataSource);
+		jdbcTemplate.getJdbcTemplate().execute("CREATE TABLE eg_usrevents_events (id VARCHAR(64) PRIMARY KEY, "
+				+ "eventtype VARCHAR(64), status VARCHAR(64), fromdate BIGINT, todate BIGINT)");
+		repository = new UserEventRepository();
+		ReflectionTestUtils.setField(repository, "namedParameterJdbcTemplate", jdbcTemplate);
+	}
+
+	@AfterEach
+	public void tearDown() {
+		jdbcTemplate.getJdbcTemplate().execute("DROP TABLE eg_usrevents_events");
+	}
+
+	@Test
+	public void testStatusTransitionsFollowTheRulesOfTheSearch() {
+		long now = System.currentTimeMillis();
+		long tomorrow = now + DAY;
+		List<TestEvent> events = new ArrayList<>();
+		for (String eventType : EVENT_TYPES) {
+			for (Status status : Status.values()) {
+				for (Long fromOffset : DATE_OFFSETS) {
+					for (Long toOffset : DATE_OFFSETS)
+						events.add(new TestEvent(events.size(), eventType, status, date(now, fromOffset), date(now, toOffset)));
+					// the UI sends the end of the day as both dates of a one day event
+					if (null != fromOffset)
+						events.add(new TestEvent(events.size(), eventType, status, now + fromOffset, now + fromOffset));
+				}
+			}
+		}
+		events.forEach(this::insert);
+
+		int updated = transitionStatuses(now, tomorrow, 7);
+
+		Map<String, String> statuses = new HashMap<>();
+		jdbcTemplate.getJdbcTemplate().query("SELECT id, status FROM eg_usrevents_events",
+				resultSet -> { statuses.put(resultSet.getString("id"), resultSet.getString("status")); });
+		int changed = 0;
+		for (TestEvent event : events) {
+			Status expected = statusOnSearch(event, now, tomorrow);
+			assertEquals(expected.toString(), statuses.get(event.id), event.toString());
+			if (expected != event.status)
+				changed++;
+		}
+		assertEquals(changed, updated);
+		assertTrue(changed > 0);
+	}
+
+	@Test
+	public void testStatusTransitionsAreIdempotent() {
+		long now = System.currentTimeMillis();
+		insert(new TestEvent(0, "BROADCAST", Status.INACTIVE, now - DAY, now + 3 * DAY));
+		insert(new TestEvent(1, "BROADCAST", Status.ACTIVE, now - 3 * DAY, now + 12 * HOUR));
+		insert(new TestEvent(2, "EVENTSONGROUND", Status.ACTIVE, now - 3 * DAY, now - DAY));
+
+		assertEquals(3, transitionStatuses(now, now + DAY, 1));
+		assertEquals(0, transitionStatuses(now, now + DAY, 1));
+	}
+
+	private int transitionStatuses(long now, long tomorrow, int batchSize) {
+		int updated = 0;
+		for (String query : Arrays.asList(UserEventsQueryBuilder.ACTIVATE_BROADCASTS_QUERY,
+				UserEventsQueryBuilder.DEACTIVATE_BROADCASTS_QUERY, UserEventsQueryBuilder.DEACTIVATE_PAST_EVENTS_QUERY))
+			updated += repository.updateEventStatuses(forH2(query), now, tomorrow, batchSize);
+		return updated;
+	}
+
+	private static String forH2(String query) {
+		return query.replace("(eventdetails->>'fromDate')::bigint", "fromdate")
+				.replace("(eventdetails->>'toDate')::bigint", "todate");
+	}
+
+	private void insert(TestEvent event) {
+		Map<String, Object> values = new HashMap<>();
+		values.put("id", event.id);
+		values.put("eventtype", event.eventType);
+		values.put("status", event.status.toString());
+		values.put("fromdate", event.fromDate);
+		values.put("todate", event.toDate);
+		jdbcTemplate.update("INSERT INTO eg_usrevents_events VALUES (:id, :eventtype, :status, :fromdate, :todate)",
+				values);
+	}
+
+	private static Long date(long now, Long offset) {
+		return null == offset ? null : now + offset;
+	}
+
+	/*
+	 * The status search used to give an event before it was moved to the scheduled job,
+	 * the rules are applied one after another as they were.
+	 */
+	private static Status statusOnSearch(TestEvent event, long now, long tomorrow) {
+		Status status = event.status;
+		if (status == Status.CANCELLED)
+			return status;
+		if (event.eventType.equals("BROADCAST")) {
+			if (null != event.fromDate && event.fromDate <= tomorrow && status == Status.INACTIVE)
+				status = Status.ACTIVE;
+			if (null != event.toDate && event.toDate < tomorrow && status == Status.ACTIVE)
+				status = Status.INACTIVE;
+			if (null != event.fromDate && event.fromDate.equals(event.toDate)) {
+				long dateInSecs = event.fromDate / 1000;
+				long currDateInSecs = now / 1000;
+				if (dateInSecs - 86400 < currDateInSecs && currDateInSecs < dateInSecs && status == Status.INACTIVE)
+					status = Status.ACTIVE;
+				else if (status == Status.ACTIVE)
+					status = Status.INACTIVE;
+			}
+		} else if (null != event.toDate && event.toDate < now) {
+			status = Status.INACTIVE;
+		}
+		return status;
+	}
+
+	private static class TestEvent {
+
+		private final String id;
+
+		private final String eventType;
+
+		private final Status status;
+
+		private final Long fromDate;
+
+		private final Long toDate;
+
+		TestEvent(int id, String eventType, Status status, Long fromDate, Long toDate) {
+			this.id = String.valueOf(id);
+			this.eventType = eventType;
+			this.status = status;
+			this.fromDate = fromDate;
+			this.toDate = toDate;
+		}
+
+		@Override
+		public String toString() {
+			return eventType + " " + status + " from " + fromDate + " to " + toDate;
+		}
+
+	}
+
+}
@@ -0,0 +1,111 @@
+package org.egov.userevent.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+
+import org.egov.common.contract.request.RequestInfo;
+import org.egov.common.contract.request.User;
+import org.egov.userevent.config.PropertiesManager;
+import org.egov.userevent.producer.UserEventsProducer;
+import org.egov.userevent.repository.NotificationCountCacheRepository;
+import org.egov.userevent.repository.UserEventRepository;
+import org.egov.userevent.utils.ResponseInfoFactory;
+import org.egov.userevent.utils.UserEventsUtils;
+import org.egov.userevent.web.contract.Event;
+import org.egov.userevent.web.contract.EventRequest;
+import org.egov.userevent.web.contract.EventSearchCriteria;
+import org.egov.userevent.web.contract.NotificationCountResponse;
+import org.egov.userevent.web.contract.Recepient;
+import org.egov.userevent.web.validator.UserEventsValidator;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.Spy;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+@ExtendWith(MockitoExtension.class)
+public class UserEventsServiceTest {
+
+	private static final String USER_ID = "8b4e3a6d-3c59-4f7c-9d1f-6a2f1b0c7e21";
+
+	@Spy
+	private PropertiesManager properties = new PropertiesManager();
+
+	@Spy
+	private UserEventsUtils utils = new UserEventsUtils();
+
+	@Spy
+	private ResponseInfoFactory responseInfo = new ResponseInfoFactory();
+
+	@Mock
+	private UserEventsProducer producer;
+
+	@Mock
+	private UserEventsValidator validator;
+
+	@Mock
+	private UserEventRepository repository;
+
+	@Mock
+	private NotificationCountCacheRepository countCacheRepository;
+
+	@InjectMocks
+	private UserEventsService service;
+
+	@BeforeEach
+	public void setUp() {
+		properties.isCountCacheEnabled = true;
+		properties.saveEventsPersisterTopic = "persist-user-events-async";
+	}
+
+	@Test
+	public void testCreatedEventsStampTheirRecepients() {
+		Event toUsers = Event.builder().tenantId("pb.amritsar").eventType("SYSTEMGENERATED").name("Bill generated")
+				.recepient(Recepient.builder().toUsers(Arrays.asList(USER_ID, "0c6e3d4a-91f2-4a55-8c8e-2f7b5d9a1e44"))
+						.build())
+				.build();
+		Event toTenant = Event.builder().tenantId("pb.amritsar").eventType("BROADCAST").name("Water supply").build();
+		EventRequest request = EventRequest.builder().requestInfo(requestInfo()).events(Arrays.asList(toUsers, toTenant))
+				.build();
+
+		service.createEvents(request, true);
+
+		verify(countCacheRepository).touch(new HashSet<>(
+				Arrays.asList(USER_ID, "0c6e3d4a-91f2-4a55-8c8e-2f7b5d9a1e44", "*|*|pb.amritsar")));
+	}
+
+	@Test
+	public void testCountIsCachedWithTheTimeItWasCountedFrom() {
+		EventSearchCriteria criteria = new EventSearchCriteria();
+		criteria.setTenantId("pb.amritsar");
+		NotificationCountResponse count = NotificationCountResponse.builder().totalCount(5L).unreadCount(2L).build();
+		when(repository.fetchCount(any())).thenReturn(count);
+
+		long before = System.currentTimeMillis();
+		NotificationCountResponse response = service.fetchCount(requestInfo(), criteria);
+
+		assertEquals(Long.valueOf(5L), response.getTotalCount());
+		ArgumentCaptor<Long> countedTime = ArgumentCaptor.forClass(Long.class);
+		verify(countCacheRepository).put(eq(USER_ID), anyList(), eq(count), countedTime.capture());
+		assertTrue(countedTime.getValue() >= before);
+		verify(countCacheRepository).get(eq(USER_ID), eq(criteria.getRecepients()));
+	}
+
+	private static RequestInfo requestInfo() {
+		User user = User.builder().uuid(USER_ID).type("CITIZEN").roles(Collections.emptyList()).build();
+		return RequestInfo.builder().userInfo(user).build();
+	}
+
+}
@@ -9,6 +9,7 @@ import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Import;
 import org.springframework.http.converter.json.MappingJackson2HttpMessageConverter;
 import org.springframework.integration.annotation.IntegrationComponentScan;
+import org.springframework.scheduling.annotation.EnableScheduling;
 
 import com.fasterxml.jackson.databind.DeserializationFeature;
 import com.fasterxml.jackson.databind.MapperFeature;
@@ -21,6 +22,7 @@ import java.util.TimeZone;
 @SpringBootApplication
 @Import({ TracerConfiguration.class })
 @IntegrationComponentScan
+@EnableScheduling
 public class IotServiceApplication {
     
     private static final String DATE_FORMAT = "dd-MM-yyyy HH:mm:ss";
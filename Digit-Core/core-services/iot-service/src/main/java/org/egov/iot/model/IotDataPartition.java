@@ -0,0 +1,31 @@
+package org.egov.iot.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * A time partition of the iot_data table, holding the readings from the lower
+ * bound (inclusive) to the upper bound (exclusive). A null bound is unbounded.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class IotDataPartition {
+
+    private String name;
+
+    private LocalDateTime from;
+
+    private LocalDateTime to;
+
+    private boolean defaultPartition;
+
+    public boolean covers(LocalDateTime time) {
+        return !defaultPartition && (from == null || !time.isBefore(from)) && (to == null || time.isBefore(to));
+    }
+}
@@ -0,0 +1,50 @@
+package org.egov.iot.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * Min, max, sum and count of one metric of a device over a bucket of time.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class IotRollup {
+
+    private String deviceId;
+
+    private String tenantId;
+
+    private String metric;
+
+    private RollupResolution resolution;
+
+    private LocalDateTime bucket;
+
+    private Double minValue;
+
+    private Double maxValue;
+
+    private Double sumValue;
+
+    private Long count;
+
+    public Double getAvgValue() {
+        if (count == null || count == 0 || sumValue == null) {
+            return null;
+        }
+        return sumValue / count;
+    }
+
+    public void add(double value) {
+        minValue = minValue == null ? value : Math.min(minValue, value);
+        maxValue = maxValue == null ? value : Math.max(maxValue, value);
+        sumValue = sumValue == null ? value : sumValue + value;
+        count = count == null ? 1 : count + 1;
+    }
+}
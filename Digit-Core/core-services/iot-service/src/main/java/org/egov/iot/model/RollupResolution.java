@@ -0,0 +1,60 @@
+package org.egov.iot.model;
+
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+
+public enum RollupResolution {
+
+    MINUTE("iot_data_rollup_minute", ChronoUnit.MINUTES),
+    HOUR("iot_data_rollup_hour", ChronoUnit.HOURS),
+    DAY("iot_data_rollup_day", ChronoUnit.DAYS);
+
+    private final String tableName;
+
+    private final ChronoUnit unit;
+
+    RollupResolution(String tableName, ChronoUnit unit) {
+        this.tableName = tableName;
+        this.unit = unit;
+    }
+
+    public String getTableName() {
+        return tableName;
+    }
+
+    /**
+     * Start of the bucket the time falls in.
+     */
+    public LocalDateTime truncate(LocalDateTime time) {
+        return time.truncatedTo(unit);
+    }
+
+    /**
+     * Start of the first bucket that begins at or after the time.
+     */
+    public LocalDateTime ceil(LocalDateTime time) {
+        LocalDateTime bucket = truncate(time);
+        return bucket.equals(time) ? bucket : bucket.plus(1, unit);
+    }
+
+    /**
+     * Number of buckets of this resolution from the start to the end.
+     */
+    public long bucketsBetween(LocalDateTime start, LocalDateTime end) {
+        return unit.between(truncate(start), ceil(end));
+    }
+
+    /**
+     * Picks the finest resolution that returns no more than the requested
+     * points for the range, so a coarser resolution is only read when the
+     * finer one would return more points than can be charted.
+     */
+    public static RollupResolution fit(LocalDateTime start, LocalDateTime end, int points) {
+        for (RollupResolution resolution : values()) {
+            if (resolution.bucketsBetween(start, end) <= points) {
+                return resolution;
+            }
+        }
+        return DAY;
+    }
+}
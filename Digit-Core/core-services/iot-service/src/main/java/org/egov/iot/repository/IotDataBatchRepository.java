@@ -0,0 +1,77 @@
+package org.egov.iot.repository;
+
+import lombok.extern.slf4j.Slf4j;
+import org.egov.iot.model.IotData;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.support.GeneratedKeyHolder;
+import org.springframework.jdbc.support.KeyHolder;
+import org.springframework.stereotype.Repository;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Inserts IoT data in JDBC batches, one statement and one commit for a batch
+ * of readings instead of a JPA save per reading. The generated ids are read
+ * back into the readings.
+ */
+@Repository
+@Slf4j
+public class IotDataBatchRepository {
+
+    private static final String INSERT_QUERY = "INSERT INTO iot_data "
+            + "(device_id, data_type, payload, timestamp, tenant_id, source, metadata, created_at) "
+            + "VALUES (?, ?, ?, ?, ?, ?, ?, ?)";
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    public void insertBatch(List<IotData> batch) {
+        LocalDateTime now = LocalDateTime.now();
+        for (IotData data : batch) {
+            if (data.getTimestamp() == null) {
+                data.setTimestamp(now);
+            }
+            if (data.getCreatedAt() == null) {
+                data.setCreatedAt(now);
+            }
+        }
+        KeyHolder keyHolder = new GeneratedKeyHolder();
+        jdbcTemplate.batchUpdate(con -> con.prepareStatement(INSERT_QUERY, new String[] {"id"}),
+                new BatchPreparedStatementSetter() {
+                    @Override
+                    public void setValues(PreparedStatement ps, int i) throws SQLException {
+                        IotData data = batch.get(i);
+                        ps.setString(1, data.getDeviceId());
+                        ps.setString(2, data.getDataType());
+                        ps.setString(3, data.getPayload());
+                        ps.setTimestamp(4, Timestamp.valueOf(data.getTimestamp()));
+                        ps.setString(5, data.getTenantId());
+                        ps.setString(6, data.getSource());
+                        ps.setString(7, data.getMetadata());
+                        ps.setTimestamp(8, Timestamp.valueOf(data.getCreatedAt()));
+                    }
+
+                    @Override
+                    public int getBatchSize() {
+                        return batch.size();
+                    }
+                }, keyHolder);
+
+        List<Map<String, Object>> keys = keyHolder.getKeyList();
+        if (keys.size() == batch.size()) {
+            for (int i = 0; i < batch.size(); i++) {
+                batch.get(i).setId(((Number) keys.get(i).get("id")).longValue());
+            }
+        } else {
+            log.warn("Got {} generated ids for a batch of {} IoT data records", keys.size(), batch.size());
+        }
+        log.debug("Inserted batch of {} IoT data records", batch.size());
+    }
+}
@@ -0,0 +1,86 @@
+package org.egov.iot.repository;
+
+import lombok.extern.slf4j.Slf4j;
+import org.egov.iot.model.IotDataPartition;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Creates and drops the daily time partitions of the iot_data table.
+ */
+@Repository
+@Slf4j
+public class IotDataPartitionRepository {
+
+    private static final String LIST_QUERY = "SELECT c.relname AS name, pg_get_expr(c.relpartbound, c.oid) AS bound "
+            + "FROM pg_inherits i JOIN pg_class c ON c.oid = i.inhrelid "
+            + "WHERE i.inhparent = 'iot_data'::regclass";
+
+    private static final String CREATE_QUERY = "CREATE TABLE IF NOT EXISTS %s PARTITION OF iot_data "
+            + "FOR VALUES FROM ('%s') TO ('%s')";
+
+    private static final String DROP_QUERY = "DROP TABLE IF EXISTS %s";
+
+    private static final String DELETE_QUERY = "DELETE FROM %s WHERE timestamp < ?";
+
+    private static final Pattern RANGE_BOUND = Pattern.compile("FROM \\((.+?)\\) TO \\((.+?)\\)");
+
+    private static final DateTimeFormatter PARTITION_SUFFIX = DateTimeFormatter.ofPattern("yyyyMMdd");
+
+    private static final DateTimeFormatter BOUND_FORMAT = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    public List<IotDataPartition> getPartitions() {
+        return jdbcTemplate.query(LIST_QUERY, (rs, rowNum) -> toPartition(rs.getString("name"), rs.getString("bound")));
+    }
+
+    public String createDailyPartition(LocalDateTime day) {
+        String name = "iot_data_p" + day.format(PARTITION_SUFFIX);
+        jdbcTemplate.execute(String.format(CREATE_QUERY, name, day.format(BOUND_FORMAT),
+                day.plusDays(1).format(BOUND_FORMAT)));
+        log.info("Created IoT data partition: {}", name);
+        return name;
+    }
+
+    public void dropPartition(IotDataPartition partition) {
+        jdbcTemplate.execute(String.format(DROP_QUERY, quote(partition.getName())));
+        log.info("Dropped IoT data partition: {}", partition.getName());
+    }
+
+    public int deleteBefore(IotDataPartition partition, LocalDateTime before) {
+        return jdbcTemplate.update(String.format(DELETE_QUERY, quote(partition.getName())), Timestamp.valueOf(before));
+    }
+
+    private static IotDataPartition toPartition(String name, String bound) {
+        IotDataPartition partition = IotDataPartition.builder().name(name).build();
+        Matcher matcher = bound == null ? null : RANGE_BOUND.matcher(bound);
+        if (matcher == null || !matcher.find()) {
+            partition.setDefaultPartition(true);
+            return partition;
+        }
+        partition.setFrom(toBound(matcher.group(1)));
+        partition.setTo(toBound(matcher.group(2)));
+        return partition;
+    }
+
+    private static LocalDateTime toBound(String value) {
+        if ("MINVALUE".equals(value) || "MAXVALUE".equals(value)) {
+            return null;
+        }
+        return Timestamp.valueOf(value.replace("'", "")).toLocalDateTime();
+    }
+
+    private static String quote(String name) {
+        return "\"" + name.replace("\"", "\"\"") + "\"";
+    }
+}
@@ -35,4 +35,8 @@ public interface IotDataRepository extends JpaRepository<IotData, Long> {
     
     @Query("SELECT COUNT(d) FROM IotData d WHERE d.deviceId = :deviceId AND d.timestamp >= :since")
     long countByDeviceIdSince(@Param("deviceId") String deviceId, @Param("since") LocalDateTime since);
+
+    @Query("SELECT COUNT(d) FROM IotData d WHERE d.deviceId = :deviceId AND d.timestamp >= :start AND d.timestamp < :end")
+    long countByDeviceIdBetween(@Param("deviceId") String deviceId, @Param("start") LocalDateTime start,
+                                @Param("end") LocalDateTime end);
 }
@@ -0,0 +1,113 @@
+package org.egov.iot.repository;
+
+import lombok.extern.slf4j.Slf4j;
+import org.egov.iot.model.IotRollup;
+import org.egov.iot.model.RollupResolution;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Reads and maintains the minute, hour and day rollups of IoT data.
+ */
+@Repository
+@Slf4j
+public class IotRollupRepository {
+
+    private static final String UPSERT_QUERY = "INSERT INTO %s AS r "
+            + "(device_id, metric, bucket, tenant_id, min_value, max_value, sum_value, sample_count) "
+            + "VALUES (?, ?, ?, ?, ?, ?, ?, ?) "
+            + "ON CONFLICT (device_id, metric, bucket) DO UPDATE SET "
+            + "min_value = LEAST(r.min_value, EXCLUDED.min_value), "
+            + "max_value = GREATEST(r.max_value, EXCLUDED.max_value), "
+            + "sum_value = r.sum_value + EXCLUDED.sum_value, "
+            + "sample_count = r.sample_count + EXCLUDED.sample_count, "
+            + "tenant_id = COALESCE(r.tenant_id, EXCLUDED.tenant_id)";
+
+    private static final String SEARCH_QUERY = "SELECT device_id, metric, bucket, tenant_id, min_value, max_value, "
+            + "sum_value, sample_count FROM %s WHERE device_id = ? AND bucket >= ? AND bucket < ?";
+
+    private static final String COUNT_QUERY = "SELECT COALESCE(SUM(sample_count), 0) FROM %s "
+            + "WHERE device_id = ? AND metric = ? AND bucket >= ?";
+
+    private static final String DELETE_QUERY = "DELETE FROM %s WHERE bucket < ?";
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    /**
+     * Adds the rollups to the stored ones. The rollups are expected in a fixed
+     * order, so that concurrent batches lock the rows in the same order.
+     */
+    public void upsert(RollupResolution resolution, List<IotRollup> rollups) {
+        if (rollups.isEmpty()) {
+            return;
+        }
+        jdbcTemplate.batchUpdate(String.format(UPSERT_QUERY, resolution.getTableName()), rollups, rollups.size(),
+                (ps, rollup) -> {
+                    ps.setString(1, rollup.getDeviceId());
+                    ps.setString(2, rollup.getMetric());
+                    ps.setTimestamp(3, Timestamp.valueOf(rollup.getBucket()));
+                    ps.setString(4, rollup.getTenantId());
+                    ps.setDouble(5, rollup.getMinValue());
+                    ps.setDouble(6, rollup.getMaxValue());
+                    ps.setDouble(7, rollup.getSumValue());
+                    ps.setLong(8, rollup.getCount());
+                });
+        log.debug("Upserted {} {} rollups", rollups.size(), resolution);
+    }
+
+    public List<IotRollup> search(RollupResolution resolution, String deviceId, String metric,
+                                  LocalDateTime start, LocalDateTime end) {
+        StringBuilder query = new StringBuilder(String.format(SEARCH_QUERY, resolution.getTableName()));
+        List<Object> params = new ArrayList<>();
+        params.add(deviceId);
+        params.add(Timestamp.valueOf(resolution.truncate(start)));
+        params.add(Timestamp.valueOf(end));
+        if (metric != null) {
+            query.append(" AND metric = ?");
+            params.add(metric);
+        }
+        query.append(" ORDER BY metric, bucket");
+
+        return jdbcTemplate.query(query.toString(), (rs, rowNum) -> IotRollup.builder()
+                .deviceId(rs.getString("device_id"))
+                .metric(rs.getString("metric"))
+                .resolution(resolution)
+                .bucket(rs.getTimestamp("bucket").toLocalDateTime())
+                .tenantId(rs.getString("tenant_id"))
+                .minValue(rs.getDouble("min_value"))
+                .maxValue(rs.getDouble("max_value"))
+                .sumValue(rs.getDouble("sum_value"))
+                .count(rs.getLong("sample_count"))
+                .build(), params.toArray());
+    }
+
+    /**
+     * Sums the counts of the metric in the buckets from the start, and before
+     * the end when there is one.
+     */
+    public long sumCount(RollupResolution resolution, String deviceId, String metric,
+                         LocalDateTime start, LocalDateTime end) {
+        StringBuilder query = new StringBuilder(String.format(COUNT_QUERY, resolution.getTableName()));
+        List<Object> params = new ArrayList<>();
+        params.add(deviceId);
+        params.add(metric);
+        params.add(Timestamp.valueOf(start));
+        if (end != null) {
+            query.append(" AND bucket < ?");
+            params.add(Timestamp.valueOf(end));
+        }
+        Long count = jdbcTemplate.queryForObject(query.toString(), Long.class, params.toArray());
+        return count == null ? 0 : count;
+    }
+
+    public int deleteBefore(RollupResolution resolution, LocalDateTime before) {
+        return jdbcTemplate.update(String.format(DELETE_QUERY, resolution.getTableName()), Timestamp.valueOf(before));
+    }
+}
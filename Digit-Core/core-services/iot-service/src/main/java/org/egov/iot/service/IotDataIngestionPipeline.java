@@ -0,0 +1,204 @@
+package org.egov.iot.service;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.egov.iot.model.IotData;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Buffers the IoT data received over MQTT and writes it in group commits.
+ *
+ * Readings are handed to a bounded buffer and the writer threads drain it in
+ * batches, a batch is written once it is full or once the oldest reading in it
+ * has waited for the linger time. When the buffer is full {@link #submit}
+ * blocks the MQTT callback thread, so the client stops reading from the broker
+ * until the writers catch up instead of the service running out of memory.
+ *
+ * A reading is acknowledged to the broker once it is in the buffer, not once
+ * it is committed. If the service crashes, the readings still buffered are
+ * lost even at QoS 1: up to the buffer capacity plus the batches being
+ * written. A graceful shutdown flushes the buffer first.
+ */
+@Component
+@Slf4j
+public class IotDataIngestionPipeline {
+
+    private static final long SUBMIT_WAIT_MS = 1000;
+
+    @Autowired
+    private IotDataService dataService;
+
+    @Value("${iot.ingestion.buffer.capacity:10000}")
+    private int bufferCapacity;
+
+    @Value("${iot.ingestion.batch.size:500}")
+    private int batchSize;
+
+    @Value("${iot.ingestion.linger.ms:50}")
+    private long lingerMs;
+
+    @Value("${iot.ingestion.writer.threads:2}")
+    private int writerThreads;
+
+    @Value("${iot.ingestion.flush.max.attempts:3}")
+    private int flushMaxAttempts;
+
+    @Value("${iot.ingestion.flush.backoff.ms:200}")
+    private long flushBackoffMs;
+
+    @Value("${iot.ingestion.shutdown.timeout.ms:30000}")
+    private long shutdownTimeoutMs;
+
+    private BlockingQueue<IotData> buffer;
+
+    private final List<Thread> writers = new ArrayList<>();
+
+    private volatile boolean running;
+
+    private final AtomicLong persistedCount = new AtomicLong();
+
+    private final AtomicLong droppedCount = new AtomicLong();
+
+    private final AtomicLong batchCount = new AtomicLong();
+
+    @PostConstruct
+    public void start() {
+        buffer = new ArrayBlockingQueue<>(bufferCapacity);
+        running = true;
+        for (int i = 1; i <= Math.max(1, writerThreads); i++) {
+            Thread writer = new Thread(this::drain, "iot-ingestion-writer-" + i);
+            writer.setDaemon(true);
+            writer.start();
+            writers.add(writer);
+        }
+        log.info("Started IoT data ingestion with buffer capacity: {}, batch size: {}, linger: {} ms, writers: {}",
+                bufferCapacity, batchSize, lingerMs, writers.size());
+    }
+
+    /**
+     * Stops taking new readings and waits for the writers to write what is
+     * left in the buffer.
+     */
+    @PreDestroy
+    public void stop() {
+        running = false;
+        long deadline = System.currentTimeMillis() + shutdownTimeoutMs;
+        for (Thread writer : writers) {
+            try {
+                writer.join(Math.max(1, deadline - System.currentTimeMillis()));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            }
+        }
+        writers.clear();
+        if (!buffer.isEmpty()) {
+            log.error("Stopped IoT data ingestion with {} records not written", buffer.size());
+        }
+        log.info("Stopped IoT data ingestion, persisted: {} records in {} batches, dropped: {} records",
+                persistedCount.get(), batchCount.get(), droppedCount.get());
+    }
+
+    /**
+     * Adds a reading to the buffer, waiting while the buffer is full.
+     */
+    public void submit(IotData iotData) throws InterruptedException {
+        if (buffer.offer(iotData)) {
+            return;
+        }
+        log.warn("IoT data ingestion buffer is full, holding back the MQTT client");
+        while (running) {
+            if (buffer.offer(iotData, SUBMIT_WAIT_MS, TimeUnit.MILLISECONDS)) {
+                return;
+            }
+        }
+        throw new IllegalStateException("IoT data ingestion is stopped");
+    }
+
+    public int getBufferedCount() {
+        return buffer.size();
+    }
+
+    public long getPersistedCount() {
+        return persistedCount.get();
+    }
+
+    public long getDroppedCount() {
+        return droppedCount.get();
+    }
+
+    public long getBatchCount() {
+        return batchCount.get();
+    }
+
+    private void drain() {
+        List<IotData> batch = new ArrayList<>(batchSize);
+        while (running || !buffer.isEmpty()) {
+            try {
+                IotData first = buffer.poll(lingerMs, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+                long lingerDeadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(lingerMs);
+                while (batch.size() < batchSize) {
+                    if (buffer.drainTo(batch, batchSize - batch.size()) > 0) {
+                        continue;
+                    }
+                    long remaining = lingerDeadline - System.nanoTime();
+                    IotData next = remaining > 0 ? buffer.poll(remaining, TimeUnit.NANOSECONDS) : null;
+                    if (next == null) {
+                        break;
+                    }
+                    batch.add(next);
+                }
+                flush(batch);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                flush(batch);
+                return;
+            } finally {
+                batch.clear();
+            }
+        }
+    }
+
+    private void flush(List<IotData> batch) {
+        if (batch.isEmpty()) {
+            return;
+        }
+        long backoffMs = flushBackoffMs;
+        for (int attempt = 1; ; attempt++) {
+            try {
+                dataService.saveIotDataBatch(batch);
+                persistedCount.addAndGet(batch.size());
+                batchCount.incrementAndGet();
+                return;
+            } catch (RuntimeException e) {
+                if (attempt >= flushMaxAttempts) {
+                    droppedCount.addAndGet(batch.size());
+                    log.error("Dropping batch of {} IoT data records after {} attempts", batch.size(), attempt, e);
+                    return;
+                }
+                log.warn("Failed to write batch of {} IoT data records, attempt {} of {}",
+                        batch.size(), attempt, flushMaxAttempts, e);
+                try {
+                    Thread.sleep(backoffMs);
+                } catch (InterruptedException ie) {
+                    Thread.currentThread().interrupt();
+                }
+                backoffMs *= 2;
+            }
+        }
+    }
+}
@@ -0,0 +1,74 @@
+package org.egov.iot.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.egov.iot.model.IotDataPartition;
+import org.egov.iot.repository.IotDataPartitionRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataAccessException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Keeps the daily partitions of the iot_data table ahead of the readings and
+ * applies the retention policy by dropping the partitions that have expired.
+ */
+@Service
+@Slf4j
+public class IotDataPartitionService {
+
+    @Autowired
+    private IotDataPartitionRepository partitionRepository;
+
+    @Autowired
+    private IotDataService dataService;
+
+    @Value("${iot.data.partition.days.ahead:7}")
+    private int daysAhead;
+
+    @Value("${iot.data.retention.days:90}")
+    private int retentionDays;
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void onStartup() {
+        maintainPartitions();
+    }
+
+    @Scheduled(cron = "${iot.data.partition.maintenance.cron:0 15 0 * * *}")
+    public void maintainPartitions() {
+        try {
+            createPartitions(LocalDate.now());
+            if (retentionDays > 0) {
+                dataService.deleteOldData(LocalDate.now().minusDays(retentionDays).atStartOfDay());
+            }
+        } catch (DataAccessException e) {
+            log.error("Failed to maintain IoT data partitions", e);
+        }
+    }
+
+    /**
+     * Creates the daily partitions from the day up to the days ahead that no
+     * partition covers yet.
+     */
+    public void createPartitions(LocalDate from) {
+        List<IotDataPartition> partitions = partitionRepository.getPartitions();
+        for (int i = 0; i <= daysAhead; i++) {
+            LocalDateTime day = from.plusDays(i).atStartOfDay();
+            if (partitions.stream().anyMatch(partition -> partition.covers(day))) {
+                continue;
+            }
+            try {
+                partitionRepository.createDailyPartition(day);
+            } catch (DataAccessException e) {
+                // the default partition holds readings of the day
+                log.error("Failed to create IoT data partition for {}", day.toLocalDate(), e);
+            }
+        }
+    }
+}
@@ -2,6 +2,11 @@ package org.egov.iot.service;
 
 import lombok.extern.slf4j.Slf4j;
 import org.egov.iot.model.IotData;
+import org.egov.iot.model.IotDataPartition;
+import org.egov.iot.model.IotRollup;
+import org.egov.iot.model.RollupResolution;
+import org.egov.iot.repository.IotDataBatchRepository;
+import org.egov.iot.repository.IotDataPartitionRepository;
 import org.egov.iot.repository.IotDataRepository;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.data.domain.Page;
@@ -12,6 +17,7 @@ import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDateTime;
+import java.util.Collections;
 import java.util.List;
 
 @Service
@@ -21,16 +27,45 @@ public class IotDataService {
     @Autowired
     private IotDataRepository dataRepository;
 
+    @Autowired
+    private IotDataBatchRepository batchRepository;
+
+    @Autowired
+    private IotDataPartitionRepository partitionRepository;
+
+    @Autowired
+    private IotRollupService rollupService;
+
+    @Autowired
+    private LatestReadingCache latestReadingCache;
+
     @Transactional
     public IotData saveIotData(IotData iotData) {
         log.debug("Saving IoT data for device: {}", iotData.getDeviceId());
-        return dataRepository.save(iotData);
+        IotData saved = dataRepository.saveAndFlush(iotData);
+        rollupService.record(Collections.singletonList(saved));
+        latestReadingCache.update(Collections.singletonList(saved));
+        return saved;
     }
 
     @Transactional
     public List<IotData> saveBulkIotData(List<IotData> iotDataList) {
         log.info("Saving bulk IoT data: {} records", iotDataList.size());
-        return dataRepository.saveAll(iotDataList);
+        List<IotData> saved = dataRepository.saveAllAndFlush(iotDataList);
+        rollupService.record(saved);
+        latestReadingCache.update(saved);
+        return saved;
+    }
+
+    /**
+     * Inserts a batch of readings with a single JDBC batch and adds them to the
+     * rollups in the same transaction.
+     */
+    @Transactional
+    public void saveIotDataBatch(List<IotData> batch) {
+        batchRepository.insertBatch(batch);
+        rollupService.record(batch);
+        latestReadingCache.update(batch);
     }
 
     public List<IotData> getDataByDeviceId(String deviceId) {
@@ -54,10 +89,24 @@ public class IotDataService {
 
     public List<IotData> getLatestDataByDeviceId(String deviceId, int limit) {
         log.debug("Fetching latest {} records for device: {}", limit, deviceId);
+        if (limit == 1) {
+            IotData latest = getLatestReading(deviceId);
+            return latest == null ? Collections.emptyList() : Collections.singletonList(latest);
+        }
         Pageable pageable = PageRequest.of(0, limit);
         return dataRepository.findLatestByDeviceId(deviceId, pageable);
     }
 
+    public IotData getLatestReading(String deviceId) {
+        return latestReadingCache.get(deviceId, id -> dataRepository.findLatestByDeviceId(id, PageRequest.of(0, 1))
+                .stream().findFirst().orElse(null));
+    }
+
+    public List<IotRollup> getRollups(String deviceId, String metric, LocalDateTime startTime,
+                                      LocalDateTime endTime, Integer points) {
+        return rollupService.getRollups(deviceId, metric, startTime, endTime, points);
+    }
+
     public List<IotData> getDataByTenantId(String tenantId) {
         log.debug("Fetching data for tenant: {}", tenantId);
         return dataRepository.findByTenantId(tenantId);
@@ -76,13 +125,31 @@ public class IotDataService {
 
     public long getDataCountSince(String deviceId, LocalDateTime since) {
         log.debug("Counting data for device: {} since {}", deviceId, since);
-        return dataRepository.countByDeviceIdSince(deviceId, since);
+        // readings of the partial minute are counted from the raw data, the rest from the rollups
+        LocalDateTime nextMinute = RollupResolution.MINUTE.ceil(since);
+        long count = rollupService.countReadingsFrom(deviceId, nextMinute);
+        if (since.isBefore(nextMinute)) {
+            count += dataRepository.countByDeviceIdBetween(deviceId, since, nextMinute);
+        }
+        return count;
     }
 
-    @Transactional
+    /**
+     * Drops the partitions of iot_data that only hold readings from before the
+     * time, and deletes such readings from the default partition along with the
+     * minute rollups of that time. Hour and day rollups are kept.
+     */
     public void deleteOldData(LocalDateTime before) {
         log.info("Deleting IoT data older than: {}", before);
-        // Implementation for cleanup - can be scheduled
-        // This is a placeholder for data retention policy
+        for (IotDataPartition partition : partitionRepository.getPartitions()) {
+            if (partition.isDefaultPartition()) {
+                int deleted = partitionRepository.deleteBefore(partition, before);
+                log.info("Deleted {} IoT data records from partition: {}", deleted, partition.getName());
+            } else if (partition.getTo() != null && !partition.getTo().isAfter(before)) {
+                partitionRepository.dropPartition(partition);
+            }
+        }
+        int deletedRollups = rollupService.deleteMinuteRollupsBefore(before);
+        log.info("Deleted {} minute rollups older than: {}", deletedRollups, before);
     }
 }
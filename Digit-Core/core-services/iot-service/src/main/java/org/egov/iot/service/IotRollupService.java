@@ -0,0 +1,139 @@
+package org.egov.iot.service;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.extern.slf4j.Slf4j;
+import org.egov.iot.model.IotData;
+import org.egov.iot.model.IotRollup;
+import org.egov.iot.model.RollupResolution;
+import org.egov.iot.repository.IotRollupRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Maintains the minute, hour and day rollups of the numeric metrics of IoT
+ * data as it is saved, and answers range and count queries from them instead
+ * of the raw readings.
+ *
+ * The metrics of a reading are the numeric top level fields of its JSON
+ * payload. Every reading is also counted under the {@value #READINGS_METRIC}
+ * metric, whatever its payload.
+ */
+@Service
+@Slf4j
+public class IotRollupService {
+
+    public static final String READINGS_METRIC = "_readings";
+
+    private static final Comparator<IotRollup> LOCK_ORDER = Comparator.comparing(IotRollup::getDeviceId)
+            .thenComparing(IotRollup::getMetric)
+            .thenComparing(IotRollup::getBucket);
+
+    @Autowired
+    private IotRollupRepository rollupRepository;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Value("${iot.rollup.default.points:500}")
+    private int defaultPoints;
+
+    /**
+     * Adds the readings to the rollups of every resolution.
+     */
+    public void record(List<IotData> readings) {
+        Map<RollupResolution, Map<List<Object>, IotRollup>> rollups = new EnumMap<>(RollupResolution.class);
+        for (IotData reading : readings) {
+            Map<String, Double> metrics = extractMetrics(reading.getPayload());
+            metrics.put(READINGS_METRIC, 1.0);
+            for (RollupResolution resolution : RollupResolution.values()) {
+                LocalDateTime bucket = resolution.truncate(reading.getTimestamp());
+                Map<List<Object>, IotRollup> resolutionRollups =
+                        rollups.computeIfAbsent(resolution, key -> new HashMap<>());
+                metrics.forEach((metric, value) -> resolutionRollups
+                        .computeIfAbsent(Arrays.asList(reading.getDeviceId(), metric, bucket),
+                                key -> IotRollup.builder()
+                                        .deviceId(reading.getDeviceId())
+                                        .tenantId(reading.getTenantId())
+                                        .metric(metric)
+                                        .resolution(resolution)
+                                        .bucket(bucket)
+                                        .build())
+                        .add(value));
+            }
+        }
+        // tables in resolution order and rows in lock order, so concurrent batches lock in the same order
+        rollups.forEach((resolution, resolutionRollups) -> {
+            List<IotRollup> sorted = new ArrayList<>(resolutionRollups.values());
+            sorted.sort(LOCK_ORDER);
+            rollupRepository.upsert(resolution, sorted);
+        });
+    }
+
+    /**
+     * Returns the rollups of the device over the range, at the finest
+     * resolution that has no more than the requested points per metric.
+     */
+    public List<IotRollup> getRollups(String deviceId, String metric, LocalDateTime startTime,
+                                      LocalDateTime endTime, Integer points) {
+        int requestedPoints = points == null || points <= 0 ? defaultPoints : points;
+        RollupResolution resolution = RollupResolution.fit(startTime, endTime, requestedPoints);
+        log.debug("Fetching {} rollups for device: {} between {} and {}", resolution, deviceId, startTime, endTime);
+        return rollupRepository.search(resolution, deviceId, metric, startTime, endTime);
+    }
+
+    /**
+     * Counts the readings of the device from the start of a minute, reading
+     * the day rollups for whole days and the finer ones for the rest.
+     */
+    public long countReadingsFrom(String deviceId, LocalDateTime minute) {
+        LocalDateTime hour = RollupResolution.HOUR.ceil(minute);
+        LocalDateTime day = RollupResolution.DAY.ceil(minute);
+        long count = 0;
+        if (minute.isBefore(hour)) {
+            count += rollupRepository.sumCount(RollupResolution.MINUTE, deviceId, READINGS_METRIC, minute, hour);
+        }
+        if (hour.isBefore(day)) {
+            count += rollupRepository.sumCount(RollupResolution.HOUR, deviceId, READINGS_METRIC, hour, day);
+        }
+        return count + rollupRepository.sumCount(RollupResolution.DAY, deviceId, READINGS_METRIC, day, null);
+    }
+
+    public int deleteMinuteRollupsBefore(LocalDateTime before) {
+        return rollupRepository.deleteBefore(RollupResolution.MINUTE, before);
+    }
+
+    private Map<String, Double> extractMetrics(String payload) {
+        Map<String, Double> metrics = new HashMap<>();
+        if (payload == null || payload.isEmpty()) {
+            return metrics;
+        }
+        try {
+            JsonNode node = objectMapper.readTree(payload);
+            if (node == null || !node.isObject()) {
+                return metrics;
+            }
+            Iterator<Map.Entry<String, JsonNode>> fields = node.fields();
+            while (fields.hasNext()) {
+                Map.Entry<String, JsonNode> field = fields.next();
+                if (field.getValue().isNumber() && !READINGS_METRIC.equals(field.getKey())) {
+                    metrics.put(field.getKey(), field.getValue().asDouble());
+                }
+            }
+        } catch (Exception e) {
+            log.debug("Payload is not a JSON object, only counting the reading");
+        }
+        return metrics;
+    }
+}
@@ -0,0 +1,91 @@
+package org.egov.iot.service;
+
+import org.egov.iot.model.IotData;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+/**
+ * Latest reading of every device, kept in memory so the current reading of a
+ * device is served without a query.
+ *
+ * Readings saved by this instance update the cache once their transaction
+ * commits. An entry is reloaded from the database once it is older than the
+ * ttl, which bounds how stale it is when readings of the device are saved by
+ * another instance.
+ */
+@Component
+public class LatestReadingCache {
+
+    @Value("${iot.latest.cache.ttl.seconds:60}")
+    private long ttlSeconds;
+
+    private final Map<String, CachedReading> readings = new ConcurrentHashMap<>();
+
+    /**
+     * Updates the cache with the readings, after the current transaction
+     * commits if there is one.
+     */
+    public void update(List<IotData> batch) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    batch.forEach(LatestReadingCache.this::put);
+                }
+            });
+        } else {
+            batch.forEach(this::put);
+        }
+    }
+
+    /**
+     * Returns the latest reading of the device, loading it when it isn't cached
+     * or its entry has expired.
+     */
+    public IotData get(String deviceId, Function<String, IotData> loader) {
+        CachedReading cached = readings.get(deviceId);
+        if (cached != null && System.nanoTime() - cached.cachedAt < TimeUnit.SECONDS.toNanos(ttlSeconds)) {
+            return cached.data;
+        }
+        IotData data = loader.apply(deviceId);
+        if (data == null) {
+            readings.remove(deviceId);
+            return null;
+        }
+        readings.put(deviceId, new CachedReading(data));
+        return data;
+    }
+
+    private void put(IotData data) {
+        if (data.getDeviceId() == null || data.getTimestamp() == null) {
+            return;
+        }
+        if (data.getId() == null) {
+            // the reading can't be served without its id, it is loaded from the database instead
+            readings.remove(data.getDeviceId());
+            return;
+        }
+        readings.merge(data.getDeviceId(), new CachedReading(data), (cached, latest) ->
+                cached.data.getTimestamp().isAfter(latest.data.getTimestamp()) ? cached : latest);
+    }
+
+    private static final class CachedReading {
+
+        private final IotData data;
+
+        private final long cachedAt;
+
+        private CachedReading(IotData data) {
+            this.data = data;
+            this.cachedAt = System.nanoTime();
+        }
+    }
+}
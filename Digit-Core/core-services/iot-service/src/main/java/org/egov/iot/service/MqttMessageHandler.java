@@ -15,7 +15,7 @@ import java.time.LocalDateTime;
 public class MqttMessageHandler {
 
     @Autowired
-    private IotDataService iotDataService;
+    private IotDataIngestionPipeline ingestionPipeline;
 
     @Autowired
     private ObjectMapper objectMapper;
@@ -26,7 +26,7 @@ public class MqttMessageHandler {
             String topic = (String) message.getHeaders().get("mqtt_receivedTopic");
             String payload = message.getPayload().toString();
             
-            log.info("Received MQTT message from topic: {}", topic);
+            log.debug("Received MQTT message from topic: {}", topic);
             log.debug("Payload: {}", payload);
 
             // Extract device ID from topic (assuming format: iot/devices/{deviceId}/data)
@@ -38,19 +38,24 @@ public class MqttMessageHandler {
             }
 
             // Create IotData entity
+            LocalDateTime now = LocalDateTime.now();
             IotData iotData = IotData.builder()
                     .deviceId(deviceId)
                     .dataType("TELEMETRY")
                     .payload(payload)
-                    .timestamp(LocalDateTime.now())
+                    .timestamp(now)
                     .source("MQTT")
+                    .createdAt(now)
                     .build();
 
-            // Save to database
-            iotDataService.saveIotData(iotData);
-            
-            log.info("Successfully processed MQTT message for device: {}", deviceId);
-            
+            // Hand over to the ingestion pipeline, blocks while its buffer is full
+            ingestionPipeline.submit(iotData);
+
+            log.debug("Queued MQTT message for device: {}", deviceId);
+
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            log.error("Interrupted while queueing MQTT message", e);
         } catch (Exception e) {
             log.error("Error processing MQTT message", e);
         }
@@ -3,6 +3,7 @@ package org.egov.iot.web.controller;
 import jakarta.validation.Valid;
 import lombok.extern.slf4j.Slf4j;
 import org.egov.iot.model.IotData;
+import org.egov.iot.model.IotRollup;
 import org.egov.iot.service.IotDataService;
 import org.egov.iot.service.MqttPublishService;
 import org.egov.iot.web.model.DataRequest;
@@ -113,6 +114,30 @@ public class IotDataController {
         return ResponseEntity.ok(response);
     }
 
+    @GetMapping("/{deviceId}/_rollup")
+    public ResponseEntity<DataResponse> getRollups(
+            @PathVariable String deviceId,
+            @RequestParam(required = false) String metric,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime startTime,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime endTime,
+            @RequestParam(required = false) Integer points) {
+
+        log.info("Fetching rollups for device: {} between {} and {}", deviceId, startTime, endTime);
+
+        if (!startTime.isBefore(endTime)) {
+            throw new IllegalArgumentException("startTime must be before endTime");
+        }
+
+        List<IotRollup> rollups = dataService.getRollups(deviceId, metric, startTime, endTime, points);
+
+        DataResponse response = DataResponse.builder()
+                .responseInfo(ResponseInfo.success())
+                .rollups(rollups)
+                .build();
+
+        return ResponseEntity.ok(response);
+    }
+
     @PostMapping("/{deviceId}/_publish")
     public ResponseEntity<DataResponse> publishToDevice(
             @PathVariable String deviceId,
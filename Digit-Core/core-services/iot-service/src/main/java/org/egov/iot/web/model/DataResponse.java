@@ -6,6 +6,7 @@ import lombok.Builder;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 import org.egov.iot.model.IotData;
+import org.egov.iot.model.IotRollup;
 
 import java.util.List;
 
@@ -23,4 +24,7 @@ public class DataResponse {
 
     @JsonProperty("DataList")
     private List<IotData> dataList;
+
+    @JsonProperty("Rollups")
+    private List<IotRollup> rollups;
 }
@@ -0,0 +1,102 @@
+-- Partition iot_data by day of timestamp, so that old data is dropped a partition at a time.
+-- The existing table becomes the partition holding all data up to the end of the current day,
+-- the daily partitions after it are created by the service.
+ALTER TABLE iot_data RENAME TO iot_data_legacy;
+ALTER SEQUENCE iot_data_id_seq OWNED BY NONE;
+
+CREATE TABLE iot_data (
+    id BIGINT NOT NULL DEFAULT nextval('iot_data_id_seq'),
+    device_id VARCHAR(255) NOT NULL,
+    data_type VARCHAR(100),
+    payload TEXT NOT NULL,
+    timestamp TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    tenant_id VARCHAR(255),
+    source VARCHAR(50),
+    metadata TEXT,
+    created_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP
+) PARTITION BY RANGE (timestamp);
+
+CREATE INDEX idx_iot_data_part_device_timestamp ON iot_data(device_id, timestamp DESC);
+CREATE INDEX idx_iot_data_part_timestamp ON iot_data(timestamp DESC);
+CREATE INDEX idx_iot_data_part_tenant_id ON iot_data(tenant_id);
+CREATE INDEX idx_iot_data_part_data_type ON iot_data(data_type);
+CREATE INDEX idx_iot_data_part_source ON iot_data(source);
+
+DO $$
+DECLARE
+    upper_bound TIMESTAMP;
+BEGIN
+    SELECT date_trunc('day', GREATEST(LOCALTIMESTAMP, COALESCE(MAX(timestamp), LOCALTIMESTAMP))) + INTERVAL '1 day'
+    INTO upper_bound
+    FROM iot_data_legacy;
+
+    EXECUTE format('ALTER TABLE iot_data ATTACH PARTITION iot_data_legacy FOR VALUES FROM (MINVALUE) TO (%L)',
+                   upper_bound);
+END $$;
+
+-- Catches readings outside the daily partitions, e.g. readings with a timestamp far in the future
+CREATE TABLE iot_data_default PARTITION OF iot_data DEFAULT;
+
+COMMENT ON TABLE iot_data IS 'Table to store IoT device data and telemetry, partitioned by day of timestamp';
+
+-- Create rollup tables, maintained at ingest with the min, max, sum and count of every numeric
+-- metric of the payload per device and bucket. The _readings metric counts the readings.
+CREATE TABLE IF NOT EXISTS iot_data_rollup_minute (
+    device_id VARCHAR(255) NOT NULL,
+    metric VARCHAR(255) NOT NULL,
+    bucket TIMESTAMP NOT NULL,
+    tenant_id VARCHAR(255),
+    min_value DOUBLE PRECISION NOT NULL,
+    max_value DOUBLE PRECISION NOT NULL,
+    sum_value DOUBLE PRECISION NOT NULL,
+    sample_count BIGINT NOT NULL,
+    CONSTRAINT pk_iot_data_rollup_minute PRIMARY KEY (device_id, metric, bucket)
+);
+
+CREATE TABLE IF NOT EXISTS iot_data_rollup_hour (
+    device_id VARCHAR(255) NOT NULL,
+    metric VARCHAR(255) NOT NULL,
+    bucket TIMESTAMP NOT NULL,
+    tenant_id VARCHAR(255),
+    min_value DOUBLE PRECISION NOT NULL,
+    max_value DOUBLE PRECISION NOT NULL,
+    sum_value DOUBLE PRECISION NOT NULL,
+    sample_count BIGINT NOT NULL,
+    CONSTRAINT pk_iot_data_rollup_hour PRIMARY KEY (device_id, metric, bucket)
+);
+
+CREATE TABLE IF NOT EXISTS iot_data_rollup_day (
+    device_id VARCHAR(255) NOT NULL,
+    metric VARCHAR(255) NOT NULL,
+    bucket TIMESTAMP NOT NULL,
+    tenant_id VARCHAR(255),
+    min_value DOUBLE PRECISION NOT NULL,
+    max_value DOUBLE PRECISION NOT NULL,
+    sum_value DOUBLE PRECISION NOT NULL,
+    sample_count BIGINT NOT NULL,
+    CONSTRAINT pk_iot_data_rollup_day PRIMARY KEY (device_id, metric, bucket)
+);
+
+CREATE INDEX idx_iot_data_rollup_minute_bucket ON iot_data_rollup_minute(bucket);
+CREATE INDEX idx_iot_data_rollup_hour_bucket ON iot_data_rollup_hour(bucket);
+CREATE INDEX idx_iot_data_rollup_day_bucket ON iot_data_rollup_day(bucket);
+
+-- Count the existing readings, payloads are not parsed here so metrics start from the upgrade
+INSERT INTO iot_data_rollup_minute (device_id, metric, bucket, tenant_id, min_value, max_value, sum_value, sample_count)
+SELECT device_id, '_readings', date_trunc('minute', timestamp), MAX(tenant_id), 1, 1, COUNT(*), COUNT(*)
+FROM iot_data_legacy
+GROUP BY device_id, date_trunc('minute', timestamp);
+
+INSERT INTO iot_data_rollup_hour (device_id, metric, bucket, tenant_id, min_value, max_value, sum_value, sample_count)
+SELECT device_id, '_readings', date_trunc('hour', timestamp), MAX(tenant_id), 1, 1, COUNT(*), COUNT(*)
+FROM iot_data_legacy
+GROUP BY device_id, date_trunc('hour', timestamp);
+
+INSERT INTO iot_data_rollup_day (device_id, metric, bucket, tenant_id, min_value, max_value, sum_value, sample_count)
+SELECT device_id, '_readings', date_trunc('day', timestamp), MAX(tenant_id), 1, 1, COUNT(*), COUNT(*)
+FROM iot_data_legacy
+GROUP BY device_id, date_trunc('day', timestamp);
+
+COMMENT ON TABLE iot_data_rollup_minute IS 'Per minute min, max, sum and count of the metrics of IoT data';
+COMMENT ON TABLE iot_data_rollup_hour IS 'Per hour min, max, sum and count of the metrics of IoT data';
+COMMENT ON TABLE iot_data_rollup_day IS 'Per day min, max, sum and count of the metrics of IoT data';
@@ -0,0 +1,131 @@
+package org.egov.iot.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.egov.iot.model.IotData;
+import org.egov.iot.model.IotRollup;
+import org.egov.iot.model.RollupResolution;
+import org.egov.iot.repository.IotRollupRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+class IotRollupServiceTest {
+
+    private static final LocalDateTime T0 = LocalDateTime.of(2026, 10, 19, 10, 15, 20);
+
+    private final Map<RollupResolution, List<IotRollup>> upserts = new EnumMap<>(RollupResolution.class);
+    private final List<String> countQueries = new ArrayList<>();
+    private RollupResolution searchedResolution;
+
+    private IotRollupService rollupService;
+
+    @BeforeEach
+    void setUp() {
+        IotRollupRepository repository = new IotRollupRepository() {
+            @Override
+            public void upsert(RollupResolution resolution, List<IotRollup> rollups) {
+                upserts.put(resolution, rollups);
+            }
+
+            @Override
+            public List<IotRollup> search(RollupResolution resolution, String deviceId, String metric,
+                                          LocalDateTime start, LocalDateTime end) {
+                searchedResolution = resolution;
+                return new ArrayList<>();
+            }
+
+            @Override
+            public long sumCount(RollupResolution resolution, String deviceId, String metric,
+                                 LocalDateTime start, LocalDateTime end) {
+                countQueries.add(resolution + " " + start + " " + end);
+                return 1;
+            }
+        };
+        rollupService = new IotRollupService();
+        ReflectionTestUtils.setField(rollupService, "rollupRepository", repository);
+        ReflectionTestUtils.setField(rollupService, "objectMapper", new ObjectMapper());
+        ReflectionTestUtils.setField(rollupService, "defaultPoints", 500);
+    }
+
+    @Test
+    void readingsAreRolledUpPerDeviceMetricAndBucket() {
+        rollupService.record(Arrays.asList(
+                reading("device-2", T0, "{\"temperature\": 20, \"status\": \"ok\"}"),
+                reading("device-1", T0, "{\"temperature\": 21.5, \"humidity\": 60}"),
+                reading("device-1", T0.plusSeconds(30), "{\"temperature\": 23.5}"),
+                reading("device-1", T0.plusMinutes(5), "{\"temperature\": 19}"),
+                reading("device-1", T0.plusMinutes(6), "not json")));
+
+        List<IotRollup> minutes = upserts.get(RollupResolution.MINUTE);
+        IotRollup first = find(minutes, "device-1", "temperature", LocalDateTime.of(2026, 10, 19, 10, 15));
+        assertEquals(21.5, first.getMinValue());
+        assertEquals(23.5, first.getMaxValue());
+        assertEquals(22.5, first.getAvgValue());
+        assertEquals(2L, first.getCount());
+        assertEquals(2L, find(minutes, "device-1", IotRollupService.READINGS_METRIC,
+                LocalDateTime.of(2026, 10, 19, 10, 15)).getCount());
+        assertEquals(1L, find(minutes, "device-1", IotRollupService.READINGS_METRIC,
+                LocalDateTime.of(2026, 10, 19, 10, 21)).getCount());
+        assertNull(find(minutes, "device-2", "status", LocalDateTime.of(2026, 10, 19, 10, 15)));
+
+        IotRollup hour = find(upserts.get(RollupResolution.HOUR), "device-1", "temperature",
+                LocalDateTime.of(2026, 10, 19, 10, 0));
+        assertEquals(19.0, hour.getMinValue());
+        assertEquals(3L, hour.getCount());
+        assertEquals(4L, find(upserts.get(RollupResolution.DAY), "device-1", IotRollupService.READINGS_METRIC,
+                LocalDateTime.of(2026, 10, 19, 0, 0)).getCount());
+
+        // rows are upserted in the same order by every batch
+        assertEquals("device-1", minutes.get(0).getDeviceId());
+        assertEquals(IotRollupService.READINGS_METRIC, minutes.get(0).getMetric());
+        assertEquals("device-2", minutes.get(minutes.size() - 1).getDeviceId());
+    }
+
+    @Test
+    void rangeQueriesReadTheFinestResolutionWithinThePoints() {
+        LocalDateTime start = LocalDateTime.of(2026, 10, 12, 0, 0);
+        rollupService.getRollups("device-1", null, start, start.plusHours(6), null);
+        assertEquals(RollupResolution.MINUTE, searchedResolution);
+
+        rollupService.getRollups("device-1", null, start, start.plusDays(7), null);
+        assertEquals(RollupResolution.HOUR, searchedResolution);
+
+        rollupService.getRollups("device-1", null, start, start.plusDays(7), 10080);
+        assertEquals(RollupResolution.MINUTE, searchedResolution);
+
+        rollupService.getRollups("device-1", null, start, start.plusDays(365), null);
+        assertEquals(RollupResolution.DAY, searchedResolution);
+    }
+
+    @Test
+    void readingsAreCountedFromTheCoarsestRollupsThatFit() {
+        long count = rollupService.countReadingsFrom("device-1", LocalDateTime.of(2026, 10, 19, 10, 16));
+
+        assertEquals(3, count);
+        assertEquals(Arrays.asList(
+                "MINUTE 2026-10-19T10:16 2026-10-19T11:00",
+                "HOUR 2026-10-19T11:00 2026-10-20T00:00",
+                "DAY 2026-10-20T00:00 null"), countQueries);
+    }
+
+    private static IotData reading(String deviceId, LocalDateTime timestamp, String payload) {
+        return IotData.builder().deviceId(deviceId).timestamp(timestamp).payload(payload).build();
+    }
+
+    private static IotRollup find(List<IotRollup> rollups, String deviceId, String metric, LocalDateTime bucket) {
+        return rollups.stream()
+                .filter(rollup -> rollup.getDeviceId().equals(deviceId) && rollup.getMetric().equals(metric)
+                        && rollup.getBucket().equals(bucket))
+                .findFirst().orElse(null);
+    }
+}
@@ -0,0 +1,265 @@
+package org.egov.iot.service;
+
+import org.egov.iot.model.IotData;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.support.MessageBuilder;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Publishes readings from a set of devices through a stand-in for the MQTT
+ * broker, which like the Paho client delivers every message to the handler on
+ * a single callback thread, and writes them to a stub database that takes a
+ * round trip per statement.
+ */
+class MqttIngestionBenchmarkTest {
+
+    private static final int DEVICES = 50;
+    private static final int READINGS_PER_DEVICE = 40;
+    private static final int READINGS = DEVICES * READINGS_PER_DEVICE;
+    private static final long ROUND_TRIP_MICROS = 1000;
+    private static final long PER_ROW_MICROS = 5;
+
+    private IotDataIngestionPipeline pipeline;
+
+    @AfterEach
+    void tearDown() {
+        if (pipeline != null) {
+            pipeline.stop();
+        }
+    }
+
+    @Test
+    void groupCommitIsFasterThanASavePerMessage() throws Exception {
+        StubDatabase perMessageDatabase = new StubDatabase();
+        long perMessage = publish(message -> perMessageDatabase.saveIotDataBatch(
+                Collections.singletonList(toIotData(message))));
+        assertEquals(READINGS, perMessageDatabase.rows.get());
+
+        StubDatabase groupCommitDatabase = new StubDatabase();
+        pipeline = newPipeline(groupCommitDatabase, 1000, 200);
+        MqttMessageHandler handler = newHandler(pipeline);
+        long startTime = System.nanoTime();
+        publish(handler::handleMessage);
+        awaitPersisted(READINGS);
+        long groupCommit = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startTime);
+
+        String timings = String.format("%d readings: save per message %d ms (%d statements), group commit %d ms (%d batches)",
+                READINGS, perMessage, perMessageDatabase.statements.get(), groupCommit,
+                groupCommitDatabase.statements.get());
+        assertEquals(READINGS, groupCommitDatabase.rows.get());
+        assertEquals(READINGS_PER_DEVICE, groupCommitDatabase.readingsOf("device-1"));
+        assertEquals(0, pipeline.getDroppedCount());
+        assertTrue(groupCommitDatabase.statements.get() < READINGS / 10, timings);
+        assertTrue(groupCommit * 5 < perMessage, timings);
+    }
+
+    @Test
+    void handlerBlocksWhileTheBufferIsFull() throws Exception {
+        CountDownLatch databaseAvailable = new CountDownLatch(1);
+        StubDatabase database = new StubDatabase() {
+            @Override
+            public void saveIotDataBatch(List<IotData> batch) {
+                try {
+                    databaseAvailable.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                super.saveIotDataBatch(batch);
+            }
+        };
+        int capacity = 100;
+        int batchSize = 10;
+        pipeline = newPipeline(database, capacity, batchSize);
+        MqttMessageHandler handler = newHandler(pipeline);
+
+        AtomicInteger delivered = new AtomicInteger();
+        Thread callbackThread = new Thread(() -> {
+            for (int i = 0; i < READINGS; i++) {
+                handler.handleMessage(message("device-" + (i % DEVICES), i));
+                delivered.incrementAndGet();
+            }
+        });
+        callbackThread.start();
+
+        // each writer holds a batch, the buffer is full and the callback thread waits
+        long deadline = System.currentTimeMillis() + 5000;
+        while (pipeline.getBufferedCount() < capacity && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        Thread.sleep(200);
+        assertEquals(capacity, pipeline.getBufferedCount());
+        assertTrue(delivered.get() <= capacity + 2 * batchSize + 1, "Delivered " + delivered.get());
+        assertEquals(Thread.State.TIMED_WAITING, callbackThread.getState());
+
+        databaseAvailable.countDown();
+        callbackThread.join(10000);
+        awaitPersisted(READINGS);
+        assertEquals(READINGS, delivered.get());
+        assertEquals(READINGS, database.rows.get());
+    }
+
+    /**
+     * Publishes the readings of all the devices and returns the time the
+     * callback thread took to deliver them.
+     */
+    private long publish(Consumer<Message<?>> callback) throws InterruptedException {
+        BrokerStandIn broker = new BrokerStandIn(callback);
+        broker.start();
+        List<Thread> devices = new ArrayList<>();
+        for (int d = 0; d < DEVICES; d++) {
+            String deviceId = "device-" + d;
+            Thread device = new Thread(() -> {
+                for (int i = 0; i < READINGS_PER_DEVICE; i++) {
+                    broker.publish(message(deviceId, i));
+                }
+            });
+            device.start();
+            devices.add(device);
+        }
+        for (Thread device : devices) {
+            device.join();
+        }
+        return broker.awaitDelivered(READINGS);
+    }
+
+    private void awaitPersisted(long count) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 30000;
+        while (pipeline.getPersistedCount() < count && System.currentTimeMillis() < deadline) {
+            Thread.sleep(1);
+        }
+        assertEquals(count, pipeline.getPersistedCount());
+    }
+
+    private static IotDataIngestionPipeline newPipeline(IotDataService dataService, int capacity, int batchSize) {
+        IotDataIngestionPipeline pipeline = new IotDataIngestionPipeline();
+        ReflectionTestUtils.setField(pipeline, "dataService", dataService);
+        ReflectionTestUtils.setField(pipeline, "bufferCapacity", capacity);
+        ReflectionTestUtils.setField(pipeline, "batchSize", batchSize);
+        ReflectionTestUtils.setField(pipeline, "lingerMs", 20L);
+        ReflectionTestUtils.setField(pipeline, "writerThreads", 2);
+        ReflectionTestUtils.setField(pipeline, "flushMaxAttempts", 3);
+        ReflectionTestUtils.setField(pipeline, "flushBackoffMs", 10L);
+        ReflectionTestUtils.setField(pipeline, "shutdownTimeoutMs", 5000L);
+        pipeline.start();
+        return pipeline;
+    }
+
+    private static MqttMessageHandler newHandler(IotDataIngestionPipeline pipeline) {
+        MqttMessageHandler handler = new MqttMessageHandler();
+        ReflectionTestUtils.setField(handler, "ingestionPipeline", pipeline);
+        return handler;
+    }
+
+    private static Message<?> message(String deviceId, int reading) {
+        return MessageBuilder.withPayload("{\"temperature\":" + (20 + reading % 10) + ",\"reading\":" + reading + "}")
+                .setHeader("mqtt_receivedTopic", "iot/devices/" + deviceId + "/data")
+                .build();
+    }
+
+    private static IotData toIotData(Message<?> message) {
+        String topic = (String) message.getHeaders().get("mqtt_receivedTopic");
+        return IotData.builder().deviceId(topic.split("/")[2]).payload(message.getPayload().toString()).build();
+    }
+
+    /**
+     * Queues published messages and delivers them one at a time on its
+     * callback thread, so a slow callback holds back the publishers.
+     */
+    private static class BrokerStandIn {
+
+        private final BlockingQueue<Message<?>> inflight = new ArrayBlockingQueue<>(1000);
+        private final Consumer<Message<?>> callback;
+        private final AtomicInteger delivered = new AtomicInteger();
+        private final Thread callbackThread;
+        private volatile long firstDelivery;
+        private volatile long lastDelivery;
+
+        BrokerStandIn(Consumer<Message<?>> callback) {
+            this.callback = callback;
+            this.callbackThread = new Thread(this::deliver, "mqtt-callback-stand-in");
+            this.callbackThread.setDaemon(true);
+        }
+
+        void start() {
+            callbackThread.start();
+        }
+
+        void publish(Message<?> message) {
+            try {
+                inflight.put(message);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+
+        long awaitDelivered(int count) throws InterruptedException {
+            long deadline = System.currentTimeMillis() + 60000;
+            while (delivered.get() < count && System.currentTimeMillis() < deadline) {
+                Thread.sleep(1);
+            }
+            callbackThread.interrupt();
+            assertEquals(count, delivered.get());
+            return TimeUnit.NANOSECONDS.toMillis(lastDelivery - firstDelivery);
+        }
+
+        private void deliver() {
+            try {
+                while (true) {
+                    Message<?> message = inflight.take();
+                    if (firstDelivery == 0) {
+                        firstDelivery = System.nanoTime();
+                    }
+                    callback.accept(message);
+                    lastDelivery = System.nanoTime();
+                    delivered.incrementAndGet();
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    /**
+     * Takes a round trip per statement and a little time per row written.
+     */
+    private static class StubDatabase extends IotDataService {
+
+        final AtomicInteger statements = new AtomicInteger();
+        final AtomicInteger rows = new AtomicInteger();
+        final Map<String, AtomicInteger> readingsByDevice = new ConcurrentHashMap<>();
+
+        @Override
+        public void saveIotDataBatch(List<IotData> batch) {
+            long micros = ROUND_TRIP_MICROS + PER_ROW_MICROS * batch.size();
+            long until = System.nanoTime() + TimeUnit.MICROSECONDS.toNanos(micros);
+            while (System.nanoTime() < until) {
+                Thread.onSpinWait();
+            }
+            statements.incrementAndGet();
+            rows.addAndGet(batch.size());
+            batch.forEach(data -> readingsByDevice.computeIfAbsent(data.getDeviceId(), k -> new AtomicInteger())
+                    .incrementAndGet());
+        }
+
+        int readingsOf(String deviceId) {
+            return readingsByDevice.getOrDefault(deviceId, new AtomicInteger()).get();
+        }
+    }
+}
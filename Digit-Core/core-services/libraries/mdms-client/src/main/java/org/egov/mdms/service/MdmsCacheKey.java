@@ -0,0 +1,61 @@
+package org.egov.mdms.service;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.egov.mdms.model.MasterDetail;
+import org.egov.mdms.model.MdmsCriteria;
+import org.egov.mdms.model.ModuleDetail;
+
+import lombok.AllArgsConstructor;
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+import lombok.ToString;
+
+/**
+ * Identifies a single master lookup, the unit in which the client caches and
+ * batches MDMS data.
+ */
+@Getter
+@ToString
+@EqualsAndHashCode
+@AllArgsConstructor
+class MdmsCacheKey {
+
+	private final String tenantId;
+
+	private final String moduleName;
+
+	private final String masterName;
+
+	private final String filter;
+
+	/**
+	 * Splits the criteria into one key per requested master. Returns null when
+	 * the criteria cannot be expressed per master, e.g. when a module is
+	 * requested without naming its masters, in which case callers should send
+	 * the criteria to MDMS as is.
+	 */
+	static List<MdmsCacheKey> of(MdmsCriteria mdmsCriteria) {
+		if (mdmsCriteria == null || mdmsCriteria.getTenantId() == null || mdmsCriteria.getModuleDetails() == null)
+			return null;
+
+		List<MdmsCacheKey> keys = new ArrayList<>();
+		for (ModuleDetail moduleDetail : mdmsCriteria.getModuleDetails()) {
+			if (moduleDetail.getModuleName() == null || moduleDetail.getMasterDetails() == null
+					|| moduleDetail.getMasterDetails().isEmpty())
+				return null;
+
+			for (MasterDetail masterDetail : moduleDetail.getMasterDetails()) {
+				if (masterDetail.getName() == null)
+					return null;
+				MdmsCacheKey key = new MdmsCacheKey(mdmsCriteria.getTenantId(), moduleDetail.getModuleName(),
+						masterDetail.getName(), masterDetail.getFilter());
+				if (!keys.contains(key))
+					keys.add(key);
+			}
+		}
+		return keys.isEmpty() ? null : keys;
+	}
+
+}
@@ -0,0 +1,220 @@
+package org.egov.mdms.service;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.egov.common.contract.request.RequestInfo;
+import org.egov.tracer.model.CustomException;
+
+import lombok.extern.slf4j.Slf4j;
+import net.minidev.json.JSONArray;
+
+/**
+ * In-process cache of MDMS masters keyed by tenant, module, master and filter.
+ * <p>
+ * Entries expire after the configured ttl and are reloaded in the background
+ * once they are older than the refresh ahead interval, so hot masters are
+ * served from memory without ever blocking on MDMS. Concurrent misses on the
+ * same key share a single load, and all misses of one lookup are fetched from
+ * MDMS in a single call.
+ */
+@Slf4j
+class MdmsClientCache {
+
+	private static final int REFRESH_QUEUE_SIZE = 1000;
+
+	private final MdmsMasterLoader loader;
+
+	private final long ttlMs;
+
+	private final long refreshAheadMs;
+
+	private final int maxSize;
+
+	private final ConcurrentHashMap<MdmsCacheKey, Entry> entries = new ConcurrentHashMap<>();
+
+	private final ConcurrentHashMap<MdmsCacheKey, CompletableFuture<JSONArray>> inFlight = new ConcurrentHashMap<>();
+
+	private final AtomicBoolean evicting = new AtomicBoolean();
+
+	private final ThreadPoolExecutor refresher;
+
+	MdmsClientCache(MdmsMasterLoader loader, long ttlMs, long refreshAheadMs, int maxSize) {
+		this.loader = loader;
+		this.ttlMs = ttlMs;
+		this.refreshAheadMs = refreshAheadMs;
+		this.maxSize = maxSize;
+		this.refresher = new ThreadPoolExecutor(1, 1, 0L, TimeUnit.MILLISECONDS,
+				new ArrayBlockingQueue<>(REFRESH_QUEUE_SIZE), runnable -> {
+					Thread thread = new Thread(runnable, "mdms-client-cache-refresh");
+					thread.setDaemon(true);
+					return thread;
+				});
+	}
+
+	/**
+	 * Returns the data of the given masters, loading the ones that are not
+	 * cached.
+	 */
+	Map<MdmsCacheKey, JSONArray> get(RequestInfo requestInfo, String tenantId, List<MdmsCacheKey> keys) {
+		long now = System.currentTimeMillis();
+		Map<MdmsCacheKey, JSONArray> result = new HashMap<>();
+		Map<MdmsCacheKey, CompletableFuture<JSONArray>> owned = new LinkedHashMap<>();
+		Map<MdmsCacheKey, CompletableFuture<JSONArray>> awaited = new HashMap<>();
+		List<MdmsCacheKey> stale = new ArrayList<>();
+
+		for (MdmsCacheKey key : keys) {
+			Entry entry = entries.get(key);
+			if (entry != null && now - entry.loadedAt < ttlMs) {
+				entry.lastAccessedAt = now;
+				result.put(key, entry.value);
+				if (now - entry.loadedAt >= refreshAheadMs)
+					stale.add(key);
+				continue;
+			}
+
+			CompletableFuture<JSONArray> future = new CompletableFuture<>();
+			CompletableFuture<JSONArray> existing = inFlight.putIfAbsent(key, future);
+			if (existing == null)
+				owned.put(key, future);
+			else
+				awaited.put(key, existing);
+		}
+
+		if (!stale.isEmpty())
+			refresh(requestInfo, tenantId, stale);
+
+		if (!owned.isEmpty())
+			load(requestInfo, tenantId, owned);
+
+		owned.forEach((key, future) -> result.put(key, future.join()));
+		awaited.forEach((key, future) -> result.put(key, join(future)));
+		return result;
+	}
+
+	/**
+	 * Drops every cached master.
+	 */
+	void clear() {
+		entries.clear();
+	}
+
+	void shutdown() {
+		refresher.shutdownNow();
+	}
+
+	/**
+	 * Loads the masters claimed by the caller and publishes them to the cache
+	 * before releasing the callers waiting on them.
+	 */
+	private void load(RequestInfo requestInfo, String tenantId, Map<MdmsCacheKey, CompletableFuture<JSONArray>> owned) {
+		try {
+			Map<MdmsCacheKey, JSONArray> loaded = loader.load(requestInfo, tenantId, owned.keySet());
+			long now = System.currentTimeMillis();
+			owned.forEach((key, future) -> {
+				JSONArray value = loaded.get(key);
+				entries.put(key, new Entry(value, now));
+				future.complete(value);
+			});
+		} catch (RuntimeException ex) {
+			owned.values().forEach(future -> future.completeExceptionally(ex));
+			throw ex;
+		} finally {
+			owned.forEach(inFlight::remove);
+			if (entries.size() > maxSize)
+				evict();
+		}
+	}
+
+	/**
+	 * Reloads the given masters in the background while callers keep being
+	 * served the current values. Keys that are already being loaded are skipped.
+	 */
+	private void refresh(RequestInfo requestInfo, String tenantId, List<MdmsCacheKey> keys) {
+		Map<MdmsCacheKey, CompletableFuture<JSONArray>> owned = new LinkedHashMap<>();
+		for (MdmsCacheKey key : keys) {
+			CompletableFuture<JSONArray> future = new CompletableFuture<>();
+			if (inFlight.putIfAbsent(key, future) == null)
+				owned.put(key, future);
+		}
+		if (owned.isEmpty())
+			return;
+
+		try {
+			refresher.execute(() -> {
+				try {
+					load(requestInfo, tenantId, owned);
+				} catch (Exception ex) {
+					log.warn("Failed to refresh MDMS masters " + owned.keySet() + ", serving cached data", ex);
+				}
+			});
+		} catch (RejectedExecutionException ex) {
+			log.debug("MDMS cache refresh queue is full, skipping refresh of " + owned.keySet());
+			owned.forEach((key, future) -> {
+				Entry entry = entries.get(key);
+				inFlight.remove(key, future);
+				future.complete(entry == null ? null : entry.value);
+			});
+		}
+	}
+
+	/**
+	 * Brings the cache back under its size limit by removing the least recently
+	 * used entries, leaving some headroom so that eviction does not run on every
+	 * load.
+	 */
+	private void evict() {
+		if (!evicting.compareAndSet(false, true))
+			return;
+		try {
+			int excess = entries.size() - (int) (maxSize * 0.9);
+			if (excess <= 0)
+				return;
+			entries.entrySet().stream()
+					.sorted(Comparator.comparingLong(e -> e.getValue().lastAccessedAt))
+					.limit(excess)
+					.map(Map.Entry::getKey)
+					.forEach(entries::remove);
+		} finally {
+			evicting.set(false);
+		}
+	}
+
+	static <T> T join(CompletableFuture<T> future) {
+		try {
+			return future.join();
+		} catch (CompletionException ex) {
+			if (ex.getCause() instanceof RuntimeException)
+				throw (RuntimeException) ex.getCause();
+			throw new CustomException("MDMS_RESPONSE_ERROR", "Error while fetching data from MDMS: " + ex.getMessage());
+		}
+	}
+
+	private static class Entry {
+
+		private final JSONArray value;
+
+		private final long loadedAt;
+
+		private volatile long lastAccessedAt;
+
+		private Entry(JSONArray value, long loadedAt) {
+			this.value = value;
+			this.loadedAt = loadedAt;
+			this.lastAccessedAt = loadedAt;
+		}
+	}
+
+}
@@ -1,10 +1,17 @@
 package org.egov.mdms.service;
 
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+
 import org.egov.common.contract.request.RequestInfo;
+import org.egov.common.utils.ResponseInfoUtil;
 import org.egov.mdms.model.MasterDetail;
 import org.egov.mdms.model.MdmsCriteria;
 import org.egov.mdms.model.MdmsCriteriaReq;
@@ -19,6 +26,8 @@ import org.springframework.web.client.HttpClientErrorException;
 import org.springframework.web.client.RestTemplate;
 
 import lombok.extern.slf4j.Slf4j;
+import net.minidev.json.JSONArray;
+import net.minidev.json.JSONObject;
 
 @Service
 @Slf4j
@@ -33,6 +42,55 @@ public class MdmsClientService {
 	@Value("${mdms.service.search.uri:egov-mdms-service/v1/_search}")
 	private String mdmsSearchUri;
 
+	@Value("${mdms.client.cache.enabled:true}")
+	private boolean cacheEnabled;
+
+	@Value("${mdms.client.cache.ttl.ms:300000}")
+	private long cacheTtlMs;
+
+	@Value("${mdms.client.cache.refresh.ahead.ms:240000}")
+	private long cacheRefreshAheadMs;
+
+	@Value("${mdms.client.cache.max.size:10000}")
+	private int cacheMaxSize;
+
+	@Value("${mdms.client.batch.enabled:false}")
+	private boolean batchEnabled;
+
+	@Value("${mdms.client.batch.window.ms:10}")
+	private long batchWindowMs;
+
+	@Value("${mdms.client.batch.max.masters:100}")
+	private int batchMaxMasters;
+
+	private MdmsMasterLoader loader;
+
+	private MdmsClientCache cache;
+
+	@PostConstruct
+	public void init() {
+		loader = this::loadMasters;
+		if (batchEnabled)
+			loader = new MdmsRequestBatcher(loader, batchWindowMs, batchMaxMasters);
+		if (cacheEnabled)
+			cache = new MdmsClientCache(loader, cacheTtlMs, cacheRefreshAheadMs, cacheMaxSize);
+	}
+
+	@PreDestroy
+	public void destroy() {
+		if (cache != null)
+			cache.shutdown();
+	}
+
+	/**
+	 * Drops all masters cached by the client, e.g. after master data has been
+	 * updated.
+	 */
+	public void evictCache() {
+		if (cache != null)
+			cache.clear();
+	}
+
 	public MdmsResponse getMaster(RequestInfo requestInfo, String tenantId,
 			Map<String, List<MasterDetail>> masterDetails) {
 		log.info("MdmsClientService masterDetails:" + masterDetails);
@@ -54,6 +112,97 @@ public class MdmsClientService {
 
 	public MdmsResponse getMaster(MdmsCriteriaReq mdmsCriteriaReq) {
 		log.info("mdmsCriteriaReq:" + mdmsCriteriaReq);
+		List<MdmsCacheKey> keys = MdmsCacheKey.of(mdmsCriteriaReq.getMdmsCriteria());
+		if (keys == null || (cache == null && !batchEnabled))
+			return fetch(mdmsCriteriaReq);
+
+		RequestInfo requestInfo = mdmsCriteriaReq.getRequestInfo();
+		String tenantId = mdmsCriteriaReq.getMdmsCriteria().getTenantId();
+		Map<MdmsCacheKey, JSONArray> masters = cache != null ? cache.get(requestInfo, tenantId, keys)
+				: loader.load(requestInfo, tenantId, keys);
+
+		Map<String, Map<String, JSONArray>> mdmsRes = new LinkedHashMap<>();
+		for (MdmsCacheKey key : keys) {
+			// MDMS lists every requested module, even when none of its masters exist
+			Map<String, JSONArray> moduleRes = mdmsRes.computeIfAbsent(key.getModuleName(),
+					moduleName -> new LinkedHashMap<>());
+			JSONArray master = masters.get(key);
+			if (master == null)
+				continue;
+			// callers get their own copy so that they cannot alter the cached or batched masters
+			moduleRes.put(key.getMasterName(), (JSONArray) copy(master));
+		}
+		return MdmsResponse.builder()
+				.responseInfo(ResponseInfoUtil.createResponseInfoFromRequestInfo(requestInfo, Boolean.TRUE))
+				.mdmsRes(mdmsRes).build();
+	}
+
+	/**
+	 * Copies the maps and lists of a parsed master down to its values, which are
+	 * immutable.
+	 */
+	private static Object copy(Object value) {
+		if (value instanceof Map) {
+			Map<String, Object> copy = value instanceof JSONObject ? new JSONObject() : new LinkedHashMap<>();
+			((Map<?, ?>) value).forEach((name, field) -> copy.put(String.valueOf(name), copy(field)));
+			return copy;
+		}
+		if (value instanceof List) {
+			List<Object> copy = value instanceof JSONArray ? new JSONArray() : new ArrayList<>();
+			((List<?>) value).forEach(element -> copy.add(copy(element)));
+			return copy;
+		}
+		return value;
+	}
+
+	/**
+	 * Fetches the given masters from MDMS. A module can only carry one filter per
+	 * master in a search, so masters requested with different filters are spread
+	 * over as many searches as needed.
+	 */
+	private Map<MdmsCacheKey, JSONArray> loadMasters(RequestInfo requestInfo, String tenantId,
+			Collection<MdmsCacheKey> keys) {
+		List<Map<String, Map<String, MdmsCacheKey>>> searches = new ArrayList<>();
+		for (MdmsCacheKey key : keys) {
+			Map<String, Map<String, MdmsCacheKey>> search = null;
+			for (Map<String, Map<String, MdmsCacheKey>> candidate : searches) {
+				Map<String, MdmsCacheKey> masters = candidate.get(key.getModuleName());
+				if (masters == null || !masters.containsKey(key.getMasterName())) {
+					search = candidate;
+					break;
+				}
+			}
+			if (search == null) {
+				search = new LinkedHashMap<>();
+				searches.add(search);
+			}
+			search.computeIfAbsent(key.getModuleName(), moduleName -> new LinkedHashMap<>()).put(key.getMasterName(),
+					key);
+		}
+
+		Map<MdmsCacheKey, JSONArray> masters = new HashMap<>();
+		for (Map<String, Map<String, MdmsCacheKey>> search : searches) {
+			List<ModuleDetail> moduleDetails = new ArrayList<>();
+			search.forEach((moduleName, moduleKeys) -> {
+				List<MasterDetail> masterDetails = new ArrayList<>();
+				moduleKeys.values().forEach(key -> masterDetails
+						.add(MasterDetail.builder().name(key.getMasterName()).filter(key.getFilter()).build()));
+				moduleDetails.add(ModuleDetail.builder().moduleName(moduleName).masterDetails(masterDetails).build());
+			});
+			MdmsCriteria mdmsCriteria = MdmsCriteria.builder().tenantId(tenantId).moduleDetails(moduleDetails).build();
+			MdmsResponse mdmsResponse = fetch(new MdmsCriteriaReq(requestInfo, mdmsCriteria));
+
+			Map<String, Map<String, JSONArray>> mdmsRes = mdmsResponse == null ? null : mdmsResponse.getMdmsRes();
+			search.forEach((moduleName, moduleKeys) -> {
+				Map<String, JSONArray> moduleRes = mdmsRes == null ? null : mdmsRes.get(moduleName);
+				moduleKeys.forEach((masterName, key) -> masters.put(key,
+						moduleRes == null ? null : moduleRes.get(masterName)));
+			});
+		}
+		return masters;
+	}
+
+	private MdmsResponse fetch(MdmsCriteriaReq mdmsCriteriaReq) {
 		MdmsResponse mdmsResponse = null;
 		try {
 			  mdmsResponse = restTemplate.postForObject(mdmsHost.concat(mdmsSearchUri), mdmsCriteriaReq, MdmsResponse.class);
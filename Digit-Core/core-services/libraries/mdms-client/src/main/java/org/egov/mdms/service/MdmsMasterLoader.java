@@ -0,0 +1,19 @@
+package org.egov.mdms.service;
+
+import java.util.Collection;
+import java.util.Map;
+
+import org.egov.common.contract.request.RequestInfo;
+
+import net.minidev.json.JSONArray;
+
+/**
+ * Loads the data of the given masters of a tenant. Masters which MDMS does not
+ * return are mapped to null.
+ */
+@FunctionalInterface
+interface MdmsMasterLoader {
+
+	Map<MdmsCacheKey, JSONArray> load(RequestInfo requestInfo, String tenantId, Collection<MdmsCacheKey> keys);
+
+}
@@ -0,0 +1,103 @@
+package org.egov.mdms.service;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.egov.common.contract.request.RequestInfo;
+
+import lombok.extern.slf4j.Slf4j;
+import net.minidev.json.JSONArray;
+
+/**
+ * Merges the master lookups of a tenant that are made within a short window
+ * into a single MDMS search.
+ * <p>
+ * The first caller of a window leads the batch: it waits for the window to
+ * pass, or for the batch to fill up, and then loads the masters requested by
+ * every caller that joined in the meantime. No background threads are needed.
+ */
+@Slf4j
+class MdmsRequestBatcher implements MdmsMasterLoader {
+
+	private final MdmsMasterLoader delegate;
+
+	private final long windowMs;
+
+	private final int maxMasters;
+
+	private final Map<String, Batch> pending = new HashMap<>();
+
+	MdmsRequestBatcher(MdmsMasterLoader delegate, long windowMs, int maxMasters) {
+		this.delegate = delegate;
+		this.windowMs = windowMs;
+		this.maxMasters = maxMasters;
+	}
+
+	@Override
+	public Map<MdmsCacheKey, JSONArray> load(RequestInfo requestInfo, String tenantId, Collection<MdmsCacheKey> keys) {
+		Batch batch;
+		boolean leader;
+		synchronized (pending) {
+			batch = pending.get(tenantId);
+			leader = batch == null;
+			if (leader) {
+				batch = new Batch(requestInfo, tenantId);
+				pending.put(tenantId, batch);
+			}
+			batch.keys.addAll(keys);
+			if (batch.keys.size() >= maxMasters) {
+				pending.remove(tenantId, batch);
+				batch.full.countDown();
+			}
+		}
+
+		if (leader)
+			flush(batch);
+
+		return MdmsClientCache.join(batch.result);
+	}
+
+	private void flush(Batch batch) {
+		try {
+			batch.full.await(windowMs, TimeUnit.MILLISECONDS);
+		} catch (InterruptedException ex) {
+			Thread.currentThread().interrupt();
+		}
+
+		synchronized (pending) {
+			pending.remove(batch.tenantId, batch);
+		}
+
+		log.debug("Fetching " + batch.keys.size() + " batched masters for tenant " + batch.tenantId);
+		try {
+			batch.result.complete(delegate.load(batch.requestInfo, batch.tenantId, batch.keys));
+		} catch (RuntimeException ex) {
+			batch.result.completeExceptionally(ex);
+		}
+	}
+
+	private static class Batch {
+
+		private final RequestInfo requestInfo;
+
+		private final String tenantId;
+
+		private final Set<MdmsCacheKey> keys = new LinkedHashSet<>();
+
+		private final CountDownLatch full = new CountDownLatch(1);
+
+		private final CompletableFuture<Map<MdmsCacheKey, JSONArray>> result = new CompletableFuture<>();
+
+		private Batch(RequestInfo requestInfo, String tenantId) {
+			this.requestInfo = requestInfo;
+			this.tenantId = tenantId;
+		}
+	}
+
+}
@@ -0,0 +1,201 @@
+package org.egov.mdms.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.egov.common.contract.request.RequestInfo;
+import org.egov.tracer.model.CustomException;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import net.minidev.json.JSONArray;
+
+class MdmsClientCacheTest {
+
+	private static final MdmsCacheKey KEY = new MdmsCacheKey("pb", "common-masters", "Department", null);
+
+	private MdmsClientCache cache;
+
+	@AfterEach
+	void shutdown() {
+		if (cache != null)
+			cache.shutdown();
+	}
+
+	@Test
+	void concurrentMissesShareOneLoad() throws Exception {
+		CountDownLatch loading = new CountDownLatch(1);
+		CountDownLatch release = new CountDownLatch(1);
+		CountingLoader loader = new CountingLoader(() -> {
+			loading.countDown();
+			await(release);
+		});
+		cache = new MdmsClientCache(loader, 60000, 60000, 100);
+
+		ExecutorService callers = Executors.newFixedThreadPool(4);
+		try {
+			List<Future<Map<MdmsCacheKey, JSONArray>>> results = new ArrayList<>();
+			results.add(callers.submit(() -> get()));
+			assertTrue(loading.await(5, TimeUnit.SECONDS));
+			for (int i = 0; i < 3; i++)
+				results.add(callers.submit(() -> get()));
+			// give the other callers time to find the load in flight
+			Thread.sleep(100);
+			release.countDown();
+
+			JSONArray first = results.get(0).get(5, TimeUnit.SECONDS).get(KEY);
+			for (Future<Map<MdmsCacheKey, JSONArray>> result : results)
+				assertSame(first, result.get(5, TimeUnit.SECONDS).get(KEY));
+		} finally {
+			callers.shutdownNow();
+		}
+		assertEquals(1, loader.calls.get());
+	}
+
+	@Test
+	void entriesAreServedUntilTheyExpire() throws Exception {
+		CountingLoader loader = new CountingLoader(() -> {
+		});
+		cache = new MdmsClientCache(loader, 200, 200, 100);
+
+		JSONArray loaded = get().get(KEY);
+		assertSame(loaded, get().get(KEY));
+		assertEquals(1, loader.calls.get());
+
+		Thread.sleep(250);
+
+		assertEquals(version(2), get().get(KEY));
+		assertEquals(2, loader.calls.get());
+	}
+
+	@Test
+	void staleEntriesAreRefreshedInTheBackground() throws Exception {
+		CountDownLatch refreshing = new CountDownLatch(1);
+		CountDownLatch release = new CountDownLatch(1);
+		CountingLoader loader = new CountingLoader(() -> {
+		});
+		cache = new MdmsClientCache(loader, 60000, 100, 100);
+
+		assertEquals(version(1), get().get(KEY));
+		loader.onLoad = () -> {
+			refreshing.countDown();
+			await(release);
+		};
+		Thread.sleep(150);
+
+		// the refresh is blocked, yet the current value is served right away
+		assertEquals(version(1), get().get(KEY));
+		assertTrue(refreshing.await(5, TimeUnit.SECONDS));
+		assertEquals(version(1), get().get(KEY));
+		release.countDown();
+
+		long deadline = System.currentTimeMillis() + 5000;
+		while (!version(2).equals(get().get(KEY)) && System.currentTimeMillis() < deadline)
+			Thread.sleep(10);
+		assertEquals(version(2), get().get(KEY));
+		assertEquals(2, loader.calls.get());
+	}
+
+	@Test
+	void failedLoadsAreNotCached() {
+		AtomicInteger calls = new AtomicInteger();
+		cache = new MdmsClientCache((requestInfo, tenantId, keys) -> {
+			if (calls.incrementAndGet() == 1)
+				throw new CustomException("MDMS_RESPONSE_ERROR", "MDMS is down");
+			return Collections.singletonMap(KEY, version(2));
+		}, 60000, 60000, 100);
+
+		assertThrows(CustomException.class, this::get);
+		assertEquals(version(2), get().get(KEY));
+		assertEquals(2, calls.get());
+	}
+
+	@Test
+	void leastRecentlyUsedEntriesAreEvictedOverTheSizeLimit() throws Exception {
+		CountingLoader loader = new CountingLoader(() -> {
+		});
+		cache = new MdmsClientCache(loader, 60000, 60000, 10);
+		List<MdmsCacheKey> keys = new ArrayList<>();
+		for (int i = 0; i <= 10; i++)
+			keys.add(new MdmsCacheKey("pb", "common-masters", "Master" + i, null));
+
+		for (int i = 0; i < 10; i++) {
+			get(keys.get(i));
+			Thread.sleep(2);
+		}
+		get(keys.get(0));
+		Thread.sleep(2);
+		// going over the limit evicts down to 90% of it, that is the two least recently used masters
+		get(keys.get(10));
+		assertEquals(11, loader.calls.get());
+
+		get(keys.get(0));
+		get(keys.get(3));
+		assertEquals(11, loader.calls.get());
+		get(keys.get(1));
+		get(keys.get(2));
+		assertEquals(13, loader.calls.get());
+	}
+
+	private Map<MdmsCacheKey, JSONArray> get() {
+		return get(KEY);
+	}
+
+	private Map<MdmsCacheKey, JSONArray> get(MdmsCacheKey key) {
+		return cache.get(new RequestInfo(), "pb", Collections.singletonList(key));
+	}
+
+	private static JSONArray version(int version) {
+		JSONArray master = new JSONArray();
+		master.add(Collections.singletonMap("version", version));
+		return master;
+	}
+
+	private static void await(CountDownLatch latch) {
+		try {
+			latch.await(5, TimeUnit.SECONDS);
+		} catch (InterruptedException ex) {
+			Thread.currentThread().interrupt();
+		}
+	}
+
+	/**
+	 * Answers every key with a master holding the number of the load.
+	 */
+	private static class CountingLoader implements MdmsMasterLoader {
+
+		private final AtomicInteger calls = new AtomicInteger();
+
+		private volatile Runnable onLoad;
+
+		private CountingLoader(Runnable onLoad) {
+			this.onLoad = onLoad;
+		}
+
+		@Override
+		public Map<MdmsCacheKey, JSONArray> load(RequestInfo requestInfo, String tenantId,
+				Collection<MdmsCacheKey> keys) {
+			int call = calls.incrementAndGet();
+			onLoad.run();
+			Map<MdmsCacheKey, JSONArray> masters = new HashMap<>();
+			keys.forEach(key -> masters.put(key, version(call)));
+			return masters;
+		}
+	}
+
+}
@@ -0,0 +1,137 @@
+package org.egov.mdms.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.egov.common.contract.request.RequestInfo;
+import org.egov.common.contract.response.ResponseInfo;
+import org.egov.mdms.model.MasterDetail;
+import org.egov.mdms.model.MdmsCriteria;
+import org.egov.mdms.model.MdmsCriteriaReq;
+import org.egov.mdms.model.MdmsResponse;
+import org.egov.mdms.model.ModuleDetail;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.client.RestTemplate;
+
+import net.minidev.json.JSONArray;
+
+class MdmsClientServiceTest {
+
+	private final RestTemplate restTemplate = mock(RestTemplate.class);
+
+	private MdmsClientService mdmsClientService;
+
+	@AfterEach
+	void destroy() {
+		if (mdmsClientService != null)
+			mdmsClientService.destroy();
+	}
+
+	@Test
+	void cachedMastersAreReturnedWithTheResponseInfoOfTheRequest() {
+		mdmsClientService = mdmsClientService(true, false);
+		when(restTemplate.postForObject(anyString(), any(MdmsCriteriaReq.class), eq(MdmsResponse.class)))
+				.thenAnswer(invocation -> departments());
+		RequestInfo requestInfo = RequestInfo.builder().apiId("Rainmaker").ver(".01").ts(1L).msgId("msg-1").build();
+
+		mdmsClientService.getMaster(request(requestInfo));
+		MdmsResponse response = mdmsClientService.getMaster(request(requestInfo));
+
+		ResponseInfo responseInfo = response.getResponseInfo();
+		assertNotNull(responseInfo);
+		assertEquals("Rainmaker", responseInfo.getApiId());
+		assertEquals("msg-1", responseInfo.getMsgId());
+		assertEquals("successful", responseInfo.getStatus());
+		verify(restTemplate, times(1)).postForObject(anyString(), any(MdmsCriteriaReq.class), eq(MdmsResponse.class));
+	}
+
+	@Test
+	void batchedMastersAreReturnedWithTheResponseInfoOfTheRequest() {
+		mdmsClientService = mdmsClientService(false, true);
+		when(restTemplate.postForObject(anyString(), any(MdmsCriteriaReq.class), eq(MdmsResponse.class)))
+				.thenAnswer(invocation -> departments());
+
+		MdmsResponse response = mdmsClientService
+				.getMaster(request(RequestInfo.builder().apiId("Rainmaker").msgId("msg-2").build()));
+
+		assertEquals("msg-2", response.getResponseInfo().getMsgId());
+		assertEquals(1, response.getMdmsRes().get("common-masters").get("Department").size());
+	}
+
+	@Test
+	@SuppressWarnings("unchecked")
+	void callersCannotAlterTheCachedMasters() {
+		mdmsClientService = mdmsClientService(true, false);
+		when(restTemplate.postForObject(anyString(), any(MdmsCriteriaReq.class), eq(MdmsResponse.class)))
+				.thenAnswer(invocation -> departments());
+
+		JSONArray departments = mdmsClientService.getMaster(request(new RequestInfo())).getMdmsRes()
+				.get("common-masters").get("Department");
+		Map<String, Object> department = (Map<String, Object>) departments.get(0);
+		department.put("name", "Altered");
+		((List<Object>) department.get("designations")).clear();
+		departments.add(Collections.singletonMap("code", "DEPT_2"));
+
+		JSONArray cached = mdmsClientService.getMaster(request(new RequestInfo())).getMdmsRes()
+				.get("common-masters").get("Department");
+		assertEquals(1, cached.size());
+		Map<String, Object> cachedDepartment = (Map<String, Object>) cached.get(0);
+		assertEquals("Engineering", cachedDepartment.get("name"));
+		assertEquals(1, ((List<Object>) cachedDepartment.get("designations")).size());
+	}
+
+	private MdmsClientService mdmsClientService(boolean cacheEnabled, boolean batchEnabled) {
+		MdmsClientService service = new MdmsClientService();
+		ReflectionTestUtils.setField(service, "restTemplate", restTemplate);
+		ReflectionTestUtils.setField(service, "mdmsHost", "http://localhost:8080/");
+		ReflectionTestUtils.setField(service, "mdmsSearchUri", "egov-mdms-service/v1/_search");
+		ReflectionTestUtils.setField(service, "cacheEnabled", cacheEnabled);
+		ReflectionTestUtils.setField(service, "cacheTtlMs", 60000L);
+		ReflectionTestUtils.setField(service, "cacheRefreshAheadMs", 60000L);
+		ReflectionTestUtils.setField(service, "cacheMaxSize", 100);
+		ReflectionTestUtils.setField(service, "batchEnabled", batchEnabled);
+		ReflectionTestUtils.setField(service, "batchWindowMs", 1L);
+		ReflectionTestUtils.setField(service, "batchMaxMasters", 100);
+		service.init();
+		return service;
+	}
+
+	private static MdmsCriteriaReq request(RequestInfo requestInfo) {
+		MasterDetail masterDetail = MasterDetail.builder().name("Department").build();
+		ModuleDetail moduleDetail = ModuleDetail.builder().moduleName("common-masters")
+				.masterDetails(Collections.singletonList(masterDetail)).build();
+		MdmsCriteria mdmsCriteria = MdmsCriteria.builder().tenantId("pb")
+				.moduleDetails(Collections.singletonList(moduleDetail)).build();
+		return new MdmsCriteriaReq(requestInfo, mdmsCriteria);
+	}
+
+	private static MdmsResponse departments() {
+		Map<String, Object> department = new LinkedHashMap<>();
+		department.put("code", "DEPT_1");
+		department.put("name", "Engineering");
+		List<Object> designations = new ArrayList<>();
+		designations.add("DESIG_1");
+		department.put("designations", designations);
+		JSONArray departments = new JSONArray();
+		departments.add(department);
+		Map<String, Map<String, JSONArray>> mdmsRes = new LinkedHashMap<>();
+		mdmsRes.put("common-masters", new LinkedHashMap<>(Collections.singletonMap("Department", departments)));
+		return MdmsResponse.builder().mdmsRes(mdmsRes).build();
+	}
+
+}
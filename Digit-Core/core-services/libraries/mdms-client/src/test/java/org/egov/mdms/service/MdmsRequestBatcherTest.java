@@ -0,0 +1,135 @@
+package org.egov.mdms.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import org.egov.common.contract.request.RequestInfo;
+import org.egov.tracer.model.CustomException;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import net.minidev.json.JSONArray;
+
+class MdmsRequestBatcherTest {
+
+	private final List<Set<MdmsCacheKey>> loads = new CopyOnWriteArrayList<>();
+
+	private final ExecutorService callers = Executors.newFixedThreadPool(4);
+
+	@AfterEach
+	void shutdown() {
+		callers.shutdownNow();
+	}
+
+	@Test
+	void lookupsWithinTheWindowAreMergedIntoOneLoad() throws Exception {
+		MdmsRequestBatcher batcher = new MdmsRequestBatcher(this::load, 500, 100);
+		MdmsCacheKey department = key("pb", "Department");
+		MdmsCacheKey designation = key("pb", "Designation");
+
+		Future<Map<MdmsCacheKey, JSONArray>> first = callers.submit(() -> load(batcher, "pb", department));
+		Thread.sleep(50);
+		Future<Map<MdmsCacheKey, JSONArray>> second = callers.submit(() -> load(batcher, "pb", designation));
+
+		assertEquals(master(department), first.get(5, TimeUnit.SECONDS).get(department));
+		assertEquals(master(designation), second.get(5, TimeUnit.SECONDS).get(designation));
+		assertEquals(Collections.singletonList(new LinkedHashSet<>(Arrays.asList(department, designation))), loads);
+	}
+
+	@Test
+	void lookupsAfterTheWindowStartANewLoad() throws Exception {
+		MdmsRequestBatcher batcher = new MdmsRequestBatcher(this::load, 20, 100);
+		MdmsCacheKey department = key("pb", "Department");
+
+		load(batcher, "pb", department);
+		load(batcher, "pb", department);
+
+		assertEquals(2, loads.size());
+	}
+
+	@Test
+	void fullBatchIsLoadedWithoutWaitingForTheWindow() throws Exception {
+		MdmsRequestBatcher batcher = new MdmsRequestBatcher(this::load, 60000, 2);
+		MdmsCacheKey department = key("pb", "Department");
+		MdmsCacheKey designation = key("pb", "Designation");
+
+		long start = System.currentTimeMillis();
+		Future<Map<MdmsCacheKey, JSONArray>> first = callers.submit(() -> load(batcher, "pb", department));
+		Thread.sleep(50);
+		Future<Map<MdmsCacheKey, JSONArray>> second = callers.submit(() -> load(batcher, "pb", designation));
+
+		assertEquals(master(department), first.get(5, TimeUnit.SECONDS).get(department));
+		assertEquals(master(designation), second.get(5, TimeUnit.SECONDS).get(designation));
+		assertTrue(System.currentTimeMillis() - start < 5000);
+		assertEquals(1, loads.size());
+	}
+
+	@Test
+	void tenantsAreBatchedSeparately() throws Exception {
+		MdmsRequestBatcher batcher = new MdmsRequestBatcher(this::load, 300, 100);
+		MdmsCacheKey punjab = key("pb", "Department");
+		MdmsCacheKey amritsar = key("pb.amritsar", "Department");
+
+		Future<Map<MdmsCacheKey, JSONArray>> first = callers.submit(() -> load(batcher, "pb", punjab));
+		Future<Map<MdmsCacheKey, JSONArray>> second = callers.submit(() -> load(batcher, "pb.amritsar", amritsar));
+
+		assertEquals(master(punjab), first.get(5, TimeUnit.SECONDS).get(punjab));
+		assertEquals(master(amritsar), second.get(5, TimeUnit.SECONDS).get(amritsar));
+		assertEquals(2, loads.size());
+	}
+
+	@Test
+	void failedLoadIsThrownToEveryCallerOfTheBatch() throws Exception {
+		MdmsRequestBatcher batcher = new MdmsRequestBatcher((requestInfo, tenantId, keys) -> {
+			throw new CustomException("MDMS_RESPONSE_ERROR", "MDMS is down");
+		}, 300, 100);
+
+		List<Future<Map<MdmsCacheKey, JSONArray>>> results = new ArrayList<>();
+		results.add(callers.submit(() -> load(batcher, "pb", key("pb", "Department"))));
+		results.add(callers.submit(() -> load(batcher, "pb", key("pb", "Designation"))));
+
+		for (Future<Map<MdmsCacheKey, JSONArray>> result : results) {
+			Exception ex = assertThrows(Exception.class, () -> result.get(5, TimeUnit.SECONDS));
+			assertTrue(ex.getCause() instanceof CustomException, String.valueOf(ex.getCause()));
+		}
+	}
+
+	private Map<MdmsCacheKey, JSONArray> load(RequestInfo requestInfo, String tenantId,
+			Collection<MdmsCacheKey> keys) {
+		loads.add(new LinkedHashSet<>(keys));
+		Map<MdmsCacheKey, JSONArray> masters = new HashMap<>();
+		keys.forEach(key -> masters.put(key, master(key)));
+		return masters;
+	}
+
+	private static Map<MdmsCacheKey, JSONArray> load(MdmsRequestBatcher batcher, String tenantId, MdmsCacheKey key) {
+		return batcher.load(new RequestInfo(), tenantId, Collections.singletonList(key));
+	}
+
+	private static MdmsCacheKey key(String tenantId, String masterName) {
+		return new MdmsCacheKey(tenantId, "common-masters", masterName, null);
+	}
+
+	private static JSONArray master(MdmsCacheKey key) {
+		JSONArray master = new JSONArray();
+		master.add(Collections.singletonMap("name", key.getTenantId() + "/" + key.getMasterName()));
+		return master;
+	}
+
+}
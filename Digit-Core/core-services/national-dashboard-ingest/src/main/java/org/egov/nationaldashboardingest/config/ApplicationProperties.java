@@ -45,5 +45,17 @@ public class ApplicationProperties {
     @Value("${adaptor.ingest.system.role}")
     private String adaptorIngestSystemRole;
 
+    @Value("${ingest.data.persist.topic:persist-national-records}")
+    private String persistRecordsTopic;
+
+    @Value("${ingest.kafka.batch.size:500}")
+    private Integer kafkaBatchSize;
+
+    @Value("${ingest.kafka.send.timeout.ms:30000}")
+    private Long kafkaSendTimeoutMs;
+
+    @Value("${ingest.recent.keys.max.size:100000}")
+    private Integer recentKeysMaxSize;
+
 
 }
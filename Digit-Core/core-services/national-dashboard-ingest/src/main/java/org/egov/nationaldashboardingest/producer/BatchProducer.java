@@ -0,0 +1,191 @@
+package org.egov.nationaldashboardingest.producer;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.kafka.clients.producer.RecordMetadata;
+import org.egov.common.contract.request.RequestInfo;
+import org.egov.nationaldashboardingest.config.ApplicationProperties;
+import org.egov.nationaldashboardingest.web.models.BatchAck;
+import org.egov.nationaldashboardingest.web.models.ProducerPOJO;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.support.SendResult;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Publishes flattened records in batches of a bounded number of records. All the batches of
+ * a payload are sent without waiting on each other, so that the producer can linger and
+ * compress them together, and their acknowledgements are then awaited at once.
+ *
+ * The in flight, sent and failed counts and the duration and throughput of each push are
+ * registered as meters under {@code ingest.kafka}.
+ */
+@Slf4j
+@Service
+public class BatchProducer {
+
+    private final KafkaTemplate<String, Object> kafkaTemplate;
+
+    private final ApplicationProperties applicationProperties;
+
+    private final AtomicLong inFlightBatches = new AtomicLong();
+
+    private final AtomicLong inFlightRecords = new AtomicLong();
+
+    private final AtomicLong sentBatches = new AtomicLong();
+
+    private final AtomicLong sentRecords = new AtomicLong();
+
+    private final AtomicLong failedBatches = new AtomicLong();
+
+    private final Timer pushTimer;
+
+    private final DistributionSummary pushThroughput;
+
+    @Autowired
+    public BatchProducer(KafkaTemplate<String, Object> kafkaTemplate, ApplicationProperties applicationProperties,
+                         MeterRegistry meterRegistry) {
+        this.kafkaTemplate = kafkaTemplate;
+        this.applicationProperties = applicationProperties;
+
+        Gauge.builder("ingest.kafka.inflight", inFlightBatches, AtomicLong::get)
+                .description("Batches sent to the kafka connector topic and not acknowledged yet")
+                .tag("unit", "batches")
+                .register(meterRegistry);
+        Gauge.builder("ingest.kafka.inflight", inFlightRecords, AtomicLong::get)
+                .description("Records of the batches not acknowledged yet")
+                .tag("unit", "records")
+                .register(meterRegistry);
+        FunctionCounter.builder("ingest.kafka.batches", sentBatches, AtomicLong::get)
+                .description("Batches pushed to the kafka connector topic")
+                .tag("outcome", "success")
+                .register(meterRegistry);
+        FunctionCounter.builder("ingest.kafka.batches", failedBatches, AtomicLong::get)
+                .description("Batches pushed to the kafka connector topic")
+                .tag("outcome", "failure")
+                .register(meterRegistry);
+        FunctionCounter.builder("ingest.kafka.records", sentRecords, AtomicLong::get)
+                .description("Records of the batches acknowledged by the broker")
+                .register(meterRegistry);
+        this.pushTimer = Timer.builder("ingest.kafka.push")
+                .description("Time taken to send the batches of a payload and receive their acknowledgements")
+                .register(meterRegistry);
+        this.pushThroughput = DistributionSummary.builder("ingest.kafka.push.throughput")
+                .description("Records pushed per second by each payload")
+                .baseUnit("records/s")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Sends the records of each index in batches and waits for their acknowledgements.
+     *
+     * @param topic topic read by the kafka connector
+     * @param indexNameVsRecords flattened records of each index
+     * @return acknowledgement of each batch, in the order they were sent
+     */
+    public List<BatchAck> push(String topic, Map<String, List<JsonNode>> indexNameVsRecords) {
+        long startTime = System.currentTimeMillis();
+        int batchSize = applicationProperties.getKafkaBatchSize();
+        List<BatchAck> acks = new ArrayList<>();
+        List<CompletableFuture<SendResult<String, Object>>> futures = new ArrayList<>();
+
+        indexNameVsRecords.forEach((indexName, records) -> {
+            for (int from = 0, batch = 0; from < records.size(); from += batchSize, batch++) {
+                List<JsonNode> batchRecords = records.subList(from, Math.min(from + batchSize, records.size()));
+                ProducerPOJO value = ProducerPOJO.builder().requestInfo(new RequestInfo()).records(batchRecords).build();
+                acks.add(BatchAck.builder().index(indexName).batch(batch).records(batchRecords.size()).build());
+                futures.add(send(topic, value, batchRecords.size()));
+            }
+        });
+
+        long deadline = startTime + applicationProperties.getKafkaSendTimeoutMs();
+        int records = 0;
+        for (int i = 0; i < futures.size(); i++) {
+            BatchAck ack = acks.get(i);
+            records += ack.getRecords();
+            try {
+                RecordMetadata metadata = futures.get(i).get(Math.max(0, deadline - System.currentTimeMillis()), TimeUnit.MILLISECONDS).getRecordMetadata();
+                ack.setStatus(BatchAck.StatusEnum.SUCCESS);
+                ack.setPartition(metadata.partition());
+                ack.setOffset(metadata.offset());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                fail(ack, e);
+            } catch (ExecutionException e) {
+                fail(ack, e.getCause());
+            } catch (TimeoutException e) {
+                fail(ack, e);
+            }
+        }
+
+        long timeTaken = Math.max(1, System.currentTimeMillis() - startTime);
+        pushTimer.record(timeTaken, TimeUnit.MILLISECONDS);
+        pushThroughput.record(records * 1000.0 / timeTaken);
+        log.info("Pushed " + records + " records in " + futures.size() + " batches to " + topic + " in " + timeTaken + " ms ("
+                + (records * 1000 / timeTaken) + " records/s), in flight: " + inFlightBatches.get() + " batches, " + inFlightRecords.get() + " records");
+        return acks;
+    }
+
+    private CompletableFuture<SendResult<String, Object>> send(String topic, ProducerPOJO value, int records) {
+        inFlightBatches.incrementAndGet();
+        inFlightRecords.addAndGet(records);
+        CompletableFuture<SendResult<String, Object>> future;
+        try {
+            future = kafkaTemplate.send(topic, value).completable();
+        } catch (Exception e) {
+            future = new CompletableFuture<>();
+            future.completeExceptionally(e);
+        }
+        return future.whenComplete((result, e) -> {
+            inFlightBatches.decrementAndGet();
+            inFlightRecords.addAndGet(-records);
+            if (e == null) {
+                sentBatches.incrementAndGet();
+                sentRecords.addAndGet(records);
+            } else {
+                failedBatches.incrementAndGet();
+            }
+        });
+    }
+
+    private void fail(BatchAck ack, Throwable e) {
+        log.error("Failed to push batch " + ack.getBatch() + " of index " + ack.getIndex(), e);
+        ack.setStatus(BatchAck.StatusEnum.FAILED);
+        ack.setError(e.getMessage());
+    }
+
+    public long getInFlightBatches() {
+        return inFlightBatches.get();
+    }
+
+    public long getInFlightRecords() {
+        return inFlightRecords.get();
+    }
+
+    public long getSentBatches() {
+        return sentBatches.get();
+    }
+
+    public long getSentRecords() {
+        return sentRecords.get();
+    }
+
+    public long getFailedBatches() {
+        return failedBatches.get();
+    }
+
+}
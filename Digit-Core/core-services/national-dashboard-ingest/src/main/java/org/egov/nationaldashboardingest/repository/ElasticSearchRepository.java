@@ -6,9 +6,10 @@ import com.fasterxml.jackson.databind.node.ObjectNode;
 import lombok.extern.slf4j.Slf4j;
 import org.egov.common.contract.request.RequestInfo;
 import org.egov.nationaldashboardingest.config.ApplicationProperties;
+import org.egov.nationaldashboardingest.producer.BatchProducer;
 import org.egov.nationaldashboardingest.producer.Producer;
 import org.egov.nationaldashboardingest.utils.IngestConstants;
-import org.egov.nationaldashboardingest.web.models.ProducerPOJO;
+import org.egov.nationaldashboardingest.web.models.BatchAck;
 import org.egov.tracer.model.CustomException;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.HttpEntity;
@@ -38,6 +39,9 @@ public class ElasticSearchRepository {
     @Autowired
     private Producer producer;
 
+    @Autowired
+    private BatchProducer batchProducer;
+
     public void indexFlattenedDataToES(Map<String, List<String>> indexNameVsDocumentsToBeIndexed) {
         StringBuilder bulkRequestBody = new StringBuilder();
 
@@ -91,14 +95,12 @@ public class ElasticSearchRepository {
         return recordsFound;
     }
 
-    public void pushDataToKafkaConnector(Map<String, List<JsonNode>> indexNameVsDocumentsToBeIndexed) {
+    public List<BatchAck> pushDataToKafkaConnector(Map<String, List<JsonNode>> indexNameVsDocumentsToBeIndexed) {
         /*indexNameVsDocumentsToBeIndexed.keySet().forEach(indexName -> {
             for(JsonNode record : indexNameVsDocumentsToBeIndexed.get(indexName)) {
                 producer.push(indexName, record);
             }
         });*/
-        indexNameVsDocumentsToBeIndexed.keySet().forEach(indexName -> {
-            producer.push("persist-national-records", ProducerPOJO.builder().requestInfo(new RequestInfo()).records(indexNameVsDocumentsToBeIndexed.get(indexName)).build());
-        });
+        return batchProducer.push(applicationProperties.getPersistRecordsTopic(), indexNameVsDocumentsToBeIndexed);
     }
 }
@@ -5,9 +5,12 @@ import org.egov.nationaldashboardingest.repository.querybuilder.NSSQueryBuilder;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.stereotype.Repository;
+import org.springframework.util.CollectionUtils;
 
-import java.util.ArrayList;
-import java.util.List;
+import java.sql.Array;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.Set;
 
 @Slf4j
 @Repository
@@ -19,11 +22,22 @@ public class IngestDataRepository {
     @Autowired
     private NSSQueryBuilder queryBuilder;
 
-    public Boolean findIfRecordExists(List<String> keyDataToSearch) {
-        List<Object> preparedStmtList = new ArrayList<>();
-        String sql = queryBuilder.getNSSSearchQuery(keyDataToSearch, preparedStmtList);
-        log.info("Verification query: " + sql);
-        Boolean recordsFound = jdbcTemplate.queryForObject(sql, preparedStmtList.toArray(), Boolean.class);
-        return recordsFound;
+    /**
+     * Returns the keys, out of the given ones, which have already been ingested, in a single query.
+     */
+    public Set<String> findExistingKeys(Collection<String> keyDataToSearch) {
+        Set<String> existingKeys = new HashSet<>();
+        if (CollectionUtils.isEmpty(keyDataToSearch))
+            return existingKeys;
+
+        String sql = queryBuilder.getNSSExistingKeysQuery();
+        log.info("Verification query: " + sql + " for " + keyDataToSearch.size() + " keys");
+        jdbcTemplate.query(sql, ps -> {
+            Array keys = ps.getConnection().createArrayOf("varchar", keyDataToSearch.toArray());
+            ps.setArray(1, keys);
+        }, rs -> {
+            existingKeys.add(rs.getString("datakey"));
+        });
+        return existingKeys;
     }
 }
@@ -50,8 +50,7 @@ public class CustomIndexRequestDecoratorImpl implements CustomIndexRequestDecora
         Long startTime = System.currentTimeMillis();
         List<JsonNode> finalDocumentsToBeIndexed = new ArrayList<>();
         try {
-            String seedData = objectMapper.writeValueAsString(ingestData);
-            JsonNode incomingData = objectMapper.readValue(seedData, JsonNode.class);
+            JsonNode incomingData = objectMapper.valueToTree(ingestData);
             List<String> keyNames = new ArrayList<>();
             JsonNode metricsData = incomingData.get(IngestConstants.METRICS);
             jsonProcessorUtil.enrichKeyNamesInList(metricsData, keyNames);
@@ -106,11 +105,7 @@ public class CustomIndexRequestDecoratorImpl implements CustomIndexRequestDecora
 
                     //log.info(currentStructure.toString());
 
-                    try {
-                        finalDocumentsToBeIndexed.add(objectMapper.readTree(currentStructure.toString()));
-                    } catch (JsonProcessingException e) {
-                        throw new CustomException("EG_DS_FLATTEN_ERR", "Error while reading flattened data");
-                    }
+                    finalDocumentsToBeIndexed.add(currentStructure.deepCopy());
 
                     // Separate it out to a clean method - cleanBaseStructureForNextGroupByCategory
                     flattenedValuesToBeInserted.get(groupByCategory).get(bucketName).keySet().forEach(flattenedFieldName ->{
@@ -123,8 +118,8 @@ public class CustomIndexRequestDecoratorImpl implements CustomIndexRequestDecora
             if(CollectionUtils.isEmpty(finalDocumentsToBeIndexed)){
                 finalDocumentsToBeIndexed.add(baseDocumentStructure);
             }
-            log.info(finalDocumentsToBeIndexed.toString());
-        }catch(JsonProcessingException e){
+            log.debug("Flattened documents: {}", finalDocumentsToBeIndexed);
+        }catch(IllegalArgumentException e){
             throw new CustomException("EG_PAYLOAD_READ_ERR", "Error occured while processing ingest data");
         }
 
@@ -7,10 +7,13 @@ import org.egov.nationaldashboardingest.config.ApplicationProperties;
 import org.egov.nationaldashboardingest.producer.Producer;
 import org.egov.nationaldashboardingest.repository.ElasticSearchRepository;
 import org.egov.nationaldashboardingest.validators.IngestValidator;
+import org.egov.nationaldashboardingest.web.models.AckEntity;
 import org.egov.nationaldashboardingest.web.models.AuditDetails;
+import org.egov.nationaldashboardingest.web.models.BatchAck;
 import org.egov.nationaldashboardingest.web.models.IngestAckData;
 import org.egov.nationaldashboardingest.web.models.IngestRequest;
 import org.egov.nationaldashboardingest.web.models.MasterDataRequest;
+import org.egov.tracer.model.CustomException;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
@@ -18,6 +21,7 @@ import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.stream.Collectors;
 
 @Slf4j
 @Service
@@ -41,6 +45,9 @@ public class IngestService {
     @Autowired
     private Producer producer;
 
+    @Autowired
+    private RecentlyIngestedKeys recentlyIngestedKeys;
+
     public List<Integer> ingestData(IngestRequest ingestRequest) {
 
         ingestValidator.validateMaxDataListSize(ingestRequest);
@@ -53,6 +60,9 @@ public class IngestService {
         // Validate if record for the day is already present
         IngestAckData dataToDb = ingestValidator.verifyIfDataAlreadyIngested(ingestRequest.getIngestData());
 
+        // Enrich audit details
+        enrichAuditDetails(ingestRequest);
+
         ingestRequest.getIngestData().forEach(data -> {
 
             // Validates that no cross state data is being ingested, i.e. employee of state X cannot insert data for state Y
@@ -63,9 +73,6 @@ public class IngestService {
 
             String moduleCode = data.getModule();
 
-            // Enrich audit details
-            enrichAuditDetails(ingestRequest);
-
             // Flattens incoming ingest payload
             List<JsonNode> flattenedIndexPayload = customIndexRequestDecorator.createFlattenedIndexRequest(data);
 
@@ -80,10 +87,15 @@ public class IngestService {
         });
         //repository.indexFlattenedDataToES(indexNameVsDocumentsToBeIndexed);
 
-        repository.pushDataToKafkaConnector(indexNameVsDocumentsToBeIndexed);
+        List<BatchAck> acks = repository.pushDataToKafkaConnector(indexNameVsDocumentsToBeIndexed);
+        List<BatchAck> failedBatches = acks.stream().filter(ack -> ack.getStatus() != BatchAck.StatusEnum.SUCCESS).collect(Collectors.toList());
+        if(!failedBatches.isEmpty())
+            throw new CustomException("EG_DS_PUSH_ERR", failedBatches.size() + " out of " + acks.size() + " batches of records could not be pushed: " + failedBatches);
 
         producer.push(applicationProperties.getKeyDataTopic(), dataToDb);
 
+        recentlyIngestedKeys.addAll(dataToDb.getAckEntities().stream().map(AckEntity::getDatakey).collect(Collectors.toList()));
+
         // Added async handler to push data to kafka connectors asynchronously.
         //asyncHandler.pushDataToKafkaConnector(indexNameVsDocumentsToBeIndexed);
 
@@ -0,0 +1,49 @@
+package org.egov.nationaldashboardingest.service;
+
+import org.egov.nationaldashboardingest.config.ApplicationProperties;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Keys ingested by this instance, most recent ones first to be kept. Keys are persisted
+ * asynchronously through the key data topic, so a payload sent again right after being
+ * ingested would not be caught by the database yet. The set is exact, a key found here has
+ * been ingested and the payload can be rejected without querying the database.
+ */
+@Component
+public class RecentlyIngestedKeys {
+
+    private final Map<String, Boolean> keys;
+
+    @Autowired
+    public RecentlyIngestedKeys(ApplicationProperties applicationProperties) {
+        int maxSize = applicationProperties.getRecentKeysMaxSize();
+        this.keys = new LinkedHashMap<String, Boolean>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Boolean> eldest) {
+                return size() > maxSize;
+            }
+        };
+    }
+
+    public synchronized Set<String> findExistingKeys(Collection<String> keysToSearch) {
+        Set<String> existingKeys = new HashSet<>();
+        for (String key : keysToSearch) {
+            if (keys.containsKey(key))
+                existingKeys.add(key);
+        }
+        return existingKeys;
+    }
+
+    public synchronized void addAll(Collection<String> ingestedKeys) {
+        for (String key : ingestedKeys)
+            keys.put(key, Boolean.TRUE);
+    }
+
+}
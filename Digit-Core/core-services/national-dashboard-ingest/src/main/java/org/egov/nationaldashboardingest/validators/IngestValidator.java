@@ -12,6 +12,7 @@ import org.egov.nationaldashboardingest.config.ApplicationProperties;
 import org.egov.nationaldashboardingest.producer.Producer;
 import org.egov.nationaldashboardingest.repository.ElasticSearchRepository;
 import org.egov.nationaldashboardingest.repository.IngestDataRepository;
+import org.egov.nationaldashboardingest.service.RecentlyIngestedKeys;
 import org.egov.nationaldashboardingest.utils.JsonProcessorUtil;
 import org.egov.nationaldashboardingest.web.models.*;
 import org.egov.nationaldashboardingest.utils.IngestConstants;
@@ -47,6 +48,9 @@ public class IngestValidator {
     @Autowired
     private Producer producer;
 
+    @Autowired
+    private RecentlyIngestedKeys recentlyIngestedKeys;
+
     private static final Pattern p = Pattern.compile("[^a-z0-9._()/&:,\\- ]", Pattern.CASE_INSENSITIVE);
 
 
@@ -283,30 +287,38 @@ public class IngestValidator {
     }
 
     // The verification logic will always use module name + date to determine the uniqueness of a set of records.
+    // Keys of the whole payload are checked at once, first against the keys recently ingested by this instance and then in a single query.
     public IngestAckData verifyIfDataAlreadyIngested(List<Data> ingestData) {
-        List<String> keyDataToSearch = new ArrayList<>();
-        Set<String> uniquenessHash = new HashSet<>();
+        Set<String> keyDataToSearch = new LinkedHashSet<>();
         IngestAckData hashedData = new IngestAckData();
         List<AckEntity> ackEntityList = new ArrayList<>();
         ingestData.forEach(data -> {
-            StringBuilder currKeyData = new StringBuilder();
-            currKeyData.append(data.getDate()).append(":").append(data.getModule()).append(":").append(data.getWard()).append(":").append(data.getUlb()).append(":").append(data.getRegion()).append(":").append(data.getState());
-            log.info("Current key data: " + currKeyData);
-            if(uniquenessHash.contains(currKeyData.toString()))
+            String currKeyData = getKeyData(data);
+            if(!keyDataToSearch.add(currKeyData))
                 throw new CustomException("EG_DS_SAME_RECORD_ERR", "Duplicate data found in the payload");
 
-            uniquenessHash.add(currKeyData.toString());
-            keyDataToSearch.add(currKeyData.toString());
-            ackEntityList.add(AckEntity.builder().datakey(currKeyData.toString()).uuid(UUID.randomUUID().toString()).build());
+            ackEntityList.add(AckEntity.builder().datakey(currKeyData).uuid(UUID.randomUUID().toString()).build());
         });
-        Boolean isRecordPresent = dataRepository.findIfRecordExists(keyDataToSearch);
-        if(isRecordPresent)
+        log.info("Verifying " + keyDataToSearch.size() + " keys");
+
+        Set<String> existingKeys = recentlyIngestedKeys.findExistingKeys(keyDataToSearch);
+        if(existingKeys.isEmpty())
+            existingKeys = dataRepository.findExistingKeys(keyDataToSearch);
+        if(!existingKeys.isEmpty()) {
+            log.info("Already ingested keys: " + existingKeys);
             throw new CustomException("EG_DS_RECORD_ALREADY_INGESTED_ERR", "Records for the given date and area details have already been ingested. No new data will be ingested.");
+        }
         hashedData.setAckEntities(ackEntityList);
 
         return hashedData;
     }
 
+    private String getKeyData(Data data) {
+        StringBuilder keyData = new StringBuilder();
+        keyData.append(data.getDate()).append(":").append(data.getModule()).append(":").append(data.getWard()).append(":").append(data.getUlb()).append(":").append(data.getRegion()).append(":").append(data.getState());
+        return keyData.toString();
+    }
+
     // The verification logic will always use module name + financialYear to determine the uniqueness of a set of records.
     public void verifyIfMasterDataAlreadyIngested(MasterData masterData) {
         StringBuilder uri = new StringBuilder(applicationProperties.getElasticSearchHost() + "/");
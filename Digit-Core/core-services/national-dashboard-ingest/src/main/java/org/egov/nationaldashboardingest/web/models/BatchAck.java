@@ -0,0 +1,39 @@
+package org.egov.nationaldashboardingest.web.models;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import lombok.*;
+
+@Getter
+@Setter
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+@ToString
+public class BatchAck {
+
+    public enum StatusEnum {
+        SUCCESS, FAILED
+    }
+
+    @JsonProperty("index")
+    private String index;
+
+    @JsonProperty("batch")
+    private Integer batch;
+
+    @JsonProperty("records")
+    private Integer records;
+
+    @JsonProperty("status")
+    private StatusEnum status;
+
+    @JsonProperty("partition")
+    private Integer partition;
+
+    @JsonProperty("offset")
+    private Long offset;
+
+    @JsonProperty("error")
+    private String error;
+
+}
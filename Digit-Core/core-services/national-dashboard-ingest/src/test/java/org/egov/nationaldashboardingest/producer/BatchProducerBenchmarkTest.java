@@ -0,0 +1,210 @@
+package org.egov.nationaldashboardingest.producer;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.kafka.clients.producer.ProducerConfig;
+import org.apache.kafka.common.serialization.StringSerializer;
+import org.egov.common.contract.request.RequestInfo;
+import org.egov.nationaldashboardingest.config.ApplicationProperties;
+import org.egov.nationaldashboardingest.web.models.BatchAck;
+import org.egov.nationaldashboardingest.web.models.ProducerPOJO;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.kafka.KafkaException;
+import org.springframework.kafka.core.DefaultKafkaProducerFactory;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.support.serializer.JsonSerializer;
+import org.springframework.kafka.test.EmbeddedKafkaBroker;
+import org.springframework.kafka.test.utils.KafkaTestUtils;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Pushes the flattened records of a payload to an embedded broker with the producer settings
+ * of application.properties, through {@link BatchProducer} and the ways records were pushed
+ * before it: one message per record, each awaited, and one message per index.
+ *
+ * The timings are logged and not asserted, the checks only cover the acknowledgements and
+ * the meters of the batch producer. The benchmark starts a broker and takes a while, so it
+ * only runs with the benchmark profile: mvn test -Pbenchmark
+ */
+@Slf4j
+@Tag("benchmark")
+public class BatchProducerBenchmarkTest {
+
+    private static final String TOPIC = "persist-national-records";
+
+    private static final int INDICES = 4;
+
+    private static final int RECORDS_PER_INDEX = 5000;
+
+    private static final ObjectMapper mapper = new ObjectMapper();
+
+    private static EmbeddedKafkaBroker broker;
+
+    @BeforeAll
+    public static void startBroker() {
+        broker = new EmbeddedKafkaBroker(1, false, 1, TOPIC);
+        broker.afterPropertiesSet();
+    }
+
+    @AfterAll
+    public static void stopBroker() {
+        broker.destroy();
+    }
+
+    @Test
+    public void batchedPushIsAcknowledgedAndMetered() {
+        Map<String, List<JsonNode>> records = records();
+        DefaultKafkaProducerFactory<String, Object> producerFactory = producerFactory(true);
+        KafkaTemplate<String, Object> template = new KafkaTemplate<>(producerFactory);
+        MeterRegistry meterRegistry = new SimpleMeterRegistry();
+        BatchProducer producer = new BatchProducer(template, properties(500), meterRegistry);
+
+        // first push warms up the connection and the topic metadata
+        producer.push(TOPIC, records);
+        long start = System.nanoTime();
+        List<BatchAck> acks = producer.push(TOPIC, records);
+        long batched = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+
+        assertEquals(INDICES * RECORDS_PER_INDEX / 500, acks.size());
+        assertTrue(acks.stream().allMatch(ack -> ack.getStatus() == BatchAck.StatusEnum.SUCCESS));
+        assertEquals(0, meterRegistry.get("ingest.kafka.inflight").tag("unit", "batches").gauge().value());
+        assertEquals(0, meterRegistry.get("ingest.kafka.inflight").tag("unit", "records").gauge().value());
+        assertEquals(2 * acks.size(), meterRegistry.get("ingest.kafka.batches").tag("outcome", "success").functionCounter().count());
+        assertEquals(0, meterRegistry.get("ingest.kafka.batches").tag("outcome", "failure").functionCounter().count());
+        assertEquals(2 * INDICES * RECORDS_PER_INDEX, meterRegistry.get("ingest.kafka.records").functionCounter().count());
+        assertEquals(2, meterRegistry.get("ingest.kafka.push").timer().count());
+        assertEquals(2, meterRegistry.get("ingest.kafka.push.throughput").summary().count());
+
+        log.info("Batched push of {} records in {} batches: {} ms, {} records/s at best", INDICES * RECORDS_PER_INDEX,
+                acks.size(), batched, meterRegistry.get("ingest.kafka.push.throughput").summary().max());
+        producerFactory.destroy();
+    }
+
+    /**
+     * Only the records of one index are pushed, one message per record takes too long for the
+     * whole payload.
+     */
+    @Test
+    public void recordPerMessagePush() throws Exception {
+        List<JsonNode> records = records().get("index-0");
+        DefaultKafkaProducerFactory<String, Object> producerFactory = producerFactory(false);
+        KafkaTemplate<String, Object> template = new KafkaTemplate<>(producerFactory);
+        sendPerRecord(template, records.subList(0, 100));
+
+        long start = System.nanoTime();
+        sendPerRecord(template, records);
+        long perRecord = Math.max(1, TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+
+        log.info("Record per message push of {} records: {} ms, {} records/s", RECORDS_PER_INDEX, perRecord,
+                RECORDS_PER_INDEX * 1000L / perRecord);
+        producerFactory.destroy();
+    }
+
+    /**
+     * One message holding every record of an index, as pushed before the batch producer,
+     * exceeds the default max.request.size of the producer at this payload size.
+     */
+    @Test
+    public void indexPerMessagePush() {
+        Map<String, List<JsonNode>> records = records();
+        DefaultKafkaProducerFactory<String, Object> producerFactory = producerFactory(false);
+        KafkaTemplate<String, Object> template = new KafkaTemplate<>(producerFactory);
+
+        int failed = 0;
+        long start = System.nanoTime();
+        for (List<JsonNode> indexRecords : records.values()) {
+            try {
+                template.send(TOPIC, ProducerPOJO.builder().requestInfo(new RequestInfo()).records(indexRecords).build()).get();
+            } catch (InterruptedException | ExecutionException | KafkaException e) {
+                failed++;
+            }
+        }
+        long perIndex = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+
+        log.info("Index per message push of {} records: {} ms, {} of {} messages rejected", INDICES * RECORDS_PER_INDEX,
+                perIndex, failed, INDICES);
+        assertEquals(INDICES, failed, "every message of a whole index should exceed max.request.size");
+        producerFactory.destroy();
+    }
+
+    private static void sendPerRecord(KafkaTemplate<String, Object> template, List<JsonNode> records)
+            throws InterruptedException, ExecutionException {
+        for (JsonNode record : records) {
+            List<JsonNode> single = new ArrayList<>(1);
+            single.add(record);
+            template.send(TOPIC, ProducerPOJO.builder().requestInfo(new RequestInfo()).records(single).build()).get();
+        }
+    }
+
+    private static DefaultKafkaProducerFactory<String, Object> producerFactory(boolean batched) {
+        Map<String, Object> config = new HashMap<>(KafkaTestUtils.producerProps(broker));
+        config.put(ProducerConfig.KEY_SERIALIZER_CLASS_CONFIG, StringSerializer.class);
+        config.put(ProducerConfig.VALUE_SERIALIZER_CLASS_CONFIG, JsonSerializer.class);
+        config.put(ProducerConfig.RETRIES_CONFIG, 0);
+        if (batched) {
+            config.put(ProducerConfig.COMPRESSION_TYPE_CONFIG, "lz4");
+            config.put(ProducerConfig.BATCH_SIZE_CONFIG, 262144);
+            config.put(ProducerConfig.LINGER_MS_CONFIG, 20);
+        } else {
+            config.put(ProducerConfig.BATCH_SIZE_CONFIG, 16384);
+            config.put(ProducerConfig.LINGER_MS_CONFIG, 1);
+        }
+        return new DefaultKafkaProducerFactory<>(config);
+    }
+
+    private static ApplicationProperties properties(int batchSize) {
+        ApplicationProperties properties = new ApplicationProperties();
+        properties.setKafkaBatchSize(batchSize);
+        properties.setKafkaSendTimeoutMs(30000L);
+        return properties;
+    }
+
+    /**
+     * Flattened records shaped like the ones of a PT payload, one list per index.
+     */
+    private static Map<String, List<JsonNode>> records() {
+        Map<String, List<JsonNode>> indexNameVsRecords = new LinkedHashMap<>();
+        for (int index = 0; index < INDICES; index++) {
+            List<JsonNode> records = new ArrayList<>(RECORDS_PER_INDEX);
+            for (int i = 0; i < RECORDS_PER_INDEX; i++) {
+                ObjectNode record = mapper.createObjectNode();
+                record.put("date", "2022-09-" + (10 + i % 20));
+                record.put("module", "PT");
+                record.put("ward", "Ward " + i % 40);
+                record.put("ulb", "pb.city" + i % 100);
+                record.put("region", "Region " + i % 5);
+                record.put("state", "Punjab");
+                record.put("financialYear", "2022-23");
+                record.put("usageCategory", i % 2 == 0 ? "RESIDENTIAL" : "NONRESIDENTIAL");
+                record.put("metric", "transactions");
+                record.put("value", i * 7 % 1000);
+                record.put("dataKey", "2022-09-" + (10 + i % 20) + ":PT:pb.city" + i % 100 + ":Ward " + i % 40 + ":" + index);
+                ObjectNode auditDetails = record.putObject("auditDetails");
+                auditDetails.put("createdBy", "7f3c1c8a-5a62-4c64-9d5c-0f3a2b0d9e11");
+                auditDetails.put("lastModifiedBy", "7f3c1c8a-5a62-4c64-9d5c-0f3a2b0d9e11");
+                auditDetails.put("createdTime", 1663200000000L + i);
+                auditDetails.put("lastModifiedTime", 1663200000000L + i);
+                records.add(record);
+            }
+            indexNameVsRecords.put("index-" + index, records);
+        }
+        return indexNameVsRecords;
+    }
+}
@@ -98,6 +98,7 @@ public class ReportController {
         try {
 
             ReportApp.loadYaml("common");
+            reportService.invalidateReportCache();
 
         } catch (Exception e) {
             log.error("Error in reloading Yaml data", e);
@@ -0,0 +1,171 @@
+package org.egov.report.repository;
+
+import static org.egov.report.utils.ConcurrencyUtils.getResult;
+import static org.egov.report.utils.ConcurrencyUtils.newBoundedExecutor;
+import static org.egov.report.utils.ConcurrencyUtils.withMdc;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.function.Supplier;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Repository;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Responses of the external services called to build report metadata and
+ * queries, that is master data, boundaries and the like.
+ *
+ * A response is looked up first in the memo of the current run, so that a run
+ * calls each distinct url and request once and sees a single version of the
+ * data, then in a cache shared by all runs which holds responses for a short
+ * time. Services may answer differently depending on the user, so the cache
+ * is keyed by the user as well. Concurrent runs of a user missing the same
+ * entry wait for a single call. Failed calls are neither cached nor memoized,
+ * a run gets null for them.
+ */
+@Slf4j
+@Repository
+public class ExternalServiceRepository {
+
+    @Value("${report.external.cache.ttl.ms:60000}")
+    private long cacheTtl;
+
+    @Value("${report.external.cache.max.size:500}")
+    private int cacheMaxSize;
+
+    @Value("${report.external.pool.size:4}")
+    private int poolSize;
+
+    private final Map<String, CachedResponse> cache = new ConcurrentHashMap<>();
+
+    private final Map<String, CompletableFuture<String>> inFlight = new ConcurrentHashMap<>();
+
+    private ThreadPoolExecutor executor;
+
+    @PostConstruct
+    public void init() {
+        executor = newBoundedExecutor("report-external", poolSize, poolSize * 4);
+    }
+
+    @PreDestroy
+    public void destroy() {
+        executor.shutdownNow();
+    }
+
+    /**
+     * Returns the response for the given key, calling the service only when it
+     * is neither in the memo of the run nor in the cache.
+     *
+     * @param key    url and parameters of the request, without the request info
+     * @param userId user of the request info, null for anonymous requests
+     * @param memo   responses already fetched by the current run
+     * @param call   posts the request
+     */
+    public String fetch(String key, Long userId, Map<String, String> memo, Supplier<String> call) {
+        String response = memo.get(key);
+        if (response != null)
+            return response;
+
+        String cacheKey = userId + " " + key;
+        CachedResponse cached = cache.get(cacheKey);
+        if (cached != null && !cached.isExpired()) {
+            memo.put(key, cached.response);
+            return cached.response;
+        }
+
+        CompletableFuture<String> ownCall = new CompletableFuture<>();
+        CompletableFuture<String> pending = inFlight.putIfAbsent(cacheKey, ownCall);
+        if (pending != null) {
+            response = join(pending);
+        } else {
+            try {
+                response = call.get();
+                ownCall.complete(response);
+            } catch (RuntimeException e) {
+                ownCall.completeExceptionally(e);
+                throw e;
+            } finally {
+                inFlight.remove(cacheKey, ownCall);
+            }
+            if (response != null && cacheTtl > 0)
+                put(cacheKey, response);
+        }
+        if (response != null)
+            memo.put(key, response);
+        return response;
+    }
+
+    /**
+     * Runs independent lookups on the bounded pool and waits for all of them.
+     */
+    public void runAll(List<Runnable> lookups) {
+        if (lookups.size() == 1) {
+            lookups.get(0).run();
+            return;
+        }
+        List<Future<Object>> futures = new ArrayList<>(lookups.size());
+        for (Runnable lookup : lookups) {
+            Callable<Object> task = () -> {
+                lookup.run();
+                return null;
+            };
+            futures.add(executor.submit(withMdc(task)));
+        }
+        try {
+            for (Future<Object> future : futures)
+                getResult(future);
+        } finally {
+            futures.forEach(future -> future.cancel(true));
+        }
+    }
+
+    private void put(String key, String response) {
+        if (cache.size() >= cacheMaxSize) {
+            cache.values().removeIf(CachedResponse::isExpired);
+            if (cache.size() >= cacheMaxSize) {
+                log.info("External service cache is full, clearing " + cache.size() + " entries");
+                cache.clear();
+            }
+        }
+        cache.put(key, new CachedResponse(response, System.currentTimeMillis() + cacheTtl));
+    }
+
+    private static String join(CompletableFuture<String> pending) {
+        try {
+            return pending.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException)
+                throw (RuntimeException) e.getCause();
+            throw e;
+        }
+    }
+
+    private static class CachedResponse {
+
+        private final String response;
+
+        private final long expiresAt;
+
+        private CachedResponse(String response, long expiresAt) {
+            this.response = response;
+            this.expiresAt = expiresAt;
+        }
+
+        private boolean isExpired() {
+            return System.currentTimeMillis() >= expiresAt;
+        }
+    }
+
+}
@@ -1,12 +1,8 @@
 package org.egov.report.repository;
 
-import java.util.Arrays;
 import java.util.Date;
 import java.util.HashMap;
-import java.util.HashSet;
-import java.util.List;
 import java.util.Map;
-import java.util.stream.Collectors;
 
 import javax.annotation.PostConstruct;
 
@@ -17,16 +13,18 @@ import org.egov.swagger.model.ReportDefinition;
 import org.egov.swagger.model.ReportRequest;
 import org.egov.swagger.model.SearchColumn;
 import org.egov.swagger.model.SearchParam;
-import org.egov.swagger.model.SourceColumn;
 import org.egov.tracer.model.CustomException;
 import org.postgresql.util.PSQLException;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.dao.DataAccessResourceFailureException;
 import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
 import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
 import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import lombok.extern.slf4j.Slf4j;
 
@@ -40,8 +38,6 @@ public class ReportRepository {
     @Autowired
     private JdbcTemplate jdbcTemplate;
 
-    private NamedParameterJdbcTemplate namedParameterJdbcTemplate;
-
     @Autowired
     private ReportQueryBuilder reportQueryBuilder;
 
@@ -51,10 +47,26 @@ public class ReportRepository {
     @Value(("${report.query.timeout}"))
     public int queryExecutionTimeout;
 
+    @Value("${report.query.fetch.size:1000}")
+    private int queryFetchSize;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private NamedParameterJdbcTemplate streamingJdbcTemplate;
+
+    private TransactionTemplate streamingTransactionTemplate;
+
     @PostConstruct
     private void init(){
-        this.namedParameterJdbcTemplate = new NamedParameterJdbcTemplate(this.jdbcTemplate);
         jdbcTemplate.setQueryTimeout(queryExecutionTimeout);
+
+        JdbcTemplate streamingTemplate = new JdbcTemplate(jdbcTemplate.getDataSource());
+        streamingTemplate.setQueryTimeout(queryExecutionTimeout);
+        streamingTemplate.setFetchSize(queryFetchSize);
+        this.streamingJdbcTemplate = new NamedParameterJdbcTemplate(streamingTemplate);
+        this.streamingTransactionTemplate = new TransactionTemplate(transactionManager);
+        this.streamingTransactionTemplate.setReadOnly(true);
     }
 
     private Map<String, Object>  getQueryParameters(ReportRequest reportRequest) {
@@ -94,67 +106,68 @@ public class ReportRepository {
         return query;
     }
 
-    public List<Map<String, Object>> getData(ReportRequest reportRequest, ReportDefinition reportDefinition, String authToken) throws CustomException {
+    /**
+     * Runs the report query with a forward only cursor and hands the rows to the
+     * given handler as they are fetched, so that the result is never held in
+     * memory as a list of maps.
+     *
+     * @param reportRequest
+     * @param reportDefinition
+     * @param authToken
+     * @param rowHandler
+     */
+    public void streamData(ReportRequest reportRequest, ReportDefinition reportDefinition, String authToken,
+                           RowCallbackHandler rowHandler) throws CustomException {
 
         Long startTime = new Date().getTime();
-        List<Map<String, Object>> maps = null;
 
-        String query = getQuery(reportRequest, reportDefinition, authToken);
-        
-		try {
-			query = centralInsUtil.replaceSchemaPlaceholder(query, reportRequest.getTenantId());
-		} catch (InvalidTenantIdException e1) {
-			throw new CustomException("EG_REPORT_TENANT_EXCEPTION",
-					"Tenantid too short or does not contain enough data to replace schema in query");
-		}
+        String query = getTenantQuery(reportRequest, reportDefinition, authToken);
 
-        Map<String, Object> parameters = getQueryParameters(reportRequest);
-        MapSqlParameterSource params =  new MapSqlParameterSource(parameters);
+        MapSqlParameterSource params = new MapSqlParameterSource(getQueryParameters(reportRequest));
         log.info("final query:" + query);
         try {
-
-            maps = namedParameterJdbcTemplate.queryForList(query, params);
-            // convert 'abc, xyz' -> ['abc','xyz'] to allow decryptions of each entity
-            convertStringArraystoListForEncryption(maps, reportDefinition.getSourceColumns());
+            // postgres only uses a cursor for the fetch size when auto commit is off
+            streamingTransactionTemplate.execute(status -> {
+                streamingJdbcTemplate.query(query, params, rowHandler);
+                return null;
+            });
         } catch (DataAccessResourceFailureException ex) {
-            log.info("Query Execution Failed Due To Timeout: ", ex);
-            PSQLException cause = (PSQLException) ex.getCause();
-            if (cause != null && cause.getSQLState().equals("57014")) {
-                throw new CustomException("QUERY_EXECUTION_TIMEOUT", "Query failed, as it took more than: "+ (queryExecutionTimeout) + " seconds to execute");
-            } else {
-                throw ex;
-            }
+            throw toTimeoutException(ex);
+        } catch (CustomException e) {
+            throw e;
         } catch (Exception e) {
             log.info("Query Execution Failed: ", e);
             throw new CustomException("QUERY_EXEC_ERROR", "Error while executing query: " + e.getMessage());
         }
 
+        logExecutionTime(startTime, query);
+    }
+
+    private String getTenantQuery(ReportRequest reportRequest, ReportDefinition reportDefinition, String authToken) {
+        String query = getQuery(reportRequest, reportDefinition, authToken);
+        try {
+            return centralInsUtil.replaceSchemaPlaceholder(query, reportRequest.getTenantId());
+        } catch (InvalidTenantIdException e1) {
+            throw new CustomException("EG_REPORT_TENANT_EXCEPTION",
+                    "Tenantid too short or does not contain enough data to replace schema in query");
+        }
+    }
+
+    private RuntimeException toTimeoutException(DataAccessResourceFailureException ex) {
+        log.info("Query Execution Failed Due To Timeout: ", ex);
+        PSQLException cause = (PSQLException) ex.getCause();
+        if (cause != null && cause.getSQLState().equals("57014")) {
+            return new CustomException("QUERY_EXECUTION_TIMEOUT", "Query failed, as it took more than: "+ (queryExecutionTimeout) + " seconds to execute");
+        }
+        return ex;
+    }
+
+    private void logExecutionTime(Long startTime, String query) {
         Long endTime = new Date().getTime();
         Long totalExecutionTime = endTime - startTime;
         log.info("total query execution time taken in millisecount:" + totalExecutionTime);
         if (endTime - startTime > maxExecutionTime)
             log.error("Sql query is taking time query:" + query);
-        return maps;
     }
 
-
-    private void convertStringArraystoListForEncryption(List<Map<String, Object>> maps, List<SourceColumn> columns) {
-        HashSet<String> arrayColumns = new HashSet<>();
-        for (SourceColumn sourceColumn : columns) {
-            if (sourceColumn.getType().toString().equals("stringarray")) {
-                arrayColumns.add(sourceColumn.getName());
-            }
-        }
-        for (Map<String, Object> fieldValueMap : maps) {
-            for (String key : fieldValueMap.keySet()) {
-                if (arrayColumns.contains(key)) {
-                    if (fieldValueMap.get(key) == null)
-                        continue;
-                    String values[] = String.valueOf(fieldValueMap.get(key)).split(",");
-                    List<String> valueList = Arrays.asList(values).stream().map(value -> value.trim()).collect(Collectors.toList());
-                    fieldValueMap.put(key, valueList);
-                }
-            }
-        }
-    }
 }
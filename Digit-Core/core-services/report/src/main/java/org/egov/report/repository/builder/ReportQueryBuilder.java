@@ -4,10 +4,14 @@ import java.net.URI;
 import java.util.ArrayList;
 import java.util.Calendar;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Objects;
 import java.util.TimeZone;
-import java.util.WeakHashMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+import java.util.regex.Matcher;
 
 import org.apache.commons.lang3.StringUtils;
 import org.egov.common.contract.request.RequestInfo;
@@ -16,6 +20,7 @@ import org.egov.mdms.model.MasterDetail;
 import org.egov.mdms.model.MdmsCriteria;
 import org.egov.mdms.model.MdmsCriteriaReq;
 import org.egov.mdms.model.ModuleDetail;
+import org.egov.report.repository.ExternalServiceRepository;
 import org.egov.swagger.model.ExternalService;
 import org.egov.swagger.model.ReportDefinition;
 import org.egov.swagger.model.SearchColumn;
@@ -30,10 +35,10 @@ import org.springframework.http.HttpEntity;
 import org.springframework.stereotype.Component;
 import org.springframework.util.LinkedMultiValueMap;
 import org.springframework.util.MultiValueMap;
-import org.springframework.web.client.HttpClientErrorException;
 import org.springframework.web.client.RestTemplate;
 
 import com.fasterxml.jackson.annotation.JsonInclude.Include;
+import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.core.type.TypeReference;
 import com.fasterxml.jackson.databind.DeserializationFeature;
 import com.fasterxml.jackson.databind.MapperFeature;
@@ -47,6 +52,8 @@ import lombok.extern.slf4j.Slf4j;
 @Slf4j
 @Component
 public class ReportQueryBuilder {
+
+    private static final ObjectMapper MAPPER = new ObjectMapper();
 	
 	@Autowired
 	private MultiStateInstanceUtil centralInstanceUtil;
@@ -54,6 +61,9 @@ public class ReportQueryBuilder {
     @Autowired
     private RestTemplate restTemplate;
 
+    @Autowired
+    private ExternalServiceRepository externalServiceRepository;
+
     @Value("${mdms.search.enabled}")
     private boolean isSearchEnabled;
 
@@ -77,7 +87,7 @@ public class ReportQueryBuilder {
 
         try {
             if (reportDefinition.getExternalService().size() > 0) {
-                baseQuery = populateExternalServiceValues(reportDefinition, baseQuery, tenantId, authToken);
+                baseQuery = populateExternalServiceValues(reportDefinition, baseQuery, tenantId, authToken, userId);
             }
         } catch (JSONException e) {
             e.printStackTrace();
@@ -95,141 +105,42 @@ public class ReportQueryBuilder {
         return baseQuery;
     }
 
-    private String populateExternalServiceValues(ReportDefinition reportDefinition, String baseQuery, String tenantid, String authToken)
-            throws JSONException {
-        String url;
-        String res = "";
-        String replacetableQuery = baseQuery;
-        String requestInfoJson = "";
-        String finalJson = "";
-        for (ExternalService es : reportDefinition.getExternalService()) {
-
-            if (es.getPostObject() != null) {
-                //JsonObject jsonObjecttest = (new JsonParser()).parse(es.getPostObject()).getAsJsonObject();
-                String jsonObjecttest = es.getPostObject();
-
-                HashMap map = new HashMap();
-                map.put("RequestInfo", getRInfo(authToken));
-                //map.put(es.getObjectKey(),jsonObjecttest);
-                try {
-                    Gson gson = new Gson();
-                    requestInfoJson = gson.toJson(map);
-                } catch (Exception e1) {
-                    // TODO Auto-generated catch block
-                    log.error("Exception while converting gson to JSON: " + e1.getMessage());
-                }
-                requestInfoJson = StringUtils.chop(requestInfoJson);
-                finalJson = jsonObjecttest.replaceAll("\\$RequestInfo", requestInfoJson);
-                finalJson = finalJson.concat("}");
+    private String populateExternalServiceValues(ReportDefinition reportDefinition, String baseQuery, String tenantid, String authToken,
+                                                 Long userId) throws JSONException {
+        List<ExternalService> externalServices = reportDefinition.getExternalService();
+        // key of the response of each external service, identical requests share the key
+        String[] keys = new String[externalServices.size()];
+        Map<String, Supplier<String>> calls = new LinkedHashMap<>();
+
+        if (!isSearchEnabled) {
+            String currentTime = Long.toString(getCurrentTime());
+            for (int i = 0; i < externalServices.size(); i++) {
+                keys[i] = prepareGetCall(externalServices.get(i), tenantid, authToken, currentTime, calls);
             }
+        } else {
+            prepareSearchCalls(reportDefinition, tenantid, authToken, keys, calls);
+        }
 
-            if (!isSearchEnabled) {
-                log.info("Entering _get block");
-                try {
-                    url = es.getApiURL();
-                } catch (Exception ex) {
-                    throw new CustomException("YAML_CONFIG_ERROR", ex.getMessage());
-                }
-                log.info("URL from yaml config: " + url);
-                url = url.replaceAll("\\$currentTime", Long.toString(getCurrentTime()));
-                String stateid = null;
-                if (es.getStateData()) {
-                    log.info("State Data");
-                    stateid = centralInstanceUtil.getStateLevelTenant(tenantid);
-                    url = url.replaceAll("\\$tenantid", stateid);
-                    finalJson = finalJson.replaceAll("\\$tenantid", stateid);
-                } else {
-                    log.info("Tenant Data");
-                    url = url.replaceAll("\\$tenantId", tenantid);
-                    finalJson = finalJson.replaceAll("\\$tenantid", tenantid);
-                }
-                log.info("Mapper Converted string with replaced values " + requestInfoJson);
-                URI uri = URI.create(url);
-                log.info("URI: " + uri);
-                MultiValueMap<String, String> headers = new LinkedMultiValueMap<String, String>();
-                Map headerMap = new HashMap<String, String>();
-                headerMap.put("Content-Type", "application/json");
-                headers.setAll(headerMap);
-                HttpEntity<?> request = new HttpEntity<>(finalJson, headers);
-                try {
-                    if (es.getPostObject() != null) {
-                        res = restTemplate.postForObject(uri, request, String.class);
-                        log.info("Response - 1: " + res);
-                    } else {
-                        res = restTemplate.postForObject(uri, getRInfo(authToken), String.class);
-                        log.info("Response - 2 : " + res);
-                    }
-                } catch (HttpClientErrorException e) {
-                    log.error("Exception while fetching data from mdms: ", e);
-                }
-            } else {
-                ObjectMapper mapper = new ObjectMapper();
-                log.info("Entering _search block");
-                url = es.getApiURL();
-                log.info("URL from yaml config: " + url);
-                String uri = null;
-                MdmsCriteriaReq mdmsCriteriaReq = new MdmsCriteriaReq();
-                String[] criteriaArray = null;
-                Map<String, String> keyValueMap = new WeakHashMap<>();
-                if (reportDefinition.getVersion().equals("1.0.0")) {
-                    log.info("Entering old config block");
-                    String[] splitUrl = url.split("[?]");
-                    uri = splitUrl[0].replaceAll("_get", "_search");
-                    String queryParam = null;
-                    if (splitUrl[1].contains("|")) {
-                        queryParam = splitUrl[1].split("|")[0];
-                        criteriaArray = queryParam.split("[&]");
-                    } else {
-                        queryParam = splitUrl[1];
-                        criteriaArray = queryParam.split("[&]");
-                    }
-                    log.info("criteria: " + criteriaArray);
-                    for (String pair : criteriaArray) {
-                        if (pair.split("=")[0].equals("tenantId"))
-                            continue;
-                        keyValueMap.put(pair.split("=")[0], pair.split("=")[1]);
-                    }
-                } else {
-                    log.info("Entering new config block");
-                    uri = url;
-                    String criteria = es.getCriteria();
-                    if (null != criteria) {
-                        criteriaArray = criteria.split(",");
-                        log.info("criteria: " + criteriaArray);
-                        for (String pair : criteriaArray) {
-                            if (pair.split("=")[0].equals("tenantId"))
-                                continue;
-                            keyValueMap.put(pair.split("=")[0], pair.split("=")[1]);
-                        }
-
-                    }
-                }
-                log.info("keyValueMap: " + keyValueMap);
-                MasterDetail masterDetail = new MasterDetail();
-                masterDetail.setName(keyValueMap.get("masterName"));
-                masterDetail.setFilter(keyValueMap.get("filter"));
-                List<MasterDetail> masterDetails = new ArrayList<>();
-                masterDetails.add(masterDetail);
-                ModuleDetail moduleDetail = new ModuleDetail();
-                moduleDetail.setMasterDetails(masterDetails);
-                moduleDetail.setModuleName(keyValueMap.get("moduleName"));
-                List<ModuleDetail> moduleDetails = new ArrayList<>();
-                moduleDetails.add(moduleDetail);
-                MdmsCriteria mdmsCriteria = new MdmsCriteria();
-                mdmsCriteria.setTenantId(tenantid);
-                mdmsCriteria.setModuleDetails(moduleDetails);
-                mdmsCriteriaReq.setMdmsCriteria(mdmsCriteria);
-                mdmsCriteriaReq.setRequestInfo(getRInfo(authToken));
-                log.info("URI: " + uri);
+        Map<String, String> memo = new ConcurrentHashMap<>();
+        List<Runnable> lookups = new ArrayList<>();
+        for (Map.Entry<String, Supplier<String>> call : calls.entrySet()) {
+            lookups.add(() -> {
                 try {
-                    log.info("Request: " + mapper.writeValueAsString(mdmsCriteriaReq));
-                    res = restTemplate.postForObject(uri, mdmsCriteriaReq, String.class);
-                    log.info("MDMS response: " + res);
+                    externalServiceRepository.fetch(call.getKey(), userId, memo, call.getValue());
                 } catch (Exception e) {
-                    log.error("Exception while fetching data from mdms: ", e);
+                    log.error("Exception while fetching data from external service: ", e);
                 }
-            }
+            });
+        }
+        externalServiceRepository.runAll(lookups);
 
+        String replacetableQuery = baseQuery;
+        for (int e = 0; e < externalServices.size(); e++) {
+            ExternalService es = externalServices.get(e);
+            String res = memo.get(keys[e]);
+            if (res == null)
+                throw new CustomException("EXTERNAL_SERVICE_ERROR",
+                        "Failed to fetch the data of " + es.getTableName() + " from " + es.getApiURL());
 
             Object jsonObject = JsonPath.read(res, es.getEntity());
 
@@ -294,6 +205,170 @@ public class ReportQueryBuilder {
         return replacetableQuery;
     }
 
+    private String prepareGetCall(ExternalService es, String tenantid, String authToken, String currentTime,
+                                  Map<String, Supplier<String>> calls) {
+        log.info("Entering _get block");
+        String url;
+        try {
+            url = es.getApiURL();
+        } catch (Exception ex) {
+            throw new CustomException("YAML_CONFIG_ERROR", ex.getMessage());
+        }
+        log.info("URL from yaml config: " + url);
+        url = url.replaceAll("\\$currentTime", currentTime);
+        String postObject = es.getPostObject();
+        if (es.getStateData()) {
+            log.info("State Data");
+            String stateid = centralInstanceUtil.getStateLevelTenant(tenantid);
+            url = url.replaceAll("\\$tenantid", stateid);
+            if (postObject != null)
+                postObject = postObject.replaceAll("\\$tenantid", stateid);
+        } else {
+            log.info("Tenant Data");
+            url = url.replaceAll("\\$tenantId", tenantid);
+            if (postObject != null)
+                postObject = postObject.replaceAll("\\$tenantid", tenantid);
+        }
+        URI uri = URI.create(url);
+        log.info("URI: " + uri);
+
+        // the request info is left out of the key, the cache adds the user to it
+        String key = uri + " " + StringUtils.defaultString(postObject);
+        String criteria = postObject;
+        calls.putIfAbsent(key, () -> {
+            if (criteria != null) {
+                String res = restTemplate.postForObject(uri, getPostObjectRequest(criteria, authToken), String.class);
+                log.info("Response - 1: " + res);
+                return res;
+            }
+            String res = restTemplate.postForObject(uri, getRInfo(authToken), String.class);
+            log.info("Response - 2 : " + res);
+            return res;
+        });
+        return key;
+    }
+
+    private HttpEntity<?> getPostObjectRequest(String postObject, String authToken) {
+        String requestInfoJson = "";
+        HashMap map = new HashMap();
+        map.put("RequestInfo", getRInfo(authToken));
+        try {
+            Gson gson = new Gson();
+            requestInfoJson = gson.toJson(map);
+        } catch (Exception e1) {
+            log.error("Exception while converting gson to JSON: " + e1.getMessage());
+        }
+        requestInfoJson = StringUtils.chop(requestInfoJson);
+        String finalJson = postObject.replaceAll("\\$RequestInfo", Matcher.quoteReplacement(requestInfoJson));
+        finalJson = finalJson.concat("}");
+        log.info("Mapper Converted string with replaced values " + requestInfoJson);
+        MultiValueMap<String, String> headers = new LinkedMultiValueMap<String, String>();
+        headers.set("Content-Type", "application/json");
+        return new HttpEntity<>(finalJson, headers);
+    }
+
+    /**
+     * Prepares the mdms searches of the external services. Masters of the same
+     * url are fetched with a single search, unless the entity of an external
+     * service is not scoped to its own master, or the same master is searched
+     * with different filters.
+     */
+    private void prepareSearchCalls(ReportDefinition reportDefinition, String tenantid, String authToken, String[] keys,
+                                    Map<String, Supplier<String>> calls) {
+        log.info("Entering _search block");
+        List<ExternalService> externalServices = reportDefinition.getExternalService();
+        List<MdmsSearch> searches = new ArrayList<>();
+        List<List<Integer>> members = new ArrayList<>();
+
+        for (int e = 0; e < externalServices.size(); e++) {
+            ExternalService es = externalServices.get(e);
+            String url = es.getApiURL();
+            log.info("URL from yaml config: " + url);
+            String uri = null;
+            String[] criteriaArray = null;
+            Map<String, String> keyValueMap = new HashMap<>();
+            if (reportDefinition.getVersion().equals("1.0.0")) {
+                log.info("Entering old config block");
+                String[] splitUrl = url.split("[?]");
+                uri = splitUrl[0].replaceAll("_get", "_search");
+                String queryParam = null;
+                if (splitUrl[1].contains("|")) {
+                    queryParam = splitUrl[1].split("|")[0];
+                    criteriaArray = queryParam.split("[&]");
+                } else {
+                    queryParam = splitUrl[1];
+                    criteriaArray = queryParam.split("[&]");
+                }
+                for (String pair : criteriaArray) {
+                    if (pair.split("=")[0].equals("tenantId"))
+                        continue;
+                    keyValueMap.put(pair.split("=")[0], pair.split("=")[1]);
+                }
+            } else {
+                log.info("Entering new config block");
+                uri = url;
+                String criteria = es.getCriteria();
+                if (null != criteria) {
+                    criteriaArray = criteria.split(",");
+                    for (String pair : criteriaArray) {
+                        if (pair.split("=")[0].equals("tenantId"))
+                            continue;
+                        keyValueMap.put(pair.split("=")[0], pair.split("=")[1]);
+                    }
+
+                }
+            }
+            log.info("keyValueMap: " + keyValueMap);
+            String moduleName = keyValueMap.get("moduleName");
+            String masterName = keyValueMap.get("masterName");
+            String filter = keyValueMap.get("filter");
+            boolean batchable = isScopedToMaster(es.getEntity(), moduleName, masterName);
+
+            int index = -1;
+            for (int s = 0; batchable && s < searches.size() && index < 0; s++) {
+                if (searches.get(s).accepts(uri, moduleName, masterName, filter))
+                    index = s;
+            }
+            if (index < 0) {
+                searches.add(new MdmsSearch(uri, batchable));
+                members.add(new ArrayList<>());
+                index = searches.size() - 1;
+            }
+            searches.get(index).add(moduleName, masterName, filter);
+            members.get(index).add(e);
+        }
+
+        for (int s = 0; s < searches.size(); s++) {
+            MdmsSearch search = searches.get(s);
+            MdmsCriteriaReq mdmsCriteriaReq = new MdmsCriteriaReq();
+            mdmsCriteriaReq.setMdmsCriteria(search.getCriteria(tenantid));
+            String key;
+            try {
+                key = search.uri + " " + MAPPER.writeValueAsString(mdmsCriteriaReq.getMdmsCriteria());
+            } catch (JsonProcessingException ex) {
+                throw new CustomException("MDMS_REQUEST_ERROR", ex.getMessage());
+            }
+            for (Integer e : members.get(s)) {
+                keys[e] = key;
+            }
+            calls.putIfAbsent(key, () -> {
+                mdmsCriteriaReq.setRequestInfo(getRInfo(authToken));
+                log.info("URI: " + search.uri);
+                String res = restTemplate.postForObject(search.uri, mdmsCriteriaReq, String.class);
+                log.info("MDMS response: " + res);
+                return res;
+            });
+        }
+    }
+
+    // the entity can be read from a response with other masters only when it starts at its own master
+    private static boolean isScopedToMaster(String entity, String moduleName, String masterName) {
+        if (entity == null || moduleName == null || masterName == null)
+            return false;
+        String prefix = "$.MdmsRes." + moduleName + "." + masterName;
+        return entity.equals(prefix) || entity.startsWith(prefix + ".") || entity.startsWith(prefix + "[");
+    }
+
     public String generateQuery(List<SearchParam> searchParams, String tenantId, ReportDefinition reportDefinition, String inlineQuery) {
 
 
@@ -583,6 +658,53 @@ public class ReportQueryBuilder {
         return mapper;
     }
 
-}
+    /**
+     * Masters fetched with one mdms search, by module in the order they were added.
+     */
+    private static class MdmsSearch {
+
+        private final String uri;
+
+        private final boolean batchable;
+
+        private final Map<String, Map<String, String>> filtersByModule = new LinkedHashMap<>();
+
+        private MdmsSearch(String uri, boolean batchable) {
+            this.uri = uri;
+            this.batchable = batchable;
+        }
+
+        private boolean accepts(String uri, String moduleName, String masterName, String filter) {
+            if (!batchable || !this.uri.equals(uri))
+                return false;
+            Map<String, String> filters = filtersByModule.get(moduleName);
+            return filters == null || !filters.containsKey(masterName) || Objects.equals(filters.get(masterName), filter);
+        }
+
+        private void add(String moduleName, String masterName, String filter) {
+            filtersByModule.computeIfAbsent(moduleName, module -> new LinkedHashMap<>()).put(masterName, filter);
+        }
 
+        private MdmsCriteria getCriteria(String tenantId) {
+            List<ModuleDetail> moduleDetails = new ArrayList<>();
+            for (Map.Entry<String, Map<String, String>> module : filtersByModule.entrySet()) {
+                List<MasterDetail> masterDetails = new ArrayList<>();
+                for (Map.Entry<String, String> master : module.getValue().entrySet()) {
+                    MasterDetail masterDetail = new MasterDetail();
+                    masterDetail.setName(master.getKey());
+                    masterDetail.setFilter(master.getValue());
+                    masterDetails.add(masterDetail);
+                }
+                ModuleDetail moduleDetail = new ModuleDetail();
+                moduleDetail.setMasterDetails(masterDetails);
+                moduleDetail.setModuleName(module.getKey());
+                moduleDetails.add(moduleDetail);
+            }
+            MdmsCriteria mdmsCriteria = new MdmsCriteria();
+            mdmsCriteria.setTenantId(tenantId);
+            mdmsCriteria.setModuleDetails(moduleDetails);
+            return mdmsCriteria;
+        }
+    }
 
+}
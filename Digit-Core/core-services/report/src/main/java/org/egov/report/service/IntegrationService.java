@@ -2,12 +2,14 @@ package org.egov.report.service;
 
 import java.net.URI;
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.function.Function;
 import java.util.stream.Collectors;
 
 import lombok.extern.slf4j.Slf4j;
 import org.egov.common.contract.request.RequestInfo;
 import org.egov.domain.model.RequestInfoWrapper;
+import org.egov.report.repository.ExternalServiceRepository;
 import org.egov.swagger.model.ColumnDetail;
 import org.egov.swagger.model.ColumnDetail.TypeEnum;
 import org.slf4j.Logger;
@@ -30,6 +32,9 @@ public class IntegrationService {
     @Autowired
     private RestTemplate restTemplate;
 
+    @Autowired
+    private ExternalServiceRepository externalServiceRepository;
+
     @Value("${id.timezone}")
     private String timezone;
 
@@ -40,6 +45,11 @@ public class IntegrationService {
         List<ColumnDetail> columnDetails = metadataResponse.getReportDetails().getSearchParams();
         Map<String, ColumnDetail> colNameMap = columnDetails.stream().collect(Collectors.toMap(ColumnDetail::getName, Function.identity()));
 
+        // lookups of the run share one timestamp, so that identical urls are called once
+        String currentTime = Long.toString(getCurrentTime());
+        Map<String, String> memo = new ConcurrentHashMap<>();
+        List<Runnable> lookups = new ArrayList<>();
+
         for (SearchColumn searchColumn : searchColumns) {
 
             if (searchColumn.getType().equals(TypeEnum.SINGLEVALUELIST) || searchColumn.getType().equals(TypeEnum.SINGLEVALUELISTAC) || searchColumn.getType().equals(TypeEnum.MULTIVALUELIST) || searchColumn.getType().equals(TypeEnum.MULTIVALUELISTAC)) {
@@ -66,10 +76,9 @@ public class IntegrationService {
                     columnDetail.setDefaultValue(map);
                 } else {
 
-                    String res = "";
                     String[] stateid = null;
 
-                    url = url.replaceAll("\\$currentTime", Long.toString(getCurrentTime()));
+                    url = url.replaceAll("\\$currentTime", currentTime);
 
                     log.info("url:" + url);
 
@@ -81,52 +90,63 @@ public class IntegrationService {
                         url = url.replaceAll("\\$tenantid", metadataResponse.getTenantId());
                     }
 
-                    try {
-                        if (searchColumn.getWrapper()) {
-                            RequestInfoWrapper riw = generateRequestInfoWrapper(requestInfo);
-                            URI uri = URI.create(url);
-                            res = restTemplate.postForObject(uri, riw, String.class);
-
-                        } else {
-
-                            res = restTemplate.postForObject(url, requestInfo, String.class);
-                        }
-
-
-                        Object document = Configuration.defaultConfiguration().jsonProvider().parse(res);
-
-                        List<Object> keys = JsonPath.read(document, patterns[1]);
-                        List<Object> values = JsonPath.read(document, patterns[2]);
-                        if (searchColumn.getLocalisationRequired()) {
-                            List<Object> keysAfterLoc = new ArrayList<>();
-                            List<Object> valuesAfterLoc = new ArrayList<>();
-                            for (int i = 0; i < keys.size(); i++) {
-                                String servicecode = ((String) keys.get(i));
-                                String localisationLabel = searchColumn.getLocalisationPrefix() + servicecode;
-                                if (!valuesAfterLoc.contains(localisationLabel)) {
-                                    keysAfterLoc.add(servicecode);
-                                    valuesAfterLoc.add(localisationLabel);
-                                }
-                            }
-                            keys = keysAfterLoc;
-                            values = valuesAfterLoc;
-                        }
-                        Map<Object, Object> map = new LinkedHashMap<>();
-                        for (int i = 0; i < keys.size(); i++) {
-                            map.put(keys.get(i), values.get(i));
-                        }
-
-                        columnDetail.setDefaultValue(map);
-                    } catch (Exception e) {
-                        log.error("Exception while fetching data: " + e.getMessage());
-                    }
-
+                    String finalUrl = url;
+                    lookups.add(() -> populateDefaultValue(searchColumn, columnDetail, patterns, finalUrl, requestInfo, memo));
                 }
             }
         }
+
+        externalServiceRepository.runAll(lookups);
         return metadataResponse;
     }
 
+    private void populateDefaultValue(SearchColumn searchColumn, ColumnDetail columnDetail, String[] patterns, String url,
+                                      RequestInfo requestInfo, Map<String, String> memo) {
+        try {
+            // the request only carries the request info, so the response is keyed by the url and the user
+            Long userId = requestInfo.getUserInfo() == null ? null : requestInfo.getUserInfo().getId();
+            String res = externalServiceRepository.fetch((searchColumn.getWrapper() ? "wrapper:" : "") + url, userId, memo, () -> {
+                if (searchColumn.getWrapper()) {
+                    RequestInfoWrapper riw = generateRequestInfoWrapper(requestInfo);
+                    URI uri = URI.create(url);
+                    return restTemplate.postForObject(uri, riw, String.class);
+                }
+                return restTemplate.postForObject(url, requestInfo, String.class);
+            });
+            if (res == null) {
+                log.error("No response from " + url + " for " + searchColumn.getName());
+                return;
+            }
+
+            Object document = Configuration.defaultConfiguration().jsonProvider().parse(res);
+
+            List<Object> keys = JsonPath.read(document, patterns[1]);
+            List<Object> values = JsonPath.read(document, patterns[2]);
+            if (searchColumn.getLocalisationRequired()) {
+                List<Object> keysAfterLoc = new ArrayList<>();
+                List<Object> valuesAfterLoc = new ArrayList<>();
+                for (int i = 0; i < keys.size(); i++) {
+                    String servicecode = ((String) keys.get(i));
+                    String localisationLabel = searchColumn.getLocalisationPrefix() + servicecode;
+                    if (!valuesAfterLoc.contains(localisationLabel)) {
+                        keysAfterLoc.add(servicecode);
+                        valuesAfterLoc.add(localisationLabel);
+                    }
+                }
+                keys = keysAfterLoc;
+                values = valuesAfterLoc;
+            }
+            Map<Object, Object> map = new LinkedHashMap<>();
+            for (int i = 0; i < keys.size(); i++) {
+                map.put(keys.get(i), values.get(i));
+            }
+
+            columnDetail.setDefaultValue(map);
+        } catch (Exception e) {
+            log.error("Exception while fetching data: " + e.getMessage());
+        }
+    }
+
     private RequestInfoWrapper generateRequestInfoWrapper(RequestInfo requestInfo) {
         RequestInfoWrapper riw = new RequestInfoWrapper();
         RequestInfo ri = new RequestInfo();
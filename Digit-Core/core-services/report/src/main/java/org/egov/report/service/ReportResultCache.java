@@ -0,0 +1,226 @@
+package org.egov.report.service;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+import org.egov.tracer.model.CustomException;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Rows of reports whose definition declares a cache ttl, stored serialized and,
+ * above a threshold, gzipped. The cache is bounded by the size of the stored
+ * rows, least recently used entries are evicted first.
+ *
+ * Identical requests arriving while a report is being computed wait for that
+ * computation instead of running the query again. Entries are dropped when the
+ * report definitions are reloaded, rows computed concurrently with a reload
+ * are returned but not stored.
+ */
+@Slf4j
+@Component
+public class ReportResultCache {
+
+    private static final TypeReference<List<List<Object>>> ROWS_TYPE = new TypeReference<List<List<Object>>>() {
+    };
+
+    @Value("${report.cache.max.size.bytes:67108864}")
+    private long maxSizeBytes;
+
+    @Value("${report.cache.compression.threshold.bytes:16384}")
+    private int compressionThresholdBytes;
+
+    private final ObjectMapper objectMapper;
+
+    private final ObjectReader rowsReader;
+
+    // access ordered, guarded by itself
+    private final LinkedHashMap<String, Entry> entries = new LinkedHashMap<>(16, 0.75f, true);
+
+    private final Map<String, CompletableFuture<Entry>> inFlight = new ConcurrentHashMap<>();
+
+    private final AtomicLong generation = new AtomicLong();
+
+    private long sizeBytes;
+
+    @Autowired
+    public ReportResultCache(ObjectMapper objectMapper) {
+        this.objectMapper = objectMapper;
+        // decimals are read back as they were written
+        this.rowsReader = objectMapper.readerFor(ROWS_TYPE).with(DeserializationFeature.USE_BIG_DECIMAL_FOR_FLOATS);
+    }
+
+    /**
+     * Returns the cached rows of the key, or computes them with the loader when
+     * there is no live entry.
+     *
+     * @param key    fingerprint of the report request
+     * @param ttl    time to live of computed rows, in milliseconds
+     * @param loader runs the report
+     */
+    public CachedRows get(String key, long ttl, Supplier<List<List<Object>>> loader) {
+        Entry entry = getEntry(key);
+        if (entry != null)
+            return new CachedRows(read(entry), entry.expiresAt);
+
+        CompletableFuture<Entry> computation = new CompletableFuture<>();
+        CompletableFuture<Entry> pending = inFlight.putIfAbsent(key, computation);
+        if (pending != null) {
+            entry = join(pending);
+            return new CachedRows(read(entry), entry.expiresAt);
+        }
+
+        long generationAtLoad = generation.get();
+        try {
+            List<List<Object>> rows = loader.get();
+            entry = write(rows, System.currentTimeMillis() + ttl);
+            computation.complete(entry);
+            if (generation.get() == generationAtLoad)
+                put(key, entry);
+            return new CachedRows(rows, entry.expiresAt);
+        } catch (RuntimeException e) {
+            computation.completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlight.remove(key, computation);
+        }
+    }
+
+    /**
+     * Drops all entries, called when the report definitions are reloaded.
+     */
+    public void invalidate() {
+        generation.incrementAndGet();
+        synchronized (entries) {
+            entries.clear();
+            sizeBytes = 0;
+        }
+        log.info("Report result cache invalidated");
+    }
+
+    private Entry getEntry(String key) {
+        synchronized (entries) {
+            Entry entry = entries.get(key);
+            if (entry != null && entry.expiresAt <= System.currentTimeMillis()) {
+                entries.remove(key);
+                sizeBytes -= entry.data.length;
+                return null;
+            }
+            return entry;
+        }
+    }
+
+    private void put(String key, Entry entry) {
+        // a single report taking a large part of the cache would evict everything else
+        if (entry.data.length > maxSizeBytes / 4) {
+            log.info("Report result of " + entry.data.length + " bytes is too large to be cached");
+            return;
+        }
+        synchronized (entries) {
+            Entry previous = entries.put(key, entry);
+            if (previous != null)
+                sizeBytes -= previous.data.length;
+            sizeBytes += entry.data.length;
+            Iterator<Entry> eldest = entries.values().iterator();
+            while (sizeBytes > maxSizeBytes && eldest.hasNext()) {
+                sizeBytes -= eldest.next().data.length;
+                eldest.remove();
+            }
+        }
+    }
+
+    private Entry write(List<List<Object>> rows, long expiresAt) {
+        try {
+            byte[] data = objectMapper.writeValueAsBytes(rows);
+            if (data.length < compressionThresholdBytes)
+                return new Entry(data, false, expiresAt);
+            ByteArrayOutputStream outputStream = new ByteArrayOutputStream(data.length / 4);
+            try (GZIPOutputStream gzipOutputStream = new GZIPOutputStream(outputStream)) {
+                gzipOutputStream.write(data);
+            }
+            return new Entry(outputStream.toByteArray(), true, expiresAt);
+        } catch (IOException e) {
+            throw new CustomException("REPORT_CACHE_ERROR", "Error while caching report data: " + e.getMessage());
+        }
+    }
+
+    private List<List<Object>> read(Entry entry) {
+        try (InputStream inputStream = entry.compressed
+                ? new GZIPInputStream(new ByteArrayInputStream(entry.data))
+                : new ByteArrayInputStream(entry.data)) {
+            return rowsReader.readValue(inputStream);
+        } catch (IOException e) {
+            throw new CustomException("REPORT_CACHE_ERROR", "Error while reading cached report data: " + e.getMessage());
+        }
+    }
+
+    private static Entry join(CompletableFuture<Entry> pending) {
+        try {
+            return pending.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException)
+                throw (RuntimeException) e.getCause();
+            throw e;
+        }
+    }
+
+    private static class Entry {
+
+        private final byte[] data;
+
+        private final boolean compressed;
+
+        private final long expiresAt;
+
+        private Entry(byte[] data, boolean compressed, long expiresAt) {
+            this.data = data;
+            this.compressed = compressed;
+            this.expiresAt = expiresAt;
+        }
+    }
+
+    public static class CachedRows {
+
+        private final List<List<Object>> rows;
+
+        private final long expiresAt;
+
+        private CachedRows(List<List<Object>> rows, long expiresAt) {
+            this.rows = rows;
+            this.expiresAt = expiresAt;
+        }
+
+        public List<List<Object>> getRows() {
+            return rows;
+        }
+
+        /**
+         * UTC epoch up to which the rows are served from the cache.
+         */
+        public long getExpiresAt() {
+            return expiresAt;
+        }
+    }
+
+}
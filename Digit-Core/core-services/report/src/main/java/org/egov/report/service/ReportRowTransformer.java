@@ -0,0 +1,126 @@
+package org.egov.report.service;
+
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.stream.Collectors;
+
+import org.apache.commons.lang3.StringUtils;
+import org.egov.swagger.model.SourceColumn;
+
+/**
+ * Turns result set rows into report rows, in the order of the source columns of
+ * the report definition. The position of each source column in the result set
+ * is resolved once, from the metadata of the first row, so that rows are built
+ * by index instead of through a case insensitive map per row.
+ */
+public class ReportRowTransformer {
+
+    private final List<SourceColumn> columns;
+
+    private final boolean[] stringArrayColumns;
+
+    // result set index of each source column, 0 when the query does not return it
+    private int[] ordinals;
+
+    // result set label of each source column, null when the query does not return it
+    private String[] labels;
+
+    private String[] resultSetLabels;
+
+    public ReportRowTransformer(List<SourceColumn> columns) {
+        this.columns = columns;
+        this.stringArrayColumns = new boolean[columns.size()];
+        for (int i = 0; i < columns.size(); i++) {
+            stringArrayColumns[i] = columns.get(i).getType().toString().equals("stringarray");
+        }
+    }
+
+    /**
+     * Builds the report row of the current row of the result set.
+     */
+    public List<Object> toRow(ResultSet resultSet) throws SQLException {
+        resolveColumns(resultSet);
+        List<Object> row = new ArrayList<>(ordinals.length);
+        for (int i = 0; i < ordinals.length; i++) {
+            Object value = ordinals[i] == 0 ? null : resultSet.getObject(ordinals[i]);
+            row.add(stringArrayColumns[i] && value != null ? joinStringArray(String.valueOf(value)) : value);
+        }
+        return row;
+    }
+
+    /**
+     * Copies the current row of the result set into a map, so that it can be
+     * decrypted. String array columns are split into lists to allow decryption of
+     * each entity.
+     */
+    public Map<String, Object> toMap(ResultSet resultSet) throws SQLException {
+        resolveColumns(resultSet);
+        Map<String, Object> map = new LinkedHashMap<>(resultSetLabels.length * 2);
+        for (int i = 0; i < resultSetLabels.length; i++) {
+            map.put(resultSetLabels[i], resultSet.getObject(i + 1));
+        }
+        for (int i = 0; i < labels.length; i++) {
+            Object value = labels[i] == null ? null : map.get(labels[i]);
+            if (stringArrayColumns[i] && value != null) {
+                map.put(labels[i], Arrays.stream(String.valueOf(value).split(",")).map(String::trim)
+                        .collect(Collectors.toList()));
+            }
+        }
+        return map;
+    }
+
+    /**
+     * Builds the report row of a row copied with {@link #toMap(ResultSet)}.
+     */
+    public List<Object> toRow(Map<String, Object> map) {
+        List<Object> row = new ArrayList<>(labels.length);
+        for (int i = 0; i < labels.length; i++) {
+            Object value = labels[i] == null ? null : map.get(labels[i]);
+            if (stringArrayColumns[i] && value instanceof List) {
+                row.add(StringUtils.join((List<?>) value, ", "));
+            } else if (stringArrayColumns[i] && value != null) {
+                row.add(joinStringArray(String.valueOf(value)));
+            } else {
+                row.add(value);
+            }
+        }
+        return row;
+    }
+
+    private void resolveColumns(ResultSet resultSet) throws SQLException {
+        if (ordinals != null)
+            return;
+
+        ResultSetMetaData metaData = resultSet.getMetaData();
+        resultSetLabels = new String[metaData.getColumnCount()];
+        // like the case insensitive row maps used so far, the last of duplicate labels wins
+        Map<String, Integer> indexByLabel = new TreeMap<>(String.CASE_INSENSITIVE_ORDER);
+        for (int i = 1; i <= resultSetLabels.length; i++) {
+            resultSetLabels[i - 1] = metaData.getColumnLabel(i);
+            indexByLabel.put(resultSetLabels[i - 1], i);
+        }
+
+        int[] resolvedOrdinals = new int[columns.size()];
+        labels = new String[columns.size()];
+        for (int i = 0; i < columns.size(); i++) {
+            Integer index = indexByLabel.get(columns.get(i).getName());
+            if (index != null) {
+                resolvedOrdinals[i] = index;
+                labels[i] = resultSetLabels[index - 1];
+            }
+        }
+        ordinals = resolvedOrdinals;
+    }
+
+    private static String joinStringArray(String value) {
+        return Arrays.stream(value.split(",")).map(String::trim).collect(Collectors.joining(", "));
+    }
+
+}
@@ -4,7 +4,6 @@ import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.databind.node.ObjectNode;
 import com.fasterxml.jackson.databind.node.TextNode;
 import lombok.extern.slf4j.Slf4j;
-import org.apache.commons.lang3.StringUtils;
 import org.egov.ReportApp;
 import org.egov.common.contract.request.RequestInfo;
 import org.egov.common.contract.request.Role;
@@ -20,14 +19,29 @@ import org.egov.swagger.model.*;
 import org.egov.swagger.model.ColumnDetail.TypeEnum;
 import org.egov.tracer.model.CustomException;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
+import org.springframework.jdbc.core.RowCallbackHandler;
 import org.springframework.stereotype.Service;
 
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
 import java.io.IOException;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.sql.ResultSet;
+import java.sql.SQLException;
 import java.util.*;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
 import java.util.stream.Collectors;
 
+import static org.egov.report.utils.ConcurrencyUtils.getResult;
+import static org.egov.report.utils.ConcurrencyUtils.newBoundedExecutor;
+import static org.egov.report.utils.ConcurrencyUtils.withMdc;
+
 @Slf4j
 @Service
 public class ReportService {
@@ -50,6 +64,34 @@ public class ReportService {
     @Autowired
     private AuditService auditService;
 
+    @Autowired
+    private ReportResultCache reportResultCache;
+
+    @Value("${report.subreport.pool.size:4}")
+    private int subReportPoolSize;
+
+    @Value("${report.decryption.pool.size:2}")
+    private int decryptionPoolSize;
+
+    @Value("${report.decryption.chunk.size:500}")
+    private int decryptionChunkSize;
+
+    private ThreadPoolExecutor subReportExecutor;
+
+    private ThreadPoolExecutor decryptionExecutor;
+
+    @PostConstruct
+    public void init() {
+        subReportExecutor = newBoundedExecutor("report-subreport", subReportPoolSize, subReportPoolSize * 4);
+        decryptionExecutor = newBoundedExecutor("report-decryption", decryptionPoolSize, decryptionPoolSize);
+    }
+
+    @PreDestroy
+    public void destroy() {
+        subReportExecutor.shutdownNow();
+        decryptionExecutor.shutdownNow();
+    }
+
     public MetadataResponse getMetaData(MetaDataRequest metaDataRequest, String moduleName) throws CustomException {
         try {
             MetadataResponse metadataResponse = new MetadataResponse();
@@ -204,12 +246,20 @@ public class ReportService {
         List<String> subReportNames = new ArrayList<>();
         ReportDefinition reportDefinition = rds.getReportDefinition(moduleName + " " + reportRequest.getReportName());
         if (reportDefinition.isSubReport()) {
-            rResponse = getReportData(reportRequest, moduleName, reportRequest.getReportName(), authToken);
-            reportResponse.add(rResponse);
+            // sub reports are independent of each other, they run while the main report runs on this thread
             subReportNames = reportDefinition.getSubReportNames();
+            List<Future<ReportResponse>> subReports = new ArrayList<>();
             for (String sr : subReportNames) {
-                rResponse = getReportData(reportRequest, moduleName, sr, authToken);
+                subReports.add(subReportExecutor.submit(withMdc(() -> getReportData(reportRequest, moduleName, sr, authToken))));
+            }
+            try {
+                rResponse = getReportData(reportRequest, moduleName, reportRequest.getReportName(), authToken);
                 reportResponse.add(rResponse);
+                for (Future<ReportResponse> subReport : subReports) {
+                    reportResponse.add(getResult(subReport));
+                }
+            } finally {
+                subReports.forEach(subReport -> subReport.cancel(true));
             }
         } else {
             rResponse = getReportData(reportRequest, moduleName, reportRequest.getReportName(), authToken);
@@ -225,21 +275,17 @@ public class ReportService {
     public ReportResponse getReportData(ReportRequest reportRequest, String moduleName, String reportName, String authToken) {
         ReportDefinitions rds = ReportApp.getReportDefs();
         ReportDefinition reportDefinition = rds.getReportDefinition(moduleName+ " "+reportName);
-        List<Map<String, Object>> maps = reportRepository.getData(reportRequest, reportDefinition,authToken);
-        // Call decryption service if decryption is required for the report
-        if ((reportDefinition.getdecryptionPathId()!= null)&&(reportRequest.getRequestInfo()!=null)&&(reportRequest.getRequestInfo().getUserInfo()!=null))
-        {
-            try {
-                maps = encryptionService.decryptJson(reportRequest.getRequestInfo(), maps,
-                        reportDefinition.getdecryptionPathId(), "Retrieve Report Data", Map.class);
-            } catch (IOException e) {
-                log.error("IO exception while decrypting report: " + e.getMessage());
-                throw new CustomException("REPORT_DECRYPTION_ERROR", "Error while decrypting report data");
-            }
-        }
-        List<SourceColumn> columns = reportDefinition.getSourceColumns();
         ReportResponse reportResponse = new ReportResponse();
-        populateData(columns, maps, reportResponse);
+        Long cacheTtl = reportDefinition.getCacheTtl();
+        // decrypted data depends on the privileges of the user and each access is audited, so it is not cached
+        if (cacheTtl != null && cacheTtl > 0 && reportDefinition.getdecryptionPathId() == null) {
+            ReportResultCache.CachedRows cachedRows = reportResultCache.get(getCacheKey(reportRequest, moduleName, reportDefinition),
+                    TimeUnit.SECONDS.toMillis(cacheTtl), () -> getRows(reportRequest, reportDefinition, authToken));
+            reportResponse.setReportData(cachedRows.getRows());
+            reportResponse.setTtl(cachedRows.getExpiresAt());
+        } else {
+            reportResponse.setReportData(getRows(reportRequest, reportDefinition, authToken));
+        }
         
         /*
          * TODO add user integration
@@ -250,34 +296,131 @@ public class ReportService {
         return reportResponse;
     }
 
-    private void populateData(List<SourceColumn> columns, List<Map<String, Object>> maps,
-                              ReportResponse reportResponse) {
-
-        List<List<Object>> listOfresultSetRowsWithoutColumnName = new ArrayList<>();
-
-        for (int i = 0; i < maps.size(); i++) {
-        	
-            List<Object> singleResultSetRow = new ArrayList<>();
-            Map<String, Object> iThIndexMapOfResultSet = maps.get(i);
-            Map<String, Object> newMap = new TreeMap<>(String.CASE_INSENSITIVE_ORDER);
-            newMap.putAll(iThIndexMapOfResultSet);
-            /*
-             *  restore ['abc','xyz'] -> 'abc, xyz'  -- 
-             *  earlier the string had to be transformed to array to allow decryption in case of encrypted columns
-             */
-            for (SourceColumn sourceColm : columns) {
-            	
-                if (sourceColm.getType().toString().equals("stringarray") && (newMap.get(sourceColm.getName()) != null)) {
-                    List<String> stringlist = (List<String>) newMap.get(sourceColm.getName());
-                    String value = StringUtils.join(stringlist, ", ");
-                    singleResultSetRow.add(value);
-                } else {
-                    singleResultSetRow.add(newMap.get(sourceColm.getName()));
+    /**
+     * Drops the cached report data, which was computed with the previous report
+     * definitions.
+     */
+    public void invalidateReportCache() {
+        reportResultCache.invalidate();
+    }
+
+    private List<List<Object>> getRows(ReportRequest reportRequest, ReportDefinition reportDefinition, String authToken) {
+        List<SourceColumn> columns = reportDefinition.getSourceColumns();
+        ReportRowTransformer rowTransformer = new ReportRowTransformer(columns);
+        // Call decryption service if decryption is required for the report
+        if ((reportDefinition.getdecryptionPathId()!= null)&&(reportRequest.getRequestInfo()!=null)&&(reportRequest.getRequestInfo().getUserInfo()!=null))
+        {
+            return getDecryptedRows(reportRequest, reportDefinition, authToken, rowTransformer);
+        }
+        List<List<Object>> rows = new ArrayList<>();
+        reportRepository.streamData(reportRequest, reportDefinition, authToken,
+                resultSet -> rows.add(rowTransformer.toRow(resultSet)));
+        return rows;
+    }
+
+    /**
+     * Fingerprint of the definition, tenant, search params and role scope of a
+     * request. Search params are sorted by name, and the user only becomes part
+     * of the key when the query filters on the user.
+     */
+    private String getCacheKey(ReportRequest reportRequest, String moduleName, ReportDefinition reportDefinition) {
+        Map<String, Object> searchParams = new TreeMap<>();
+        for (SearchParam searchParam : reportRequest.getSearchParams()) {
+            searchParams.put(searchParam.getName(), searchParam.getInput());
+        }
+        Set<String> roles = new TreeSet<>();
+        Long userId = null;
+        User userInfo = reportRequest.getRequestInfo() == null ? null : reportRequest.getRequestInfo().getUserInfo();
+        if (userInfo != null) {
+            if (userInfo.getRoles() != null)
+                userInfo.getRoles().forEach(role -> roles.add(role.getCode() + ":" + role.getTenantId()));
+            if (reportDefinition.getQuery().contains("$userid"))
+                userId = userInfo.getId();
+        }
+
+        Map<String, Object> key = new LinkedHashMap<>();
+        key.put("report", moduleName + " " + reportDefinition.getReportName());
+        key.put("version", reportDefinition.getVersion());
+        key.put("tenantId", reportRequest.getTenantId());
+        key.put("searchParams", searchParams);
+        key.put("roles", roles);
+        key.put("userId", userId);
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(objectMapper.writeValueAsBytes(key));
+            return Base64.getEncoder().encodeToString(digest);
+        } catch (IOException | NoSuchAlgorithmException e) {
+            throw new CustomException("REPORT_CACHE_ERROR", "Error while computing report cache key: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Reads the report in chunks and decrypts each chunk on the decryption pool
+     * while the next one is being read from the database.
+     */
+    private List<List<Object>> getDecryptedRows(ReportRequest reportRequest, ReportDefinition reportDefinition,
+                                                String authToken, ReportRowTransformer rowTransformer) {
+        DecryptingRowHandler rowHandler = new DecryptingRowHandler(reportRequest.getRequestInfo(), reportDefinition, rowTransformer);
+        try {
+            reportRepository.streamData(reportRequest, reportDefinition, authToken, rowHandler);
+            rowHandler.flush();
+
+            List<List<Object>> rows = new ArrayList<>();
+            for (Future<List<Map<String, Object>>> decryptedChunk : rowHandler.decryptedChunks) {
+                for (Map<String, Object> map : getResult(decryptedChunk)) {
+                    rows.add(rowTransformer.toRow(map));
                 }
             }
-            listOfresultSetRowsWithoutColumnName.add(singleResultSetRow);
+            return rows;
+        } finally {
+            rowHandler.decryptedChunks.forEach(decryptedChunk -> decryptedChunk.cancel(true));
         }
-        reportResponse.setReportData(listOfresultSetRowsWithoutColumnName);
+    }
+
+    private class DecryptingRowHandler implements RowCallbackHandler {
+
+        private final RequestInfo requestInfo;
+
+        private final ReportDefinition reportDefinition;
+
+        private final ReportRowTransformer rowTransformer;
+
+        private final List<Future<List<Map<String, Object>>>> decryptedChunks = new ArrayList<>();
+
+        private List<Map<String, Object>> chunk = new ArrayList<>();
+
+        private DecryptingRowHandler(RequestInfo requestInfo, ReportDefinition reportDefinition,
+                                     ReportRowTransformer rowTransformer) {
+            this.requestInfo = requestInfo;
+            this.reportDefinition = reportDefinition;
+            this.rowTransformer = rowTransformer;
+        }
+
+        @Override
+        public void processRow(ResultSet resultSet) throws SQLException {
+            chunk.add(rowTransformer.toMap(resultSet));
+            if (chunk.size() >= decryptionChunkSize)
+                flush();
+        }
+
+        private void flush() {
+            if (chunk.isEmpty())
+                return;
+            decryptedChunks.add(decrypt(requestInfo, reportDefinition, chunk));
+            chunk = new ArrayList<>();
+        }
+    }
+
+    private Future<List<Map<String, Object>>> decrypt(RequestInfo requestInfo, ReportDefinition reportDefinition,
+                                                      List<Map<String, Object>> maps) {
+        return decryptionExecutor.submit(withMdc(() -> {
+            try {
+                return encryptionService.decryptJson(requestInfo, maps,
+                        reportDefinition.getdecryptionPathId(), "Retrieve Report Data", Map.class);
+            } catch (IOException e) {
+                log.error("IO exception while decrypting report: " + e.getMessage());
+                throw new CustomException("REPORT_DECRYPTION_ERROR", "Error while decrypting report data");
+            }
+        }));
     }
 
     private void populateReportHeader(ReportDefinition reportDefinition, ReportResponse reportResponse) {
@@ -0,0 +1,69 @@
+package org.egov.report.utils;
+
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.egov.tracer.model.CustomException;
+import org.slf4j.MDC;
+
+public final class ConcurrencyUtils {
+
+    private ConcurrencyUtils() {
+    }
+
+    public static ThreadPoolExecutor newBoundedExecutor(String name, int poolSize, int queueSize) {
+        AtomicInteger threadCount = new AtomicInteger();
+        // when the queue is full the caller runs the task, which keeps the work in flight bounded
+        return new ThreadPoolExecutor(poolSize, poolSize, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueSize), runnable -> {
+                    Thread thread = new Thread(runnable, name + "-" + threadCount.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                }, new ThreadPoolExecutor.CallerRunsPolicy());
+    }
+
+    /**
+     * Waits for the result of a task, failures of the task are rethrown as they
+     * were raised.
+     */
+    public static <T> T getResult(Future<T> future) {
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new CustomException("REPORT_EXECUTION_ERROR", "Report execution was interrupted");
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException)
+                throw (RuntimeException) e.getCause();
+            throw new CustomException("REPORT_EXECUTION_ERROR", e.getCause().getMessage());
+        }
+    }
+
+    /**
+     * Carries the logging context, with the correlation id, over to the pool
+     * threads.
+     */
+    public static <T> Callable<T> withMdc(Callable<T> task) {
+        Map<String, String> context = MDC.getCopyOfContextMap();
+        return () -> {
+            Map<String, String> previous = MDC.getCopyOfContextMap();
+            if (context != null)
+                MDC.setContextMap(context);
+            try {
+                return task.call();
+            } finally {
+                if (previous != null)
+                    MDC.setContextMap(previous);
+                else
+                    MDC.clear();
+            }
+        };
+    }
+
+}
@@ -99,6 +99,17 @@ public class ReportDefinition {
     @JsonProperty("selectiveDownload")
     private boolean selectiveDownload = false;
 
+    // seconds for which report data is cached, not cached when absent
+    @JsonProperty("cacheTtl")
+    private Long cacheTtl = null;
+
+    public Long getCacheTtl() {
+        return cacheTtl;
+    }
+
+    public void setCacheTtl(Long cacheTtl) {
+        this.cacheTtl = cacheTtl;
+    }
 
     public boolean isSelectiveDownload() {
         return selectiveDownload;
@@ -0,0 +1,188 @@
+package org.egov.report.repository;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import org.egov.tracer.model.CustomException;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+public class ExternalServiceRepositoryTest {
+
+    private static final String KEY = "http://egov-mdms-service:8080/egov-mdms-service/v1/_search {\"tenantId\":\"pb\"}";
+
+    private final AtomicInteger calls = new AtomicInteger();
+
+    private final ExecutorService executor = Executors.newFixedThreadPool(2);
+
+    private ExternalServiceRepository repository;
+
+    @Before
+    public void setUp() {
+        repository = new ExternalServiceRepository();
+        ReflectionTestUtils.setField(repository, "cacheTtl", 60000L);
+        ReflectionTestUtils.setField(repository, "cacheMaxSize", 500);
+        ReflectionTestUtils.setField(repository, "poolSize", 2);
+        repository.init();
+    }
+
+    @After
+    public void tearDown() {
+        repository.destroy();
+        executor.shutdownNow();
+    }
+
+    @Test
+    public void testResponsesAreCachedPerUser() {
+        assertEquals("response for 1", repository.fetch(KEY, 1L, new HashMap<>(), call("response for 1")));
+        assertEquals("response for 2", repository.fetch(KEY, 2L, new HashMap<>(), call("response for 2")));
+        assertEquals("anonymous response", repository.fetch(KEY, null, new HashMap<>(), call("anonymous response")));
+        assertEquals(3, calls.get());
+
+        assertEquals("response for 1", repository.fetch(KEY, 1L, new HashMap<>(), call("other")));
+        assertEquals("response for 2", repository.fetch(KEY, 2L, new HashMap<>(), call("other")));
+        assertEquals("anonymous response", repository.fetch(KEY, null, new HashMap<>(), call("other")));
+        assertEquals(3, calls.get());
+    }
+
+    @Test
+    public void testRunSeesTheResponseItFetchedFirst() {
+        ReflectionTestUtils.setField(repository, "cacheTtl", 0L);
+        Map<String, String> memo = new HashMap<>();
+
+        repository.fetch(KEY, 1L, memo, call("first"));
+
+        assertEquals("first", repository.fetch(KEY, 1L, memo, call("second")));
+        assertEquals("second", repository.fetch(KEY, 1L, new HashMap<>(), call("second")));
+        assertEquals(2, calls.get());
+    }
+
+    @Test
+    public void testFailedLookupIsNeitherCachedNorMemoized() {
+        Map<String, String> memo = new HashMap<>();
+        try {
+            repository.fetch(KEY, 1L, memo, () -> {
+                calls.incrementAndGet();
+                throw new CustomException("EXTERNAL_SERVICE_ERROR", "Service unavailable");
+            });
+            fail("Expected the lookup to fail");
+        } catch (CustomException e) {
+            assertEquals("EXTERNAL_SERVICE_ERROR", e.getCode());
+        }
+
+        assertTrue(memo.isEmpty());
+        assertEquals("response", repository.fetch(KEY, 1L, memo, call("response")));
+        assertEquals(2, calls.get());
+    }
+
+    @Test
+    public void testMissingResponseIsNeitherCachedNorMemoized() {
+        Map<String, String> memo = new HashMap<>();
+
+        assertNull(repository.fetch(KEY, 1L, memo, call(null)));
+
+        assertTrue(memo.isEmpty());
+        assertEquals("response", repository.fetch(KEY, 1L, memo, call("response")));
+        assertEquals(2, calls.get());
+    }
+
+    @Test
+    public void testConcurrentRunsOfAUserShareASingleCall() throws Exception {
+        CountDownLatch calling = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        Supplier<String> slowCall = () -> {
+            calls.incrementAndGet();
+            calling.countDown();
+            await(release);
+            return "response";
+        };
+
+        Future<String> first = executor.submit(() -> repository.fetch(KEY, 1L, new HashMap<>(), slowCall));
+        assertTrue(calling.await(5, TimeUnit.SECONDS));
+        Future<String> second = executor.submit(() -> repository.fetch(KEY, 1L, new HashMap<>(), slowCall));
+        Thread.sleep(100);
+        release.countDown();
+
+        assertEquals("response", first.get(5, TimeUnit.SECONDS));
+        assertEquals("response", second.get(5, TimeUnit.SECONDS));
+        assertEquals(1, calls.get());
+    }
+
+    @Test
+    public void testFailedCallIsThrownToConcurrentRunsWaitingForIt() throws Exception {
+        CountDownLatch calling = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        Supplier<String> failingCall = () -> {
+            calls.incrementAndGet();
+            calling.countDown();
+            await(release);
+            throw new CustomException("EXTERNAL_SERVICE_ERROR", "Service unavailable");
+        };
+
+        Future<String> first = executor.submit(() -> repository.fetch(KEY, 1L, new HashMap<>(), failingCall));
+        assertTrue(calling.await(5, TimeUnit.SECONDS));
+        Future<String> second = executor.submit(() -> repository.fetch(KEY, 1L, new HashMap<>(), failingCall));
+        Thread.sleep(100);
+        release.countDown();
+
+        assertFailsWithCustomException(first);
+        assertFailsWithCustomException(second);
+        assertEquals(1, calls.get());
+    }
+
+    @Test
+    public void testLookupsOfARunAreAllCompleted() {
+        Map<String, String> memo = new ConcurrentHashMap<>();
+
+        repository.runAll(Arrays.asList(
+                () -> repository.fetch("boundaries", 1L, memo, call("boundaries")),
+                () -> repository.fetch("departments", 1L, memo, call("departments")),
+                () -> repository.fetch("designations", 1L, memo, call("designations"))));
+
+        assertEquals(3, memo.size());
+        assertEquals("departments", memo.get("departments"));
+    }
+
+    private Supplier<String> call(String response) {
+        return () -> {
+            calls.incrementAndGet();
+            return response;
+        };
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static void assertFailsWithCustomException(Future<String> result) throws Exception {
+        try {
+            result.get(5, TimeUnit.SECONDS);
+            fail("Expected the lookup to fail");
+        } catch (ExecutionException e) {
+            assertSame(CustomException.class, e.getCause().getClass());
+        }
+    }
+
+}
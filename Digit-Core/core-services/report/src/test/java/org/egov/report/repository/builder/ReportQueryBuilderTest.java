@@ -0,0 +1,116 @@
+package org.egov.report.repository.builder;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.Collections;
+
+import org.egov.common.utils.MultiStateInstanceUtil;
+import org.egov.report.repository.ExternalServiceRepository;
+import org.egov.swagger.model.ExternalService;
+import org.egov.swagger.model.ReportDefinition;
+import org.egov.tracer.model.CustomException;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.client.ResourceAccessException;
+import org.springframework.web.client.RestTemplate;
+
+public class ReportQueryBuilderTest {
+
+    private static final String DEPARTMENTS_URL = "http://egov-mdms-service:8080/egov-mdms-service/v1/_get?tenantId=$tenantId"
+            + "&moduleName=common-masters&masterName=Department";
+
+    private final RestTemplate restTemplate = mock(RestTemplate.class);
+
+    private ExternalServiceRepository externalServiceRepository;
+
+    private ReportQueryBuilder reportQueryBuilder;
+
+    @Before
+    public void setUp() {
+        externalServiceRepository = new ExternalServiceRepository();
+        ReflectionTestUtils.setField(externalServiceRepository, "cacheTtl", 60000L);
+        ReflectionTestUtils.setField(externalServiceRepository, "cacheMaxSize", 500);
+        ReflectionTestUtils.setField(externalServiceRepository, "poolSize", 2);
+        externalServiceRepository.init();
+
+        reportQueryBuilder = new ReportQueryBuilder();
+        ReflectionTestUtils.setField(reportQueryBuilder, "restTemplate", restTemplate);
+        ReflectionTestUtils.setField(reportQueryBuilder, "externalServiceRepository", externalServiceRepository);
+        ReflectionTestUtils.setField(reportQueryBuilder, "centralInstanceUtil", mock(MultiStateInstanceUtil.class));
+        ReflectionTestUtils.setField(reportQueryBuilder, "isSearchEnabled", false);
+        ReflectionTestUtils.setField(reportQueryBuilder, "timezone", "UTC");
+    }
+
+    @After
+    public void tearDown() {
+        externalServiceRepository.destroy();
+    }
+
+    @Test
+    public void testExternalServiceValuesAreInlinedInTheQuery() {
+        when(restTemplate.postForObject(any(URI.class), any(), eq(String.class))).thenReturn(departments());
+
+        String query = reportQueryBuilder.buildQuery(new ArrayList<>(), "pb.amritsar", reportDefinition(), "token", 1L);
+
+        assertEquals("SELECT * FROM ('DEPT_1','Engineering'),('DEPT_2','Health') AS department", query);
+    }
+
+    @Test
+    public void testFailedLookupFailsTheReport() {
+        when(restTemplate.postForObject(any(URI.class), any(), eq(String.class)))
+                .thenThrow(new ResourceAccessException("Connection refused"));
+
+        try {
+            reportQueryBuilder.buildQuery(new ArrayList<>(), "pb.amritsar", reportDefinition(), "token", 1L);
+            fail("Expected the report to fail");
+        } catch (CustomException e) {
+            assertEquals("EXTERNAL_SERVICE_ERROR", e.getCode());
+        }
+    }
+
+    @Test
+    public void testFailedLookupIsRetriedByTheNextReport() {
+        when(restTemplate.postForObject(any(URI.class), any(), eq(String.class)))
+                .thenThrow(new ResourceAccessException("Connection refused"))
+                .thenReturn(departments());
+
+        try {
+            reportQueryBuilder.buildQuery(new ArrayList<>(), "pb.amritsar", reportDefinition(), "token", 1L);
+            fail("Expected the report to fail");
+        } catch (CustomException e) {
+            assertEquals("EXTERNAL_SERVICE_ERROR", e.getCode());
+        }
+
+        String query = reportQueryBuilder.buildQuery(new ArrayList<>(), "pb.amritsar", reportDefinition(), "token", 1L);
+        assertEquals("SELECT * FROM ('DEPT_1','Engineering'),('DEPT_2','Health') AS department", query);
+    }
+
+    private static ReportDefinition reportDefinition() {
+        ExternalService externalService = new ExternalService();
+        externalService.setApiURL(DEPARTMENTS_URL);
+        externalService.setStateData(false);
+        externalService.setTableName("$department");
+        externalService.setKeyOrder("code,name");
+        externalService.setEntity("$.MdmsRes.common-masters.Department.*");
+
+        ReportDefinition reportDefinition = new ReportDefinition();
+        reportDefinition.setQuery("SELECT * FROM $department AS department");
+        reportDefinition.setExternalService(Collections.singletonList(externalService));
+        return reportDefinition;
+    }
+
+    private static String departments() {
+        return "{\"MdmsRes\":{\"common-masters\":{\"Department\":[{\"code\":\"DEPT_1\",\"name\":\"Engineering\"},"
+                + "{\"code\":\"DEPT_2\",\"name\":\"Health\"}]}}}";
+    }
+
+}
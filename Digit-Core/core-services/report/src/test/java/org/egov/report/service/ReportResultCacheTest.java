@@ -0,0 +1,260 @@
+package org.egov.report.service;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import org.egov.report.service.ReportResultCache.CachedRows;
+import org.egov.tracer.model.CustomException;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+public class ReportResultCacheTest {
+
+    private static final long TTL = 60000;
+
+    private final AtomicInteger loads = new AtomicInteger();
+
+    private final ExecutorService executor = Executors.newFixedThreadPool(4);
+
+    private ReportResultCache cache;
+
+    @Before
+    public void setUp() {
+        cache = cache(1024 * 1024, 16384);
+    }
+
+    @After
+    public void tearDown() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    public void testRowsAreServedFromTheCacheWithinTheirTtl() {
+        CachedRows first = cache.get("collections", TTL, loader(rows(3)));
+        CachedRows second = cache.get("collections", TTL, loader(rows(3)));
+
+        assertEquals(1, loads.get());
+        assertEquals(rows(3), second.getRows());
+        assertEquals(first.getExpiresAt(), second.getExpiresAt());
+        assertTrue(second.getExpiresAt() > System.currentTimeMillis());
+    }
+
+    @Test
+    public void testExpiredRowsAreComputedAgain() throws InterruptedException {
+        cache.get("collections", 1, loader(rows(3)));
+        Thread.sleep(5);
+
+        cache.get("collections", TTL, loader(rows(3)));
+
+        assertEquals(2, loads.get());
+        assertEquals(0L, sizeBytes() - storedBytes("collections"));
+    }
+
+    @Test
+    public void testConcurrentRequestsForTheSameReportRunItOnce() throws Exception {
+        CountDownLatch loading = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        Supplier<List<List<Object>>> slowLoader = () -> {
+            loads.incrementAndGet();
+            loading.countDown();
+            await(release);
+            return rows(3);
+        };
+
+        Future<CachedRows> first = executor.submit(() -> cache.get("collections", TTL, slowLoader));
+        assertTrue(loading.await(5, TimeUnit.SECONDS));
+        List<Future<CachedRows>> waiting = new ArrayList<>();
+        for (int i = 0; i < 3; i++)
+            waiting.add(executor.submit(() -> cache.get("collections", TTL, slowLoader)));
+        Thread.sleep(100);
+        release.countDown();
+
+        assertEquals(rows(3), first.get(5, TimeUnit.SECONDS).getRows());
+        for (Future<CachedRows> result : waiting)
+            assertEquals(rows(3), result.get(5, TimeUnit.SECONDS).getRows());
+        assertEquals(1, loads.get());
+    }
+
+    @Test
+    public void testFailedComputationIsThrownToWaitingRequestsAndNotCached() throws Exception {
+        CountDownLatch loading = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        Supplier<List<List<Object>>> failingLoader = () -> {
+            loads.incrementAndGet();
+            loading.countDown();
+            await(release);
+            throw new CustomException("REPORT_QUERY_ERROR", "Report query failed");
+        };
+
+        Future<CachedRows> first = executor.submit(() -> cache.get("collections", TTL, failingLoader));
+        assertTrue(loading.await(5, TimeUnit.SECONDS));
+        Future<CachedRows> waiting = executor.submit(() -> cache.get("collections", TTL, failingLoader));
+        Thread.sleep(100);
+        release.countDown();
+
+        assertFailsWithCustomException(first);
+        assertFailsWithCustomException(waiting);
+        assertEquals(1, loads.get());
+
+        assertEquals(rows(3), cache.get("collections", TTL, loader(rows(3))).getRows());
+        assertEquals(2, loads.get());
+    }
+
+    @Test
+    public void testLeastRecentlyUsedRowsAreEvictedBeyondTheSizeBound() {
+        cache.get("a", TTL, loader(rows(5)));
+        long entryBytes = sizeBytes();
+        cache = cache(entryBytes * 4, 16384);
+
+        cache.get("a", TTL, loader(rows(5)));
+        cache.get("b", TTL, loader(rows(5)));
+        cache.get("c", TTL, loader(rows(5)));
+        cache.get("d", TTL, loader(rows(5)));
+        cache.get("a", TTL, loader(rows(5)));
+        cache.get("e", TTL, loader(rows(5)));
+
+        assertTrue(sizeBytes() <= entryBytes * 4);
+        assertTrue(isCached("a"));
+        assertFalse(isCached("b"));
+        assertTrue(isCached("e"));
+    }
+
+    @Test
+    public void testRowsTakingAQuarterOfTheCacheAreNotStored() {
+        cache.get("a", TTL, loader(rows(5)));
+        long entryBytes = sizeBytes();
+        cache = cache(entryBytes * 3, 16384);
+
+        assertEquals(rows(5), cache.get("a", TTL, loader(rows(5))).getRows());
+        cache.get("a", TTL, loader(rows(5)));
+
+        assertEquals(0L, sizeBytes());
+        assertEquals(3, loads.get());
+    }
+
+    @Test
+    public void testLargeRowsAreCompressedAndReadBackUnchanged() throws Exception {
+        cache = cache(1024 * 1024, 256);
+        List<List<Object>> small = rows(1);
+        List<List<Object>> large = rows(200);
+
+        cache.get("small", TTL, loader(small));
+        cache.get("large", TTL, loader(large));
+
+        assertFalse(isCompressed("small"));
+        assertTrue(isCompressed("large"));
+        assertTrue(storedBytes("large") < new ObjectMapper().writeValueAsBytes(large).length);
+        assertEquals(small, cache.get("small", TTL, loader(small)).getRows());
+        assertEquals(large, cache.get("large", TTL, loader(large)).getRows());
+        assertEquals(2, loads.get());
+    }
+
+    @Test
+    public void testReloadDropsTheCachedRows() {
+        cache.get("collections", TTL, loader(rows(3)));
+
+        cache.invalidate();
+        cache.get("collections", TTL, loader(rows(3)));
+
+        assertEquals(2, loads.get());
+    }
+
+    @Test
+    public void testRowsComputedDuringAReloadAreReturnedButNotStored() {
+        CachedRows computed = cache.get("collections", TTL, () -> {
+            loads.incrementAndGet();
+            cache.invalidate();
+            return rows(3);
+        });
+
+        assertEquals(rows(3), computed.getRows());
+        assertFalse(isCached("collections"));
+        assertEquals(0L, sizeBytes());
+    }
+
+    private ReportResultCache cache(long maxSizeBytes, int compressionThresholdBytes) {
+        ReportResultCache reportResultCache = new ReportResultCache(new ObjectMapper());
+        ReflectionTestUtils.setField(reportResultCache, "maxSizeBytes", maxSizeBytes);
+        ReflectionTestUtils.setField(reportResultCache, "compressionThresholdBytes", compressionThresholdBytes);
+        return reportResultCache;
+    }
+
+    private Supplier<List<List<Object>>> loader(List<List<Object>> rows) {
+        return () -> {
+            loads.incrementAndGet();
+            return rows;
+        };
+    }
+
+    private static List<List<Object>> rows(int count) {
+        List<List<Object>> rows = new ArrayList<>();
+        for (int i = 0; i < count; i++)
+            rows.add(Arrays.asList("pb.amritsar", "PT-107-" + i, new BigDecimal("1250.50"), 3, null));
+        return rows;
+    }
+
+    private long sizeBytes() {
+        return (Long) ReflectionTestUtils.getField(cache, "sizeBytes");
+    }
+
+    private Object entry(String key) {
+        Map<?, ?> entries = (Map<?, ?>) ReflectionTestUtils.getField(cache, "entries");
+        synchronized (entries) {
+            return entries.get(key);
+        }
+    }
+
+    private boolean isCached(String key) {
+        return entry(key) != null;
+    }
+
+    private boolean isCompressed(String key) {
+        return (Boolean) ReflectionTestUtils.getField(entry(key), "compressed");
+    }
+
+    private long storedBytes(String key) {
+        return ((byte[]) ReflectionTestUtils.getField(entry(key), "data")).length;
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static void assertFailsWithCustomException(Future<CachedRows> result) throws InterruptedException {
+        try {
+            result.get(5, TimeUnit.SECONDS);
+            fail("Expected the report computation to fail");
+        } catch (ExecutionException e) {
+            assertSame(CustomException.class, e.getCause().getClass());
+        } catch (TimeoutException e) {
+            fail("Report computation did not complete");
+        }
+    }
+
+}